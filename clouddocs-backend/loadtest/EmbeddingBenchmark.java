@@ -0,0 +1,163 @@
+import ch.qos.logback.classic.Level;
+import com.clouddocs.backend.config.AIHttpClientConfig;
+import com.clouddocs.backend.service.OpenAIService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrent embedding-query capacity of the blocking and the reactive OpenAI client at a
+ * fixed number of threads, against a local stub that answers like the embeddings API after a
+ * fixed delay (see embedding-benchmark.sh for the classpath):
+ *
+ *   java -cp target/classes:<deps> loadtest/EmbeddingBenchmark.java \
+ *        --threads 4,16 --requests 2000 --latency-ms 200 [--dimensions 1536]
+ *
+ * Blocking mode calls OpenAIService.generateEmbedding from a pool of that many platform threads,
+ * so at most that many queries can be in flight. Reactive mode calls OpenAIService.embed with
+ * the shared HTTP client running on an event loop of that many threads. The stub records how
+ * many requests it held at once, i.e. the concurrent queries each mode actually sustained.
+ */
+public class EmbeddingBenchmark {
+
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static final AtomicInteger peakInFlight = new AtomicInteger();
+
+    public static void main(String[] args) throws Exception {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        Map<String, String> options = parse(args);
+        List<Integer> threadCounts = new ArrayList<>();
+        for (String t : options.getOrDefault("threads", "4,16").split(",")) {
+            threadCounts.add(Integer.parseInt(t.trim()));
+        }
+        int requests = Integer.parseInt(options.getOrDefault("requests", "2000"));
+        int latencyMs = Integer.parseInt(options.getOrDefault("latency-ms", "200"));
+        int dimensions = Integer.parseInt(options.getOrDefault("dimensions", "1536"));
+
+        HttpServer stub = startStub(latencyMs, dimensions);
+        String baseUrl = "http://127.0.0.1:" + stub.getAddress().getPort() + "/v1";
+        System.out.printf("Stub at %s: %d ms per request, %d dimensions; %d queries per run%n%n",
+                baseUrl, latencyMs, dimensions, requests);
+        System.out.printf("%-9s %7s %10s %10s %14s%n", "mode", "threads", "seconds", "queries/s", "peak in-flight");
+
+        try {
+            for (int threads : threadCounts) {
+                print("blocking", threads, blocking(baseUrl, threads, requests));
+                print("reactive", threads, reactive(baseUrl, threads, requests));
+            }
+        } finally {
+            stub.stop(0);
+        }
+    }
+
+    private record Result(double seconds, int completed, int peak) {}
+
+    private static Result blocking(String baseUrl, int threads, int requests) throws Exception {
+        ConnectionProvider pool = ConnectionProvider.create("bench-blocking", threads);
+        OpenAIService client = client(baseUrl, pool, null);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            peakInFlight.set(0);
+            long start = System.nanoTime();
+            List<Future<?>> calls = new ArrayList<>(requests);
+            for (int i = 0; i < requests; i++) {
+                calls.add(executor.submit(() -> client.generateEmbedding("benchmark query")));
+            }
+            for (Future<?> call : calls) {
+                call.get();
+            }
+            return new Result((System.nanoTime() - start) / 1e9, requests, peakInFlight.get());
+        } finally {
+            executor.shutdownNow();
+            pool.dispose();
+        }
+    }
+
+    private static Result reactive(String baseUrl, int threads, int requests) {
+        ConnectionProvider pool = ConnectionProvider.create("bench-reactive", requests);
+        LoopResources loops = LoopResources.create("bench-loop", threads, true);
+        OpenAIService client = client(baseUrl, pool, loops);
+        try {
+            peakInFlight.set(0);
+            long start = System.nanoTime();
+            Long completed = Flux.range(0, requests)
+                    .flatMap(i -> client.embed("benchmark query"), requests)
+                    .count()
+                    .block();
+            return new Result((System.nanoTime() - start) / 1e9, completed.intValue(), peakInFlight.get());
+        } finally {
+            pool.dispose();
+            loops.dispose();
+        }
+    }
+
+    private static OpenAIService client(String baseUrl, ConnectionProvider pool, LoopResources loops) {
+        var httpClient = AIHttpClientConfig.httpClient(pool, 5000, Duration.ofSeconds(30));
+        if (loops != null) {
+            httpClient = httpClient.runOn(loops);
+        }
+        return new OpenAIService(new ObjectMapper(), new ReactorClientHttpConnector(httpClient), baseUrl);
+    }
+
+    private static HttpServer startStub(int latencyMs, int dimensions) throws Exception {
+        StringBuilder body = new StringBuilder("{\"object\":\"list\",\"data\":[{\"index\":0,\"embedding\":[");
+        for (int i = 0; i < dimensions; i++) {
+            body.append(i == 0 ? "" : ",").append(String.format("%.6f", Math.sin(i) / 10));
+        }
+        body.append("]}],\"model\":\"text-embedding-3-small\"}");
+        byte[] response = body.toString().getBytes(StandardCharsets.UTF_8);
+
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/v1/embeddings", exchange -> {
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try (exchange) {
+                exchange.getRequestBody().readAllBytes();
+                Thread.sleep(latencyMs);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, response.length);
+                exchange.getResponseBody().write(response);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    private static void print(String mode, int threads, Result result) {
+        System.out.printf("%-9s %7d %10.2f %10.1f %14d%n", mode, threads, result.seconds(),
+                result.completed() / result.seconds(), result.peak());
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --option value, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+}
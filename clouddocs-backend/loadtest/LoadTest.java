@@ -0,0 +1,140 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load generator for comparing the platform-thread and virtual-thread
+ * configurations (see compare.sh).
+ *
+ * Each of {@code --concurrency} clients sends a request, waits for the response and sends the
+ * next one, so throughput is what the server sustains at that many requests in flight. Latencies
+ * recorded during {@code --warmup} are discarded. Runs on the JDK alone:
+ *
+ *   java loadtest/LoadTest.java --url http://localhost:8080/api/actuator/health \
+ *        --concurrency 200 --duration 60 --warmup 10 [--token JWT] [--label virtual]
+ *
+ * The last line of output is a single RESULT line meant for scripts.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        URI url = URI.create(options.getOrDefault("url", "http://localhost:8080/api/actuator/health"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "200"));
+        long durationMs = Long.parseLong(options.getOrDefault("duration", "60")) * 1000;
+        long warmupMs = Long.parseLong(options.getOrDefault("warmup", "10")) * 1000;
+        Duration timeout = Duration.ofSeconds(Long.parseLong(options.getOrDefault("timeout", "30")));
+        String token = options.get("token");
+        String label = options.getOrDefault("label", "run");
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        HttpRequest.Builder template = HttpRequest.newBuilder(url).timeout(timeout).GET();
+        if (token != null) {
+            template.header("Authorization", "Bearer " + token);
+        }
+        HttpRequest request = template.build();
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmupMs * 1_000_000;
+        long end = measureFrom + durationMs * 1_000_000;
+
+        AtomicLong errors = new AtomicLong();
+        Map<Integer, AtomicLong> statuses = new ConcurrentHashMap<>();
+        // One slot per client; closing the executor publishes them to this thread
+        long[][] perClient = new long[concurrency][];
+        int[] counts = new int[concurrency];
+
+        System.out.printf("%s: %d clients -> %s, warmup %ds, measure %ds%n",
+                label, concurrency, url, warmupMs / 1000, durationMs / 1000);
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                int index = i;
+                clients.submit(() -> {
+                    long[] samples = new long[1024];
+                    int n = 0;
+                    while (true) {
+                        long sent = System.nanoTime();
+                        if (sent >= end) {
+                            break;
+                        }
+                        boolean ok;
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            statuses.computeIfAbsent(response.statusCode(), s -> new AtomicLong()).incrementAndGet();
+                            ok = response.statusCode() < 500;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        long received = System.nanoTime();
+                        if (sent < measureFrom) {
+                            continue;
+                        }
+                        if (!ok) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        if (n == samples.length) {
+                            samples = Arrays.copyOf(samples, n * 2);
+                        }
+                        samples[n++] = received - sent;
+                    }
+                    perClient[index] = samples;
+                    counts[index] = n;
+                    return null;
+                });
+            }
+        }
+
+        int total = Arrays.stream(counts).sum();
+        long[] latencies = new long[total];
+        int offset = 0;
+        for (int i = 0; i < concurrency; i++) {
+            System.arraycopy(perClient[i], 0, latencies, offset, counts[i]);
+            offset += counts[i];
+        }
+        Arrays.sort(latencies);
+
+        double seconds = durationMs / 1000.0;
+        double throughput = total / seconds;
+        System.out.printf("  requests ok: %d, errors: %d, statuses: %s%n", total, errors.get(), statuses);
+        System.out.printf("  throughput:  %.1f req/s%n", throughput);
+        System.out.printf("  latency ms:  p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f%n",
+                ms(latencies, 0.50), ms(latencies, 0.90), ms(latencies, 0.99), ms(latencies, 0.999),
+                total == 0 ? 0.0 : latencies[total - 1] / 1e6);
+        System.out.printf("RESULT label=%s concurrency=%d ok=%d errors=%d rps=%.1f p50=%.1f p99=%.1f p999=%.1f%n",
+                label, concurrency, total, errors.get(), throughput,
+                ms(latencies, 0.50), ms(latencies, 0.99), ms(latencies, 0.999));
+    }
+
+    private static double ms(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --option value, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,62 @@
+#!/usr/bin/env bash
+# Runs the same load against the default (platform-thread) configuration and the "virtual"
+# profile, one after the other on the same machine, and prints both results side by side.
+#
+#   ./loadtest/compare.sh                      # /api/actuator/health, 200 clients, 60s each
+#   URL_PATH=/api/notifications/unread-count TOKEN=<jwt> CONCURRENCY=500 ./loadtest/compare.sh
+#
+# Needs the usual database/API environment variables; builds the jar if target/ has none.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+PORT=${PORT:-8080}
+URL_PATH=${URL_PATH:-/api/actuator/health}
+CONCURRENCY=${CONCURRENCY:-200}
+DURATION=${DURATION:-60}
+WARMUP=${WARMUP:-10}
+JAVA_OPTS=${JAVA_OPTS:--Xms128m -Xmx300m -XX:+UseSerialGC}
+
+JAR=$(ls target/*.jar 2>/dev/null | grep -v original | head -n 1 || true)
+if [[ -z "$JAR" ]]; then
+  ./mvnw -B -q package -DskipTests
+  JAR=$(ls target/*.jar | grep -v original | head -n 1)
+fi
+
+results=()
+
+run() {
+  local label=$1 profiles=$2
+  echo "🚀 Starting $label (profiles: ${profiles:-default})"
+  # shellcheck disable=SC2086
+  PORT=$PORT SPRING_PROFILES_ACTIVE=$profiles java $JAVA_OPTS -jar "$JAR" > "target/loadtest-$label.log" 2>&1 &
+  local pid=$!
+  trap 'kill $pid 2>/dev/null || true' EXIT
+
+  for _ in $(seq 1 120); do
+    if curl -sf "http://localhost:$PORT/api/actuator/health" > /dev/null; then
+      break
+    fi
+    sleep 1
+  done
+
+  local args=(--url "http://localhost:$PORT$URL_PATH" --concurrency "$CONCURRENCY"
+              --duration "$DURATION" --warmup "$WARMUP" --label "$label")
+  if [[ -n "${TOKEN:-}" ]]; then
+    args+=(--token "$TOKEN")
+  fi
+  local out
+  out=$(java loadtest/LoadTest.java "${args[@]}" | tee /dev/stderr | grep '^RESULT')
+  results+=("$out")
+
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  trap - EXIT
+}
+
+run platform ""
+run virtual virtual
+
+echo
+echo "📊 Comparison ($CONCURRENCY clients, ${DURATION}s, $URL_PATH)"
+printf '%s\n' "${results[@]}"
@@ -0,0 +1,13 @@
+#!/usr/bin/env bash
+# Blocking vs reactive AI client capacity at fixed thread counts, against a local stub of the
+# embeddings API. Arguments are passed to EmbeddingBenchmark, e.g.
+#
+#   ./loadtest/embedding-benchmark.sh --threads 4,16 --requests 2000 --latency-ms 200
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+./mvnw -B -q compile dependency:build-classpath \
+  -Dmdep.outputFile=target/benchmark.classpath -Dmdep.includeScope=runtime
+
+java -cp "target/classes:$(cat target/benchmark.classpath)" loadtest/EmbeddingBenchmark.java "$@"
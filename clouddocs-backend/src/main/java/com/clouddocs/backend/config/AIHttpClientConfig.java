@@ -0,0 +1,96 @@
+package com.clouddocs.backend.config;
+
+import io.netty.channel.ChannelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 🤖 Shared non-blocking HTTP client for the AI providers
+ * One connection pool for OpenAI and Cohere: HTTP/2 negotiated over TLS where the API offers it,
+ * connect and response timeouts, and a retry policy with jittered backoff for transient failures.
+ */
+@Configuration
+public class AIHttpClientConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(AIHttpClientConfig.class);
+
+    @Value("${ai.http.max-connections:50}")
+    private int maxConnections;
+
+    // Requests allowed to wait for a pooled connection before failing fast
+    @Value("${ai.http.pending-acquire-max:1000}")
+    private int pendingAcquireMax;
+
+    @Value("${ai.http.connect-timeout-ms:5000}")
+    private int connectTimeoutMs;
+
+    @Value("${ai.http.response-timeout-ms:30000}")
+    private long responseTimeoutMs;
+
+    @Value("${ai.http.max-idle-ms:30000}")
+    private long maxIdleMs;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider aiConnectionProvider() {
+        return ConnectionProvider.builder("ai-providers")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMax)
+                .pendingAcquireTimeout(Duration.ofMillis(responseTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxIdleMs))
+                .evictInBackground(Duration.ofMillis(maxIdleMs))
+                .build();
+    }
+
+    @Bean
+    public ReactorClientHttpConnector aiHttpConnector(ConnectionProvider aiConnectionProvider) {
+        logger.info("✅ AI HTTP client initialized - Max connections: {}, Connect timeout: {} ms, Response timeout: {} ms",
+                maxConnections, connectTimeoutMs, responseTimeoutMs);
+        return new ReactorClientHttpConnector(
+                httpClient(aiConnectionProvider, connectTimeoutMs, Duration.ofMillis(responseTimeoutMs)));
+    }
+
+    /**
+     * HTTP/2 is picked by ALPN on https endpoints; plain http (local stubs) stays on HTTP/1.1.
+     */
+    public static HttpClient httpClient(ConnectionProvider provider, int connectTimeoutMs, Duration responseTimeout) {
+        return HttpClient.create(provider)
+                .protocol(HttpProtocol.H2, HttpProtocol.HTTP11)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(responseTimeout)
+                .compress(true);
+    }
+
+    /**
+     * Exponential backoff with 50% jitter so retries from concurrent searches do not arrive in
+     * lockstep. Only transient failures are retried; the caller sees the last error.
+     */
+    public static Retry retrySpec(int maxRetries, Duration minBackoff) {
+        return Retry.backoff(maxRetries, minBackoff)
+                .maxBackoff(minBackoff.multipliedBy(8))
+                .jitter(0.5)
+                .filter(AIHttpClientConfig::isTransient)
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    static boolean isTransient(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            // 429 is left to provider failover rather than hammering the same quota
+            int status = response.getStatusCode().value();
+            return status == 408 || status >= 500;
+        }
+        return e instanceof WebClientRequestException || e instanceof TimeoutException;
+    }
+}
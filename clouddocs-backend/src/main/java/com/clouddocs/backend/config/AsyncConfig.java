@@ -5,6 +5,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
@@ -26,9 +27,28 @@ public class AsyncConfig implements AsyncConfigurer {
     @Value("${spring.task.execution.pool.queue-capacity:25}")
     private int queueCapacity;
 
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // Caps in-flight tasks in virtual-thread mode; further submitters wait instead of queueing
+    @Value("${app.async.virtual.concurrency-limit:256}")
+    private int virtualConcurrencyLimit;
+
     @Bean(name = "asyncExecutor")
     @Override
     public Executor getAsyncExecutor() {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("CloudDocs-Async-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(virtualConcurrencyLimit);
+            executor.setTaskTerminationTimeout(60_000L);
+            
+            logger.info("✅ Async executor initialized on virtual threads - Concurrency limit: {}", 
+                       virtualConcurrencyLimit);
+            
+            return executor;
+        }
+        
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         
         executor.setCorePoolSize(corePoolSize);
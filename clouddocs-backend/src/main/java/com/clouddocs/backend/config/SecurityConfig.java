@@ -1,6 +1,7 @@
 package com.clouddocs.backend.config;
 
 import com.clouddocs.backend.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -79,6 +80,9 @@ public class SecurityConfig {
                 // ✅ CRITICAL: Allow OPTIONS requests first
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                 
+                // ✅ Async dispatches (SSE, streamed downloads) finish requests that were already authorized
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                
                 // ✅ CRITICAL: Static resources and health endpoints
                 .requestMatchers(
                     "/favicon.ico", "/error", "/actuator/health", "/actuator/info",
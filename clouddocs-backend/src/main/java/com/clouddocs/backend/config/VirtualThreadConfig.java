@@ -0,0 +1,48 @@
+package com.clouddocs.backend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Extra wiring for virtual-thread mode ({@code spring.threads.virtual.enabled=true}, see the
+ * {@code virtual} profile).
+ *
+ * Spring Boot itself moves Tomcat request handling and {@code @Scheduled} tasks onto virtual
+ * threads in this mode, and {@link AsyncConfig} does the same for {@code asyncExecutor}. What is
+ * left is the database: the Hikari pool stays small, so its borrowers are put behind a
+ * {@link ConnectionLimitingDataSource}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    @Bean
+    static BeanPostProcessor connectionLimiterPostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConnectionLimitingDataSource) {
+                    return bean;
+                }
+                // Default to the pool size: a permit then means a connection is free or about to be
+                int permits = environment.getProperty("app.datasource.limiter.permits", Integer.class,
+                        environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+                long timeoutMs = environment.getProperty("app.datasource.limiter.acquire-timeout-ms", Long.class,
+                        environment.getProperty("spring.datasource.hikari.connection-timeout", Long.class, 30_000L));
+
+                logger.info("✅ Connection limiter on '{}' - Permits: {}, Acquire timeout: {} ms",
+                        beanName, permits, timeoutMs);
+                return new ConnectionLimitingDataSource(dataSource, permits, timeoutMs);
+            }
+        };
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.Map;
@@ -33,10 +34,11 @@ public class AIController {
     
     /**
      * 🔍 AI-powered semantic search with multi-provider support
+     * Returns a Mono so the request thread is released while the AI provider responds
      */
     @PostMapping("/search")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> semanticSearch(
+    public Mono<ResponseEntity<?>> semanticSearch(
             @RequestBody Map<String, Object> request,
             @AuthenticationPrincipal UserDetails userDetails) {
         
@@ -45,59 +47,67 @@ public class AIController {
             
             // Check if AI search is enabled for this user
             if (!featureFlagService.isAiSearchEnabledForUser(username)) {
-                return ResponseEntity.ok(Map.of(
+                return Mono.just(ResponseEntity.ok(Map.of(
                     "message", "AI search is not available for your account",
                     "fallback", "Please use regular search",
                     "username", username
-                ));
+                )));
             }
             
             // Validate request
             String query = (String) request.get("query");
             if (query == null || query.trim().isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of(
+                return Mono.just(ResponseEntity.badRequest().body(Map.of(
                     "error", "Query parameter is required"
-                ));
+                )));
             }
             
             if (query.trim().length() < 2) {
-                return ResponseEntity.badRequest().body(Map.of(
+                return Mono.just(ResponseEntity.badRequest().body(Map.of(
                     "error", "Query must be at least 2 characters long"
-                ));
+                )));
             }
             
             int limit = (int) request.getOrDefault("limit", 10);
             boolean useHybrid = (boolean) request.getOrDefault("hybrid", false);
             
             // Perform search
-            List<DocumentDTO> results = useHybrid 
-                ? aiSearchService.hybridSearch(query.trim(), username, limit)
-                : aiSearchService.semanticSearch(query.trim(), username, limit);
+            Mono<List<DocumentDTO>> search = useHybrid 
+                ? aiSearchService.hybridSearchAsync(query.trim(), username, limit)
+                : aiSearchService.semanticSearchAsync(query.trim(), username, limit);
             
-            // Get active provider info
-            String activeProvider = multiProviderAIService.getActiveProvider() != null 
-                ? multiProviderAIService.getActiveProvider().getProviderName() 
-                : "None";
-            
-            return ResponseEntity.ok(Map.of(
-                "query", query.trim(),
-                "results", results,
-                "count", results.size(),
-                "type", useHybrid ? "ai_hybrid_search" : "ai_semantic_search",
-                "activeProvider", activeProvider,
-                "beta_user", true,
-                "searchMethod", useHybrid ? "hybrid" : "semantic"
-            ));
+            return search
+                .<ResponseEntity<?>>map(results -> {
+                    // Get active provider info
+                    String activeProvider = multiProviderAIService.getActiveProvider() != null 
+                        ? multiProviderAIService.getActiveProvider().getProviderName() 
+                        : "None";
+                    
+                    return ResponseEntity.ok(Map.of(
+                        "query", query.trim(),
+                        "results", results,
+                        "count", results.size(),
+                        "type", useHybrid ? "ai_hybrid_search" : "ai_semantic_search",
+                        "activeProvider", activeProvider,
+                        "beta_user", true,
+                        "searchMethod", useHybrid ? "hybrid" : "semantic"
+                    ));
+                })
+                .onErrorResume(e -> Mono.just(searchFailed(e)));
             
         } catch (Exception e) {
-            return ResponseEntity.status(500).body(Map.of(
-                "error", "AI search failed: " + e.getMessage(),
-                "fallback", "Please try regular search",
-                "type", "error"
-            ));
+            return Mono.just(searchFailed(e));
         }
     }
     
+    private ResponseEntity<?> searchFailed(Throwable e) {
+        return ResponseEntity.status(500).body(Map.of(
+            "error", "AI search failed: " + e.getMessage(),
+            "fallback", "Please try regular search",
+            "type", "error"
+        ));
+    }
+    
     /**
      * 🎯 Generate embeddings with multi-provider support
      */
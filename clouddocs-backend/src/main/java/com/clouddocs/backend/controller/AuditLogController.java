@@ -8,6 +8,7 @@ import com.clouddocs.backend.service.AuditService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpHeaders;           // ✅ ADDED: Missing import
 import org.springframework.http.MediaType;            // ✅ ADDED: Missing import
 import org.springframework.http.ResponseEntity;
@@ -32,6 +33,9 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class AuditLogController {
     
+    private static final int EXPORT_PAGE_SIZE = 1000;
+    private static final int MAX_EXPORT_ROWS = 100_000;
+    
     @Autowired
     private AuditService auditService;
     
@@ -42,28 +46,32 @@ public class AuditLogController {
     private WorkflowInstanceRepository workflowInstanceRepository;
     
     /**
-     * Basic GET /api/audit endpoint
+     * Basic GET /api/audit endpoint - paged, newest first, over a bounded time window
      */
     @GetMapping("")
-    public ResponseEntity<?> getAllAuditLogs() {
+    public ResponseEntity<?> getAllAuditLogs(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String user,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
         try {
-            log.info("🔍 Fetching all audit logs");
-            
-            if (auditService == null) {
-                Map<String, Object> errorResponse = new HashMap<>();
-                errorResponse.put("error", "AuditService not available");
-                errorResponse.put("timestamp", LocalDateTime.now());
-                return ResponseEntity.status(500).body(errorResponse);
-            }
+            log.info("🔍 Fetching audit logs page {} (size {})", page, size);
             
-            List<AuditLog> logs = auditService.getAllAuditLogs();
+            Page<AuditLog> logs = auditService.search(q, user, status, parseDate(from), parseDate(to), page, size);
             
-            log.info("✅ Retrieved {} audit logs", logs.size());
+            log.info("✅ Retrieved {} of {} audit logs", logs.getNumberOfElements(), logs.getTotalElements());
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("count", logs.size());
-            response.put("data", logs);
+            response.put("count", logs.getNumberOfElements());
+            response.put("data", logs.getContent());
+            response.put("page", logs.getNumber());
+            response.put("size", logs.getSize());
+            response.put("totalElements", logs.getTotalElements());
+            response.put("totalPages", logs.getTotalPages());
             response.put("timestamp", LocalDateTime.now());
             
             return ResponseEntity.ok(response);
@@ -92,9 +100,8 @@ public class AuditLogController {
         
         if (auditService != null) {
             try {
-                List<AuditLog> testLogs = auditService.getAllAuditLogs();
                 health.put("database", "connected");
-                health.put("totalAuditLogs", testLogs.size());
+                health.put("totalAuditLogs", auditService.getStats().get("totalAuditLogs"));
             } catch (Exception e) {
                 health.put("database", "error: " + e.getMessage());
                 health.put("status", "DEGRADED");
@@ -168,19 +175,14 @@ public class AuditLogController {
         try {
             log.info("🔄 Exporting audit logs to CSV with filters - q: {}, user: {}, type: {}", q, user, type);
             
-            // Parse dates
-            LocalDate fromDate = null;
-            LocalDate toDate = null;
-            
-            if (from != null && !from.isEmpty()) {
-                fromDate = LocalDate.parse(from);
-            }
-            if (to != null && !to.isEmpty()) {
-                toDate = LocalDate.parse(to);
-            }
-            
-            // Fetch filtered audit logs
-            List<AuditLog> auditLogs = auditLogRepository.search(q, user, type, fromDate, toDate);
+            // Fetch filtered audit logs, page by page, within the (bounded) window
+            List<AuditLog> auditLogs = new ArrayList<>();
+            int page = 0;
+            Page<AuditLog> batch;
+            do {
+                batch = auditService.search(q, user, type, parseDate(from), parseDate(to), page++, EXPORT_PAGE_SIZE);
+                auditLogs.addAll(batch.getContent());
+            } while (batch.hasNext() && auditLogs.size() < MAX_EXPORT_ROWS);
             
             log.info("✅ Found {} audit logs for export", auditLogs.size());
             
@@ -264,23 +266,33 @@ public class AuditLogController {
     }
     
     /**
-     * Search audit logs with filters
+     * Search audit logs with filters. Returns one page; the total is in X-Total-Count.
      */
     @GetMapping("/search")
     public ResponseEntity<List<AuditLog>> searchAuditLogs(
             @RequestParam(required = false) String query,
             @RequestParam(required = false) String user,
-            @RequestParam(required = false) String status) {
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
         try {
-            List<AuditLog> results = auditLogRepository.search(query, user, status, null, null);
-            log.info("✅ Search returned {} results", results.size());
-            return ResponseEntity.ok(results);
+            Page<AuditLog> results = auditService.search(query, user, status, parseDate(from), parseDate(to), page, size);
+            log.info("✅ Search returned {} of {} results", results.getNumberOfElements(), results.getTotalElements());
+            return ResponseEntity.ok()
+                    .header("X-Total-Count", String.valueOf(results.getTotalElements()))
+                    .body(results.getContent());
         } catch (Exception e) {
             log.error("❌ Error searching audit logs: {}", e.getMessage(), e);
             return ResponseEntity.status(500).body(new ArrayList<>());
         }
     }
     
+    private static LocalDate parseDate(String value) {
+        return value == null || value.isEmpty() ? null : LocalDate.parse(value);
+    }
+    
     /**
      * Backfill audit logs for existing workflows (admin only)
      */
@@ -417,18 +429,7 @@ public class AuditLogController {
    @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
     public ResponseEntity<Map<String, Object>> getAuditStats() {
         try {
-            List<AuditLog> allLogs = auditService.getAllAuditLogs();
-            
-            long totalLogs = allLogs.size();
-            long successLogs = allLogs.stream().filter(log -> log.getStatus() == AuditLog.Status.SUCCESS).count();
-            long failedLogs = allLogs.stream().filter(log -> log.getStatus() == AuditLog.Status.FAILED).count();
-            long workflowLogs = allLogs.stream().filter(log -> log.getActivity().toLowerCase().contains("workflow")).count();
-            
-            Map<String, Object> stats = new HashMap<>();
-            stats.put("totalAuditLogs", totalLogs);
-            stats.put("successfulActions", successLogs);
-            stats.put("failedActions", failedLogs);
-            stats.put("workflowRelatedLogs", workflowLogs);
+            Map<String, Object> stats = auditService.getStats();
             
             return ResponseEntity.ok(stats);
         } catch (Exception e) {
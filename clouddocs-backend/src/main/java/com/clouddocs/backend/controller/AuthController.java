@@ -7,12 +7,14 @@ import com.clouddocs.backend.dto.response.MessageResponse;
 import com.clouddocs.backend.entity.User;
 import com.clouddocs.backend.entity.Role;
 import com.clouddocs.backend.entity.ERole;
+import com.clouddocs.backend.event.UserDirectoryChangedEvent;
 import com.clouddocs.backend.repository.UserRepository;
 import com.clouddocs.backend.repository.RoleRepository;
 import com.clouddocs.backend.service.AuthService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -44,6 +46,9 @@ public class AuthController {
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     /**
      * ✅ ENHANCED: Login endpoint with better error handling
      */
@@ -141,6 +146,7 @@ public class AuthController {
             user.setRoles(roles);
             
             User savedUser = userRepository.save(user);
+            eventPublisher.publishEvent(UserDirectoryChangedEvent.of(savedUser, "user registered"));
             
             List<String> roleNames = savedUser.getRoles().stream()
                 .map(role -> role.getName().name())
@@ -401,6 +407,7 @@ public ResponseEntity<Map<String, Object>> debug() {
             User user = userOpt.get();
             user.addRole(role);
             userRepository.save(user);
+            eventPublisher.publishEvent(UserDirectoryChangedEvent.of(user, "role added"));
             
             return ResponseEntity.ok(Map.of(
                 "message", "Role added successfully",
@@ -434,6 +441,7 @@ public ResponseEntity<Map<String, Object>> debug() {
             String encodedPassword = passwordEncoder.encode(newPassword);
             user.setPassword(encodedPassword);
             userRepository.save(user);
+            eventPublisher.publishEvent(UserDirectoryChangedEvent.of(user, "password reset"));
             
             logger.info("✅ Password reset for user: {}", username);
             
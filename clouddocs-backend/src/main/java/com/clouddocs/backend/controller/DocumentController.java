@@ -1,25 +1,35 @@
 package com.clouddocs.backend.controller;
 
 import com.clouddocs.backend.dto.DocumentDTO;
+import com.clouddocs.backend.dto.DocumentDownloadInfo;
 import com.clouddocs.backend.dto.DocumentUploadRequest;
 import com.clouddocs.backend.entity.DocumentStatus;
+import com.clouddocs.backend.service.BulkDocumentService;
+import com.clouddocs.backend.service.DocumentDownloadService;
 import com.clouddocs.backend.service.DocumentService;
+import com.clouddocs.backend.service.PreviewService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.access.AccessDeniedException;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,12 +37,16 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.Authentication;
 
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 
 
 @RestController
@@ -42,6 +56,18 @@ public class DocumentController {
 
     @Autowired
     private DocumentService documentService;
+
+    @Autowired
+    private DocumentDownloadService downloadService;
+
+    @Autowired
+    private PreviewService previewService;
+
+    @Autowired
+    private BulkDocumentService bulkDocumentService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
     private static final Logger logger = LoggerFactory.getLogger(DocumentController.class);
     /**
      * Upload a new document
@@ -70,6 +96,35 @@ public class DocumentController {
         }
     }
 
+    /**
+     * Upload a document sent as the raw request body (any content type), streamed straight to
+     * storage. Not subject to the multipart size limit; see app.upload.stream-max-bytes.
+     */
+    @PostMapping("/upload/stream")
+    public ResponseEntity<?> uploadDocumentStream(
+            @RequestParam("filename") String filename,
+            @RequestParam(value = "description", required = false) String description,
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "tags", required = false) List<String> tags,
+            HttpServletRequest httpRequest) {
+        
+        try (InputStream in = httpRequest.getInputStream()) {
+            DocumentUploadRequest request = new DocumentUploadRequest(description, category, tags);
+            DocumentDTO documentDTO = documentService.uploadDocumentStream(in, filename, request);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Document uploaded successfully");
+            response.put("document", documentDTO);
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Failed to upload document: " + e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
     /**
      * Get all documents with pagination, sorting, and filtering
      */
@@ -393,25 +448,32 @@ public ResponseEntity<?> getDocumentsWithOCR(
      * ✅ NEW: Download shared document (public endpoint)
      */
     @PostMapping("/shared/{shareId}/download")
-    public ResponseEntity<?> downloadSharedDocument(
+    public void downloadSharedDocument(
             @PathVariable String shareId,
-            @RequestBody(required = false) Map<String, String> payload) {
+            @RequestBody(required = false) Map<String, String> payload,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
         
+        DocumentDownloadInfo info;
         try {
             String password = payload != null ? payload.get("password") : null;
-            Resource resource = documentService.downloadSharedDocument(shareId, password);
-            DocumentDTO document = documentService.getSharedDocumentInfo(shareId, password);
-            
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(document.getMimeType()))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, 
-                           "attachment; filename=\"" + document.getOriginalFilename() + "\"")
-                    .body(resource);
-                    
+            info = documentService.resolveSharedDownload(shareId, password);
         } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", "Failed to download shared document: " + e.getMessage());
-            return ResponseEntity.status(403).body(error);
+            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write(objectMapper.writeValueAsString(
+                    Map.of("error", "Failed to download shared document: " + e.getMessage())));
+            return;
+        }
+        
+        try {
+            downloadService.serve(info, request, response);
+        } catch (Exception e) {
+            logger.warn("Failed to stream shared document {}: {}", info.id(), e.getMessage());
+            if (!response.isCommitted()) {
+                response.reset();
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            }
         }
     }
 
@@ -442,23 +504,108 @@ public ResponseEntity<?> getDocumentsWithOCR(
     }
 
     /**
-     * Download document
+     * Download document. Supports HEAD, single byte ranges and If-None-Match.
      */
-    @GetMapping("/{id}/download")
-    public ResponseEntity<Resource> downloadDocument(@PathVariable Long id) {
+    @RequestMapping(value = "/{id}/download", method = {RequestMethod.GET, RequestMethod.HEAD})
+    @PreAuthorize("isAuthenticated()")
+    public void downloadDocument(@PathVariable Long id,
+                                 HttpServletRequest request,
+                                 HttpServletResponse response) throws IOException {
         try {
-            Resource resource = documentService.downloadDocument(id);
-            DocumentDTO document = documentService.getDocumentById(id);
-            
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(document.getMimeType()))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, 
-                           "attachment; filename=\"" + document.getOriginalFilename() + "\"")
-                    .body(resource);
-                    
+            DocumentDownloadInfo info = documentService.getDownloadInfo(id);
+            if (downloadService.serve(info, request, response)) {
+                documentService.recordDownload(info);
+            }
         } catch (Exception e) {
+            logger.warn("Failed to download document {}: {}", id, e.getMessage());
+            if (!response.isCommitted()) {
+                response.reset();
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            }
+        }
+    }
+
+    /**
+     * Download several documents as one ZIP, streamed while it is being assembled.
+     * All ids are resolved with a single query; downloads are counted and audited in one batch
+     * once the archive has been written. Access is the same as for a single download: any
+     * signed-in user, for any document that is not deleted.
+     */
+    @RequestMapping(value = "/download/zip", method = {RequestMethod.GET, RequestMethod.POST})
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> downloadDocumentsAsZip(@RequestParam("ids") List<Long> ids, Authentication auth) {
+        List<DocumentDownloadInfo> documents;
+        try {
+            documents = documentService.getDownloadInfos(ids);
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        
+        // Captured here: the body is written on another thread without the security context
+        String username = auth.getName();
+        String filename = "documents-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".zip";
+        
+        StreamingResponseBody body = out -> {
+            List<DocumentDownloadInfo> written = downloadService.writeZip(documents, out);
+            documentService.recordDownloads(written, username);
+            logger.info("📦 Streamed zip of {} documents for {}", written.size(), username);
+        };
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .header(HttpHeaders.CACHE_CONTROL, "private, no-store")
+                .body(body);
+    }
+
+    /**
+     * Thumbnail of an image document at the nearest of the fixed sizes (64, 256, 1024 px).
+     * Previews are keyed by content, so they are cacheable forever.
+     */
+    @GetMapping("/{id}/thumbnail")
+    public ResponseEntity<Resource> getThumbnail(@PathVariable Long id,
+                                                 @RequestParam(value = "size", defaultValue = "256") int size,
+                                                 WebRequest webRequest) {
+        try {
+            DocumentDownloadInfo info = documentService.getDownloadInfo(id);
+            return servePreview(previewService.documentThumbnail(info, size), webRequest);
+        } catch (Exception e) {
+            logger.warn("Failed to render thumbnail for document {}: {}", id, e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * First few hundred characters of a text document, for list and search previews.
+     */
+    @GetMapping("/{id}/snippet")
+    public ResponseEntity<Resource> getSnippet(@PathVariable Long id, WebRequest webRequest) {
+        try {
+            DocumentDownloadInfo info = documentService.getDownloadInfo(id);
+            return servePreview(previewService.documentSnippet(info), webRequest);
+        } catch (Exception e) {
+            logger.warn("Failed to extract snippet for document {}: {}", id, e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    private ResponseEntity<Resource> servePreview(Optional<PreviewService.Preview> preview, WebRequest webRequest) {
+        // ✅ No preview for this type - clients fall back to a file-type icon
+        if (preview.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
+        if (webRequest.checkNotModified(preview.get().etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(preview.get().etag())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .contentType(preview.get().contentType())
+                .eTag(preview.get().etag())
+                .header(HttpHeaders.CACHE_CONTROL, "private, max-age=31536000, immutable")
+                .body(new FileSystemResource(preview.get().file()));
     }
 
     @DeleteMapping("/{id}")
@@ -647,25 +794,8 @@ public ResponseEntity<?> getDocumentsWithOCR(
     @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
     public ResponseEntity<?> bulkApproveDocuments(@RequestBody List<Long> documentIds) {
         try {
-            Map<String, Object> results = new HashMap<>();
-            int successCount = 0;
-            int errorCount = 0;
-            
-            for (Long id : documentIds) {
-                try {
-                    documentService.updateDocumentStatus(id, DocumentStatus.APPROVED, null);
-                    successCount++;
-                } catch (Exception e) {
-                    errorCount++;
-                }
-            }
-            
-            results.put("message", String.format("Bulk approval completed: %d successful, %d failed", 
-                       successCount, errorCount));
-            results.put("successCount", successCount);
-            results.put("errorCount", errorCount);
-            
-            return ResponseEntity.ok(results);
+            Map<String, Object> results = bulkDocumentService.updateStatus(documentIds, DocumentStatus.APPROVED, null);
+            return bulkResponse(results, "Bulk approval");
             
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
@@ -681,30 +811,13 @@ public ResponseEntity<?> getDocumentsWithOCR(
     @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
     public ResponseEntity<?> bulkUpdateStatus(@RequestBody Map<String, Object> request) {
         try {
-            @SuppressWarnings("unchecked")
-            List<Long> documentIds = (List<Long>) request.get("documentIds");
+            List<Long> documentIds = toIds(request.get("documentIds"));
             String status = (String) request.get("status");
             String rejectionReason = (String) request.get("rejectionReason");
             
-            int successCount = 0;
-            int errorCount = 0;
-            
-            for (Long id : documentIds) {
-                try {
-                    documentService.updateDocumentStatus(id, DocumentStatus.valueOf(status), rejectionReason);
-                    successCount++;
-                } catch (Exception e) {
-                    errorCount++;
-                }
-            }
-            
-            Map<String, Object> results = new HashMap<>();
-            results.put("message", String.format("Bulk update completed: %d successful, %d failed", 
-                       successCount, errorCount));
-            results.put("successCount", successCount);
-            results.put("errorCount", errorCount);
-            
-            return ResponseEntity.ok(results);
+            Map<String, Object> results = bulkDocumentService.updateStatus(
+                    documentIds, DocumentStatus.valueOf(status), rejectionReason);
+            return bulkResponse(results, "Bulk update");
             
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
@@ -716,61 +829,58 @@ public ResponseEntity<?> getDocumentsWithOCR(
     /**
      * ✅ NEW: Bulk delete documents (Admin/Manager only)
      */
-   @DeleteMapping("/bulk")
-@PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
-@Transactional
-public ResponseEntity<?> bulkDeleteDocuments(@RequestBody Map<String, Object> request) {
-    try {
-        @SuppressWarnings("unchecked")
-        List<Long> documentIds = (List<Long>) request.get("documentIds");
-        
-        // ✅ Validate input
-        if (documentIds == null || documentIds.isEmpty()) {
-            return ResponseEntity.badRequest()
-                .body(Map.of("error", "No document IDs provided"));
-        }
-        
-        List<Map<String, Object>> results = new ArrayList<>();
-        int successCount = 0;
-        int errorCount = 0;
-        
-        for (Long id : documentIds) {
-            Map<String, Object> result = new HashMap<>();
-            result.put("documentId", id);
+    @DeleteMapping("/bulk")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
+    public ResponseEntity<?> bulkDeleteDocuments(@RequestBody Map<String, Object> request) {
+        try {
+            List<Long> documentIds = toIds(request.get("documentIds"));
             
-            try {
-                documentService.deleteDocument(id);
-                result.put("status", "success");
-                result.put("message", "Deleted successfully");
-                successCount++;
-                
-            } catch (EntityNotFoundException e) {
-                result.put("status", "failed");
-                result.put("error", "Document not found");
-                errorCount++;
-                
-            } catch (AccessDeniedException e) {
-                result.put("status", "failed");
-                result.put("error", "Access denied");
-                errorCount++;
-                
-            } catch (Exception e) {
-                result.put("status", "failed");
-                result.put("error", e.getMessage());
-                errorCount++;
-                logger.error("Failed to delete document {}: {}", id, e.getMessage());
+            // ✅ Validate input
+            if (documentIds == null || documentIds.isEmpty()) {
+                return ResponseEntity.badRequest()
+                    .body(Map.of("error", "No document IDs provided"));
             }
             
-            results.add(result);
+            Map<String, Object> results = bulkDocumentService.delete(documentIds);
+            return bulkResponse(results, "Bulk deletion");
+            
+        } catch (ClassCastException | NumberFormatException e) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "Invalid request format. Expected 'documentIds' array"));
+                
+        } catch (Exception e) {
+            logger.error("Bulk deletion failed: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Bulk deletion failed: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * ✅ NEW: Progress of a bulk operation that was too large to run inline
+     */
+    @GetMapping("/bulk/jobs/{jobId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
+    public ResponseEntity<?> getBulkJob(@PathVariable String jobId) {
+        return bulkDocumentService.getJob(jobId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "Bulk job not found: " + jobId)));
+    }
+
+    private ResponseEntity<?> bulkResponse(Map<String, Object> results, String operation) {
+        Map<String, Object> response = new HashMap<>(results);
+        
+        // ✅ Large batches run in the background - hand back the job to poll
+        if ("RUNNING".equals(results.get("state"))) {
+            response.put("message", String.format("%s of %d documents started", operation, results.get("total")));
+            response.put("statusUrl", "/documents/bulk/jobs/" + results.get("jobId"));
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
         }
         
-        Map<String, Object> response = new HashMap<>();
-        response.put("message", String.format("Bulk deletion completed: %d successful, %d failed", 
-                   successCount, errorCount));
-        response.put("totalProcessed", documentIds.size());
-        response.put("successCount", successCount);
-        response.put("errorCount", errorCount);
-        response.put("results", results); // ✅ Detailed per-document results
+        int successCount = (Integer) results.get("successCount");
+        int errorCount = (Integer) results.get("errorCount");
+        response.put("message", String.format("%s completed: %d successful, %d failed", 
+                   operation, successCount, errorCount));
         response.put("processedAt", System.currentTimeMillis());
         
         // ✅ Return appropriate status based on results
@@ -781,16 +891,18 @@ public ResponseEntity<?> bulkDeleteDocuments(@RequestBody Map<String, Object> re
         } else {
             return ResponseEntity.status(HttpStatus.MULTI_STATUS).body(response);
         }
-        
-    } catch (ClassCastException e) {
-        return ResponseEntity.badRequest()
-            .body(Map.of("error", "Invalid request format. Expected 'documentIds' array"));
-            
-    } catch (Exception e) {
-        logger.error("Bulk deletion failed: {}", e.getMessage(), e);
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-            .body(Map.of("error", "Bulk deletion failed: " + e.getMessage()));
     }
-}
+
+    // JSON numbers arrive as Integer or Long depending on size
+    private static List<Long> toIds(Object raw) {
+        if (raw == null) {
+            return null;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (Object id : (List<?>) raw) {
+            ids.add(id instanceof Number n ? n.longValue() : Long.valueOf(id.toString()));
+        }
+        return ids;
+    }
 
 }
@@ -0,0 +1,110 @@
+package com.clouddocs.backend.controller;
+
+import com.clouddocs.backend.dto.NotificationDTO;
+import com.clouddocs.backend.security.UserPrincipal;
+import com.clouddocs.backend.service.NotificationDigestService;
+import com.clouddocs.backend.service.NotificationInboxService;
+import com.clouddocs.backend.service.NotificationStreamService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.http.HttpStatus.UNAUTHORIZED;
+
+@RestController
+@RequestMapping("/notifications")
+@CrossOrigin(origins = {"https://cloud-docs-tan.vercel.app", "http://localhost:3000"})
+public class NotificationController {
+
+    @Autowired private NotificationStreamService notificationStream;
+    @Autowired private NotificationDigestService digestService;
+    @Autowired private NotificationInboxService notificationInbox;
+
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping
+    public ResponseEntity<Page<NotificationDTO>> list(@AuthenticationPrincipal UserPrincipal principal,
+                                                      @RequestParam(defaultValue = "false") boolean unreadOnly,
+                                                      @RequestParam(defaultValue = "0") int page,
+                                                      @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(notificationInbox.list(userId(principal), unreadOnly, page, size));
+    }
+
+    /**
+     * Badge count, read from the per-user counter row.
+     */
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/unread-count")
+    public ResponseEntity<Map<String, Long>> unreadCount(@AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(Map.of("unreadCount", notificationInbox.unreadCount(userId(principal))));
+    }
+
+    @PreAuthorize("isAuthenticated()")
+    @PostMapping("/{id}/read")
+    public ResponseEntity<Map<String, Long>> markRead(@AuthenticationPrincipal UserPrincipal principal,
+                                                      @PathVariable Long id) {
+        return ResponseEntity.ok(Map.of("unreadCount", notificationInbox.markRead(userId(principal), List.of(id))));
+    }
+
+    @PreAuthorize("isAuthenticated()")
+    @PostMapping("/read")
+    public ResponseEntity<Map<String, Long>> markRead(@AuthenticationPrincipal UserPrincipal principal,
+                                                      @RequestBody List<Long> ids) {
+        return ResponseEntity.ok(Map.of("unreadCount", notificationInbox.markRead(userId(principal), ids)));
+    }
+
+    @PreAuthorize("isAuthenticated()")
+    @PostMapping("/read-all")
+    public ResponseEntity<Map<String, Long>> markAllRead(@AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(Map.of("unreadCount", notificationInbox.markAllRead(userId(principal))));
+    }
+
+    /**
+     * Live notification feed for the current user, replacing badge polling. Browsers resume
+     * with the {@code Last-Event-ID} header; clients that manage reconnects themselves can pass
+     * {@code lastEventId} instead.
+     */
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@AuthenticationPrincipal UserPrincipal principal,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+                             @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
+        String lastEventId = lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam;
+        Long afterId = null;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                afterId = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                // Unknown cursor: start fresh rather than failing the reconnect
+            }
+        }
+        return notificationStream.open(userId(principal), afterId);
+    }
+
+    /**
+     * Email coalescing counters: how many notifications went out and how many emails that took.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/digest/stats")
+    public ResponseEntity<Map<String, Object>> digestStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(digestService.getStats());
+        stats.put("openStreams", notificationStream.openConnections());
+        return ResponseEntity.ok(stats);
+    }
+
+    private static Long userId(UserPrincipal principal) {
+        if (principal == null) {
+            throw new ResponseStatusException(UNAUTHORIZED, "User not found");
+        }
+        return principal.getId();
+    }
+}
@@ -6,6 +6,7 @@ import com.clouddocs.backend.entity.Notification;
 import com.clouddocs.backend.repository.UserNotificationSettingsRepository;
 import com.clouddocs.backend.repository.UserRepository;
 import com.clouddocs.backend.repository.NotificationRepository;
+import com.clouddocs.backend.service.NotificationInboxService;
 import com.clouddocs.backend.service.NotificationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,6 +46,9 @@ public class NotificationSettingsController {
     @Autowired(required = false)
     private NotificationService notificationService;
     
+    @Autowired
+    private NotificationInboxService notificationInbox;
+    
     /**
      * Get current user's notification settings
      */
@@ -133,7 +137,7 @@ public class NotificationSettingsController {
             );
             
             // ✅ FIXED: Save the notification - this resolves the unused variable warning
-            Notification savedNotification = notificationRepository.save(testNotification);
+            Notification savedNotification = notificationInbox.save(testNotification);
             
             // ✅ ENHANCED: Try to send via other channels if notification service is available
             boolean multiChannelSent = false;
@@ -233,8 +237,8 @@ public class NotificationSettingsController {
         
         try {
             long totalNotifications = notificationRepository.count();
-            long unreadCount = notificationRepository.countByUserAndReadFlagFalse(user);
-            long userTotalNotifications = notificationRepository.findByUserOrderByCreatedAtDesc(user).size();
+            long unreadCount = notificationInbox.unreadCount(user.getId());
+            long userTotalNotifications = notificationRepository.countByUser(user);
             
             Map<String, Object> stats = new HashMap<>();
             stats.put("totalNotifications", userTotalNotifications);
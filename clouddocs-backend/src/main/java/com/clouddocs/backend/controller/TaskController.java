@@ -2,20 +2,19 @@ package com.clouddocs.backend.controller;
 
 import com.clouddocs.backend.entity.TaskStatus;
 import com.clouddocs.backend.entity.User;
-import com.clouddocs.backend.entity.WorkflowTask;
-import com.clouddocs.backend.repository.UserRepository;
-import com.clouddocs.backend.repository.WorkflowTaskRepository;
+import com.clouddocs.backend.service.TaskInboxService;
+import com.clouddocs.backend.service.UserDirectoryCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.*;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.HashMap;
 import java.util.Map;
 
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.UNAUTHORIZED;
 
 @RestController
@@ -23,8 +22,17 @@ import static org.springframework.http.HttpStatus.UNAUTHORIZED;
 @CrossOrigin(origins = {"https://cloud-docs-tan.vercel.app", "http://localhost:3000"})
 public class TaskController {
 
-    @Autowired private WorkflowTaskRepository taskRepository;
-    @Autowired private UserRepository userRepository;
+    // API sort keys -> property on both the inbox row and the task; anything else is a 400
+    private static final Map<String, String> SORT_KEYS = Map.of(
+            "createdDate", "createdDate",
+            "createdAt", "createdDate",
+            "dueDate", "dueDate",
+            "priority", "priority",
+            "title", "title",
+            "status", "status");
+
+    @Autowired private UserDirectoryCache userDirectory;
+    @Autowired private TaskInboxService taskInbox;
 
     @PreAuthorize("isAuthenticated()")
     @GetMapping("/my")
@@ -37,12 +45,18 @@ public class TaskController {
 
         User currentUser = getCurrentUser();
 
-        Sort sort = sortDir.equalsIgnoreCase("desc")
-                ? Sort.by(sortBy).descending()
-                : Sort.by(sortBy).ascending();
-        Pageable pageable = PageRequest.of(page, size, sort);
+        String property = SORT_KEYS.get(sortBy);
+        if (property == null) {
+            throw new ResponseStatusException(BAD_REQUEST, "Unsupported sortBy: " + sortBy + ", expected one of " +
+                    SORT_KEYS.keySet().stream().sorted().toList());
+        }
+        Sort.Direction direction = Sort.Direction.fromOptionalString(sortDir)
+                .orElseThrow(() -> new ResponseStatusException(BAD_REQUEST, "sortDir must be asc or desc"));
+        Pageable pageable = PageRequest.of(Math.max(0, page), Math.max(1, size),
+                Sort.by(direction, property));
 
-        Page<WorkflowTask> pageResult = taskRepository.findByAssignedToAndStatus(currentUser, status, pageable);
+        // Open tasks come from the materialized inbox, closed ones from the task table; same DTO either way
+        Page<Map<String, Object>> pageResult = taskInbox.getTasks(currentUser.getId(), status, pageable);
 
         Map<String, Object> response = new HashMap<>();
         response.put("tasks", pageResult.getContent());
@@ -57,8 +71,7 @@ public class TaskController {
     }
 
     private User getCurrentUser() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findByUsername(username)
+        return userDirectory.currentUser()
                 .orElseThrow(() -> new ResponseStatusException(UNAUTHORIZED, "User not found"));
     }
 }
@@ -3,12 +3,14 @@ package com.clouddocs.backend.controller;
 import com.clouddocs.backend.dto.UserProfileDTO;
 import com.clouddocs.backend.dto.UserProfileUpdateRequest;
 import com.clouddocs.backend.dto.ChangePasswordRequest;
+import com.clouddocs.backend.service.FileStorageService;
+import com.clouddocs.backend.service.PreviewService;
 import com.clouddocs.backend.service.UserService;
 import com.clouddocs.backend.repository.UserRepository; 
 import com.clouddocs.backend.entity.User;                
-import org.springframework.core.io.UrlResource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -17,19 +19,18 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpHeaders;
 import jakarta.validation.Valid;
 import java.util.HashMap;
+import java.util.Optional;
 import java.util.List;
 import java.util.Map;
 import java.time.LocalDateTime;
 import java.util.stream.Collectors;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.nio.file.Path;
 
 /**
  * REST Controller for User Profile Management
@@ -43,12 +44,17 @@ public class UserController {
     // ✅ FIXED: Both dependencies as final fields
     private final UserRepository userRepository;
     private final UserService userService;
+    private final FileStorageService fileStorageService;
+    private final PreviewService previewService;
 
-    // ✅ FIXED: Constructor injection for both dependencies
+    // ✅ FIXED: Constructor injection for all dependencies
 
-    public UserController(UserRepository userRepository, UserService userService) {
+    public UserController(UserRepository userRepository, UserService userService,
+                          FileStorageService fileStorageService, PreviewService previewService) {
         this.userRepository = userRepository;
         this.userService = userService;
+        this.fileStorageService = fileStorageService;
+        this.previewService = previewService;
     }
 
   /**
@@ -142,57 +148,44 @@ public class UserController {
 @PreAuthorize("isAuthenticated()")
 public ResponseEntity<Resource> getProfilePicture(
         @PathVariable String path,
-        @PathVariable String filename) {
+        @PathVariable String filename,
+        @RequestParam(value = "size", required = false) Integer size) {
     try {
         System.out.println("🖼️ Serving image: " + path + "/" + filename);
         
-        // ✅ FIXED: Proper path resolution and security check
-        Path uploadPath = Paths.get("./uploads").toAbsolutePath().normalize();
-        Path imagePath = uploadPath.resolve(path).resolve(filename).normalize();
-        
-        System.out.println("🔍 Upload path: " + uploadPath);
-        System.out.println("🔍 Image path: " + imagePath);
-        System.out.println("🔍 Starts with check: " + imagePath.startsWith(uploadPath));
-        
-        // ✅ CORRECTED: Security check with proper path normalization
-        if (!imagePath.normalize().startsWith(uploadPath.normalize())) {
-            System.err.println("❌ Security violation: Path traversal attempt blocked");
-            System.err.println("    Requested path: " + imagePath);
-            System.err.println("    Base path: " + uploadPath);
-            return ResponseEntity.notFound().build();
-        }
-        
         // ✅ Additional security: Only allow 'profile-pictures' subfolder
         if (!"profile-pictures".equals(path)) {
             System.err.println("❌ Invalid subfolder: " + path);
             return ResponseEntity.notFound().build();
         }
         
-        if (!Files.exists(imagePath)) {
-            System.err.println("❌ Image not found: " + imagePath);
+        // ✅ Goes through the blob store, so it works on any backend node; keys with '..' are rejected there
+        String key = path + "/" + filename;
+        if (!fileStorageService.fileExists(key)) {
+            System.err.println("❌ Image not found: " + key);
             return ResponseEntity.notFound().build();
         }
         
-        Resource resource = new UrlResource(imagePath.toUri());
-        
-        // ✅ Determine content type
-        String contentType = Files.probeContentType(imagePath);
-        if (contentType == null) {
-            // Fallback content type detection
-            String lowerFilename = filename.toLowerCase();
-            if (lowerFilename.endsWith(".jpg") || lowerFilename.endsWith(".jpeg")) {
-                contentType = "image/jpeg";
-            } else if (lowerFilename.endsWith(".png")) {
-                contentType = "image/png";
-            } else if (lowerFilename.endsWith(".webp")) {
-                contentType = "image/webp";
-            } else if (lowerFilename.endsWith(".gif")) {
-                contentType = "image/gif";
-            } else {
-                contentType = "application/octet-stream";
+        // ✅ Avatars are rendered small; serve a cached thumbnail instead of the full upload
+        if (size != null) {
+            Optional<PreviewService.Preview> thumbnail = previewService.profileThumbnail(key, size);
+            if (thumbnail.isPresent()) {
+                return ResponseEntity.ok()
+                        .contentType(thumbnail.get().contentType())
+                        .eTag(thumbnail.get().etag())
+                        .header(HttpHeaders.CACHE_CONTROL, "public, max-age=3600")
+                        .header(HttpHeaders.CONTENT_DISPOSITION, "inline")
+                        .body(new FileSystemResource(thumbnail.get().file()));
             }
         }
         
+        Resource resource = fileStorageService.loadFileAsResource(key);
+        
+        // ✅ Determine content type
+        String contentType = MediaTypeFactory.getMediaType(filename)
+                .map(MediaType::toString)
+                .orElse("application/octet-stream");
+        
         System.out.println("✅ Successfully serving: " + path + "/" + filename + " as " + contentType);
         
         return ResponseEntity.ok()
@@ -445,22 +438,11 @@ public ResponseEntity<?> debugUploads() {
     Map<String, Object> info = new HashMap<>();
     
     try {
-        Path uploadPath = Paths.get("./uploads").toAbsolutePath().normalize();
-        Path profilePicturesPath = uploadPath.resolve("profile-pictures");
-        
-        info.put("uploadPath", uploadPath.toString());
-        info.put("profilePicturesPath", profilePicturesPath.toString());
-        info.put("uploadExists", Files.exists(uploadPath));
-        info.put("profilePicturesExists", Files.exists(profilePicturesPath));
-        
-        if (Files.exists(profilePicturesPath)) {
-            List<String> files = Files.list(profilePicturesPath)
-                .map(Path::getFileName)
-                .map(Path::toString)
-                .collect(Collectors.toList());
-            info.put("files", files);
-            info.put("fileCount", files.size());
-        }
+        List<String> files = fileStorageService.listFiles("profile-pictures/", 1000).stream()
+            .map(key -> key.substring(key.lastIndexOf('/') + 1))
+            .collect(Collectors.toList());
+        info.put("files", files);
+        info.put("fileCount", files.size());
         
     } catch (Exception e) {
         info.put("error", e.getMessage());
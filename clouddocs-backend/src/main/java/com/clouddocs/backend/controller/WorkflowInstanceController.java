@@ -188,7 +188,6 @@ public class WorkflowInstanceController {
      */
     @PreAuthorize("isAuthenticated()")
     @PutMapping("/{id}/cancel")
-    @Transactional
     public ResponseEntity<Map<String, Object>> cancelWorkflowInstance(@PathVariable Long id, 
                                                                       @RequestParam(required = false) String reason) {
         try {
@@ -354,7 +353,7 @@ public class WorkflowInstanceController {
      */
     @PreAuthorize("isAuthenticated()")
     @PutMapping("/tasks/{taskId}/action")
-    @Transactional
+    // No transaction here: each @Retryable attempt in the service must start a fresh one
     public ResponseEntity<Map<String, Object>> processTaskAction(
             @PathVariable Long taskId,
             @RequestParam String action,
@@ -457,7 +456,7 @@ public class WorkflowInstanceController {
      */
     @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
     @PostMapping("/bulk/{action}")
-    @Transactional
+    // Each cancellation commits (and retries) on its own rather than inside one bulk transaction
     public ResponseEntity<Map<String, Object>> bulkWorkflowAction(
             @PathVariable String action,
             @RequestBody Map<String, Object> request) {
@@ -5,8 +5,10 @@ import com.clouddocs.backend.dto.workflow.WorkflowStepDTO;
 import com.clouddocs.backend.entity.WorkflowTemplate;
 import com.clouddocs.backend.entity.WorkflowStep;
 import com.clouddocs.backend.entity.WorkflowType;
+import com.clouddocs.backend.event.WorkflowTemplateChangedEvent;
 import com.clouddocs.backend.repository.WorkflowTemplateRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -35,6 +37,9 @@ public class WorkflowTemplateController {
     @Autowired
     private WorkflowTemplateRepository templateRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * ✅ FIXED: Get active templates using fetch join to avoid LazyInitializationException
      */
@@ -295,6 +300,7 @@ public class WorkflowTemplateController {
             existingTemplate.setDefaultSlaHours(templateDto.getDefaultSlaHours());
             
             WorkflowTemplate savedTemplate = templateRepository.save(existingTemplate);
+            eventPublisher.publishEvent(new WorkflowTemplateChangedEvent(id, "template updated"));
             WorkflowTemplateDto responseDto = convertToDTOSafe(savedTemplate);
             
             logger.info("✅ Successfully updated template: {}", savedTemplate.getName());
@@ -323,6 +329,7 @@ public class WorkflowTemplateController {
             }
             
             templateRepository.deleteById(id);
+            eventPublisher.publishEvent(new WorkflowTemplateChangedEvent(id, "template deleted"));
             
             logger.info("✅ Successfully deleted template: {}", id);
             return ResponseEntity.noContent().build();
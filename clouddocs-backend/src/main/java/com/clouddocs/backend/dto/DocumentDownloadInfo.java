@@ -0,0 +1,22 @@
+package com.clouddocs.backend.dto;
+
+/**
+ * Minimal document metadata needed to stream a download.
+ *
+ * @param fileSize     size of the original (decoded) bytes
+ * @param contentHash  hex SHA-256 of the original bytes, or null for documents uploaded before hashes were recorded
+ * @param storageCodec at-rest codec of the stored bytes, or null when stored raw
+ */
+public record DocumentDownloadInfo(
+        Long id,
+        String filePath,
+        String originalFilename,
+        String mimeType,
+        Long fileSize,
+        String contentHash,
+        String storageCodec) {
+
+    public DocumentDownloadInfo withContentHash(String hash) {
+        return new DocumentDownloadInfo(id, filePath, originalFilename, mimeType, fileSize, hash, storageCodec);
+    }
+}
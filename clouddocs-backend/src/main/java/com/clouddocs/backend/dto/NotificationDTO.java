@@ -0,0 +1,27 @@
+package com.clouddocs.backend.dto;
+
+import com.clouddocs.backend.entity.Notification;
+import com.clouddocs.backend.entity.NotificationType;
+
+import java.time.LocalDateTime;
+
+/**
+ * In-app notification as pushed to the browser; the id doubles as the SSE event id.
+ */
+public record NotificationDTO(
+        Long id,
+        String title,
+        String body,
+        NotificationType type,
+        String priority,
+        Long workflowId,
+        Long taskId,
+        boolean read,
+        LocalDateTime createdAt) {
+
+    public static NotificationDTO of(Notification notification) {
+        return new NotificationDTO(notification.getId(), notification.getTitle(), notification.getBody(),
+                notification.getType(), notification.getPriorityLevel(), notification.getWorkflowId(),
+                notification.getTaskId(), notification.isReadFlag(), notification.getCreatedAt());
+    }
+}
@@ -0,0 +1,82 @@
+package com.clouddocs.backend.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Catalog entry for one immutable cold-tier segment: a compressed, column-oriented file in the
+ * blob store holding rows moved out of a hot table.
+ *
+ * The min/max columns mirror the index in the segment's own header, so readers can pick the
+ * segments that overlap a time window without opening any of them.
+ */
+@Entity
+@Table(name = "archive_segments", indexes = {
+    @Index(name = "idx_archive_segment_table_time", columnList = "table_name, min_time, max_time")
+})
+public class ArchiveSegment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "table_name", nullable = false, length = 63)
+    private String tableName;
+
+    @Column(name = "blob_key", nullable = false, unique = true, length = 512)
+    private String blobKey;
+
+    @Column(name = "row_count", nullable = false)
+    private Integer rowCount;
+
+    @Column(name = "min_time", nullable = false)
+    private LocalDateTime minTime;
+
+    @Column(name = "max_time", nullable = false)
+    private LocalDateTime maxTime;
+
+    @Column(name = "min_id", nullable = false)
+    private Long minId;
+
+    @Column(name = "max_id", nullable = false)
+    private Long maxId;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public ArchiveSegment() {}
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getTableName() { return tableName; }
+    public void setTableName(String tableName) { this.tableName = tableName; }
+
+    public String getBlobKey() { return blobKey; }
+    public void setBlobKey(String blobKey) { this.blobKey = blobKey; }
+
+    public Integer getRowCount() { return rowCount; }
+    public void setRowCount(Integer rowCount) { this.rowCount = rowCount; }
+
+    public LocalDateTime getMinTime() { return minTime; }
+    public void setMinTime(LocalDateTime minTime) { this.minTime = minTime; }
+
+    public LocalDateTime getMaxTime() { return maxTime; }
+    public void setMaxTime(LocalDateTime maxTime) { this.maxTime = maxTime; }
+
+    public Long getMinId() { return minId; }
+    public void setMinId(Long minId) { this.minId = minId; }
+
+    public Long getMaxId() { return maxId; }
+    public void setMaxId(Long maxId) { this.maxId = maxId; }
+
+    public Long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(Long sizeBytes) { this.sizeBytes = sizeBytes; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,59 @@
+package com.clouddocs.backend.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One stored blob in the content-addressed area, keyed by the SHA-256 of its bytes.
+ *
+ * Every document whose file lives under {@code cas/} holds one reference. When the count
+ * drops to zero the blob is kept for a grace period and then garbage-collected.
+ */
+@Entity
+@Table(name = "content_blobs", indexes = {
+    @Index(name = "idx_content_blob_released", columnList = "released_at")
+})
+public class ContentBlob {
+
+    @Id
+    @Column(name = "hash", length = 64)
+    private String hash;
+
+    @Column(name = "size", nullable = false)
+    private Long size;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // At-rest codec shared by every document using this blob; null when stored raw
+    @Column(name = "codec", length = 16)
+    private String codec;
+
+    // Set when the last reference goes away; null while the blob is in use
+    @Column(name = "released_at")
+    private LocalDateTime releasedAt;
+
+    public ContentBlob() {}
+
+    public String getHash() { return hash; }
+    public void setHash(String hash) { this.hash = hash; }
+
+    public Long getSize() { return size; }
+    public void setSize(Long size) { this.size = size; }
+
+    public Integer getRefCount() { return refCount; }
+    public void setRefCount(Integer refCount) { this.refCount = refCount; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public String getCodec() { return codec; }
+    public void setCodec(String codec) { this.codec = codec; }
+
+    public LocalDateTime getReleasedAt() { return releasedAt; }
+    public void setReleasedAt(LocalDateTime releasedAt) { this.releasedAt = releasedAt; }
+}
@@ -106,6 +106,14 @@ public class Document {
     @Column(name = "deleted_by")
     private String deletedBy;
 
+    // ✅ SHA-256 of the stored bytes; used as the strong ETag for downloads
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // ✅ At-rest codec of the stored bytes (e.g. "gzip"); null when stored raw
+    @Column(name = "storage_codec", length = 16)
+    private String storageCodec;
+
     // ✅ CONSTRUCTORS
     public Document() {
         this.uploadDate = LocalDateTime.now();
@@ -284,6 +292,12 @@ public void setDeletedBy(String deletedBy) {
     
     public Boolean getEmbeddingGenerated() { return embeddingGenerated; }
     public void setEmbeddingGenerated(Boolean embeddingGenerated) { this.embeddingGenerated = embeddingGenerated; }
+
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public String getStorageCodec() { return storageCodec; }
+    public void setStorageCodec(String storageCodec) { this.storageCodec = storageCodec; }
     
     // ✅ UTILITY METHODS
     public void incrementDownloadCount() {
@@ -14,7 +14,9 @@ import java.time.LocalDateTime;
            @Index(name = "idx_notifications_type", 
                   columnList = "notification_type"),
            @Index(name = "idx_notifications_workflow", 
-                  columnList = "workflow_id")
+                  columnList = "workflow_id"),
+           @Index(name = "idx_notifications_email_due", 
+                  columnList = "email_due_at")
        })
 public class Notification {
 
@@ -61,6 +63,17 @@ public class Notification {
     @Column(name = "priority_level")
     private String priorityLevel = "NORMAL";
 
+    // ✅ Set while the email is waiting in the digest window (or for quiet hours to end)
+    @Column(name = "email_due_at")
+    private LocalDateTime emailDueAt;
+
+    // 🔒 Set while a digest pass is sending this email; an expired lease means the send never finished
+    @Column(name = "email_lease_until")
+    private LocalDateTime emailLeaseUntil;
+
+    @Column(name = "email_attempts")
+    private Integer emailAttempts = 0;
+
     // Constructors
     public Notification() {
         this.createdAt = LocalDateTime.now();
@@ -117,4 +130,13 @@ public class Notification {
 
     public String getPriorityLevel() { return priorityLevel; }
     public void setPriorityLevel(String priorityLevel) { this.priorityLevel = priorityLevel; }
+
+    public LocalDateTime getEmailDueAt() { return emailDueAt; }
+    public void setEmailDueAt(LocalDateTime emailDueAt) { this.emailDueAt = emailDueAt; }
+
+    public LocalDateTime getEmailLeaseUntil() { return emailLeaseUntil; }
+    public void setEmailLeaseUntil(LocalDateTime emailLeaseUntil) { this.emailLeaseUntil = emailLeaseUntil; }
+
+    public Integer getEmailAttempts() { return emailAttempts; }
+    public void setEmailAttempts(Integer emailAttempts) { this.emailAttempts = emailAttempts; }
 }
@@ -0,0 +1,47 @@
+package com.clouddocs.backend.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marks an outbox event as handled by one subscriber.
+ *
+ * The row is inserted in the same transaction as the subscriber's side effects, so a
+ * redelivered event finds it and is skipped. Rows are purged together with published events.
+ */
+@Entity
+@Table(name = "processed_events", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_processed_event_subscriber", columnNames = {"event_id", "subscriber"})
+}, indexes = {
+    @Index(name = "idx_processed_events_at", columnList = "processed_at")
+})
+public class ProcessedEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    @Column(name = "subscriber", nullable = false, length = 100)
+    private String subscriber;
+
+    @Column(name = "processed_at", nullable = false)
+    private LocalDateTime processedAt;
+
+    public ProcessedEvent() {}
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getEventId() { return eventId; }
+    public void setEventId(Long eventId) { this.eventId = eventId; }
+
+    public String getSubscriber() { return subscriber; }
+    public void setSubscriber(String subscriber) { this.subscriber = subscriber; }
+
+    public LocalDateTime getProcessedAt() { return processedAt; }
+    public void setProcessedAt(LocalDateTime processedAt) { this.processedAt = processedAt; }
+}
@@ -0,0 +1,38 @@
+package com.clouddocs.backend.entity;
+
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Time-bounded ownership of one SLA scheduler shard.
+ *
+ * Workflow tasks are split into shards by {@code id % shardCount}. A node only scans the
+ * shards it currently holds a lease for, so several backend instances can share the SLA
+ * work without marking or escalating the same task twice.
+ */
+@Entity
+@Table(name = "scheduler_shard_leases")
+public class SchedulerShardLease {
+
+    @Id
+    @Column(name = "shard_id")
+    private Integer shardId;
+
+    @Column(name = "owner", nullable = false, length = 128)
+    private String owner;
+
+    @Column(name = "expires_at", nullable = false)
+    private OffsetDateTime expiresAt;
+
+    public SchedulerShardLease() {}
+
+    public Integer getShardId() { return shardId; }
+    public void setShardId(Integer shardId) { this.shardId = shardId; }
+
+    public String getOwner() { return owner; }
+    public void setOwner(String owner) { this.owner = owner; }
+
+    public OffsetDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(OffsetDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
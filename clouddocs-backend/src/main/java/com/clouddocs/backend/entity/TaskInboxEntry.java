@@ -0,0 +1,141 @@
+package com.clouddocs.backend.entity;
+
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Denormalized row of a user's task inbox.
+ *
+ * One row per open (PENDING or OVERDUE) workflow task, carrying everything the inbox renders
+ * so the page is a single indexed read on {@code assignee_id}. Rows are written alongside the
+ * task itself by {@code TaskInboxService} and removed when the task is completed or cancelled.
+ */
+@Entity
+@Table(name = "task_inbox_entries", indexes = {
+    @Index(name = "idx_task_inbox_assignee_status_created", columnList = "assignee_id, status, created_date"),
+    @Index(name = "idx_task_inbox_workflow", columnList = "workflow_id")
+})
+public class TaskInboxEntry {
+
+    @Id
+    @Column(name = "task_id")
+    private Long taskId;
+
+    @Column(name = "assignee_id", nullable = false)
+    private Long assigneeId;
+
+    @Column(name = "assignee_name")
+    private String assigneeName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private TaskStatus status;
+
+    @Column(name = "title")
+    private String title;
+
+    @Column(name = "description")
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "priority")
+    private TaskPriority priority;
+
+    @Column(name = "created_date")
+    private OffsetDateTime createdDate;
+
+    @Column(name = "due_date")
+    private OffsetDateTime dueDate;
+
+    @Column(name = "step_id")
+    private Long stepId;
+
+    @Column(name = "step_name")
+    private String stepName;
+
+    @Column(name = "step_order")
+    private Integer stepOrder;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "step_type")
+    private StepType stepType;
+
+    @Column(name = "workflow_id")
+    private Long workflowId;
+
+    @Column(name = "workflow_title")
+    private String workflowTitle;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "workflow_status")
+    private WorkflowStatus workflowStatus;
+
+    @Column(name = "document_id")
+    private Long documentId;
+
+    @Column(name = "document_name")
+    private String documentName;
+
+    @Column(name = "template_name")
+    private String templateName;
+
+    public TaskInboxEntry() {}
+
+    public Long getTaskId() { return taskId; }
+    public void setTaskId(Long taskId) { this.taskId = taskId; }
+
+    public Long getAssigneeId() { return assigneeId; }
+    public void setAssigneeId(Long assigneeId) { this.assigneeId = assigneeId; }
+
+    public String getAssigneeName() { return assigneeName; }
+    public void setAssigneeName(String assigneeName) { this.assigneeName = assigneeName; }
+
+    public TaskStatus getStatus() { return status; }
+    public void setStatus(TaskStatus status) { this.status = status; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public TaskPriority getPriority() { return priority; }
+    public void setPriority(TaskPriority priority) { this.priority = priority; }
+
+    public OffsetDateTime getCreatedDate() { return createdDate; }
+    public void setCreatedDate(OffsetDateTime createdDate) { this.createdDate = createdDate; }
+
+    public OffsetDateTime getDueDate() { return dueDate; }
+    public void setDueDate(OffsetDateTime dueDate) { this.dueDate = dueDate; }
+
+    public Long getStepId() { return stepId; }
+    public void setStepId(Long stepId) { this.stepId = stepId; }
+
+    public String getStepName() { return stepName; }
+    public void setStepName(String stepName) { this.stepName = stepName; }
+
+    public Integer getStepOrder() { return stepOrder; }
+    public void setStepOrder(Integer stepOrder) { this.stepOrder = stepOrder; }
+
+    public StepType getStepType() { return stepType; }
+    public void setStepType(StepType stepType) { this.stepType = stepType; }
+
+    public Long getWorkflowId() { return workflowId; }
+    public void setWorkflowId(Long workflowId) { this.workflowId = workflowId; }
+
+    public String getWorkflowTitle() { return workflowTitle; }
+    public void setWorkflowTitle(String workflowTitle) { this.workflowTitle = workflowTitle; }
+
+    public WorkflowStatus getWorkflowStatus() { return workflowStatus; }
+    public void setWorkflowStatus(WorkflowStatus workflowStatus) { this.workflowStatus = workflowStatus; }
+
+    public Long getDocumentId() { return documentId; }
+    public void setDocumentId(Long documentId) { this.documentId = documentId; }
+
+    public String getDocumentName() { return documentName; }
+    public void setDocumentName(String documentName) { this.documentName = documentName; }
+
+    public String getTemplateName() { return templateName; }
+    public void setTemplateName(String templateName) { this.templateName = templateName; }
+}
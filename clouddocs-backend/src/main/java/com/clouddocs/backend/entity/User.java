@@ -208,4 +208,27 @@ public class User implements UserDetails {
     public LocalDateTime getLastLoginAt() {
         return this.lastLogin;
     }
+
+    /**
+     * Detached copy for read-only caches, so a cached user never aliases an
+     * instance managed by some transaction's persistence context.
+     */
+    public User detachedCopy() {
+        User copy = new User();
+        copy.id = id;
+        copy.username = username;
+        copy.email = email;
+        copy.password = password;
+        copy.firstName = firstName;
+        copy.lastName = lastName;
+        copy.phoneNumber = phoneNumber;
+        copy.roles = new HashSet<>(roles);
+        copy.createdAt = createdAt;
+        copy.lastLogin = lastLogin;
+        copy.lastModified = lastModified;
+        copy.profilePicture = profilePicture;
+        copy.active = active;
+        copy.enabled = enabled;
+        return copy;
+    }
 }
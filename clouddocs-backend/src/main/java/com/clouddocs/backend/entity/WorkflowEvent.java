@@ -0,0 +1,157 @@
+package com.clouddocs.backend.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * One entry of a workflow instance's append-only event log.
+ *
+ * Events are never updated. The (workflow_instance_id, sequence) pair is unique, so two
+ * transactions appending the same next event for an instance cannot both commit; the loser
+ * is retried against the fresh log.
+ */
+@Entity
+@Immutable
+@Table(name = "workflow_events",
+       uniqueConstraints = @UniqueConstraint(name = "uk_workflow_events_instance_sequence",
+                                             columnNames = {"workflow_instance_id", "sequence"}))
+public class WorkflowEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "workflow_instance_id", nullable = false)
+    private Long workflowInstanceId;
+
+    @Column(name = "sequence", nullable = false)
+    private Long sequence;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 40)
+    private WorkflowEventType type;
+
+    @Column(name = "step_order")
+    private Integer stepOrder;
+
+    @Column(name = "step_id")
+    private Long stepId;
+
+    @Column(name = "task_id")
+    private Long taskId;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "task_action", length = 20)
+    private TaskAction taskAction;
+
+    @Column(name = "details", length = 1000)
+    private String details;
+
+    @Column(name = "occurred_at", nullable = false)
+    private OffsetDateTime occurredAt;
+
+    public WorkflowEvent() {
+        this.occurredAt = OffsetDateTime.now(ZoneOffset.UTC);
+    }
+
+    public WorkflowEvent(WorkflowEventType type) {
+        this();
+        this.type = type;
+    }
+
+    // ===== FACTORY METHODS =====
+
+    public static WorkflowEvent workflowStarted(int stepOrder, Long initiatorId) {
+        WorkflowEvent event = new WorkflowEvent(WorkflowEventType.WORKFLOW_STARTED);
+        event.stepOrder = stepOrder;
+        event.userId = initiatorId;
+        return event;
+    }
+
+    public static WorkflowEvent taskAssigned(Long taskId, Long stepId, int stepOrder, Long assigneeId) {
+        WorkflowEvent event = new WorkflowEvent(WorkflowEventType.TASK_ASSIGNED);
+        event.taskId = taskId;
+        event.stepId = stepId;
+        event.stepOrder = stepOrder;
+        event.userId = assigneeId;
+        return event;
+    }
+
+    public static WorkflowEvent taskCompleted(Long taskId, TaskAction action, Long userId, String comments) {
+        WorkflowEvent event = new WorkflowEvent(WorkflowEventType.TASK_COMPLETED);
+        event.taskId = taskId;
+        event.taskAction = action;
+        event.userId = userId;
+        event.details = truncate(comments);
+        return event;
+    }
+
+    public static WorkflowEvent taskCancelled(Long taskId, Long userId, String reason) {
+        WorkflowEvent event = new WorkflowEvent(WorkflowEventType.TASK_CANCELLED);
+        event.taskId = taskId;
+        event.taskAction = TaskAction.REJECT;
+        event.userId = userId;
+        event.details = truncate(reason);
+        return event;
+    }
+
+    public static WorkflowEvent stepAdvanced(int stepOrder, Long userId) {
+        WorkflowEvent event = new WorkflowEvent(WorkflowEventType.STEP_ADVANCED);
+        event.stepOrder = stepOrder;
+        event.userId = userId;
+        return event;
+    }
+
+    public static WorkflowEvent finished(WorkflowEventType type, Integer stepOrder, Long userId, String details) {
+        WorkflowEvent event = new WorkflowEvent(type);
+        event.stepOrder = stepOrder;
+        event.userId = userId;
+        event.details = truncate(details);
+        return event;
+    }
+
+    private static String truncate(String value) {
+        return value != null && value.length() > 1000 ? value.substring(0, 1000) : value;
+    }
+
+    // ===== GETTERS AND SETTERS =====
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getWorkflowInstanceId() { return workflowInstanceId; }
+    public void setWorkflowInstanceId(Long workflowInstanceId) { this.workflowInstanceId = workflowInstanceId; }
+
+    public Long getSequence() { return sequence; }
+    public void setSequence(Long sequence) { this.sequence = sequence; }
+
+    public WorkflowEventType getType() { return type; }
+    public void setType(WorkflowEventType type) { this.type = type; }
+
+    public Integer getStepOrder() { return stepOrder; }
+    public void setStepOrder(Integer stepOrder) { this.stepOrder = stepOrder; }
+
+    public Long getStepId() { return stepId; }
+    public void setStepId(Long stepId) { this.stepId = stepId; }
+
+    public Long getTaskId() { return taskId; }
+    public void setTaskId(Long taskId) { this.taskId = taskId; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public TaskAction getTaskAction() { return taskAction; }
+    public void setTaskAction(TaskAction taskAction) { this.taskAction = taskAction; }
+
+    public String getDetails() { return details; }
+    public void setDetails(String details) { this.details = details; }
+
+    public OffsetDateTime getOccurredAt() { return occurredAt; }
+    public void setOccurredAt(OffsetDateTime occurredAt) { this.occurredAt = occurredAt; }
+}
@@ -0,0 +1,15 @@
+package com.clouddocs.backend.entity;
+
+/**
+ * Types of events recorded in a workflow instance's append-only event log.
+ */
+public enum WorkflowEventType {
+    WORKFLOW_STARTED,
+    TASK_ASSIGNED,
+    TASK_COMPLETED,
+    TASK_CANCELLED,
+    STEP_ADVANCED,
+    WORKFLOW_APPROVED,
+    WORKFLOW_REJECTED,
+    WORKFLOW_CANCELLED
+}
@@ -0,0 +1,19 @@
+package com.clouddocs.backend.event;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.ResolvableTypeProvider;
+
+/**
+ * A domain event as handed to subscribers by the outbox relay, together with the id of its
+ * outbox row. The id is the same on every redelivery, so subscribers key their side effects
+ * on it to stay idempotent.
+ *
+ * Listeners declare the event type they want, e.g. {@code DeliveredEvent<TaskAssigned>}.
+ */
+public record DeliveredEvent<T extends DomainEvent>(long outboxId, T event) implements ResolvableTypeProvider {
+
+    @Override
+    public ResolvableType getResolvableType() {
+        return ResolvableType.forClassWithGenerics(DeliveredEvent.class, ResolvableType.forInstance(event));
+    }
+}
@@ -0,0 +1,17 @@
+package com.clouddocs.backend.event;
+
+/**
+ * A document was moved to the trash.
+ */
+public record DocumentDeleted(Long documentId, String deletedBy) implements DomainEvent {
+
+    @Override
+    public String aggregateType() {
+        return "document";
+    }
+
+    @Override
+    public String aggregateId() {
+        return String.valueOf(documentId);
+    }
+}
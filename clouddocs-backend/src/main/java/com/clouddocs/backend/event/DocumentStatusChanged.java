@@ -0,0 +1,20 @@
+package com.clouddocs.backend.event;
+
+import com.clouddocs.backend.entity.DocumentStatus;
+
+/**
+ * A document moved between review states.
+ */
+public record DocumentStatusChanged(Long documentId, DocumentStatus oldStatus, DocumentStatus newStatus,
+                                    String changedBy) implements DomainEvent {
+
+    @Override
+    public String aggregateType() {
+        return "document";
+    }
+
+    @Override
+    public String aggregateId() {
+        return String.valueOf(documentId);
+    }
+}
@@ -0,0 +1,34 @@
+package com.clouddocs.backend.event;
+
+import com.clouddocs.backend.entity.Document;
+
+/**
+ * A new document's bytes have been stored and its row saved.
+ *
+ * @param documentId       id of the new document
+ * @param filePath         blob key of the stored bytes
+ * @param contentHash      SHA-256 of the original bytes
+ * @param storageCodec     at-rest codec of the stored bytes, or null when raw
+ * @param mimeType         detected or declared MIME type
+ * @param originalFilename name the file was uploaded under
+ * @param uploadedBy       username of the uploader
+ */
+public record DocumentUploaded(Long documentId, String filePath, String contentHash, String storageCodec,
+                               String mimeType, String originalFilename, String uploadedBy) implements DomainEvent {
+
+    public static DocumentUploaded of(Document document) {
+        return new DocumentUploaded(document.getId(), document.getFilePath(), document.getContentHash(),
+                document.getStorageCodec(), document.getMimeType(), document.getOriginalFilename(),
+                document.getUploadedBy() != null ? document.getUploadedBy().getUsername() : null);
+    }
+
+    @Override
+    public String aggregateType() {
+        return "document";
+    }
+
+    @Override
+    public String aggregateId() {
+        return String.valueOf(documentId);
+    }
+}
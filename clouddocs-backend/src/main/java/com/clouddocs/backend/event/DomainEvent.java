@@ -0,0 +1,19 @@
+package com.clouddocs.backend.event;
+
+/**
+ * A fact about a document or workflow, recorded in the transactional outbox in the same
+ * transaction as the change and delivered to {@code @EventListener} subscribers afterwards.
+ *
+ * Events of one aggregate are delivered in the order they were recorded, each wrapped in a
+ * {@link DeliveredEvent}. Delivery is at-least-once, so subscribers must tolerate seeing an
+ * event twice, e.g. by recording its outbox id with their side effects.
+ */
+public sealed interface DomainEvent permits DocumentUploaded, DocumentStatusChanged, DocumentDeleted,
+        WorkflowStarted, TaskAssigned, TaskCompleted, WorkflowCompleted {
+
+    /** Kind of aggregate the event belongs to, e.g. {@code document}. */
+    String aggregateType();
+
+    /** Identifier of the aggregate; ordering is guaranteed per type and id. */
+    String aggregateId();
+}
@@ -0,0 +1,17 @@
+package com.clouddocs.backend.event;
+
+/**
+ * A workflow step produced a task for an approver.
+ */
+public record TaskAssigned(Long workflowId, Long taskId, Long assigneeId, int stepOrder) implements DomainEvent {
+
+    @Override
+    public String aggregateType() {
+        return "workflow";
+    }
+
+    @Override
+    public String aggregateId() {
+        return String.valueOf(workflowId);
+    }
+}
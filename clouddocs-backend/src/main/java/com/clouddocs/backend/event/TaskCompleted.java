@@ -0,0 +1,23 @@
+package com.clouddocs.backend.event;
+
+import com.clouddocs.backend.entity.TaskAction;
+
+/**
+ * An approver acted on a task.
+ *
+ * @param summary audit line describing the action, e.g. "Task Approved: Legal review"
+ */
+public record TaskCompleted(Long workflowId, String workflowTitle, Long taskId, TaskAction action,
+                            Long completedById, String completedBy, String summary, String comments)
+        implements DomainEvent {
+
+    @Override
+    public String aggregateType() {
+        return "workflow";
+    }
+
+    @Override
+    public String aggregateId() {
+        return String.valueOf(workflowId);
+    }
+}
@@ -0,0 +1,21 @@
+package com.clouddocs.backend.event;
+
+import com.clouddocs.backend.entity.User;
+
+/**
+ * Published whenever a user's roles, active/enabled flags or profile change,
+ * so that caches derived from the users table can drop stale entries.
+ *
+ * @param userId   id of the changed user (null when the change is not tied to one user)
+ * @param username username of the changed user, if known
+ * @param reason   short description of what changed, for logging
+ */
+public record UserDirectoryChangedEvent(Long userId, String username, String reason) {
+
+    public static UserDirectoryChangedEvent of(User user, String reason) {
+        return new UserDirectoryChangedEvent(
+                user != null ? user.getId() : null,
+                user != null ? user.getUsername() : null,
+                reason);
+    }
+}
@@ -0,0 +1,23 @@
+package com.clouddocs.backend.event;
+
+import com.clouddocs.backend.entity.WorkflowStatus;
+
+/**
+ * A workflow reached a final state: approved, rejected or cancelled.
+ *
+ * @param actorId  user whose action finished the workflow
+ * @param details  free-text reason recorded in the audit trail
+ */
+public record WorkflowCompleted(Long workflowId, String title, WorkflowStatus outcome, Long actorId,
+                                String actor, String details) implements DomainEvent {
+
+    @Override
+    public String aggregateType() {
+        return "workflow";
+    }
+
+    @Override
+    public String aggregateId() {
+        return String.valueOf(workflowId);
+    }
+}
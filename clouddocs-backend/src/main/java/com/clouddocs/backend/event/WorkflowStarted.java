@@ -0,0 +1,18 @@
+package com.clouddocs.backend.event;
+
+/**
+ * A workflow instance was created and its first tasks assigned.
+ */
+public record WorkflowStarted(Long workflowId, String title, Long documentId, String initiatedBy,
+                              String details) implements DomainEvent {
+
+    @Override
+    public String aggregateType() {
+        return "workflow";
+    }
+
+    @Override
+    public String aggregateId() {
+        return String.valueOf(workflowId);
+    }
+}
@@ -0,0 +1,12 @@
+package com.clouddocs.backend.event;
+
+import java.util.UUID;
+
+/**
+ * Published when a workflow template or its steps are created, edited or deleted.
+ *
+ * @param templateId id of the changed template
+ * @param reason     short description of what changed, for logging
+ */
+public record WorkflowTemplateChangedEvent(UUID templateId, String reason) {
+}
@@ -0,0 +1,34 @@
+package com.clouddocs.backend.repository;
+
+import com.clouddocs.backend.entity.ArchiveSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ArchiveSegmentRepository extends JpaRepository<ArchiveSegment, Long> {
+
+    /**
+     * Segments of a table whose time range overlaps {@code [from, to)}, newest first.
+     */
+    @Query("SELECT s FROM ArchiveSegment s WHERE s.tableName = :table " +
+           "AND s.maxTime >= :from AND s.minTime < :to ORDER BY s.maxTime DESC")
+    List<ArchiveSegment> findOverlapping(@Param("table") String table,
+                                         @Param("from") LocalDateTime from,
+                                         @Param("to") LocalDateTime to);
+
+    /**
+     * Segments of a table holding any row at or after {@code since}, newest first.
+     */
+    @Query("SELECT s FROM ArchiveSegment s WHERE s.tableName = :table AND s.maxTime >= :since " +
+           "ORDER BY s.maxTime DESC")
+    List<ArchiveSegment> findSince(@Param("table") String table, @Param("since") LocalDateTime since);
+
+    /**
+     * Segments of a table whose newest row is older than {@code cutoff}.
+     */
+    @Query("SELECT s FROM ArchiveSegment s WHERE s.tableName = :table AND s.maxTime < :cutoff")
+    List<ArchiveSegment> findExpired(@Param("table") String table, @Param("cutoff") LocalDateTime cutoff);
+}
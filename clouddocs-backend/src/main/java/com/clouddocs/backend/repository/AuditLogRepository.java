@@ -1,38 +1,63 @@
 package com.clouddocs.backend.repository;
 
 import com.clouddocs.backend.entity.AuditLog;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
 
     /**
-     * ✅ FIXED: Updated to use user_name column instead of user
+     * Paged search over a time window. Both bounds are required so the planner only scans the
+     * monthly partitions they cover; {@code pattern} is a ready-made lower-case LIKE pattern,
+     * matched against the trigram-indexed {@code LOWER(...)} expressions.
      */
     @Query(value = "SELECT * FROM audit_log a WHERE " +
-           "(:q IS NULL OR " +
-           " (a.activity IS NOT NULL AND LOWER(a.activity) LIKE LOWER(CONCAT('%', :q, '%'))) OR " +
-           " (a.linked_item IS NOT NULL AND LOWER(a.linked_item) LIKE LOWER(CONCAT('%', :q, '%')))" +
-           ") " +
-           "AND (:user IS NULL OR " +
-           "     (a.user_name IS NOT NULL AND LOWER(a.user_name) = LOWER(:user))" +  // ✅ CHANGED user to user_name
-           ") " +
-           "AND (:status IS NULL OR a.status = :status) " +
-           "AND (:from IS NULL OR a.timestamp >= :from) " +
-           "AND (:to IS NULL OR a.timestamp <= :to) " +
-           "ORDER BY a.timestamp DESC", nativeQuery = true)
-    List<AuditLog> search(
-            @Param("q")      String    q,
-            @Param("user")   String    user,
-            @Param("status") String    status,
-            @Param("from")   LocalDate from,
-            @Param("to")     LocalDate to
+           "a.timestamp >= :from AND a.timestamp < :to " +
+           "AND (CAST(:pattern AS TEXT) IS NULL OR LOWER(a.activity) LIKE :pattern OR LOWER(a.linked_item) LIKE :pattern) " +
+           "AND (CAST(:user AS TEXT) IS NULL OR LOWER(a.user_name) = LOWER(:user)) " +
+           "AND (CAST(:status AS TEXT) IS NULL OR a.status = :status)",
+           countQuery = "SELECT COUNT(*) FROM audit_log a WHERE " +
+           "a.timestamp >= :from AND a.timestamp < :to " +
+           "AND (CAST(:pattern AS TEXT) IS NULL OR LOWER(a.activity) LIKE :pattern OR LOWER(a.linked_item) LIKE :pattern) " +
+           "AND (CAST(:user AS TEXT) IS NULL OR LOWER(a.user_name) = LOWER(:user)) " +
+           "AND (CAST(:status AS TEXT) IS NULL OR a.status = :status)",
+           nativeQuery = true)
+    Page<AuditLog> search(
+            @Param("pattern") String        pattern,
+            @Param("user")    String        user,
+            @Param("status")  String        status,
+            @Param("from")    LocalDateTime from,
+            @Param("to")      LocalDateTime to,
+            Pageable pageable
+    );
+
+    /**
+     * Same filters as {@link #search}, newest first, from an arbitrary row offset; used to merge
+     * hot rows with cold ones when the window boundary does not fall on a page boundary.
+     */
+    @Query(value = "SELECT * FROM audit_log a WHERE " +
+           "a.timestamp >= :from AND a.timestamp < :to " +
+           "AND (CAST(:pattern AS TEXT) IS NULL OR LOWER(a.activity) LIKE :pattern OR LOWER(a.linked_item) LIKE :pattern) " +
+           "AND (CAST(:user AS TEXT) IS NULL OR LOWER(a.user_name) = LOWER(:user)) " +
+           "AND (CAST(:status AS TEXT) IS NULL OR a.status = :status) " +
+           "ORDER BY a.timestamp DESC LIMIT :limit OFFSET :offset",
+           nativeQuery = true)
+    List<AuditLog> searchRange(
+            @Param("pattern") String        pattern,
+            @Param("user")    String        user,
+            @Param("status")  String        status,
+            @Param("from")    LocalDateTime from,
+            @Param("to")      LocalDateTime to,
+            @Param("offset")  long          offset,
+            @Param("limit")   int           limit
     );
 
     /**
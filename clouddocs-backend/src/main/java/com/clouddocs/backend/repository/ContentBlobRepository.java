@@ -0,0 +1,63 @@
+package com.clouddocs.backend.repository;
+
+import com.clouddocs.backend.entity.ContentBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ContentBlobRepository extends JpaRepository<ContentBlob, String> {
+
+    /**
+     * Add a reference to a blob, registering it with {@code codec} on first use. Blocks while
+     * the garbage collector holds the row, so a blob is never re-referenced mid-deletion.
+     *
+     * @param codec codec for a newly registered blob; empty string for raw (null would bind untyped)
+     * @return the codec the blob is actually stored with (the first uploader's choice), or null for raw
+     */
+    @Transactional
+    @Query(value = """
+        INSERT INTO content_blobs (hash, size, ref_count, created_at, released_at, codec)
+        VALUES (:hash, :size, 1, :now, NULL, NULLIF(:codec, ''))
+        ON CONFLICT (hash) DO UPDATE
+           SET ref_count = content_blobs.ref_count + 1, released_at = NULL
+        RETURNING codec
+        """, nativeQuery = true)
+    String acquire(@Param("hash") String hash, @Param("size") long size,
+                   @Param("now") LocalDateTime now, @Param("codec") String codec);
+
+    /**
+     * Drop one reference; the blob becomes collectable once the count reaches zero.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE content_blobs
+           SET ref_count = ref_count - 1,
+               released_at = CASE WHEN ref_count <= 1 THEN :now ELSE released_at END
+         WHERE hash = :hash AND ref_count > 0
+        """, nativeQuery = true)
+    int release(@Param("hash") String hash, @Param("now") LocalDateTime now);
+
+    /**
+     * Lock up to {@code limit} unreferenced blobs released before the cutoff.
+     */
+    @Query(value = """
+        SELECT hash FROM content_blobs
+         WHERE ref_count <= 0 AND released_at < :cutoff
+         ORDER BY released_at
+         LIMIT :limit
+           FOR UPDATE SKIP LOCKED
+        """, nativeQuery = true)
+    List<String> lockGarbage(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ContentBlob b WHERE b.hash IN :hashes AND b.refCount <= 0")
+    int deleteUnreferenced(@Param("hashes") Collection<String> hashes);
+}
@@ -1,5 +1,6 @@
 package com.clouddocs.backend.repository;
 
+import com.clouddocs.backend.dto.DocumentDownloadInfo;
 import com.clouddocs.backend.entity.Document;
 import com.clouddocs.backend.entity.DocumentStatus;
 import com.clouddocs.backend.entity.User;
@@ -13,6 +14,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -53,6 +55,34 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
     @Query("UPDATE Document d SET d.downloadCount = d.downloadCount + 1 WHERE d.id IN :ids")
     void incrementDownloadCountBatch(@Param("ids") List<Long> ids);
 
+    /**
+     * Add the same delta to several documents; used when flushing buffered download counts.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Document d SET d.downloadCount = d.downloadCount + :delta WHERE d.id IN :ids")
+    int incrementDownloadCountBy(@Param("ids") List<Long> ids, @Param("delta") int delta);
+
+    // ===== DOWNLOADS =====
+
+    /**
+     * Everything a download needs, in one query and without loading the entity graph.
+     */
+    @Query("SELECT new com.clouddocs.backend.dto.DocumentDownloadInfo(" +
+           "d.id, d.filePath, d.originalFilename, d.mimeType, d.fileSize, d.contentHash, d.storageCodec) " +
+           "FROM Document d WHERE d.id = :id AND d.deleted = false")
+    Optional<DocumentDownloadInfo> findDownloadInfo(@Param("id") Long id);
+
+    @Query("SELECT new com.clouddocs.backend.dto.DocumentDownloadInfo(" +
+           "d.id, d.filePath, d.originalFilename, d.mimeType, d.fileSize, d.contentHash, d.storageCodec) " +
+           "FROM Document d WHERE d.id IN :ids AND d.deleted = false")
+    List<DocumentDownloadInfo> findDownloadInfos(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Document d SET d.contentHash = :hash WHERE d.id = :id")
+    void updateContentHash(@Param("id") Long id, @Param("hash") String hash);
+
     // ===== ✅ SOFT DELETE COUNT METHODS (REQUIRED FOR DASHBOARD) =====
     
     /**
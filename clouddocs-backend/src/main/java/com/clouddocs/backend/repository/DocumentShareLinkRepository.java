@@ -103,6 +103,14 @@ public interface DocumentShareLinkRepository extends JpaRepository<DocumentShare
 
     // ===== ACCESS TRACKING =====
 
+    /**
+     * Add the same delta to several links; used when flushing buffered access counts.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE DocumentShareLink sl SET sl.accessCount = sl.accessCount + :delta, sl.lastAccessedAt = :accessedAt WHERE sl.id IN :ids")
+    int incrementAccessCountBy(@Param("ids") List<Long> ids, @Param("delta") int delta, @Param("accessedAt") LocalDateTime accessedAt);
+
     /**
      * Find most accessed share links
      */
@@ -0,0 +1,54 @@
+package com.clouddocs.backend.repository;
+
+import com.clouddocs.backend.entity.NotificationCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public interface NotificationCounterRepository extends JpaRepository<NotificationCounter, Long> {
+
+    @Query("SELECT c.unreadCount FROM NotificationCounter c WHERE c.userId = :userId")
+    Optional<Long> findUnreadCount(@Param("userId") Long userId);
+
+    /**
+     * Add to a user's unread count, creating the row on first use.
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO notification_counters (user_id, unread_count, updated_at)
+        VALUES (:userId, :delta, now())
+        ON CONFLICT (user_id) DO UPDATE
+           SET unread_count = notification_counters.unread_count + EXCLUDED.unread_count,
+               updated_at = now()
+        """, nativeQuery = true)
+    int increment(@Param("userId") Long userId, @Param("delta") long delta);
+
+    @Modifying
+    @Query(value = """
+        UPDATE notification_counters
+           SET unread_count = GREATEST(unread_count - :delta, 0), updated_at = now()
+         WHERE user_id = :userId
+        """, nativeQuery = true)
+    int decrement(@Param("userId") Long userId, @Param("delta") long delta);
+
+    /**
+     * Recount every user from the notifications table. Users without unread rows drop to zero.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO notification_counters (user_id, unread_count, updated_at)
+        SELECT u.id, COALESCE(n.unread, 0), now()
+          FROM users u
+          LEFT JOIN (SELECT user_id, COUNT(*) AS unread FROM notifications
+                      WHERE read_flag = false GROUP BY user_id) n ON n.user_id = u.id
+        ON CONFLICT (user_id) DO UPDATE
+           SET unread_count = EXCLUDED.unread_count, updated_at = now()
+         WHERE notification_counters.unread_count <> EXCLUDED.unread_count
+        """, nativeQuery = true)
+    int reconcileAll();
+}
@@ -5,7 +5,11 @@ import com.clouddocs.backend.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
@@ -19,5 +23,28 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     Page<Notification> findByUserAndReadFlagFalseOrderByCreatedAtDesc(User user, Pageable pageable);
 
     long countByUserAndReadFlagFalse(User user);
+
+    /**
+     * Notifications a reconnecting stream missed, oldest first.
+     */
+    List<Notification> findTop100ByUser_IdAndIdGreaterThanOrderByIdAsc(Long userId, Long afterId);
+
+    long countByUser(User user);
+
+    Page<Notification> findByUser_IdOrderByIdDesc(Long userId, Pageable pageable);
+
+    Page<Notification> findByUser_IdAndReadFlagFalseOrderByIdDesc(Long userId, Pageable pageable);
+
+    /**
+     * @return how many of the given notifications were unread before
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.readFlag = true " +
+           "WHERE n.user.id = :userId AND n.id IN :ids AND n.readFlag = false")
+    int markRead(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.readFlag = true WHERE n.user.id = :userId AND n.readFlag = false")
+    int markAllRead(@Param("userId") Long userId);
 }
 
@@ -0,0 +1,9 @@
+package com.clouddocs.backend.repository;
+
+import com.clouddocs.backend.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    long countByStatus(OutboxEvent.Status status);
+}
@@ -0,0 +1,30 @@
+package com.clouddocs.backend.repository;
+
+import com.clouddocs.backend.entity.SchedulerNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+
+public interface SchedulerNodeRepository extends JpaRepository<SchedulerNode, String> {
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO scheduler_nodes (node_id, expires_at)
+        VALUES (:nodeId, :expiresAt)
+        ON CONFLICT (node_id) DO UPDATE SET expires_at = EXCLUDED.expires_at
+        """, nativeQuery = true)
+    int heartbeat(@Param("nodeId") String nodeId, @Param("expiresAt") OffsetDateTime expiresAt);
+
+    @Query("SELECT COUNT(n) FROM SchedulerNode n WHERE n.expiresAt >= :now")
+    long countLive(@Param("now") OffsetDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SchedulerNode n WHERE n.expiresAt < :now")
+    int deleteExpired(@Param("now") OffsetDateTime now);
+}
@@ -0,0 +1,42 @@
+package com.clouddocs.backend.repository;
+
+import com.clouddocs.backend.entity.SchedulerShardLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+
+public interface SchedulerShardLeaseRepository extends JpaRepository<SchedulerShardLease, Integer> {
+
+    /**
+     * Claim or renew a shard. Succeeds (returns 1) when the shard is free, expired or
+     * already held by {@code owner}; returns 0 when another live node holds it.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO scheduler_shard_leases (shard_id, owner, expires_at)
+        VALUES (:shardId, :owner, :expiresAt)
+        ON CONFLICT (shard_id) DO UPDATE
+           SET owner = EXCLUDED.owner, expires_at = EXCLUDED.expires_at
+         WHERE scheduler_shard_leases.owner = EXCLUDED.owner
+            OR scheduler_shard_leases.expires_at < :now
+        """, nativeQuery = true)
+    int tryAcquire(@Param("shardId") int shardId,
+                   @Param("owner") String owner,
+                   @Param("now") OffsetDateTime now,
+                   @Param("expiresAt") OffsetDateTime expiresAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SchedulerShardLease l WHERE l.shardId = :shardId AND l.owner = :owner")
+    int release(@Param("shardId") int shardId, @Param("owner") String owner);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SchedulerShardLease l WHERE l.owner = :owner")
+    int releaseAll(@Param("owner") String owner);
+}
@@ -0,0 +1,81 @@
+package com.clouddocs.backend.repository;
+
+import com.clouddocs.backend.entity.TaskInboxEntry;
+import com.clouddocs.backend.entity.TaskStatus;
+import com.clouddocs.backend.entity.WorkflowStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface TaskInboxRepository extends JpaRepository<TaskInboxEntry, Long> {
+
+    List<TaskInboxEntry> findByAssigneeIdAndStatusOrderByCreatedDateDesc(Long assigneeId, TaskStatus status);
+
+    Page<TaskInboxEntry> findByAssigneeIdAndStatus(Long assigneeId, TaskStatus status, Pageable pageable);
+
+    long countByAssigneeIdAndStatus(Long assigneeId, TaskStatus status);
+
+    @Modifying
+    @Query("DELETE FROM TaskInboxEntry e WHERE e.taskId IN :taskIds")
+    int deleteByTaskIds(@Param("taskIds") Collection<Long> taskIds);
+
+    @Modifying
+    @Query("UPDATE TaskInboxEntry e SET e.status = com.clouddocs.backend.entity.TaskStatus.OVERDUE " +
+           "WHERE e.taskId IN :taskIds")
+    int markOverdue(@Param("taskIds") Collection<Long> taskIds);
+
+    @Modifying
+    @Query("UPDATE TaskInboxEntry e SET e.workflowStatus = :status WHERE e.workflowId = :workflowId")
+    int updateWorkflowStatus(@Param("workflowId") Long workflowId, @Param("status") WorkflowStatus status);
+
+    @Modifying
+    @Query("UPDATE TaskInboxEntry e SET e.assigneeId = :assigneeId, e.assigneeName = :assigneeName, " +
+           "e.dueDate = :dueDate WHERE e.taskId = :taskId")
+    int reassign(@Param("taskId") Long taskId,
+                 @Param("assigneeId") Long assigneeId,
+                 @Param("assigneeName") String assigneeName,
+                 @Param("dueDate") OffsetDateTime dueDate);
+
+    /**
+     * Populate the inbox from open tasks that predate it. Idempotent: existing rows are left alone.
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO task_inbox_entries (task_id, assignee_id, assignee_name, status, title, description,
+                                        priority, created_date, due_date, step_id, step_name, step_order,
+                                        step_type, workflow_id, workflow_title, workflow_status,
+                                        document_id, document_name, template_name)
+        SELECT t.id, t.assigned_to,
+               COALESCE(NULLIF(TRIM(CONCAT_WS(' ', u.first_name, u.last_name)), ''), u.username),
+               t.status, COALESCE(t.title, 'Task'), t.description, t.priority, t.created_date, t.due_date,
+               s.id, s.name, s.step_order, s.step_type,
+               wi.id, wi.title, wi.status, d.id, d.original_filename, wt.name
+          FROM workflow_tasks t
+          JOIN users u ON u.id = t.assigned_to
+          LEFT JOIN workflow_steps s ON s.id = t.workflow_step_id
+          LEFT JOIN workflow_instances wi ON wi.id = t.workflow_instance_id
+          LEFT JOIN documents d ON d.id = wi.document_id
+          LEFT JOIN workflow_templates wt ON wt.id = wi.template_id
+         WHERE t.status IN ('PENDING', 'OVERDUE')
+        ON CONFLICT (task_id) DO NOTHING
+        """, nativeQuery = true)
+    int backfillFromOpenTasks();
+
+    /**
+     * Drop rows whose task is no longer open, e.g. after a change made outside the application.
+     */
+    @Modifying
+    @Query(value = """
+        DELETE FROM task_inbox_entries e
+         WHERE NOT EXISTS (SELECT 1 FROM workflow_tasks t
+                            WHERE t.id = e.task_id AND t.status IN ('PENDING', 'OVERDUE'))
+        """, nativeQuery = true)
+    int pruneClosed();
+}
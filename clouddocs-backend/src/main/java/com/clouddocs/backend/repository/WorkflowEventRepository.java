@@ -0,0 +1,11 @@
+package com.clouddocs.backend.repository;
+
+import com.clouddocs.backend.entity.WorkflowEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface WorkflowEventRepository extends JpaRepository<WorkflowEvent, Long> {
+
+    List<WorkflowEvent> findByWorkflowInstanceIdOrderBySequenceAsc(Long workflowInstanceId);
+}
@@ -13,6 +13,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -169,6 +170,9 @@ public interface WorkflowInstanceRepository extends JpaRepository<WorkflowInstan
            "WHERE w.id = :id")
     Optional<WorkflowInstance> findByIdWithHistory(@Param("id") Long id);
 
+    @Query("SELECT COALESCE(w.createdDate, w.startDate) FROM WorkflowInstance w WHERE w.id = :id")
+    Optional<OffsetDateTime> findCreatedDateById(@Param("id") Long id);
+
     /**
      * ✅ ADDED: Enhanced method with proper ordering by createdDate
      */
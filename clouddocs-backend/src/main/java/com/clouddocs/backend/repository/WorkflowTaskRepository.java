@@ -13,6 +13,7 @@ import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime; // ✅ ADDED: Import for OffsetDateTime
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -52,6 +53,21 @@ public interface WorkflowTaskRepository extends JpaRepository<WorkflowTask, Long
            "ORDER BY t.createdDate DESC")
     List<WorkflowTask> findByAssignedToAndStatusOrderByCreatedDateDesc(@Param("assignedTo") User assignedTo, @Param("status") TaskStatus status);
 
+    /**
+     * A page of one assignee's tasks with everything the task details view renders fetched.
+     */
+    @Query(value = "SELECT t FROM WorkflowTask t " +
+           "LEFT JOIN FETCH t.workflowInstance wi " +
+           "LEFT JOIN FETCH wi.template " +
+           "LEFT JOIN FETCH wi.document " +
+           "LEFT JOIN FETCH t.workflowStep " +
+           "WHERE t.assignedTo.id = :assigneeId AND t.status = :status",
+           countQuery = "SELECT COUNT(t) FROM WorkflowTask t " +
+           "WHERE t.assignedTo.id = :assigneeId AND t.status = :status")
+    Page<WorkflowTask> findDetailedByAssigneeAndStatus(@Param("assigneeId") Long assigneeId,
+                                                      @Param("status") TaskStatus status,
+                                                      Pageable pageable);
+
     /**
      * ✅ ALTERNATIVE METHOD: Same as above with different name
      */
@@ -116,6 +132,81 @@ public interface WorkflowTaskRepository extends JpaRepository<WorkflowTask, Long
     @Query("SELECT COUNT(t) FROM WorkflowTask t WHERE t.status = :status AND t.dueDate < :cutoff")
     long countOverdueTasks(@Param("status") TaskStatus status, @Param("cutoff") OffsetDateTime cutoff);
 
+    // ===== SHARDED SLA ENGINE =====
+
+    /**
+     * Bulk-mark up to {@code batchSize} PENDING tasks in the given shards as OVERDUE and return their ids.
+     * Rows locked by another transaction are skipped rather than waited on.
+     */
+    @Query(value = """
+        UPDATE workflow_tasks SET status = 'OVERDUE', version = COALESCE(version, 0) + 1
+         WHERE id IN (
+               SELECT id FROM workflow_tasks
+                WHERE status = 'PENDING' AND due_date < :now
+                  AND MOD(id, :shardCount) IN (:shards)
+                ORDER BY due_date
+                LIMIT :batchSize
+                  FOR UPDATE SKIP LOCKED)
+        RETURNING id
+        """, nativeQuery = true)
+    List<Long> markOverdueInShards(@Param("now") OffsetDateTime now,
+                                   @Param("shardCount") int shardCount,
+                                   @Param("shards") Collection<Integer> shards,
+                                   @Param("batchSize") int batchSize);
+
+    /**
+     * Mark specific tasks OVERDUE if they are still PENDING and past due; returns the ids actually changed.
+     */
+    @Query(value = """
+        UPDATE workflow_tasks SET status = 'OVERDUE', version = COALESCE(version, 0) + 1
+         WHERE id IN (:ids) AND status = 'PENDING' AND due_date <= :now
+        RETURNING id
+        """, nativeQuery = true)
+    List<Long> markOverdueByIds(@Param("ids") Collection<Long> ids, @Param("now") OffsetDateTime now);
+
+    /**
+     * Lock up to {@code batchSize} OVERDUE tasks past the escalation cutoff in the given shards.
+     */
+    @Query(value = """
+        SELECT id FROM workflow_tasks
+         WHERE status = 'OVERDUE' AND due_date < :cutoff
+           AND MOD(id, :shardCount) IN (:shards)
+         ORDER BY due_date
+         LIMIT :batchSize
+           FOR UPDATE SKIP LOCKED
+        """, nativeQuery = true)
+    List<Long> lockEscalationCandidates(@Param("cutoff") OffsetDateTime cutoff,
+                                        @Param("shardCount") int shardCount,
+                                        @Param("shards") Collection<Integer> shards,
+                                        @Param("batchSize") int batchSize);
+
+    /**
+     * PENDING tasks in the given shards that fall due within {@code [from, to)}.
+     */
+    @Query("SELECT t.id AS id, t.dueDate AS dueDate FROM WorkflowTask t " +
+           "WHERE t.status = com.clouddocs.backend.entity.TaskStatus.PENDING " +
+           "AND t.dueDate >= :from AND t.dueDate < :to " +
+           "AND MOD(t.id, :shardCount) IN :shards")
+    List<TaskDeadline> findDeadlinesInShards(@Param("from") OffsetDateTime from,
+                                             @Param("to") OffsetDateTime to,
+                                             @Param("shardCount") int shardCount,
+                                             @Param("shards") Collection<Integer> shards);
+
+    /**
+     * Load tasks with everything SLA notifications and history need in one query.
+     */
+    @Query("SELECT DISTINCT t FROM WorkflowTask t " +
+           "LEFT JOIN FETCH t.workflowInstance wi " +
+           "LEFT JOIN FETCH wi.document " +
+           "LEFT JOIN FETCH t.assignedTo " +
+           "WHERE t.id IN :ids")
+    List<WorkflowTask> findAllForSla(@Param("ids") Collection<Long> ids);
+
+    interface TaskDeadline {
+        Long getId();
+        OffsetDateTime getDueDate();
+    }
+
     // ===== ANALYTICS QUERIES (Updated for OffsetDateTime) =====
 
     @Query(value = """
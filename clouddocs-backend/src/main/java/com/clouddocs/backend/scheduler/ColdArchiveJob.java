@@ -0,0 +1,34 @@
+package com.clouddocs.backend.scheduler;
+
+import com.clouddocs.backend.service.ColdArchiveService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Nightly move of old audit rows into cold segments, and removal of segments past retention.
+ *
+ * Each segment is its own transaction and rows are claimed with SKIP LOCKED, so a run can be
+ * interrupted at any point and several nodes can run it at once.
+ */
+@Component
+public class ColdArchiveJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColdArchiveJob.class);
+
+    private final ColdArchiveService coldArchiveService;
+
+    public ColdArchiveJob(ColdArchiveService coldArchiveService) {
+        this.coldArchiveService = coldArchiveService;
+    }
+
+    @Scheduled(cron = "${app.archive.cron:0 45 2 * * *}")
+    public void archive() {
+        int moved = coldArchiveService.archiveAll();
+        if (moved > 0) {
+            logger.info("Archived {} audit rows to cold segments", moved);
+        }
+        coldArchiveService.expireSegments();
+    }
+}
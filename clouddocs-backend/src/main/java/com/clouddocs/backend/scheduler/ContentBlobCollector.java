@@ -0,0 +1,58 @@
+package com.clouddocs.backend.scheduler;
+
+import com.clouddocs.backend.service.FileStorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.LocalDateTime;
+
+/**
+ * Background removal of content-addressed blobs that no document references any more.
+ *
+ * Blobs are only collected after a grace period, so a document that is permanently deleted
+ * while the same file is being re-uploaded keeps its bytes. Batches lock their rows with
+ * SKIP LOCKED, so several nodes can run the collector at once.
+ */
+@Component
+public class ContentBlobCollector {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentBlobCollector.class);
+
+    private final FileStorageService fileStorageService;
+
+    @Value("${file.storage.cas.gc-grace-minutes:60}")
+    private long graceMinutes;
+
+    @Value("${file.storage.cas.gc-batch-size:200}")
+    private int batchSize;
+
+    @Value("${file.storage.cas.gc-max-batches:50}")
+    private int maxBatches;
+
+    public ContentBlobCollector(FileStorageService fileStorageService) {
+        this.fileStorageService = fileStorageService;
+    }
+
+    @Scheduled(fixedDelayString = "${file.storage.cas.gc-interval-ms:3600000}", initialDelay = 300_000L)
+    public void collect() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(graceMinutes);
+        int total = 0;
+        try {
+            for (int batch = 0; batch < maxBatches; batch++) {
+                int removed = fileStorageService.collectGarbage(cutoff, batchSize);
+                total += removed;
+                if (removed < batchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Content blob collection failed after {} blobs: {}", total, e.getMessage(), e);
+        }
+        if (total > 0) {
+            logger.info("Collected {} unreferenced content blobs", total);
+        }
+    }
+}
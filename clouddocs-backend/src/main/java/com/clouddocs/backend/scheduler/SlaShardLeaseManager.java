@@ -0,0 +1,141 @@
+package com.clouddocs.backend.scheduler;
+
+import com.clouddocs.backend.repository.SchedulerNodeRepository;
+import com.clouddocs.backend.repository.SchedulerShardLeaseRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Hands out SLA shards to this node through short-lived database leases.
+ *
+ * Every sweep records a node heartbeat and holds at most ceil(shards / live nodes) shards: it
+ * renews the leases it already has, picks up free or expired ones (e.g. because their owner
+ * died) up to that quota, and releases the rest so a node that just joined gets its share at
+ * its next sweep. With a single node it simply owns every shard.
+ */
+@Component
+public class SlaShardLeaseManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlaShardLeaseManager.class);
+
+    private final SchedulerShardLeaseRepository leaseRepository;
+    private final SchedulerNodeRepository nodeRepository;
+    private final String nodeId;
+
+    @Value("${workflow.sla.shards:16}")
+    private int shardCount;
+
+    @Value("${workflow.sla.lease-ttl-ms:1800000}")
+    private long leaseTtlMs;
+
+    private volatile List<Integer> ownedShards = List.of();
+
+    public SlaShardLeaseManager(SchedulerShardLeaseRepository leaseRepository, SchedulerNodeRepository nodeRepository) {
+        this.leaseRepository = leaseRepository;
+        this.nodeRepository = nodeRepository;
+        this.nodeId = resolveHostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Renew or acquire leases and return the shards this node may process until the next sweep.
+     */
+    public List<Integer> acquire() {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        OffsetDateTime expiresAt = now.plus(Duration.ofMillis(leaseTtlMs));
+        List<Integer> previous = ownedShards;
+
+        int quota;
+        try {
+            nodeRepository.heartbeat(nodeId, expiresAt);
+            nodeRepository.deleteExpired(now);
+            long liveNodes = Math.max(1, nodeRepository.countLive(now));
+            quota = (int) ((shardCount + liveNodes - 1) / liveNodes);
+        } catch (Exception e) {
+            // Without a node count, only keep what is already held rather than grab everything
+            logger.warn("SLA node heartbeat failed for {}: {}", nodeId, e.getMessage());
+            quota = previous.size();
+        }
+
+        List<Integer> owned = new ArrayList<>();
+        // Renew held shards first, so shards only move when the quota shrinks
+        for (int shard : previous) {
+            if (owned.size() < quota && shard < shardCount && tryAcquire(shard, now, expiresAt)) {
+                owned.add(shard);
+            }
+        }
+        for (int shard = 0; shard < shardCount && owned.size() < quota; shard++) {
+            if (!previous.contains(shard) && tryAcquire(shard, now, expiresAt)) {
+                owned.add(shard);
+            }
+        }
+        // Hand back the excess for nodes below their share to pick up
+        for (int shard : previous) {
+            if (!owned.contains(shard)) {
+                try {
+                    leaseRepository.release(shard, nodeId);
+                } catch (Exception e) {
+                    logger.warn("Failed to release SLA shard {}: {}", shard, e.getMessage());
+                }
+            }
+        }
+        owned.sort(null);
+
+        if (!owned.equals(previous)) {
+            logger.info("SLA node {} now owns {}/{} shards (quota {}): {}", nodeId, owned.size(), shardCount, quota, owned);
+        }
+        ownedShards = List.copyOf(owned);
+        return ownedShards;
+    }
+
+    private boolean tryAcquire(int shard, OffsetDateTime now, OffsetDateTime expiresAt) {
+        try {
+            return leaseRepository.tryAcquire(shard, nodeId, now, expiresAt) > 0;
+        } catch (Exception e) {
+            logger.warn("Failed to acquire SLA shard {}: {}", shard, e.getMessage());
+            return false;
+        }
+    }
+
+    public List<Integer> getOwnedShards() {
+        return ownedShards;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @PreDestroy
+    public void release() {
+        try {
+            int released = leaseRepository.releaseAll(nodeId);
+            nodeRepository.deleteById(nodeId);
+            logger.info("Released {} SLA shard leases held by {}", released, nodeId);
+        } catch (Exception e) {
+            logger.warn("Failed to release SLA shard leases for {}: {}", nodeId, e.getMessage());
+        }
+        ownedShards = List.of();
+    }
+
+    private static String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "node";
+        }
+    }
+}
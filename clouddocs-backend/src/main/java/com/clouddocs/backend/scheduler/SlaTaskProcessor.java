@@ -0,0 +1,207 @@
+package com.clouddocs.backend.scheduler;
+
+import com.clouddocs.backend.entity.*;
+import com.clouddocs.backend.repository.UserRepository;
+import com.clouddocs.backend.repository.WorkflowHistoryRepository;
+import com.clouddocs.backend.repository.WorkflowTaskRepository;
+import com.clouddocs.backend.service.ApproverDirectory;
+import com.clouddocs.backend.service.NotificationService;
+import com.clouddocs.backend.service.TaskInboxService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Set-based SLA work for one batch of tasks. Each public method runs in its own short
+ * transaction so a sweep never holds row locks across the whole backlog.
+ */
+@Component
+public class SlaTaskProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlaTaskProcessor.class);
+
+    private final WorkflowTaskRepository taskRepository;
+    private final WorkflowHistoryRepository historyRepository;
+    private final UserRepository userRepository;
+    private final ApproverDirectory approverDirectory;
+    private final NotificationService notificationService;
+    private final TaskInboxService taskInbox;
+
+    private final AtomicInteger escalationCursor = new AtomicInteger();
+
+    @Value("${workflow.escalation.role:MANAGER}")
+    private String escalationRoleName;
+
+    @Value("${workflow.escalation.reassign-hours:24}")
+    private long reassignHours;
+
+    public SlaTaskProcessor(WorkflowTaskRepository taskRepository,
+                            WorkflowHistoryRepository historyRepository,
+                            UserRepository userRepository,
+                            ApproverDirectory approverDirectory,
+                            NotificationService notificationService,
+                            TaskInboxService taskInbox) {
+        this.taskRepository = taskRepository;
+        this.historyRepository = historyRepository;
+        this.userRepository = userRepository;
+        this.approverDirectory = approverDirectory;
+        this.notificationService = notificationService;
+        this.taskInbox = taskInbox;
+    }
+
+    /**
+     * Mark one batch of past-due tasks in the given shards as OVERDUE.
+     *
+     * @return number of tasks marked
+     */
+    @Transactional
+    public int markOverdueBatch(List<Integer> shards, int shardCount, int batchSize) {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        List<Long> ids = taskRepository.markOverdueInShards(now, shardCount, shards, batchSize);
+        afterMarkedOverdue(ids);
+        return ids.size();
+    }
+
+    /**
+     * Mark the given tasks OVERDUE if they are still pending; used by the timing wheel.
+     */
+    @Transactional
+    public int markOverdue(Collection<Long> taskIds) {
+        if (taskIds.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = taskRepository.markOverdueByIds(taskIds, OffsetDateTime.now(ZoneOffset.UTC));
+        afterMarkedOverdue(ids);
+        return ids.size();
+    }
+
+    /**
+     * Reassign one batch of long-overdue tasks to members of the escalation role.
+     *
+     * @return number of tasks escalated
+     */
+    @Transactional
+    public int escalateBatch(List<Integer> shards, int shardCount, OffsetDateTime cutoff, int batchSize) {
+        List<Long> candidates = approverDirectory.findActiveUserIdsByRole(escalationRole());
+        if (candidates.isEmpty()) {
+            logger.warn("No users found for escalation role {}", escalationRoleName);
+            return 0;
+        }
+
+        List<Long> ids = taskRepository.lockEscalationCandidates(cutoff, shardCount, shards, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        List<WorkflowTask> tasks = taskRepository.findAllForSla(ids);
+        Map<WorkflowTask, Long> assignments = new LinkedHashMap<>();
+        for (WorkflowTask task : tasks) {
+            assignments.put(task, pickEscalationAssignee(candidates));
+        }
+        Map<Long, User> assignees = userRepository.findAllById(new HashSet<>(assignments.values())).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        List<WorkflowHistory> history = new ArrayList<>(tasks.size());
+        int escalated = 0;
+
+        for (Map.Entry<WorkflowTask, Long> entry : assignments.entrySet()) {
+            WorkflowTask task = entry.getKey();
+            User newAssignee = assignees.get(entry.getValue());
+            if (newAssignee == null) {
+                continue;
+            }
+
+            User previousAssignee = task.getAssignedTo();
+            task.setAssignedTo(newAssignee);
+            task.setDueDate(now.plusHours(reassignHours));
+            taskInbox.taskReassigned(task, newAssignee);
+
+            if (task.getWorkflowInstance() != null) {
+                history.add(new WorkflowHistory(task.getWorkflowInstance(), "TASK_ESCALATED",
+                        String.format("Task escalated from %s to %s", safeUser(previousAssignee), safeUser(newAssignee)),
+                        null));
+            }
+
+            try {
+                notificationService.notifyTaskAssigned(newAssignee, task);
+                if (previousAssignee != null) {
+                    notificationService.notifyTaskOverdue(previousAssignee, task);
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to send escalation notifications for task {}: {}", task.getId(), e.getMessage());
+            }
+            escalated++;
+        }
+
+        historyRepository.saveAll(history);
+        return escalated;
+    }
+
+    /**
+     * Pending tasks in the given shards due within {@code [from, to)}.
+     */
+    @Transactional(readOnly = true)
+    public List<WorkflowTaskRepository.TaskDeadline> findDeadlines(List<Integer> shards, int shardCount,
+                                                                   OffsetDateTime from, OffsetDateTime to) {
+        return taskRepository.findDeadlinesInShards(from, to, shardCount, shards);
+    }
+
+    // ===== HELPERS =====
+
+    private void afterMarkedOverdue(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        logger.info("Marked {} tasks as OVERDUE", ids.size());
+        taskInbox.tasksOverdue(ids);
+
+        List<WorkflowTask> tasks = taskRepository.findAllForSla(ids);
+        List<WorkflowHistory> history = new ArrayList<>(tasks.size());
+        for (WorkflowTask task : tasks) {
+            if (task.getWorkflowInstance() != null) {
+                history.add(new WorkflowHistory(task.getWorkflowInstance(), "TASK_OVERDUE", "Task marked as overdue", null));
+            }
+            if (task.getAssignedTo() != null) {
+                try {
+                    notificationService.notifyTaskOverdue(task.getAssignedTo(), task);
+                } catch (Exception e) {
+                    logger.warn("Failed to send overdue notification for task {}: {}", task.getId(), e.getMessage());
+                }
+            }
+        }
+        historyRepository.saveAll(history);
+    }
+
+    private ERole escalationRole() {
+        String enumName = escalationRoleName.toUpperCase();
+        if (!enumName.startsWith("ROLE_")) {
+            enumName = "ROLE_" + enumName;
+        }
+        try {
+            return ERole.valueOf(enumName);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unknown escalation role {}, falling back to ROLE_MANAGER", escalationRoleName);
+            return ERole.ROLE_MANAGER;
+        }
+    }
+
+    private Long pickEscalationAssignee(List<Long> candidates) {
+        // Round-robin over the cached role members spreads escalations instead of piling on the first manager
+        return candidates.get(Math.floorMod(escalationCursor.getAndIncrement(), candidates.size()));
+    }
+
+    private String safeUser(User u) {
+        if (u == null) return "Unassigned";
+        return (u.getFullName() != null && !u.getFullName().isBlank()) ? u.getFullName() : u.getUsername();
+    }
+}
@@ -0,0 +1,138 @@
+package com.clouddocs.backend.scheduler;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashed timing wheel for tasks that fall due before the next SLA sweep.
+ *
+ * The sweep only runs every few minutes; without the wheel a task could sit in PENDING for
+ * up to a full interval after its deadline. The sweep loads near-due deadlines for its
+ * shards into the wheel and a dedicated ticker thread marks them OVERDUE within one tick
+ * of the deadline. Ticking runs on its own thread so it never competes with the shared
+ * single-thread Spring scheduler.
+ */
+@Component
+public class SlaTimingWheel {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlaTimingWheel.class);
+
+    private final SlaTaskProcessor processor;
+
+    @Value("${workflow.sla.wheel.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${workflow.sla.wheel.slots:512}")
+    private int slotCount;
+
+    private ConcurrentLinkedQueue<Entry>[] slots;
+    private final Map<Long, Long> scheduled = new ConcurrentHashMap<>();
+    private volatile long startNanos;
+    private volatile long currentTick;
+    private ScheduledExecutorService ticker;
+
+    public SlaTimingWheel(SlaTaskProcessor processor) {
+        this.processor = processor;
+    }
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    void start() {
+        slots = new ConcurrentLinkedQueue[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new ConcurrentLinkedQueue<>();
+        }
+        startNanos = System.nanoTime();
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sla-timing-wheel");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /**
+     * Schedule a task deadline. Re-scheduling a task with the same deadline is a no-op, so the
+     * sweep can hand over its whole look-ahead window every time.
+     */
+    public void schedule(Long taskId, OffsetDateTime dueDate) {
+        if (taskId == null || dueDate == null) {
+            return;
+        }
+        long deadlineMillis = dueDate.toInstant().toEpochMilli();
+        Long previous = scheduled.put(taskId, deadlineMillis);
+        if (previous != null && previous == deadlineMillis) {
+            return;
+        }
+
+        long delayMs = Math.max(0, deadlineMillis - System.currentTimeMillis());
+        // +1 so the entry fires on the first tick at or after the deadline, never before
+        long deadlineTick = elapsedTicks() + delayMs / tickMs + 1;
+        slots[(int) (deadlineTick % slotCount)].add(new Entry(taskId, deadlineMillis, deadlineTick));
+    }
+
+    public int size() {
+        return scheduled.size();
+    }
+
+    void tick() {
+        try {
+            long target = elapsedTicks();
+            List<Long> due = new ArrayList<>();
+            // Catch up on ticks missed while a previous batch was being written
+            while (currentTick <= target) {
+                collect(slots[(int) (currentTick % slotCount)], currentTick, due);
+                currentTick++;
+            }
+            if (!due.isEmpty()) {
+                int marked = processor.markOverdue(due);
+                logger.debug("Timing wheel fired {} deadlines, {} tasks marked overdue", due.size(), marked);
+            }
+        } catch (Exception e) {
+            logger.error("SLA timing wheel tick failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void collect(ConcurrentLinkedQueue<Entry> slot, long tick, List<Long> due) {
+        Iterator<Entry> it = slot.iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.deadlineTick() > tick) {
+                continue; // belongs to a later revolution
+            }
+            it.remove();
+            // Only fire if this is still the task's current deadline
+            if (scheduled.remove(entry.taskId(), entry.deadlineMillis())) {
+                due.add(entry.taskId());
+            }
+        }
+    }
+
+    private long elapsedTicks() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) / tickMs;
+    }
+
+    private record Entry(Long taskId, long deadlineMillis, long deadlineTick) {}
+}
@@ -1,38 +1,33 @@
 package com.clouddocs.backend.scheduler;
 
-import com.clouddocs.backend.entity.*;
-import com.clouddocs.backend.repository.RoleRepository;
-import com.clouddocs.backend.repository.UserRepository;
-import com.clouddocs.backend.repository.WorkflowHistoryRepository;
 import com.clouddocs.backend.repository.WorkflowTaskRepository;
-import com.clouddocs.backend.service.NotificationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.List;
 
 /**
  * Scheduled tasks for SLA handling: overdue marking and escalations.
+ *
+ * Each sweep works only on the shards this node holds a lease for, drains them in bulk
+ * batches (one short transaction per batch) and hands tasks that fall due before the next
+ * sweep to the {@link SlaTimingWheel} so their deadlines fire within seconds.
  */
 @Component
 public class WorkflowScheduler {
 
     private static final Logger logger = LoggerFactory.getLogger(WorkflowScheduler.class);
 
-    @Autowired private WorkflowTaskRepository taskRepository;
-    @Autowired private WorkflowHistoryRepository historyRepository;
-    @Autowired private UserRepository userRepository;
-    @Autowired private RoleRepository roleRepository; // ✅ ADDED: For Role entity access
-    @Autowired private NotificationService notificationService;
+    @Autowired private SlaShardLeaseManager leaseManager;
+    @Autowired private SlaTaskProcessor processor;
+    @Autowired private SlaTimingWheel timingWheel;
 
     @Value("${workflow.sla.enabled:true}")
     private boolean slaEnabled;
@@ -43,135 +38,84 @@ public class WorkflowScheduler {
     @Value("${workflow.escalation.graceHours:24}")
     private long escalationGraceHours;
 
-    @Value("${workflow.escalation.role:MANAGER}")
-    private String escalationRoleName;
+    @Value("${workflow.sla.batch-size:200}")
+    private int batchSize;
 
-    // Run every 10 minutes with 2 minutes initial delay
-    @Scheduled(fixedDelay = 600_000L, initialDelay = 120_000L)
-    @Transactional
+    @Value("${workflow.sla.max-batches-per-sweep:50}")
+    private int maxBatchesPerSweep;
+
+    @Value("${workflow.sla.sweep-interval-ms:600000}")
+    private long sweepIntervalMs;
+
+    // Runs every 10 minutes by default with 2 minutes initial delay
+    @Scheduled(fixedDelayString = "${workflow.sla.sweep-interval-ms:600000}", initialDelay = 120_000L)
     public void processOverdueAndEscalations() {
         if (!slaEnabled) {
             return;
         }
 
-        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
-        Pageable batch = PageRequest.of(0, 200);
-
-        // 1) Mark tasks PENDING and dueDate < now as OVERDUE
-        var overduePage = taskRepository.findByStatusAndDueDateBefore(TaskStatus.PENDING, now, batch);
-        List<WorkflowTask> toOverdue = overduePage.getContent();
-
-        if (!toOverdue.isEmpty()) {
-            logger.info("Marking {} tasks as OVERDUE", toOverdue.size());
+        List<Integer> shards = leaseManager.acquire();
+        if (shards.isEmpty()) {
+            logger.debug("No SLA shards owned by {}, skipping sweep", leaseManager.getNodeId());
+            return;
         }
+        int shardCount = leaseManager.getShardCount();
+        long started = System.currentTimeMillis();
 
-        for (WorkflowTask task : toOverdue) {
-            try {
-                task.setStatus(TaskStatus.OVERDUE);
-                taskRepository.save(task);
-
-                // Notify assignee
-                if (task.getAssignedTo() != null) {
-                    notificationService.notifyTaskOverdue(task.getAssignedTo(), task);
-                }
-
-                // Log history
-                addHistory(task, "TASK_OVERDUE", "Task marked as overdue");
-            } catch (Exception e) {
-                logger.error("Failed to mark task {} as OVERDUE", task.getId(), e);
-            }
-        }
+        // 1) Mark PENDING tasks with dueDate < now as OVERDUE
+        int overdue = drain(() -> processor.markOverdueBatch(shards, shardCount, batchSize));
 
-        if (!escalationEnabled) {
-            return;
+        // 2) Escalate OVERDUE tasks older than graceHours
+        int escalated = 0;
+        if (escalationEnabled) {
+            OffsetDateTime cutoff = OffsetDateTime.now(ZoneOffset.UTC).minusHours(escalationGraceHours);
+            escalated = drain(() -> processor.escalateBatch(shards, shardCount, cutoff, batchSize));
         }
 
-        // 2) Escalate tasks OVERDUE older than graceHours
-        OffsetDateTime escalationCutoff = now.minusHours(escalationGraceHours);
-        var escalatePage = taskRepository.findByStatusAndDueDateBefore(TaskStatus.OVERDUE, escalationCutoff, batch);
-        List<WorkflowTask> toEscalate = escalatePage.getContent();
+        // 3) Arm the timing wheel for deadlines before the next sweep (plus slack for a slow sweep)
+        int armed = armTimingWheel(shards, shardCount);
 
-        if (!toEscalate.isEmpty()) {
-            logger.info("Escalating {} overdue tasks (cutoff: {})", toEscalate.size(), escalationCutoff);
+        if (overdue > 0 || escalated > 0) {
+            logger.info("SLA sweep on {} shards: {} overdue, {} escalated, {} deadlines armed in {} ms",
+                    shards.size(), overdue, escalated, armed, System.currentTimeMillis() - started);
         }
+    }
 
-        // ✅ FIXED: Get Role entity instead of enum
-        Role escalationRole = safeRole(escalationRoleName);
-
-        for (WorkflowTask task : toEscalate) {
+    private int drain(BatchStep step) {
+        int total = 0;
+        for (int i = 0; i < maxBatchesPerSweep; i++) {
+            int processed;
             try {
-                // ✅ FIXED: Find users by Role entity using Many-to-Many query
-                List<User> candidates = userRepository.findByRoleName(ERole.valueOf("ROLE_" + escalationRoleName.toUpperCase()));
-                if (candidates == null || candidates.isEmpty()) {
-                    logger.warn("No users found for escalation role {}", escalationRoleName);
-                    continue;
-                }
-
-                User newAssignee = pickEscalationAssignee(candidates);
-
-                User previousAssignee = task.getAssignedTo();
-                task.setAssignedTo(newAssignee);
-                
-                task.setDueDate(now.plusHours(24));
-                taskRepository.save(task);
-
-                // Log escalation
-                String details = String.format("Task escalated from %s to %s",
-                        safeUser(previousAssignee), safeUser(newAssignee));
-                addHistory(task, "TASK_ESCALATED", details);
-
-                // Notify new assignee and optionally previous
-                notificationService.notifyTaskAssigned(newAssignee, task);
-                if (previousAssignee != null) {
-                    notificationService.notifyTaskOverdue(previousAssignee, task);
-                }
-
+                processed = step.run();
             } catch (Exception e) {
-                logger.error("Failed to escalate task {}", task.getId(), e);
+                logger.error("SLA batch failed: {}", e.getMessage(), e);
+                break;
+            }
+            total += processed;
+            if (processed < batchSize) {
+                break;
             }
         }
+        return total;
     }
 
-    // ✅ COMPLETELY FIXED: Get Role entity from database
-    private Role safeRole(String roleName) {
-        try {
-            // Convert string to ERole enum (e.g., "MANAGER" -> "ROLE_MANAGER")
-            String enumName = roleName.startsWith("ROLE_") ? roleName : "ROLE_" + roleName;
-            ERole eRole = ERole.valueOf(enumName.toUpperCase());
-            
-            // Find Role entity by ERole enum
-            return roleRepository.findByName(eRole)
-                .orElseGet(() -> {
-                    logger.warn("Role {} not found, falling back to ROLE_MANAGER", enumName);
-                    return roleRepository.findByName(ERole.ROLE_MANAGER)
-                        .orElse(null);
-                });
-        } catch (Exception e) {
-            logger.warn("Error resolving role {}, falling back to ROLE_MANAGER: {}", roleName, e.getMessage());
-            // ✅ FIXED: Return ROLE_MANAGER entity as fallback
-            return roleRepository.findByName(ERole.ROLE_MANAGER)
-                .orElse(null);
-        }
-    }
-
-    private User pickEscalationAssignee(List<User> candidates) {
-        // Simple strategy: first candidate; replace with round-robin or least-loaded if needed
-        return candidates.get(0);
-    }
-
-    private void addHistory(WorkflowTask task, String action, String details) {
+    private int armTimingWheel(List<Integer> shards, int shardCount) {
         try {
-            WorkflowInstance instance = task.getWorkflowInstance();
-            if (instance == null) return;
-            WorkflowHistory history = new WorkflowHistory(instance, action, details, null);
-            historyRepository.save(history);
+            OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+            OffsetDateTime horizon = now.plus(Duration.ofMillis(sweepIntervalMs * 2));
+            List<WorkflowTaskRepository.TaskDeadline> deadlines = processor.findDeadlines(shards, shardCount, now, horizon);
+            for (WorkflowTaskRepository.TaskDeadline deadline : deadlines) {
+                timingWheel.schedule(deadline.getId(), deadline.getDueDate());
+            }
+            return deadlines.size();
         } catch (Exception e) {
-            logger.warn("Failed to add history for escalated/overdue task {}", task.getId(), e);
+            logger.warn("Failed to arm SLA timing wheel: {}", e.getMessage());
+            return 0;
         }
     }
 
-    private String safeUser(User u) {
-        if (u == null) return "Unassigned";
-        return (u.getFullName() != null && !u.getFullName().isBlank()) ? u.getFullName() : u.getUsername();
+    @FunctionalInterface
+    private interface BatchStep {
+        int run();
     }
 }
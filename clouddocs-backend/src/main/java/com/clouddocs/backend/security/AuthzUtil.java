@@ -3,7 +3,7 @@ package com.clouddocs.backend.security;
 import com.clouddocs.backend.entity.User;
 import com.clouddocs.backend.entity.WorkflowInstance;
 import com.clouddocs.backend.entity.WorkflowTask;
-import com.clouddocs.backend.repository.UserRepository;
+import com.clouddocs.backend.service.UserDirectoryCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
@@ -12,11 +12,10 @@ import org.springframework.stereotype.Component;
 public class AuthzUtil {
 
     @Autowired
-    private UserRepository userRepository;
+    private UserDirectoryCache userDirectory;
 
     public User currentUser() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findByUsername(username).orElse(null);
+        return userDirectory.currentUser().orElse(null);
     }
 
     public boolean isCurrentUser(User target) {
@@ -1,7 +1,5 @@
 package com.clouddocs.backend.security;
 
-import com.clouddocs.backend.entity.User;
-import com.clouddocs.backend.repository.UserRepository;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,7 +7,6 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -17,9 +14,6 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.List;
-import java.util.stream.Collectors;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -27,9 +21,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private JwtTokenProvider tokenProvider;
 
-    @Autowired
-    private UserRepository userRepository;
-
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, 
                                   @NonNull HttpServletResponse response, 
@@ -37,39 +28,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateJwtToken(jwt)) {
-                String username = tokenProvider.getUsernameFromJwtToken(jwt);
-                String roles = tokenProvider.getRolesFromJwtToken(jwt);
-                Long userId = tokenProvider.getUserIdFromJwtToken(jwt);
-
-                System.out.println("🔍 JWT Filter - Username: " + username + ", Roles: " + roles + ", UserId: " + userId);
-
-                // ✅ Create authorities from roles in JWT token
-                List<SimpleGrantedAuthority> authorities = Arrays.stream(roles.split(","))
-                        .map(role -> new SimpleGrantedAuthority(role.trim()))
-                        .collect(Collectors.toList());
+            if (StringUtils.hasText(jwt)) {
+                // ✅ One verification per token lifetime; principal comes straight from the claims
+                tokenProvider.verify(jwt).ifPresent(claims -> {
+                    UserPrincipal userPrincipal = claims.toPrincipal();
 
-                // ✅ Create UserPrincipal with user data
-                User user = userRepository.findByUsername(username).orElse(null);
-                if (user != null) {
-                    UserPrincipal userPrincipal = new UserPrincipal(
-                        user.getId(),
-                        user.getUsername(),
-                        user.getEmail(),
-                        user.getFirstName(),
-                        user.getLastName(),
-                        user.getPassword(),
-                        authorities  // ✅ Use authorities from JWT
-                    );
-
-                    UsernamePasswordAuthenticationToken authentication = 
-                        new UsernamePasswordAuthenticationToken(userPrincipal, null, authorities);
+                    UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(userPrincipal, null, userPrincipal.getAuthorities());
                     authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                     SecurityContextHolder.getContext().setAuthentication(authentication);
-                    
-                    System.out.println("✅ Authentication set for user: " + username + " with authorities: " + authorities);
-                }
+
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Authentication set for user: " + claims.username() + " with authorities: " + claims.roles());
+                    }
+                });
             }
         } catch (Exception ex) {
             logger.error("Could not set user authentication in security context", ex);
@@ -83,6 +56,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
             return bearerToken.substring(7);
         }
+        // ✅ EventSource cannot set headers, so the notification stream may pass the token in the query
+        if (request.getRequestURI().endsWith("/notifications/stream")) {
+            return request.getParameter("access_token");
+        }
         return null;
     }
 }
@@ -0,0 +1,35 @@
+package com.clouddocs.backend.security;
+
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Verified contents of a JWT, extracted in a single parse.
+ *
+ * Carries everything needed to build the request's {@link UserPrincipal} without touching
+ * the database. Email and names are only present on tokens issued after they were added
+ * to the claims; older tokens leave them null.
+ */
+public record JwtClaims(
+        String username,
+        Long userId,
+        List<String> roles,
+        String email,
+        String firstName,
+        String lastName,
+        Instant expiresAt) {
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !now.isBefore(expiresAt);
+    }
+
+    public List<SimpleGrantedAuthority> authorities() {
+        return roles.stream().map(SimpleGrantedAuthority::new).toList();
+    }
+
+    public UserPrincipal toPrincipal() {
+        return new UserPrincipal(userId, username, email, firstName, lastName, null, authorities());
+    }
+}
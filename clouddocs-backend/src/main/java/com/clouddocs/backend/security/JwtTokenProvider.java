@@ -2,6 +2,8 @@ package com.clouddocs.backend.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -9,85 +11,164 @@ import org.springframework.stereotype.Component;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Component
 public class JwtTokenProvider {
-    
+
     @Value("${app.jwtSecret}")
     private String jwtSecret;
-    
+
     @Value("${app.jwtExpirationMs}")
     private int jwtExpirationMs;
-    
+
+    @Value("${app.jwt.claims-cache-size:10000}")
+    private int claimsCacheSize;
+
+    // ✅ Built once: key derivation and parser construction are not free
+    private Key signingKey;
+    private JwtParser parser;
+
+    /**
+     * Verified claims keyed by SHA-256 of the token, kept until the token expires.
+     * Hashing keeps raw bearer tokens out of the heap.
+     */
+    private final Map<String, JwtClaims> verifiedTokens = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    }
+
     public String generateJwtToken(Authentication authentication) {
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-        
+
         // ✅ Extract user roles/authorities
         String roles = userPrincipal.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.joining(","));
-        
+
         System.out.println("🔐 Generating JWT for user: " + userPrincipal.getUsername() + " with roles: " + roles);
-        
+
         return Jwts.builder()
                 .setSubject(userPrincipal.getUsername())
                 .claim("roles", roles)  // ✅ Add roles to JWT
                 .claim("userId", userPrincipal.getId())  // ✅ Add user ID
+                .claim("email", userPrincipal.getEmail())  // ✅ Lets the filter build the principal from claims alone
+                .claim("firstName", userPrincipal.getFirstName())
+                .claim("lastName", userPrincipal.getLastName())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
-    
-    public String getUsernameFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
-    }
-    
-    // ✅ Add method to extract roles from JWT
-    public String getRolesFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .get("roles", String.class);
-    }
-    
-    // ✅ Add method to extract user ID from JWT
-    public Long getUserIdFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .get("userId", Long.class);
-    }
-    
-    public boolean validateJwtToken(String authToken) {
+
+    /**
+     * Verify a token and return its claims, parsing it at most once for its whole lifetime.
+     * Returns empty for malformed, badly signed or expired tokens.
+     */
+    public Optional<JwtClaims> verify(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+
+        String key = hash(token);
+        Instant now = Instant.now();
+        JwtClaims cached = verifiedTokens.get(key);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                return Optional.of(cached);
+            }
+            verifiedTokens.remove(key, cached);
+            return Optional.empty();
+        }
+
         try {
-            Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(authToken);
-            return true;
+            Claims body = parser.parseClaimsJws(token).getBody();
+            JwtClaims claims = toClaims(body);
+            remember(key, claims, now);
+            return Optional.of(claims);
         } catch (MalformedJwtException e) {
             System.err.println("Invalid JWT token: " + e.getMessage());
         } catch (ExpiredJwtException e) {
             System.err.println("JWT token is expired: " + e.getMessage());
         } catch (UnsupportedJwtException e) {
             System.err.println("JWT token is unsupported: " + e.getMessage());
+        } catch (SecurityException e) {
+            System.err.println("Invalid JWT signature: " + e.getMessage());
         } catch (IllegalArgumentException e) {
             System.err.println("JWT claims string is empty: " + e.getMessage());
         }
-        return false;
+        return Optional.empty();
+    }
+
+    public String getUsernameFromJwtToken(String token) {
+        return verify(token).map(JwtClaims::username).orElse(null);
+    }
+
+    // ✅ Add method to extract roles from JWT
+    public String getRolesFromJwtToken(String token) {
+        return verify(token).map(claims -> String.join(",", claims.roles())).orElse(null);
+    }
+
+    // ✅ Add method to extract user ID from JWT
+    public Long getUserIdFromJwtToken(String token) {
+        return verify(token).map(JwtClaims::userId).orElse(null);
+    }
+
+    public boolean validateJwtToken(String authToken) {
+        return verify(authToken).isPresent();
+    }
+
+    private JwtClaims toClaims(Claims body) {
+        String roles = body.get("roles", String.class);
+        List<String> roleList = roles == null ? List.of() : Arrays.stream(roles.split(","))
+                .map(String::trim)
+                .filter(role -> !role.isEmpty())
+                .toList();
+        Date expiration = body.getExpiration();
+
+        return new JwtClaims(
+                body.getSubject(),
+                body.get("userId", Long.class),
+                roleList,
+                body.get("email", String.class),
+                body.get("firstName", String.class),
+                body.get("lastName", String.class),
+                expiration != null ? expiration.toInstant() : null);
+    }
+
+    private void remember(String key, JwtClaims claims, Instant now) {
+        if (verifiedTokens.size() >= claimsCacheSize) {
+            verifiedTokens.values().removeIf(c -> c.isExpired(now));
+            // Still full: drop an arbitrary entry rather than grow without bound
+            Iterator<String> it = verifiedTokens.keySet().iterator();
+            while (verifiedTokens.size() >= claimsCacheSize && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        verifiedTokens.put(key, claims);
     }
-    
-    private Key getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
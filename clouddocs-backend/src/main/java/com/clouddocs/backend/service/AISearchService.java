@@ -6,15 +6,20 @@ import com.clouddocs.backend.dto.DocumentDTO;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import jakarta.annotation.PostConstruct;
 
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.stream.Collectors;
 import java.util.Comparator;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * 🤖 AI-powered semantic search service with multi-provider support
@@ -37,6 +42,18 @@ public class AISearchService {
     @Autowired
     private AIEmbeddingService embeddingService;
     
+    // ✅ Blocking work stays off the common ForkJoin pool and the HTTP event loop (virtual threads in that mode)
+    @Autowired
+    @Qualifier("asyncExecutor")
+    private Executor asyncExecutor;
+    
+    private Scheduler asyncScheduler;
+    
+    @PostConstruct
+    void initScheduler() {
+        asyncScheduler = Schedulers.fromExecutor(asyncExecutor);
+    }
+    
     /**
      * 🔍 Perform semantic search with multi-provider AI support and comprehensive debugging
      */
@@ -46,92 +63,7 @@ public class AISearchService {
         try {
             // Generate query embedding with multi-provider support
             List<Double> queryEmbedding = multiProviderAIService.generateEmbedding(query);
-            log.info("✅ Query embedding generated successfully with {} dimensions", queryEmbedding.size());
-            
-            // Get all documents with embeddings for this user
-            List<Document> documentsWithEmbeddings = documentRepository
-                .findByUploadedByUsernameAndEmbeddingGeneratedTrue(username);
-            
-            log.info("📄 Found {} documents with embeddings for user: {}", 
-                documentsWithEmbeddings.size(), username);
-            
-            if (documentsWithEmbeddings.isEmpty()) {
-                log.info("ℹ️ No documents with embeddings found for user: {}", username);
-                return List.of();
-            }
-            
-            // Calculate similarity scores with comprehensive logging and safety checks
-            List<DocumentWithScore> allScoredDocuments = documentsWithEmbeddings.stream()
-                .map(doc -> {
-                    try {
-                        // Get document embedding
-                        List<Double> docEmbedding = embeddingService.jsonToEmbedding(doc.getEmbedding());
-                        
-                        // ✅ ENHANCED: Add dimension logging for debugging
-                        log.debug("📊 Document '{}' - Query dims: {}, Doc dims: {}", 
-                            doc.getOriginalFilename(), queryEmbedding.size(), docEmbedding.size());
-                        
-                        // ✅ FIXED: Use dimension-safe similarity calculation
-                        double similarity = calculateSafeSimilarity(queryEmbedding, docEmbedding, doc.getOriginalFilename());
-                        
-                        // ✅ FIXED: Proper similarity logging with all parameters
-                        log.info("🎯 SIMILARITY: Query '{}' → Document '{}' → Score: {:.4f}", 
-                            query, doc.getOriginalFilename(), similarity);
-                        
-                        return new DocumentWithScore(doc, similarity);
-                    } catch (Exception e) {
-                        log.error("❌ Error calculating similarity for document '{}': {}", 
-                            doc.getOriginalFilename(), e.getMessage());
-                        return new DocumentWithScore(doc, 0.0);
-                    }
-                })
-                .sorted(Comparator.comparing(DocumentWithScore::getScore).reversed())
-                .collect(Collectors.toList());
-            
-            // ✅ ENHANCED: Log ALL similarity scores before filtering
-            log.info("📊 ALL SIMILARITY SCORES (before filtering):");
-            allScoredDocuments.forEach(scored -> 
-                log.info("   - {}: {:.4f}", scored.document.getOriginalFilename(), scored.score)
-            );
-            
-            // ✅ FIXED: Apply lower threshold for better recall
-            List<DocumentWithScore> filteredResults = allScoredDocuments.stream()
-                .filter(scored -> scored.score > 0.30) // ✅ LOWERED from 0.55 to 0.30
-                .limit(limit)
-                .collect(Collectors.toList());
-            
-            // ✅ FIXED: Consistent threshold logging
-            log.info("✅ Semantic search completed: {} relevant documents found (threshold: 0.30)", 
-                filteredResults.size());
-            
-            // Enhanced results logging
-            if (!filteredResults.isEmpty()) {
-                log.info("📊 FINAL RESULTS (above threshold 0.30):");
-                filteredResults.forEach(scored -> 
-                    log.info("   ✓ {}: {:.4f}", scored.document.getOriginalFilename(), scored.score)
-                );
-            } else {
-                double highestScore = !allScoredDocuments.isEmpty() ? allScoredDocuments.get(0).score : 0.0;
-                log.warn("⚠️ No documents passed the similarity threshold of 0.30");
-                if (highestScore > 0.0) {
-                    log.info("💡 Highest similarity score was: {:.4f} for '{}'", 
-                        highestScore, allScoredDocuments.get(0).document.getOriginalFilename());
-                    if (highestScore > 0.15) {
-                        log.info("💡 Consider lowering threshold to {:.2f} to include more results", 
-                            Math.max(0.15, highestScore - 0.05));
-                    }
-                }
-            }
-            
-            // Convert to DTOs and return
-            return filteredResults.stream()
-                .map(scored -> {
-                    DocumentDTO dto = documentService.convertToDTO(scored.document);
-                    dto.setAiScore(scored.score);
-                    dto.setSearchType("semantic");
-                    return dto;
-                })
-                .collect(Collectors.toList());
+            return rankByEmbedding(query, queryEmbedding, username, limit);
                 
         } catch (EmbeddingException e) {
             log.error("❌ Multi-provider embedding generation failed: {} (Provider: {})", 
@@ -144,6 +76,116 @@ public class AISearchService {
         }
     }
     
+    /**
+     * 🔍 Non-blocking semantic search: no thread waits on the AI provider, and only the
+     * database scoring afterwards runs on {@code asyncExecutor}
+     */
+    public Mono<List<DocumentDTO>> semanticSearchAsync(String query, String username, int limit) {
+        log.info("🔍 Performing semantic search for query: '{}', user: '{}'", query, username);
+        
+        return multiProviderAIService.embed(query)
+            .publishOn(asyncScheduler)
+            .map(vector -> rankByEmbedding(query, ReactiveEmbeddingProvider.toList(vector), username, limit))
+            .onErrorMap(e -> {
+                if (e instanceof EmbeddingException embeddingException) {
+                    log.error("❌ Multi-provider embedding generation failed: {} (Provider: {})", 
+                        e.getMessage(), embeddingException.getProviderName());
+                    return new RuntimeException("AI search temporarily unavailable: " + e.getMessage(), e);
+                }
+                log.error("❌ Semantic search failed unexpectedly: {}", e.getMessage(), e);
+                return new RuntimeException("Semantic search failed: " + e.getMessage(), e);
+            });
+    }
+    
+    private List<DocumentDTO> rankByEmbedding(String query, List<Double> queryEmbedding, String username, int limit) {
+        log.info("✅ Query embedding generated successfully with {} dimensions", queryEmbedding.size());
+        
+        // Get all documents with embeddings for this user
+        List<Document> documentsWithEmbeddings = documentRepository
+            .findByUploadedByUsernameAndEmbeddingGeneratedTrue(username);
+        
+        log.info("📄 Found {} documents with embeddings for user: {}", 
+            documentsWithEmbeddings.size(), username);
+        
+        if (documentsWithEmbeddings.isEmpty()) {
+            log.info("ℹ️ No documents with embeddings found for user: {}", username);
+            return List.of();
+        }
+        
+        // Calculate similarity scores with comprehensive logging and safety checks
+        List<DocumentWithScore> allScoredDocuments = documentsWithEmbeddings.stream()
+            .map(doc -> {
+                try {
+                    // Get document embedding
+                    List<Double> docEmbedding = embeddingService.jsonToEmbedding(doc.getEmbedding());
+                    
+                    // ✅ ENHANCED: Add dimension logging for debugging
+                    log.debug("📊 Document '{}' - Query dims: {}, Doc dims: {}", 
+                        doc.getOriginalFilename(), queryEmbedding.size(), docEmbedding.size());
+                    
+                    // ✅ FIXED: Use dimension-safe similarity calculation
+                    double similarity = calculateSafeSimilarity(queryEmbedding, docEmbedding, doc.getOriginalFilename());
+                    
+                    // ✅ FIXED: Proper similarity logging with all parameters
+                    log.info("🎯 SIMILARITY: Query '{}' → Document '{}' → Score: {:.4f}", 
+                        query, doc.getOriginalFilename(), similarity);
+                    
+                    return new DocumentWithScore(doc, similarity);
+                } catch (Exception e) {
+                    log.error("❌ Error calculating similarity for document '{}': {}", 
+                        doc.getOriginalFilename(), e.getMessage());
+                    return new DocumentWithScore(doc, 0.0);
+                }
+            })
+            .sorted(Comparator.comparing(DocumentWithScore::getScore).reversed())
+            .collect(Collectors.toList());
+        
+        // ✅ ENHANCED: Log ALL similarity scores before filtering
+        log.info("📊 ALL SIMILARITY SCORES (before filtering):");
+        allScoredDocuments.forEach(scored -> 
+            log.info("   - {}: {:.4f}", scored.document.getOriginalFilename(), scored.score)
+        );
+        
+        // ✅ FIXED: Apply lower threshold for better recall
+        List<DocumentWithScore> filteredResults = allScoredDocuments.stream()
+            .filter(scored -> scored.score > 0.30) // ✅ LOWERED from 0.55 to 0.30
+            .limit(limit)
+            .collect(Collectors.toList());
+        
+        // ✅ FIXED: Consistent threshold logging
+        log.info("✅ Semantic search completed: {} relevant documents found (threshold: 0.30)", 
+            filteredResults.size());
+        
+        // Enhanced results logging
+        if (!filteredResults.isEmpty()) {
+            log.info("📊 FINAL RESULTS (above threshold 0.30):");
+            filteredResults.forEach(scored -> 
+                log.info("   ✓ {}: {:.4f}", scored.document.getOriginalFilename(), scored.score)
+            );
+        } else {
+            double highestScore = !allScoredDocuments.isEmpty() ? allScoredDocuments.get(0).score : 0.0;
+            log.warn("⚠️ No documents passed the similarity threshold of 0.30");
+            if (highestScore > 0.0) {
+                log.info("💡 Highest similarity score was: {:.4f} for '{}'", 
+                    highestScore, allScoredDocuments.get(0).document.getOriginalFilename());
+                if (highestScore > 0.15) {
+                    log.info("💡 Consider lowering threshold to {:.2f} to include more results", 
+                        Math.max(0.15, highestScore - 0.05));
+                }
+            }
+        }
+        
+        // Convert to DTOs and return
+        return filteredResults.stream()
+            .map(scored -> {
+                DocumentDTO dto = documentService.convertToDTO(scored.document);
+                dto.setAiScore(scored.score);
+                dto.setSearchType("semantic");
+                return dto;
+            })
+            .collect(Collectors.toList());
+    }
+    
     /**
      * ✅ ENHANCED: Dimension safety check with detailed logging
      */
@@ -170,30 +212,33 @@ public class AISearchService {
      * 🎯 Advanced hybrid search combining semantic + keyword matching
      */
     public List<DocumentDTO> hybridSearch(String query, String username, int limit) {
+        return hybridSearchAsync(query, username, limit).block();
+    }
+    
+    /**
+     * 🎯 Hybrid search without blocking on the AI provider; keyword search runs meanwhile
+     */
+    public Mono<List<DocumentDTO>> hybridSearchAsync(String query, String username, int limit) {
         log.info("🔄 Performing hybrid search for query: '{}'", query);
         
-        try {
-            // Execute semantic and keyword searches in parallel
-            CompletableFuture<List<DocumentDTO>> semanticResults = CompletableFuture
-                .supplyAsync(() -> semanticSearch(query, username, limit));
-            
-            CompletableFuture<List<DocumentDTO>> keywordResults = CompletableFuture
-                .supplyAsync(() -> performKeywordSearch(query, username, limit));
-            
-            // Wait for both results
-            List<DocumentDTO> semanticDocs = semanticResults.join();
-            List<DocumentDTO> keywordDocs = keywordResults.join();
-            
-            log.info("🔄 Hybrid search results - Semantic: {}, Keyword: {}", 
-                semanticDocs.size(), keywordDocs.size());
-            
-            // Merge and boost documents found by both methods
-            return mergeAndRankResults(semanticDocs, keywordDocs, limit);
-            
-        } catch (Exception e) {
-            log.warn("⚠️ Hybrid search failed, falling back to keyword search: {}", e.getMessage());
-            return performKeywordSearch(query, username, limit);
-        }
+        // Execute semantic and keyword searches in parallel
+        Mono<List<DocumentDTO>> keywordResults = Mono
+            .fromCallable(() -> performKeywordSearch(query, username, limit))
+            .subscribeOn(asyncScheduler);
+        
+        return Mono.zip(semanticSearchAsync(query, username, limit), keywordResults)
+            .map(results -> {
+                log.info("🔄 Hybrid search results - Semantic: {}, Keyword: {}", 
+                    results.getT1().size(), results.getT2().size());
+                
+                // Merge and boost documents found by both methods
+                return mergeAndRankResults(results.getT1(), results.getT2(), limit);
+            })
+            .onErrorResume(e -> {
+                log.warn("⚠️ Hybrid search failed, falling back to keyword search: {}", e.getMessage());
+                return Mono.fromCallable(() -> performKeywordSearch(query, username, limit))
+                    .subscribeOn(asyncScheduler);
+            });
     }
     
     /**
@@ -0,0 +1,166 @@
+package com.clouddocs.backend.service;
+
+import com.clouddocs.backend.repository.DocumentRepository;
+import com.clouddocs.backend.repository.DocumentShareLinkRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind counters for document downloads and share-link accesses.
+ *
+ * Hot paths only bump a {@link LongAdder}, so a popular document or link no longer serializes
+ * requests on its row lock. A dedicated thread drains the deltas every few seconds and writes
+ * them with one bulk UPDATE per distinct delta. Counts in the database lag by at most one flush
+ * interval; pending deltas are flushed on graceful shutdown, and put back if a flush fails.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AccessCounterService {
+
+    private final DocumentRepository documentRepository;
+    private final DocumentShareLinkRepository shareLinkRepository;
+
+    @Value("${app.counters.flush-interval-ms:5000}")
+    private long flushIntervalMs;
+
+    private final Map<Long, LongAdder> downloads = new ConcurrentHashMap<>();
+    private final Map<Long, LongAdder> shareAccesses = new ConcurrentHashMap<>();
+    private final Map<Long, LocalDateTime> shareLastAccess = new ConcurrentHashMap<>();
+
+    private final AtomicLong flushedDownloads = new AtomicLong();
+    private final AtomicLong flushedShareAccesses = new AtomicLong();
+
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "access-counter-flush");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // ✅ Final drain so a clean restart never loses counts
+        flushQuietly();
+        log.info("Access counters flushed on shutdown");
+    }
+
+    public void recordDownload(Long documentId) {
+        if (documentId != null) {
+            downloads.computeIfAbsent(documentId, id -> new LongAdder()).increment();
+        }
+    }
+
+    public void recordShareAccess(Long shareLinkId) {
+        if (shareLinkId != null) {
+            shareAccesses.computeIfAbsent(shareLinkId, id -> new LongAdder()).increment();
+            shareLastAccess.put(shareLinkId, LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Write all pending deltas now. Safe to call concurrently with the flush thread.
+     */
+    public synchronized void flush() {
+        flushedDownloads.addAndGet(drain(downloads, documentRepository::incrementDownloadCountBy));
+        flushedShareAccesses.addAndGet(drain(shareAccesses, (ids, delta) -> {
+            LocalDateTime accessedAt = ids.stream()
+                    .map(shareLastAccess::get)
+                    .filter(Objects::nonNull)
+                    .max(LocalDateTime::compareTo)
+                    .orElseGet(LocalDateTime::now);
+            shareLinkRepository.incrementAccessCountBy(ids, delta, accessedAt);
+        }));
+        shareLastAccess.keySet().retainAll(shareAccesses.keySet());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pendingDocuments", downloads.size());
+        stats.put("pendingShareLinks", shareAccesses.size());
+        stats.put("flushedDownloads", flushedDownloads.get());
+        stats.put("flushedShareAccesses", flushedShareAccesses.get());
+        return stats;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("⚠️ Failed to flush access counters: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Drain one counter map, grouping ids by delta so each group is a single UPDATE.
+     *
+     * @return total count written
+     */
+    private long drain(Map<Long, LongAdder> counters, BulkIncrement writer) {
+        Map<Integer, List<Long>> idsByDelta = new TreeMap<>();
+        for (Map.Entry<Long, LongAdder> entry : counters.entrySet()) {
+            long delta = entry.getValue().sumThenReset();
+            if (delta == 0) {
+                // Idle since the last flush - drop it, re-crediting anything that raced in
+                if (counters.remove(entry.getKey(), entry.getValue())) {
+                    long late = entry.getValue().sumThenReset();
+                    if (late > 0) {
+                        counters.computeIfAbsent(entry.getKey(), id -> new LongAdder()).add(late);
+                    }
+                }
+                continue;
+            }
+            idsByDelta.computeIfAbsent((int) Math.min(delta, Integer.MAX_VALUE), d -> new ArrayList<>())
+                    .add(entry.getKey());
+        }
+
+        long written = 0;
+        for (Map.Entry<Integer, List<Long>> group : idsByDelta.entrySet()) {
+            try {
+                writer.apply(group.getValue(), group.getKey());
+                written += (long) group.getKey() * group.getValue().size();
+            } catch (RuntimeException e) {
+                // Put the deltas back so the next flush retries them
+                for (Long id : group.getValue()) {
+                    counters.computeIfAbsent(id, k -> new LongAdder()).add(group.getKey());
+                }
+                log.warn("⚠️ Failed to flush {} counters, will retry: {}", group.getValue().size(), e.getMessage());
+            }
+        }
+        return written;
+    }
+
+    @FunctionalInterface
+    private interface BulkIncrement {
+        void apply(List<Long> ids, int delta);
+    }
+}
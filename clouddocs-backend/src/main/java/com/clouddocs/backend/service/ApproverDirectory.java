@@ -0,0 +1,196 @@
+package com.clouddocs.backend.service;
+
+import com.clouddocs.backend.entity.ERole;
+import com.clouddocs.backend.entity.User;
+import com.clouddocs.backend.event.UserDirectoryChangedEvent;
+import com.clouddocs.backend.event.WorkflowTemplateChangedEvent;
+import com.clouddocs.backend.repository.UserRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory directory of workflow approvers.
+ *
+ * Keeps two levels of cache:
+ * - role -> ids of active and enabled users holding that role
+ * - step (per template version) -> resolved approver ids
+ *
+ * Once warm, resolving the approvers of a step needs no database round trip.
+ * All entries are dropped whenever a {@link UserDirectoryChangedEvent} is published.
+ * Step entries are keyed by template version and are also dropped on
+ * {@link WorkflowTemplateChangedEvent}, so edited templates never reuse an old resolution.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ApproverDirectory {
+
+    private final UserRepository userRepository;
+
+    private final Map<ERole, List<Long>> roleMembers = new ConcurrentHashMap<>();
+    private final Map<StepKey, List<Long>> stepApprovers = new ConcurrentHashMap<>();
+    private final Map<Long, User> users = new ConcurrentHashMap<>();
+
+    /**
+     * Bumped on every invalidation; results computed under an older generation are not cached.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private record StepKey(UUID templateId, LocalDateTime templateVersion, Long stepId) {}
+
+    /**
+     * Resolve the approvers for a step: direct assignees first, then users holding one of
+     * the step roles, then admins as a fallback. Returns users in a stable, de-duplicated order.
+     */
+    public List<User> findApproversForStep(CompiledWorkflowTemplate template, CompiledWorkflowTemplate.Step step) {
+        StepKey key = new StepKey(template.id(), template.version(), step.id());
+
+        List<Long> ids = stepApprovers.get(key);
+        if (ids == null) {
+            long gen = generation.get();
+            ids = resolveStepApprovers(step);
+            if (generation.get() == gen) {
+                stepApprovers.put(key, ids);
+            }
+        }
+
+        List<User> approvers = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            User user = users.get(id);
+            if (user == null) {
+                // Directory was invalidated between lookup and materialisation
+                return resolveUncached(step);
+            }
+            approvers.add(user);
+        }
+        return approvers;
+    }
+
+    /**
+     * Ids of active and enabled users holding the given role.
+     */
+    public List<Long> findActiveUserIdsByRole(ERole role) {
+        List<Long> ids = roleMembers.get(role);
+        if (ids != null) {
+            return ids;
+        }
+
+        long gen = generation.get();
+        List<User> members = userRepository.findByRoleNameAndActiveAndEnabled(role, true, true);
+        List<Long> memberIds = new ArrayList<>(members.size());
+        for (User user : members) {
+            if (isUserEligible(user)) {
+                users.put(user.getId(), user);
+                memberIds.add(user.getId());
+            }
+        }
+        memberIds = List.copyOf(memberIds);
+
+        if (generation.get() == gen) {
+            roleMembers.put(role, memberIds);
+        }
+        log.debug("Loaded {} approvers for role {}", memberIds.size(), role);
+        return memberIds;
+    }
+
+    /**
+     * Drop every cached role and step entry.
+     */
+    public void invalidateAll(String reason) {
+        generation.incrementAndGet();
+        roleMembers.clear();
+        stepApprovers.clear();
+        users.clear();
+        log.info("Approver directory invalidated: {}", reason);
+    }
+
+    /**
+     * Drop the cached step resolutions of a single template (all versions).
+     */
+    public void invalidateTemplate(UUID templateId) {
+        generation.incrementAndGet();
+        stepApprovers.keySet().removeIf(key -> Objects.equals(key.templateId(), templateId));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDirectoryChanged(UserDirectoryChangedEvent event) {
+        invalidateAll(event.reason() + " (user " + event.username() + ")");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTemplateChanged(WorkflowTemplateChangedEvent event) {
+        invalidateTemplate(event.templateId());
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "roles", roleMembers.size(),
+                "steps", stepApprovers.size(),
+                "users", users.size(),
+                "generation", generation.get());
+    }
+
+    // ===== RESOLUTION =====
+
+    private List<Long> resolveStepApprovers(CompiledWorkflowTemplate.Step step) {
+        Set<Long> ids = new LinkedHashSet<>();
+
+        // First, check for directly assigned approvers
+        if (!step.directApproverIds().isEmpty()) {
+            for (User user : userRepository.findAllById(step.directApproverIds())) {
+                if (isUserEligible(user)) {
+                    users.put(user.getId(), user);
+                    ids.add(user.getId());
+                }
+            }
+            if (!ids.isEmpty()) {
+                return List.copyOf(ids);
+            }
+        }
+
+        // Then role-based approvers
+        for (ERole role : step.roles()) {
+            ids.addAll(findActiveUserIdsByRole(role));
+        }
+
+        // Fallback - admin users
+        if (ids.isEmpty()) {
+            log.warn("⚠️ No role-based approvers found for step '{}', falling back to admin users", step.name());
+            ids.addAll(findActiveUserIdsByRole(ERole.ROLE_ADMIN));
+        }
+
+        return List.copyOf(ids);
+    }
+
+    private List<User> resolveUncached(CompiledWorkflowTemplate.Step step) {
+        List<User> approvers = new ArrayList<>();
+        for (Long id : resolveStepApprovers(step)) {
+            User user = users.get(id);
+            if (user == null) {
+                user = userRepository.findById(id).orElse(null);
+            }
+            if (isUserEligible(user)) {
+                approvers.add(user);
+            }
+        }
+        return approvers;
+    }
+
+    private boolean isUserEligible(User user) {
+        return user != null && user.isActive() && user.isEnabled();
+    }
+}
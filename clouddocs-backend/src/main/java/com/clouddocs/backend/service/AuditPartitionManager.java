@@ -0,0 +1,311 @@
+package com.clouddocs.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps {@code audit_log} range-partitioned by month.
+ *
+ * On startup a plain (Hibernate-created) table is converted in place. Partitions are created a
+ * few months ahead, and partitions older than the retention window are detached into
+ * {@code audit_log_archive_*} tables (or dropped). Time-bounded queries only touch the months
+ * they cover. Counts per closed month are cached in {@code audit_log_partition_stats}, so stats
+ * only ever scan the current month.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AuditPartitionManager {
+
+    private static final String PARENT = "audit_log";
+    private static final String STATS_TABLE = "audit_log_partition_stats";
+    private static final Pattern MONTHLY = Pattern.compile("audit_log_p(\\d{4})_(\\d{2})");
+    // Arbitrary constant shared by all nodes so only one converts or maintains at a time
+    private static final long LOCK_KEY = 0x4155444954L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.audit.partitions.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.audit.partitions.premake-months:3}")
+    private int premakeMonths;
+
+    @Value("${app.audit.retention-days:90}")
+    private int retentionDays;
+
+    // "detach" keeps expired months as standalone archive tables; "drop" deletes them
+    @Value("${app.audit.partitions.archive-mode:detach}")
+    private String archiveMode;
+
+    // Closed months are recounted for this long, to pick up late journal replays
+    @Value("${app.audit.partitions.stats-refresh-days:7}")
+    private int statsRefreshDays;
+
+    private volatile boolean partitioned;
+
+    /**
+     * Aggregate counts for one partition.
+     */
+    public record PartitionStats(String partition, long total, long succeeded, long failed, long workflowRelated) {}
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)", Object.class, LOCK_KEY);
+                if (!isPartitioned()) {
+                    convertToPartitioned();
+                }
+                ensureStatsTable();
+            });
+            partitioned = true;
+            ensureSearchIndexes();
+            maintain();
+        } catch (Exception e) {
+            log.warn("⚠️ audit_log partitioning unavailable, using the plain table: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Nightly: create upcoming months, archive expired ones, refresh recent month counters.
+     */
+    @Scheduled(cron = "${app.audit.partitions.maintenance-cron:0 15 2 * * *}")
+    public void maintain() {
+        if (!enabled || !partitioned) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)", Object.class, LOCK_KEY);
+                YearMonth current = YearMonth.now();
+                for (int i = 0; i <= premakeMonths; i++) {
+                    createPartition(current.plusMonths(i));
+                }
+                archiveExpired();
+            });
+            refreshClosedStats();
+        } catch (Exception e) {
+            log.error("❌ audit_log partition maintenance failed: {}", e.getMessage(), e);
+        }
+    }
+
+    public boolean isActive() {
+        return partitioned;
+    }
+
+    /**
+     * Counts across all live partitions: cached for closed months, counted for the open ones.
+     * Without partitioning, a single aggregate over the whole table.
+     */
+    public List<PartitionStats> partitionStats() {
+        if (!partitioned) {
+            return List.of(count(PARENT));
+        }
+        YearMonth current = YearMonth.now();
+        Map<String, PartitionStats> cached = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT partition_name, total, succeeded, failed, workflow_related FROM " + STATS_TABLE,
+                rs -> {
+                    cached.put(rs.getString(1), new PartitionStats(rs.getString(1), rs.getLong(2),
+                            rs.getLong(3), rs.getLong(4), rs.getLong(5)));
+                });
+
+        return partitions().stream().map(name -> {
+            Optional<YearMonth> month = monthOf(name);
+            boolean closed = month.isPresent() && month.get().isBefore(current);
+            if (closed && cached.containsKey(name)) {
+                return cached.get(name);
+            }
+            PartitionStats stats = count(name);
+            if (closed) {
+                store(stats);
+            }
+            return stats;
+        }).toList();
+    }
+
+    private boolean isPartitioned() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_partitioned_table p JOIN pg_class c ON c.oid = p.partrelid " +
+                "WHERE c.relname = ? AND c.relnamespace = (SELECT oid FROM pg_namespace WHERE nspname = current_schema())",
+                Integer.class, PARENT);
+        return count != null && count > 0;
+    }
+
+    /**
+     * Rebuild the plain table as a partitioned one, keeping ids and the identity sequence.
+     * The partition key has to be part of the primary key, so it becomes (id, timestamp).
+     * Must run in the caller's transaction, which holds the table lock until the rename commits.
+     */
+    private void convertToPartitioned() {
+        jdbcTemplate.execute("CREATE TABLE audit_log_partitioned (" +
+                "id BIGINT GENERATED BY DEFAULT AS IDENTITY, " +
+                "activity VARCHAR(120) NOT NULL, " +
+                "linked_item VARCHAR(255), " +
+                "user_name VARCHAR(120) NOT NULL, " +
+                "timestamp TIMESTAMP(6) NOT NULL, " +
+                "status VARCHAR(20) NOT NULL, " +
+                "PRIMARY KEY (id, timestamp)) PARTITION BY RANGE (timestamp)");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS audit_log_default PARTITION OF audit_log_partitioned DEFAULT");
+
+        boolean legacy = tableExists(PARENT);
+        if (legacy) {
+            // The AuditWriter and other nodes keep inserting; block them until the swap commits so
+            // no row lands in the old table after the copy. Their statements then resolve to the new one.
+            jdbcTemplate.execute("LOCK TABLE audit_log IN ACCESS EXCLUSIVE MODE");
+            Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(timestamp) FROM audit_log", Timestamp.class);
+            YearMonth first = oldest != null ? YearMonth.from(oldest.toLocalDateTime()) : YearMonth.now();
+            for (YearMonth m = first; !m.isAfter(YearMonth.now().plusMonths(premakeMonths)); m = m.plusMonths(1)) {
+                createPartition("audit_log_partitioned", m);
+            }
+            int copied = jdbcTemplate.update("INSERT INTO audit_log_partitioned " +
+                    "(id, activity, linked_item, user_name, timestamp, status) " +
+                    "SELECT id, activity, linked_item, user_name, COALESCE(timestamp, now()), status FROM audit_log");
+            jdbcTemplate.execute("DROP TABLE audit_log");
+            log.info("📦 Converted audit_log to monthly partitions ({} rows copied)", copied);
+        }
+
+        jdbcTemplate.execute("ALTER TABLE audit_log_partitioned RENAME TO audit_log");
+        jdbcTemplate.execute("ALTER INDEX IF EXISTS audit_log_partitioned_pkey RENAME TO audit_log_pkey");
+        jdbcTemplate.queryForObject("SELECT setval(pg_get_serial_sequence('audit_log', 'id'), " +
+                "COALESCE((SELECT MAX(id) FROM audit_log), 0) + 1, false)", Long.class);
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_audit_log_timestamp ON audit_log (timestamp DESC)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_audit_log_linked_item ON audit_log (linked_item)");
+    }
+
+    /**
+     * Trigram indexes for the substring filters. Optional: without the extension the search
+     * still works, just without index support for {@code LIKE '%q%'}.
+     */
+    private void ensureSearchIndexes() {
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_audit_log_activity_trgm " +
+                    "ON audit_log USING gin (LOWER(activity) gin_trgm_ops)");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_audit_log_linked_item_trgm " +
+                    "ON audit_log USING gin (LOWER(linked_item) gin_trgm_ops)");
+        } catch (Exception e) {
+            log.warn("⚠️ pg_trgm not available, audit text search will scan: {}", e.getMessage());
+        }
+    }
+
+    private void ensureStatsTable() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + STATS_TABLE + " (" +
+                "partition_name VARCHAR(63) PRIMARY KEY, total BIGINT NOT NULL, succeeded BIGINT NOT NULL, " +
+                "failed BIGINT NOT NULL, workflow_related BIGINT NOT NULL, computed_at TIMESTAMP NOT NULL)");
+    }
+
+    private void createPartition(YearMonth month) {
+        createPartition(PARENT, month);
+    }
+
+    private void createPartition(String parent, YearMonth month) {
+        String name = partitionName(month);
+        if (tableExists(name)) {
+            return;
+        }
+        // Bounds are formatted from YearMonth, never from user input
+        jdbcTemplate.execute(String.format("CREATE TABLE %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')",
+                name, parent, month.atDay(1), month.plusMonths(1).atDay(1)));
+        log.info("📅 Created audit partition {}", name);
+    }
+
+    private void archiveExpired() {
+        LocalDate cutoff = LocalDate.now().minusDays(retentionDays);
+        for (String name : partitions()) {
+            Optional<YearMonth> month = monthOf(name);
+            // Only whole months entirely past the retention window
+            if (month.isEmpty() || !month.get().plusMonths(1).atDay(1).isBefore(cutoff.plusDays(1))) {
+                continue;
+            }
+            // Months already moved to cold segments are empty; nothing is worth keeping
+            boolean empty = !Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM " + name + ")", Boolean.class));
+            if (empty || "drop".equalsIgnoreCase(archiveMode)) {
+                jdbcTemplate.execute("DROP TABLE " + name);
+                log.info("🗑️ Dropped expired audit partition {}", name);
+            } else {
+                String archive = name.replace("audit_log_p", "audit_log_archive_");
+                jdbcTemplate.execute("ALTER TABLE " + PARENT + " DETACH PARTITION " + name);
+                jdbcTemplate.execute("ALTER TABLE " + name + " RENAME TO " + archive);
+                log.info("📦 Archived audit partition {} as {}", name, archive);
+            }
+            jdbcTemplate.update("DELETE FROM " + STATS_TABLE + " WHERE partition_name = ?", name);
+        }
+    }
+
+    private void refreshClosedStats() {
+        YearMonth current = YearMonth.now();
+        LocalDate refreshFrom = LocalDate.now().minusDays(statsRefreshDays);
+        for (String name : partitions()) {
+            Optional<YearMonth> month = monthOf(name);
+            if (month.isPresent() && month.get().isBefore(current)
+                    && !month.get().plusMonths(1).atDay(1).isBefore(refreshFrom)) {
+                store(count(name));
+            }
+        }
+    }
+
+    private PartitionStats count(String partition) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*), " +
+                "COUNT(*) FILTER (WHERE status = 'SUCCESS'), " +
+                "COUNT(*) FILTER (WHERE status = 'FAILED'), " +
+                "COUNT(*) FILTER (WHERE LOWER(activity) LIKE '%workflow%') FROM " + partition,
+                (rs, n) -> new PartitionStats(partition, rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4)));
+    }
+
+    private void store(PartitionStats stats) {
+        jdbcTemplate.update("INSERT INTO " + STATS_TABLE +
+                " (partition_name, total, succeeded, failed, workflow_related, computed_at) VALUES (?, ?, ?, ?, ?, ?) " +
+                "ON CONFLICT (partition_name) DO UPDATE SET total = EXCLUDED.total, succeeded = EXCLUDED.succeeded, " +
+                "failed = EXCLUDED.failed, workflow_related = EXCLUDED.workflow_related, computed_at = EXCLUDED.computed_at",
+                stats.partition(), stats.total(), stats.succeeded(), stats.failed(), stats.workflowRelated(),
+                Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent " +
+                "WHERE p.relname = ? AND p.relnamespace = (SELECT oid FROM pg_namespace WHERE nspname = current_schema()) ORDER BY c.relname",
+                String.class, PARENT);
+    }
+
+    private boolean tableExists(String name) {
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name);
+        return Boolean.TRUE.equals(exists);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return String.format("audit_log_p%04d_%02d", month.getYear(), month.getMonthValue());
+    }
+
+    private static Optional<YearMonth> monthOf(String partition) {
+        Matcher m = MONTHLY.matcher(partition);
+        return m.matches()
+                ? Optional.of(YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2))))
+                : Optional.empty();
+    }
+}
@@ -1,21 +1,37 @@
 package com.clouddocs.backend.service;
 
+import com.clouddocs.backend.dto.DocumentDownloadInfo;
 import com.clouddocs.backend.entity.AuditLog;
 import com.clouddocs.backend.entity.Document;
 import com.clouddocs.backend.entity.DocumentStatus;
 import com.clouddocs.backend.entity.User;
 import com.clouddocs.backend.repository.AuditLogRepository;
+import com.clouddocs.backend.repository.WorkflowInstanceRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
 
 @Slf4j
 @Service
@@ -27,47 +43,80 @@ public class AuditService {
     @Autowired
     private AuditLogRepository auditLogRepository;
     
+    @Autowired
+    private AuditWriter auditWriter;
+    
+    @Autowired
+    private AuditPartitionManager partitionManager;
+    
+    @Autowired
+    private ColdArchiveService coldArchiveService;
+    
+    @Autowired
+    private WorkflowInstanceRepository workflowInstanceRepository;
+    
+    @Value("${app.audit.async-enabled:true}")
+    private boolean asyncEnabled;
+    
+    @Value("${app.audit.search.default-days:30}")
+    private int defaultSearchDays;
+    
+    @Value("${app.audit.search.max-days:366}")
+    private int maxSearchDays;
+    
+    @Value("${app.audit.search.max-page-size:1000}")
+    private int unpagedLimit;
+    
     // ===== ✅ NEW DATABASE LOGGING METHODS =====
     
     /**
      * ✅ NEW: Save audit log to database for workflow actions
      */
-    @Transactional
     public void logWorkflowAction(String activity, String workflowId, String username) {
-        try {
-            AuditLog auditLog = AuditLog.of(
-                activity,
-                workflowId,
-                username,
-                AuditLog.Status.SUCCESS
-            );
-            
-            auditLogRepository.save(auditLog);
-            
-            logger.info("✅ Audit saved to DB: {} by {} for workflow {}", activity, username, workflowId);
-            
-        } catch (Exception e) {
-            logger.error("❌ Failed to save audit log: {}", e.getMessage(), e);
-        }
+        logWorkflowActionWithStatus(activity, workflowId, username, AuditLog.Status.SUCCESS);
     }
     
     /**
      * ✅ NEW: Save audit log with custom status
      */
-    @Transactional
     public void logWorkflowActionWithStatus(String activity, String workflowId, String username, AuditLog.Status status) {
+        submit(AuditWriter.Entry.of(activity, workflowId, username, status));
+    }
+    
+    /**
+     * Save a workflow audit row in the caller's transaction, bypassing the write-behind pipeline,
+     * for callers whose audit row must commit or roll back together with their other changes.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void logWorkflowActionInTransaction(String activity, String workflowId, String username) {
+        auditLogRepository.save(AuditLog.builder()
+                .activity(activity)
+                .linkedItem(workflowId)
+                .user(username)
+                .timestamp(LocalDateTime.now())
+                .status(AuditLog.Status.SUCCESS)
+                .build());
+    }
+    
+    /**
+     * Hand an entry to the write-behind pipeline, or save it inline when async audit is disabled.
+     */
+    private void submit(AuditWriter.Entry entry) {
         try {
-            AuditLog auditLog = AuditLog.of(
-                activity,
-                workflowId,
-                username,
-                status
-            );
-            
-            auditLogRepository.save(auditLog);
-            
-            logger.info("✅ Audit saved to DB: {} by {} for workflow {} with status {}", 
-                activity, username, workflowId, status);
+            if (asyncEnabled) {
+                auditWriter.enqueue(entry);
+                logger.debug("Audit queued: {} by {} for {}", entry.activity(), entry.user(), entry.linkedItem());
+                return;
+            }
+            auditLogRepository.save(AuditLog.builder()
+                    .activity(entry.activity())
+                    .linkedItem(entry.linkedItem())
+                    .user(entry.user())
+                    .timestamp(entry.timestamp())
+                    .status(entry.status())
+                    .build());
+            logger.info("✅ Audit saved to DB: {} by {} for {} with status {}", 
+                entry.activity(), entry.user(), entry.linkedItem(), entry.status());
             
         } catch (Exception e) {
             logger.error("❌ Failed to save audit log: {}", e.getMessage(), e);
@@ -76,31 +125,123 @@ public class AuditService {
     
     /**
      * ✅ NEW: Get audit trail for specific workflow
+     * Archived rows are only looked up from the workflow's creation onwards; a workflow that no
+     * longer exists gets its hot rows only.
      */
     @Transactional(readOnly = true)
     public List<AuditLog> getWorkflowAuditTrail(String workflowId) {
         try {
-            return auditLogRepository.search(
-                null,           // q (search term)
-                null,           // user
-                null,           // status
-                null,           // from date
-                null            // to date
-            ).stream()
-            .filter(log -> workflowId.equals(log.getLinkedItem()))
-            .collect(Collectors.toList());
+            List<AuditLog> trail = new ArrayList<>(auditLogRepository.findByLinkedItemOrderByTimestampDesc(workflowId));
+            workflowCreatedAt(workflowId).ifPresent(since ->
+                    trail.addAll(coldArchiveService.findAuditByLinkedItem(workflowId, since)));
+            trail.sort(Comparator.comparing(AuditLog::getTimestamp).reversed());
+            return trail;
         } catch (Exception e) {
             logger.error("❌ Failed to get workflow audit trail: {}", e.getMessage(), e);
             return List.of();
         }
     }
     
+    // Audit timestamps are server-local, like LocalDateTime.now() when the row was logged
+    private Optional<LocalDateTime> workflowCreatedAt(String workflowId) {
+        try {
+            return workflowInstanceRepository.findCreatedDateById(Long.valueOf(workflowId))
+                    .map(created -> created.atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime());
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+    
     /**
-     * ✅ NEW: Get all audit logs (for admin)
+     * ✅ NEW: Get all audit logs (for admin) - the most recent ones, capped
      */
     @Transactional(readOnly = true)
     public List<AuditLog> getAllAuditLogs() {
-        return auditLogRepository.findAll();
+        return search(null, null, null, null, null, 0, unpagedLimit).getContent();
+    }
+    
+    /**
+     * Paged, time-bounded search, newest first. Dates are inclusive days; a missing window
+     * defaults to the last {@code app.audit.search.default-days}, and wide windows are clamped.
+     */
+    @Transactional(readOnly = true)
+    public Page<AuditLog> search(String q, String user, String status, LocalDate from, LocalDate to,
+                                 int page, int size) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(defaultSearchDays);
+        if (start.isBefore(end.minusDays(maxSearchDays))) {
+            start = end.minusDays(maxSearchDays);
+        }
+        
+        Pageable pageable = PageRequest.of(Math.max(0, page), Math.min(Math.max(1, size), unpagedLimit),
+                Sort.by(Sort.Direction.DESC, "timestamp"));
+        LocalDateTime windowFrom = start.atStartOfDay();
+        LocalDateTime windowTo = end.plusDays(1).atStartOfDay();
+        String pattern = likePattern(q);
+        Page<AuditLog> hot = auditLogRepository.search(pattern, blankToNull(user), blankToNull(status),
+                windowFrom, windowTo, pageable);
+        if (!coldArchiveService.hasSegments("audit_log", windowFrom, windowTo)) {
+            return hot;
+        }
+        
+        // 🧊 Journal replay can land old rows in the hot table after newer ones were archived, so
+        // the two tiers are merged by timestamp. Every hot row before index hotStart is ahead of
+        // the page even if all cold rows come first, so only the hot rows from there are read.
+        List<AuditLog> cold = coldArchiveService.searchAudit(q == null || q.isBlank() ? null : q.trim().toLowerCase(),
+                blankToNull(user), blankToNull(status), windowFrom, windowTo);
+        long hotTotal = hot.getTotalElements();
+        long offset = pageable.getOffset();
+        long hotStart = Math.max(0, offset - cold.size());
+        List<AuditLog> hotRows = auditLogRepository.searchRange(pattern, blankToNull(user), blankToNull(status),
+                windowFrom, windowTo, hotStart, (int) (offset - hotStart) + pageable.getPageSize());
+        
+        List<AuditLog> content = new ArrayList<>();
+        int h = 0;
+        int c = 0;
+        for (long position = hotStart; content.size() < pageable.getPageSize(); position++) {
+            AuditLog next;
+            if (h < hotRows.size() && (c >= cold.size()
+                    || !hotRows.get(h).getTimestamp().isBefore(cold.get(c).getTimestamp()))) {
+                next = hotRows.get(h++);
+            } else if (c < cold.size()) {
+                next = cold.get(c++);
+            } else {
+                break;
+            }
+            if (position >= offset) {
+                content.add(next);
+            }
+        }
+        return new PageImpl<>(content, pageable, hotTotal + cold.size());
+    }
+    
+    /**
+     * Totals from per-partition counters; only the open month is actually counted.
+     */
+    public Map<String, Object> getStats() {
+        List<AuditPartitionManager.PartitionStats> partitions = partitionManager.partitionStats();
+        
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalAuditLogs", partitions.stream().mapToLong(AuditPartitionManager.PartitionStats::total).sum());
+        stats.put("successfulActions", partitions.stream().mapToLong(AuditPartitionManager.PartitionStats::succeeded).sum());
+        stats.put("failedActions", partitions.stream().mapToLong(AuditPartitionManager.PartitionStats::failed).sum());
+        stats.put("workflowRelatedLogs", partitions.stream().mapToLong(AuditPartitionManager.PartitionStats::workflowRelated).sum());
+        stats.put("partitions", partitions);
+        stats.put("writer", auditWriter.getStats());
+        return stats;
+    }
+    
+    private static String likePattern(String q) {
+        if (q == null || q.isBlank()) {
+            return null;
+        }
+        String escaped = q.trim().toLowerCase()
+                .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+    
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
     }
     
     // ===== EXISTING METHODS ENHANCED WITH DATABASE SAVING =====
@@ -135,6 +276,14 @@ public class AuditService {
                          document.getId().toString(), user.getUsername());
     }
     
+    /**
+     * Audit a batch download; the entries reach the table in the writer's next multi-row insert.
+     */
+    public void logDocumentDownloads(List<DocumentDownloadInfo> documents, String username) {
+        documents.forEach(d -> submit(AuditWriter.Entry.of("Document Downloaded: " + d.originalFilename(),
+                d.id().toString(), username, AuditLog.Status.SUCCESS)));
+    }
+    
     public void logDocumentDeletion(Document document, User user) {
         String message = String.format("User %s deleted document: %s", 
             user.getFullName(), document.getOriginalFilename());
@@ -254,15 +403,8 @@ public void logDocumentRestoration(Document document, User user) {
                                      document.getOriginalFilename(), 
                                      user.getUsername());
         
-        // ✅ Use Lombok @Builder pattern with correct field names
-        AuditLog auditLog = AuditLog.builder()
-                .activity("Document Restored")  // ✅ Use 'activity' not 'action'
-                .linkedItem(document.getOriginalFilename())  // ✅ Use 'linkedItem' not 'details'
-                .user(user.getUsername())  // ✅ Use 'user' not 'username'
-                .status(AuditLog.Status.SUCCESS)  // ✅ Use the enum
-                .build();  // ✅ timestamp is set automatically in the builder
-        
-        auditLogRepository.save(auditLog);
+        submit(AuditWriter.Entry.of("Document Restored", document.getOriginalFilename(),
+                user.getUsername(), AuditLog.Status.SUCCESS));
         
         log.info("AUDIT: User {} restored document: {}", 
                 user.getFullName(), document.getOriginalFilename());
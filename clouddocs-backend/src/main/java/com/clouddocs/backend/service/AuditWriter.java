@@ -0,0 +1,406 @@
+package com.clouddocs.backend.service;
+
+import com.clouddocs.backend.entity.AuditLog;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Write-behind pipeline for audit rows.
+ *
+ * Callers drop an immutable {@link Entry} into a bounded lock-free ring and return; a single
+ * writer thread drains it every few hundred milliseconds, or as soon as a batch is full, with
+ * one multi-row INSERT per batch. If the ring is full the entry is spilled to an on-disk
+ * journal instead of blocking the caller, and batches the database refuses are journaled the
+ * same way. Journal files are replayed into the table once the database accepts writes again,
+ * including after a restart. At most one flush interval of entries lives only in memory.
+ *
+ * A row the table itself rejects (a constraint or data error) is retried on its own and, if it
+ * still fails, set aside in a quarantine file so it cannot hold back the rest of its batch.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AuditWriter {
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO audit_log (activity, linked_item, user_name, timestamp, status) VALUES ";
+    private static final String SPILL_FILE = "audit-spill.jsonl";
+    private static final String REPLAY_SUFFIX = ".replay";
+    private static final String QUARANTINE_FILE = "audit-failed.jsonl";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.audit.buffer-capacity:8192}")
+    private int bufferCapacity;
+
+    @Value("${app.audit.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.audit.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${app.audit.journal-dir:./audit-journal}")
+    private String journalDir;
+
+    @Value("${app.audit.replay-interval-ms:30000}")
+    private long replayIntervalMs;
+
+    private RingBuffer<Entry> ring;
+    private Path journal;
+    private Thread writer;
+    private volatile boolean running;
+    private long nextReplayAt;
+
+    // Guards the spill file; separate from the consumer lock so spilling never waits on the database
+    private final Object journalLock = new Object();
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong quarantined = new AtomicLong();
+
+    /**
+     * One audit row, fixed at the moment the action happened.
+     */
+    public record Entry(String activity, String linkedItem, String user, LocalDateTime timestamp, AuditLog.Status status) {
+
+        public static Entry of(String activity, String linkedItem, String user, AuditLog.Status status) {
+            return new Entry(activity, linkedItem, user, LocalDateTime.now(), status);
+        }
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        ring = new RingBuffer<>(bufferCapacity);
+        journal = Paths.get(journalDir).toAbsolutePath().normalize();
+        Files.createDirectories(journal);
+
+        running = true;
+        writer = new Thread(this::run, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("✅ Audit writer started: buffer {}, batch {}, every {} ms, journal {}",
+                ring.capacity(), batchSize, flushIntervalMs, journal);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Whatever is still buffered goes to the database, or to the journal if that fails
+        drainAll();
+        log.info("Audit writer stopped: {} written, {} spilled", written.get(), spilled.get());
+    }
+
+    /**
+     * Queue an entry for writing. Never blocks on the database.
+     */
+    public void enqueue(Entry entry) {
+        if (!ring.offer(entry)) {
+            // 🔄 Backpressure: a full buffer spills to disk rather than stalling the request
+            spill(List.of(entry));
+            return;
+        }
+        if (ring.size() >= batchSize) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    public void enqueueAll(List<Entry> entries) {
+        entries.forEach(this::enqueue);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("buffered", ring.size());
+        stats.put("capacity", ring.capacity());
+        stats.put("written", written.get());
+        stats.put("spilled", spilled.get());
+        stats.put("replayed", replayed.get());
+        stats.put("quarantined", quarantined.get());
+        return stats;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                int drained = drainBatch();
+                if (drained < batchSize) {
+                    if (System.currentTimeMillis() >= nextReplayAt) {
+                        replayJournal();
+                    }
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMs));
+                }
+            } catch (Exception e) {
+                log.error("❌ Audit writer loop failed: {}", e.getMessage(), e);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMs));
+            }
+        }
+    }
+
+    private synchronized void drainAll() {
+        while (drainBatch() > 0) {
+            // keep draining
+        }
+    }
+
+    private synchronized int drainBatch() {
+        List<Entry> batch = new ArrayList<>(Math.min(batchSize, ring.size()));
+        Entry entry;
+        while (batch.size() < batchSize && (entry = ring.poll()) != null) {
+            batch.add(entry);
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            written.addAndGet(insertOrSplit(batch));
+        } catch (Exception e) {
+            log.warn("⚠️ Audit batch of {} failed, journaling it: {}", batch.size(), e.getMessage());
+            spill(batch);
+        }
+        return batch.size();
+    }
+
+    /**
+     * One statement for the whole batch: IDENTITY keys rule out JDBC insert batching through
+     * Hibernate, but a multi-row VALUES list is a single round trip.
+     */
+    private void insert(List<Entry> batch) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+        Object[] params = new Object[batch.size() * 5];
+        int i = 0;
+        for (Entry entry : batch) {
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?)");
+            params[i++] = truncate(entry.activity(), 120);
+            params[i++] = truncate(entry.linkedItem(), 255);
+            params[i++] = truncate(entry.user() != null ? entry.user() : "system", 120);
+            params[i++] = Timestamp.valueOf(entry.timestamp() != null ? entry.timestamp() : LocalDateTime.now());
+            params[i++] = (entry.status() != null ? entry.status() : AuditLog.Status.SUCCESS).name();
+        }
+        jdbcTemplate.update(sql.toString(), params);
+    }
+
+    /**
+     * Insert the batch, or row by row if the table rejects it, quarantining the rows that fail on
+     * their own. Anything other than a data error (the database being unreachable) propagates.
+     */
+    private int insertOrSplit(List<Entry> batch) {
+        try {
+            insert(batch);
+            return batch.size();
+        } catch (DataIntegrityViolationException e) {
+            if (batch.size() == 1) {
+                quarantine(batch.get(0), e);
+                return 0;
+            }
+            log.warn("⚠️ Audit batch of {} rejected, inserting row by row: {}", batch.size(), e.getMessage());
+        }
+        int inserted = 0;
+        for (Entry entry : batch) {
+            try {
+                insert(List.of(entry));
+                inserted++;
+            } catch (DataIntegrityViolationException e) {
+                quarantine(entry, e);
+            }
+        }
+        return inserted;
+    }
+
+    private void quarantine(Object entry, Exception cause) {
+        synchronized (journalLock) {
+            try (BufferedWriter out = Files.newBufferedWriter(journal.resolve(QUARANTINE_FILE), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                out.write(entry instanceof String line ? line : objectMapper.writeValueAsString(entry));
+                out.newLine();
+                quarantined.incrementAndGet();
+                log.error("❌ Audit entry quarantined in {}: {}", QUARANTINE_FILE, cause.getMessage());
+            } catch (IOException e) {
+                log.error("❌ Could not quarantine audit entry: {} - {}", e.getMessage(), entry);
+            }
+        }
+    }
+
+    private void spill(List<Entry> entries) {
+        synchronized (journalLock) {
+            spillLocked(entries);
+        }
+    }
+
+    private void spillLocked(List<Entry> entries) {
+        try (BufferedWriter out = Files.newBufferedWriter(journal.resolve(SPILL_FILE), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (Entry entry : entries) {
+                out.write(objectMapper.writeValueAsString(entry));
+                out.newLine();
+            }
+            spilled.addAndGet(entries.size());
+        } catch (IOException e) {
+            // Last resort: keep the trail in the application log
+            log.error("❌ Could not journal {} audit entries: {} - {}", entries.size(), e.getMessage(), entries);
+        }
+    }
+
+    /**
+     * Move the spill file aside and insert everything journaled so far. Files that fail are kept
+     * for the next attempt; the others are still replayed.
+     */
+    private void replayJournal() {
+        nextReplayAt = System.currentTimeMillis() + replayIntervalMs;
+        try {
+            synchronized (journalLock) {
+                Path spill = journal.resolve(SPILL_FILE);
+                if (Files.exists(spill)) {
+                    Files.move(spill, journal.resolve("audit-" + System.currentTimeMillis() + REPLAY_SUFFIX));
+                }
+            }
+
+            List<Path> pending;
+            try (Stream<Path> files = Files.list(journal)) {
+                pending = files.filter(p -> p.getFileName().toString().endsWith(REPLAY_SUFFIX)).sorted().toList();
+            }
+            for (Path file : pending) {
+                try {
+                    replayFile(file);
+                } catch (Exception e) {
+                    log.warn("⚠️ Audit journal {} kept for the next replay: {}", file.getFileName(), e.getMessage());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Audit journal replay deferred: {}", e.getMessage());
+        }
+    }
+
+    private void replayFile(Path file) throws IOException {
+        // Entries are inserted batch by batch; a retry after a partial failure may duplicate
+        // rows, which is preferable to losing them
+        List<Entry> batch = new ArrayList<>(batchSize);
+        long count = 0;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    batch.add(objectMapper.readValue(line, Entry.class));
+                } catch (JsonProcessingException e) {
+                    quarantine(line, e);
+                    continue;
+                }
+                if (batch.size() == batchSize) {
+                    count += insertOrSplit(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            count += insertOrSplit(batch);
+        }
+        Files.delete(file);
+        replayed.addAndGet(count);
+        log.info("✅ Replayed {} journaled audit entries from {}", count, file.getFileName());
+    }
+
+    private static String truncate(String value, int max) {
+        return value == null || value.length() <= max ? value : value.substring(0, max);
+    }
+
+    /**
+     * Bounded multi-producer, single-consumer ring. Producers claim a slot with one CAS on the
+     * tail; per-slot sequence numbers tell the consumer when a slot is published.
+     */
+    static final class RingBuffer<E> {
+        private final AtomicReferenceArray<E> slots;
+        private final AtomicLongArray sequences;
+        private final int mask;
+        private final AtomicLong tail = new AtomicLong();
+        private volatile long head;
+
+        RingBuffer(int requestedCapacity) {
+            int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+            slots = new AtomicReferenceArray<>(capacity);
+            sequences = new AtomicLongArray(capacity);
+            for (int i = 0; i < capacity; i++) {
+                sequences.set(i, i);
+            }
+            mask = capacity - 1;
+        }
+
+        boolean offer(E element) {
+            while (true) {
+                long position = tail.get();
+                int index = (int) (position & mask);
+                long lag = sequences.get(index) - position;
+                if (lag == 0) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        slots.set(index, element);
+                        sequences.set(index, position + 1);
+                        return true;
+                    }
+                } else if (lag < 0) {
+                    return false;
+                }
+                // lag > 0: another producer took this position, retry with a fresh tail
+            }
+        }
+
+        /** Single consumer only. */
+        E poll() {
+            long position = head;
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                return null;
+            }
+            E element = slots.get(index);
+            slots.set(index, null);
+            sequences.set(index, position + mask + 1);
+            head = position + 1;
+            return element;
+        }
+
+        int size() {
+            return (int) Math.max(0, tail.get() - head);
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.clouddocs.backend.dto.response.JwtResponse;
 import com.clouddocs.backend.entity.User;
 import com.clouddocs.backend.entity.Role;
 import com.clouddocs.backend.entity.ERole;
+import com.clouddocs.backend.event.UserDirectoryChangedEvent;
 import com.clouddocs.backend.repository.UserRepository;
 import com.clouddocs.backend.repository.RoleRepository;
 import com.clouddocs.backend.security.JwtTokenProvider;
@@ -13,6 +14,7 @@ import com.clouddocs.backend.security.UserPrincipal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -46,6 +48,9 @@ public class AuthService {
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     /**
      * ✅ ENHANCED: Authenticate user with proper password encoding support
      */
@@ -179,6 +184,7 @@ public class AuthService {
             user.setEnabled(true);
             
             User savedUser = userRepository.save(user);
+            eventPublisher.publishEvent(UserDirectoryChangedEvent.of(savedUser, "user registered"));
             logger.info("✅ User registered successfully: {} with roles: {}", 
                 savedUser.getUsername(), 
                 savedUser.getRoles().stream().map(r -> r.getName().name()).collect(Collectors.toList()));
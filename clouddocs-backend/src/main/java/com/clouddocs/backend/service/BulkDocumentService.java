@@ -0,0 +1,346 @@
+package com.clouddocs.backend.service;
+
+import com.clouddocs.backend.entity.AuditLog;
+import com.clouddocs.backend.entity.DocumentStatus;
+import com.clouddocs.backend.entity.ERole;
+import com.clouddocs.backend.entity.User;
+import com.clouddocs.backend.event.DocumentDeleted;
+import com.clouddocs.backend.event.DocumentStatusChanged;
+import com.clouddocs.backend.event.DomainEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Set-based bulk status changes and soft deletes.
+ *
+ * Each chunk of ids is one transaction with one {@code UPDATE ... WHERE id = ANY(?) RETURNING}
+ * - the WHERE clause carries the permission and state checks, so whatever comes back is exactly
+ * what changed - plus one JDBC batch of audit rows and one outbox event per changed document. Ids that did not come back are classified
+ * with a single follow-up query. Batches above a threshold run as a background job whose
+ * progress can be polled; jobs are kept in memory for a while after they finish.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkDocumentService {
+
+    private static final String AUDIT_INSERT =
+            "INSERT INTO audit_log (activity, linked_item, user_name, timestamp, status) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UserDirectoryCache userDirectory;
+    private final DomainEventOutbox outbox;
+
+    @Value("${app.bulk.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.bulk.async-threshold:2000}")
+    private int asyncThreshold;
+
+    @Value("${app.bulk.job-retention-minutes:60}")
+    private long jobRetentionMinutes;
+
+    private final Map<String, BulkJob> jobs = new ConcurrentHashMap<>();
+
+    private ExecutorService jobRunner;
+
+    public enum Operation { STATUS_CHANGE, DELETE }
+
+    /** The caller, captured up front so background chunks don't need the security context. */
+    private record Actor(Long id, String username, boolean admin, boolean manager) {}
+
+    private record Command(Operation operation, DocumentStatus status, String rejectionReason, Actor actor) {}
+
+    private record Changed(Long id, String originalFilename, String oldStatus) {}
+
+    @PostConstruct
+    void start() {
+        // One job at a time: bulk jobs are throughput work and shouldn't crowd out requests
+        jobRunner = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "bulk-documents");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        jobRunner.shutdownNow();
+    }
+
+    public Map<String, Object> updateStatus(List<Long> ids, DocumentStatus status, String rejectionReason) {
+        Actor actor = currentActor();
+        if (!actor.admin() && !actor.manager()) {
+            throw new AccessDeniedException("You don't have permission to change document status");
+        }
+        return execute(new Command(Operation.STATUS_CHANGE, status, rejectionReason, actor), ids);
+    }
+
+    public Map<String, Object> delete(List<Long> ids) {
+        return execute(new Command(Operation.DELETE, null, null, currentActor()), ids);
+    }
+
+    /**
+     * Progress of a background job, visible to the user who started it and to admins.
+     */
+    public Optional<Map<String, Object>> getJob(String jobId) {
+        BulkJob job = jobs.get(jobId);
+        if (job == null) {
+            return Optional.empty();
+        }
+        Actor actor = currentActor();
+        if (!actor.admin() && !job.username.equals(actor.username())) {
+            return Optional.empty();
+        }
+        return Optional.of(job.toMap(true));
+    }
+
+    private Map<String, Object> execute(Command command, List<Long> ids) {
+        List<Long> distinct = ids == null ? List.of()
+                : ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        if (distinct.isEmpty()) {
+            throw new IllegalArgumentException("No document IDs provided");
+        }
+
+        BulkJob job = new BulkJob(command.operation(), command.actor().username(), distinct.size());
+        if (distinct.size() <= asyncThreshold) {
+            process(command, distinct, job);
+            return job.toMap(true);
+        }
+
+        purgeFinishedJobs();
+        jobs.put(job.id, job);
+        jobRunner.execute(() -> process(command, distinct, job));
+        log.info("📦 Bulk {} of {} documents queued as job {}", command.operation(), distinct.size(), job.id);
+        return job.toMap(false);
+    }
+
+    private void process(Command command, List<Long> ids, BulkJob job) {
+        try {
+            for (int from = 0; from < ids.size(); from += chunkSize) {
+                List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + chunkSize));
+                try {
+                    // 🔄 Bounded transaction per chunk: locks are held for one chunk, not the whole batch
+                    Map<Long, String> failures = transactionTemplate.execute(tx -> processChunk(command, chunk));
+                    chunk.forEach(id -> job.record(id, !failures.containsKey(id), failures.get(id)));
+                } catch (Exception e) {
+                    log.error("❌ Bulk {} chunk failed: {}", command.operation(), e.getMessage());
+                    chunk.forEach(id -> job.record(id, false, "Failed: " + e.getMessage()));
+                }
+            }
+            job.finish("COMPLETED");
+        } catch (Exception e) {
+            job.finish("FAILED");
+            log.error("❌ Bulk job {} failed: {}", job.id, e.getMessage(), e);
+        }
+        log.info("✅ Bulk {} finished: {} successful, {} failed", command.operation(), job.success.get(), job.failed.get());
+    }
+
+    /**
+     * Apply one chunk and audit it.
+     *
+     * @return failure reason by id for the ids that were not changed
+     */
+    private Map<Long, String> processChunk(Command command, List<Long> chunk) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Changed> changed = command.operation() == Operation.DELETE
+                ? softDelete(chunk, command.actor(), now)
+                : changeStatus(chunk, command, now);
+
+        List<Object[]> auditRows = new ArrayList<>(changed.size());
+        List<DomainEvent> events = new ArrayList<>(changed.size());
+        String username = command.actor().username();
+        for (Changed c : changed) {
+            String activity = command.operation() == Operation.DELETE
+                    ? "Document Deleted: " + c.originalFilename()
+                    : String.format("Document Status Changed: %s -> %s", c.oldStatus(), command.status());
+            auditRows.add(new Object[] {truncate(activity, 120), c.id().toString(), username,
+                    Timestamp.valueOf(now), AuditLog.Status.SUCCESS.name()});
+            events.add(command.operation() == Operation.DELETE
+                    ? new DocumentDeleted(c.id(), username)
+                    : new DocumentStatusChanged(c.id(), DocumentStatus.valueOf(c.oldStatus()), command.status(), username));
+        }
+        if (!auditRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(AUDIT_INSERT, auditRows);
+        }
+        // Same chunk transaction as the update, so subscribers see exactly the documents that changed
+        outbox.appendAll(events);
+
+        Set<Long> changedIds = changed.stream().map(Changed::id).collect(Collectors.toSet());
+        List<Long> rejected = chunk.stream().filter(id -> !changedIds.contains(id)).collect(Collectors.toList());
+        Map<Long, String> reasons = rejected.isEmpty() ? new HashMap<>() : classifyRejected(rejected, command);
+        rejected.forEach(id -> reasons.putIfAbsent(id, "Document not found"));
+        return reasons;
+    }
+
+    private List<Changed> softDelete(List<Long> ids, Actor actor, LocalDateTime now) {
+        // Same rule as a single delete: admins may delete anything, everyone else only their own
+        String sql = "UPDATE documents SET deleted = true, deleted_at = ?, deleted_by = ? " +
+                "WHERE id = ANY(?) AND deleted = false" + (actor.admin() ? "" : " AND uploaded_by = ?") +
+                " RETURNING id, original_filename";
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setTimestamp(1, Timestamp.valueOf(now));
+            ps.setString(2, actor.username());
+            ps.setArray(3, con.createArrayOf("bigint", ids.toArray()));
+            if (!actor.admin()) {
+                ps.setLong(4, actor.id());
+            }
+            return ps;
+        }, (rs, n) -> new Changed(rs.getLong(1), rs.getString(2), null));
+    }
+
+    private List<Changed> changeStatus(List<Long> ids, Command command, LocalDateTime now) {
+        DocumentStatus status = command.status();
+        List<Object> params = new ArrayList<>();
+        StringBuilder set = new StringBuilder("status = ?, last_modified = ?");
+        params.add(status.name());
+        params.add(Timestamp.valueOf(now));
+        if (status == DocumentStatus.APPROVED) {
+            set.append(", approved_by = ?, approval_date = ?, rejection_reason = NULL");
+            params.add(command.actor().id());
+            params.add(Timestamp.valueOf(now));
+        } else if (status == DocumentStatus.REJECTED) {
+            set.append(", rejection_reason = ?, approved_by = NULL, approval_date = NULL");
+            params.add(command.rejectionReason());
+        }
+
+        // The self-join exposes the pre-update status for the audit trail
+        String sql = "UPDATE documents d SET " + set +
+                " FROM documents old WHERE old.id = d.id AND d.id = ANY(?) AND d.deleted = false" +
+                " RETURNING d.id, d.original_filename, old.status";
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            int i = 1;
+            for (Object param : params) {
+                ps.setObject(i++, param);
+            }
+            ps.setArray(i, con.createArrayOf("bigint", ids.toArray()));
+            return ps;
+        }, (rs, n) -> new Changed(rs.getLong(1), rs.getString(2), rs.getString(3)));
+    }
+
+    /**
+     * Explain why ids were not updated, with one query for all of them.
+     */
+    private Map<Long, String> classifyRejected(List<Long> ids, Command command) {
+        Map<Long, String> reasons = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "SELECT id, deleted, uploaded_by FROM documents WHERE id = ANY(?)");
+            ps.setArray(1, con.createArrayOf("bigint", ids.toArray()));
+            return ps;
+        }, rs -> {
+            long id = rs.getLong(1);
+            boolean deleted = rs.getBoolean(2);
+            if (deleted) {
+                reasons.put(id, command.operation() == Operation.DELETE ? "Document is already deleted" : "Document not found");
+            } else if (command.operation() == Operation.DELETE) {
+                reasons.put(id, "Access denied");
+            } else {
+                reasons.put(id, "Update failed");
+            }
+        });
+        return reasons;
+    }
+
+    private Actor currentActor() {
+        User user = userDirectory.currentUser()
+                .orElseThrow(() -> new RuntimeException("Current user not found"));
+        return new Actor(user.getId(), user.getUsername(),
+                user.hasRole(ERole.ROLE_ADMIN), user.hasRole(ERole.ROLE_MANAGER));
+    }
+
+    private void purgeFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMinutes(jobRetentionMinutes));
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    private static String truncate(String value, int max) {
+        return value.length() <= max ? value : value.substring(0, max);
+    }
+
+    /**
+     * Progress and per-id results of one bulk run.
+     */
+    private static final class BulkJob {
+        final String id = UUID.randomUUID().toString();
+        final Operation operation;
+        final String username;
+        final int total;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final AtomicInteger success = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final List<Map<String, Object>> results = new ArrayList<>();
+        volatile String state = "RUNNING";
+        volatile LocalDateTime finishedAt;
+
+        BulkJob(Operation operation, String username, int total) {
+            this.operation = operation;
+            this.username = username;
+            this.total = total;
+        }
+
+        synchronized void record(Long documentId, boolean ok, String error) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("documentId", documentId);
+            result.put("status", ok ? "success" : "failed");
+            if (ok) {
+                success.incrementAndGet();
+            } else {
+                result.put("error", error);
+                failed.incrementAndGet();
+            }
+            results.add(result);
+        }
+
+        void finish(String finalState) {
+            finishedAt = LocalDateTime.now();
+            state = finalState;
+        }
+
+        synchronized Map<String, Object> toMap(boolean includeResults) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("jobId", id);
+            map.put("operation", operation);
+            map.put("state", state);
+            map.put("totalProcessed", success.get() + failed.get());
+            map.put("total", total);
+            map.put("successCount", success.get());
+            map.put("errorCount", failed.get());
+            map.put("startedAt", startedAt);
+            map.put("finishedAt", finishedAt);
+            if (includeResults) {
+                map.put("results", new ArrayList<>(results));
+            }
+            return map;
+        }
+    }
+}
@@ -1,23 +1,26 @@
 package com.clouddocs.backend.service;
 
+import com.clouddocs.backend.config.AIHttpClientConfig;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SynchronousSink;
 
 import jakarta.annotation.PostConstruct;
 import java.time.Duration;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.StreamSupport;
 
 /**
  * 🤖 Cohere Embedding Provider Implementation
@@ -25,7 +28,7 @@ import java.util.stream.StreamSupport;
  */
 @Component
 @ConditionalOnProperty(name = "ai.providers.cohere.enabled", havingValue = "true")
-public class CohereProvider implements EmbeddingProvider {
+public class CohereProvider implements ReactiveEmbeddingProvider {
     
     private static final Logger log = LoggerFactory.getLogger(CohereProvider.class);
     private static final String COHERE_API_URL = "https://api.cohere.ai/v1/embed";
@@ -39,88 +42,94 @@ public class CohereProvider implements EmbeddingProvider {
     @Value("${ai.providers.cohere.model:embed-english-v3.0}")
     private String model;
     
+    @Value("${ai.providers.cohere.base-url:" + COHERE_API_URL + "}")
+    private String baseUrl;
+    
+    @Value("${ai.fallback.max-retries:2}")
+    private int maxRetries;
+    
+    @Value("${ai.fallback.retry-delay:1000}")
+    private long retryDelayMs;
+    
+    @Autowired
+    private ReactorClientHttpConnector aiHttpConnector;
+    
     private WebClient webClient;
-    private ObjectMapper objectMapper;
     
     @PostConstruct
     public void initialize() {
         this.webClient = WebClient.builder()
-            .baseUrl(COHERE_API_URL)
+            .clientConnector(aiHttpConnector)
+            .baseUrl(baseUrl)
             .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
             .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
             .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(10 * 1024 * 1024))
             .build();
-            
-        this.objectMapper = new ObjectMapper();
         
         log.info("🤖 Cohere provider initialized with model: {}", model);
     }
     
     @Override
-    public List<Double> generateEmbedding(String text) throws EmbeddingException {
-        try {
-            log.debug("🤖 Cohere generating embedding for text length: {}", text.length());
-            
-            // Build request payload
-            Map<String, Object> requestBody = Map.of(
-                "texts", List.of(text),
-                "model", model,
-                "input_type", "search_document"
-            );
-            
-            // Make API call
-            String response = webClient.post()
-                .bodyValue(requestBody)
-                .retrieve()
-                .bodyToMono(String.class)
-                .timeout(Duration.ofSeconds(30))
-                .block();
-            
-            return parseEmbeddingResponse(response);
-            
-        } catch (WebClientResponseException ex) {
-            log.error("❌ Cohere HTTP error: {} - {}", ex.getStatusCode(), ex.getResponseBodyAsString());
+    public Mono<float[]> embed(String text) {
+        log.debug("🤖 Cohere generating embedding for text length: {}", text.length());
+        
+        // Build request payload
+        Map<String, Object> requestBody = Map.of(
+            "texts", List.of(text),
+            "model", model,
+            "input_type", "search_document"
+        );
+        
+        return webClient.post()
+            .bodyValue(requestBody)
+            .retrieve()
+            .bodyToMono(JsonNode.class)
+            .retryWhen(AIHttpClientConfig.retrySpec(maxRetries, Duration.ofMillis(retryDelayMs)))
+            .handle((JsonNode response, SynchronousSink<float[]> sink) -> {
+                try {
+                    sink.next(parseEmbeddingResponse(response));
+                } catch (EmbeddingException ex) {
+                    sink.error(ex);
+                }
+            })
+            .onErrorMap(ex -> !(ex instanceof EmbeddingException), this::toEmbeddingException);
+    }
+    
+    private EmbeddingException toEmbeddingException(Throwable ex) {
+        if (ex instanceof WebClientResponseException http) {
+            log.error("❌ Cohere HTTP error: {} - {}", http.getStatusCode(), http.getResponseBodyAsString());
             
-            if (ex.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
-                throw new EmbeddingException("Cohere", "Rate limit exceeded", 429, ex);
-            } else if (ex.getStatusCode() == HttpStatus.UNAUTHORIZED) {
-                throw new EmbeddingException("Cohere", "Invalid API key", 401, ex);
+            if (http.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+                return new EmbeddingException("Cohere", "Rate limit exceeded", 429, ex);
+            } else if (http.getStatusCode() == HttpStatus.UNAUTHORIZED) {
+                return new EmbeddingException("Cohere", "Invalid API key", 401, ex);
             } else {
-                throw new EmbeddingException("Cohere", 
-                    "HTTP error: " + ex.getMessage(), 
-                    ex.getStatusCode().value(), ex);
+                return new EmbeddingException("Cohere", 
+                    "HTTP error: " + http.getMessage(), 
+                    http.getStatusCode().value(), ex);
             }
-            
-        } catch (Exception ex) {
-            log.error("💥 Cohere unexpected error: {}", ex.getMessage(), ex);
-            throw new EmbeddingException("Cohere", "Unexpected error: " + ex.getMessage(), ex);
         }
+        
+        log.error("💥 Cohere unexpected error: {}", ex.getMessage(), ex);
+        return new EmbeddingException("Cohere", "Unexpected error: " + ex.getMessage(), ex);
     }
     
-    private List<Double> parseEmbeddingResponse(String response) throws EmbeddingException {
-        try {
-            JsonNode rootNode = objectMapper.readTree(response);
-            JsonNode embeddingsNode = rootNode.get("embeddings");
-            
-            if (embeddingsNode == null || !embeddingsNode.isArray() || embeddingsNode.size() == 0) {
-                throw new EmbeddingException("Cohere", "Invalid response format - no embeddings found");
-            }
-            
-            JsonNode firstEmbedding = embeddingsNode.get(0);
-            if (!firstEmbedding.isArray()) {
-                throw new EmbeddingException("Cohere", "Invalid embedding format");
-            }
-            
-            List<Double> embedding = StreamSupport.stream(firstEmbedding.spliterator(), false)
-                .map(JsonNode::asDouble)
-                .toList();
-                
-            log.debug("✅ Cohere embedding generated successfully: {} dimensions", embedding.size());
-            return embedding;
-            
-        } catch (Exception ex) {
-            throw new EmbeddingException("Cohere", "Failed to parse response: " + ex.getMessage(), ex);
+    private float[] parseEmbeddingResponse(JsonNode rootNode) throws EmbeddingException {
+        JsonNode embeddingsNode = rootNode.get("embeddings");
+        
+        if (embeddingsNode == null || !embeddingsNode.isArray() || embeddingsNode.size() == 0) {
+            throw new EmbeddingException("Cohere", "Invalid response format - no embeddings found");
         }
+        
+        JsonNode firstEmbedding = embeddingsNode.get(0);
+        if (!firstEmbedding.isArray()) {
+            throw new EmbeddingException("Cohere", "Invalid embedding format");
+        }
+        
+        float[] embedding = ReactiveEmbeddingProvider.toVector(firstEmbedding);
+        
+        log.debug("✅ Cohere embedding generated successfully: {} dimensions", embedding.length);
+        return embedding;
     }
     
     @Override
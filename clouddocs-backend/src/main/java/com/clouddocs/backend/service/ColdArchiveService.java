@@ -0,0 +1,383 @@
+package com.clouddocs.backend.service;
+
+import com.clouddocs.backend.entity.ArchiveSegment;
+import com.clouddocs.backend.entity.AuditLog;
+import com.clouddocs.backend.repository.ArchiveSegmentRepository;
+import com.clouddocs.backend.storage.BlobStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold tier for the audit log.
+ *
+ * Rows older than {@code app.archive.audit-age-days} are moved, oldest first, into immutable segment files in the
+ * blob store: gzip-compressed JSON with one array per column (similar values sit together, so
+ * they compress well) and a header carrying the segment's min/max time and id. Each segment
+ * is written, cataloged in {@code archive_segments} and its rows deleted in one transaction,
+ * so a row is always in exactly one tier. Readers use the catalog to open only the segments
+ * that overlap the requested window, and segments past {@code app.audit.retention-days} are
+ * deleted just as the expired partitions are.
+ *
+ * Only tables whose every read path also consults the cold tier belong in {@link #tables()}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ColdArchiveService {
+
+    private static final String FORMAT = "clouddocs-segment";
+    private static final int VERSION = 1;
+    private static final DateTimeFormatter KEY_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ArchiveSegmentRepository segmentRepository;
+    private final BlobStore blobStore;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.archive.segment-rows:20000}")
+    private int segmentRows;
+
+    @Value("${app.archive.max-segments-per-run:50}")
+    private int maxSegmentsPerRun;
+
+    @Value("${app.archive.audit-age-days:60}")
+    private int auditAgeDays;
+
+    @Value("${app.audit.retention-days:90}")
+    private int auditRetentionDays;
+
+    @Value("${app.archive.max-cold-rows:100000}")
+    private int maxColdRows;
+
+    @Value("${app.archive.segment-cache-size:16}")
+    private int segmentCacheSize;
+
+    // Decoded segments are immutable, so caching them is safe; exports page through the same ones
+    private final LinkedHashMap<String, SegmentFile> segmentCache = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * A table that can be archived: rows are moved once {@code timeColumn} is older than the age.
+     *
+     * @param condition extra SQL restricting which old rows qualify, or null
+     */
+    private record ArchivedTable(String name, String timeColumn, int ageDays, String condition) {}
+
+    /**
+     * On-disk layout of a segment.
+     */
+    public record SegmentFile(String format, int version, String table, int rowCount,
+                              Map<String, Object> index, List<String> columns, Map<String, List<Object>> data) {}
+
+    /**
+     * Move everything past its age into segments, a bounded number of segments per run.
+     */
+    public int archiveAll() {
+        if (!enabled) {
+            return 0;
+        }
+        int total = 0;
+        for (ArchivedTable table : tables()) {
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(table.ageDays());
+            try {
+                for (int i = 0; i < maxSegmentsPerRun; i++) {
+                    int moved = archiveSegment(table, cutoff);
+                    total += moved;
+                    if (moved < segmentRows) {
+                        break;
+                    }
+                }
+            } catch (Exception e) {
+                log.error("❌ Archiving {} failed: {}", table.name(), e.getMessage(), e);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Cold audit rows matching the same filters as the hot search, newest first.
+     *
+     * @param pattern lower-case substring for activity / linked item, or null
+     */
+    public List<AuditLog> searchAudit(String pattern, String user, String status,
+                                      LocalDateTime from, LocalDateTime to) {
+        return scanAudit(segmentRepository.findOverlapping("audit_log", from, to), row ->
+                !row.getTimestamp().isBefore(from) && row.getTimestamp().isBefore(to)
+                        && (user == null || user.equalsIgnoreCase(row.getUser()))
+                        && (status == null || status.equals(row.getStatus().name()))
+                        && (pattern == null || contains(row.getActivity(), pattern) || contains(row.getLinkedItem(), pattern)));
+    }
+
+    /**
+     * Cold audit rows for one linked item (e.g. a workflow) written at or after {@code since},
+     * newest first. The catalog has no index on the item, so the time bound is what keeps this
+     * from opening every segment: only segments whose newest row is not older than it are read.
+     */
+    public List<AuditLog> findAuditByLinkedItem(String linkedItem, LocalDateTime since) {
+        return scanAudit(segmentRepository.findSince("audit_log", since),
+                row -> linkedItem.equals(row.getLinkedItem()) && !row.getTimestamp().isBefore(since));
+    }
+
+    private List<AuditLog> scanAudit(List<ArchiveSegment> segments, Predicate<AuditLog> filter) {
+        List<AuditLog> matches = new ArrayList<>();
+        for (ArchiveSegment segment : segments) {
+            SegmentFile file = load(segment.getBlobKey());
+            List<Object> ids = file.data().get("id");
+            for (int row = 0; row < file.rowCount(); row++) {
+                AuditLog entry = AuditLog.builder()
+                        .id(((Number) ids.get(row)).longValue())
+                        .activity((String) file.data().get("activity").get(row))
+                        .linkedItem((String) file.data().get("linked_item").get(row))
+                        .user((String) file.data().get("user_name").get(row))
+                        .timestamp(LocalDateTime.parse((String) file.data().get("timestamp").get(row)))
+                        .status(AuditLog.Status.valueOf((String) file.data().get("status").get(row)))
+                        .build();
+                if (filter.test(entry)) {
+                    matches.add(entry);
+                }
+            }
+            if (matches.size() >= maxColdRows) {
+                log.warn("⚠️ Cold audit search truncated at {} rows", maxColdRows);
+                break;
+            }
+        }
+        matches.sort(Comparator.comparing(AuditLog::getTimestamp).reversed());
+        return matches;
+    }
+
+    /**
+     * Delete audit segments whose newest row is past the retention window: the catalog row
+     * first, so readers stop opening the file, then the file itself.
+     *
+     * @return segments deleted
+     */
+    public int expireSegments() {
+        if (!enabled) {
+            return 0;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(auditRetentionDays);
+        int deleted = 0;
+        for (ArchiveSegment segment : segmentRepository.findExpired("audit_log", cutoff)) {
+            try {
+                transactionTemplate.executeWithoutResult(tx -> segmentRepository.deleteById(segment.getId()));
+            } catch (RuntimeException e) {
+                log.error("❌ Could not expire segment {}: {}", segment.getBlobKey(), e.getMessage(), e);
+                continue;
+            }
+            synchronized (segmentCache) {
+                segmentCache.remove(segment.getBlobKey());
+            }
+            try {
+                blobStore.delete(segment.getBlobKey());
+            } catch (IOException e) {
+                log.warn("Could not remove expired segment {}: {}", segment.getBlobKey(), e.getMessage());
+            }
+            deleted++;
+        }
+        if (deleted > 0) {
+            log.info("🧊 Expired {} audit segments older than {} days", deleted, auditRetentionDays);
+        }
+        return deleted;
+    }
+
+    public boolean hasSegments(String table, LocalDateTime from, LocalDateTime to) {
+        return !segmentRepository.findOverlapping(table, from, to).isEmpty();
+    }
+
+    private List<ArchivedTable> tables() {
+        return List.of(new ArchivedTable("audit_log", "timestamp", auditAgeDays, null));
+    }
+
+    /**
+     * Move one segment's worth of the oldest qualifying rows.
+     *
+     * @return rows moved
+     */
+    private int archiveSegment(ArchivedTable table, LocalDateTime cutoff) {
+        String[] written = new String[1];
+        try {
+            Integer moved = transactionTemplate.execute(tx -> {
+                Columns rows = select(table, cutoff);
+                if (rows.count() == 0) {
+                    return 0;
+                }
+                ArchiveSegment segment = write(table, rows);
+                written[0] = segment.getBlobKey();
+                segmentRepository.save(segment);
+
+                List<Object> ids = rows.data().get("id");
+                jdbcTemplate.update(con -> {
+                    PreparedStatement ps = con.prepareStatement("DELETE FROM " + table.name() + " WHERE id = ANY(?)");
+                    ps.setArray(1, con.createArrayOf("bigint", ids.toArray()));
+                    return ps;
+                });
+                log.info("🧊 Archived {} {} rows to {}", rows.count(), table.name(), segment.getBlobKey());
+                return rows.count();
+            });
+            return moved != null ? moved : 0;
+        } catch (RuntimeException e) {
+            // The catalog row rolled back with the delete, so the file is unreachable: remove it
+            if (written[0] != null) {
+                try {
+                    blobStore.delete(written[0]);
+                } catch (IOException cleanup) {
+                    log.warn("Could not remove orphaned segment {}: {}", written[0], cleanup.getMessage());
+                }
+            }
+            throw e;
+        }
+    }
+
+    private record Columns(List<String> names, Map<String, List<Object>> data, int count) {}
+
+    private Columns select(ArchivedTable table, LocalDateTime cutoff) {
+        String sql = "SELECT * FROM " + table.name() + " WHERE " + table.timeColumn() + " < ?" +
+                (table.condition() != null ? " AND " + table.condition() : "") +
+                " ORDER BY " + table.timeColumn() + ", id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+        return jdbcTemplate.query(sql, rs -> {
+            ResultSetMetaData meta = rs.getMetaData();
+            List<String> names = new ArrayList<>();
+            Map<String, List<Object>> data = new LinkedHashMap<>();
+            for (int c = 1; c <= meta.getColumnCount(); c++) {
+                String name = meta.getColumnName(c).toLowerCase();
+                names.add(name);
+                data.put(name, new ArrayList<>());
+            }
+            int count = 0;
+            while (rs.next()) {
+                for (int c = 1; c <= names.size(); c++) {
+                    data.get(names.get(c - 1)).add(toPortable(rs.getObject(c)));
+                }
+                count++;
+            }
+            return new Columns(names, data, count);
+        }, Timestamp.valueOf(cutoff), segmentRows);
+    }
+
+    private ArchiveSegment write(ArchivedTable table, Columns rows) {
+        List<Object> times = rows.data().get(table.timeColumn());
+        List<Object> ids = rows.data().get("id");
+        LocalDateTime minTime = times.stream().map(t -> LocalDateTime.parse((String) t))
+                .min(Comparator.naturalOrder()).orElseThrow();
+        LocalDateTime maxTime = times.stream().map(t -> LocalDateTime.parse((String) t))
+                .max(Comparator.naturalOrder()).orElseThrow();
+        long minId = ids.stream().mapToLong(id -> ((Number) id).longValue()).min().orElseThrow();
+        long maxId = ids.stream().mapToLong(id -> ((Number) id).longValue()).max().orElseThrow();
+
+        Map<String, Object> index = new LinkedHashMap<>();
+        index.put("timeColumn", table.timeColumn());
+        index.put("minTime", minTime.toString());
+        index.put("maxTime", maxTime.toString());
+        index.put("minId", minId);
+        index.put("maxId", maxId);
+        SegmentFile file = new SegmentFile(FORMAT, VERSION, table.name(), rows.count(), index, rows.names(), rows.data());
+
+        String key = String.format("archive/%s/%d/%02d/%s-%s.seg.gz", table.name(), minTime.getYear(),
+                minTime.getMonthValue(), minTime.format(KEY_TIME), UUID.randomUUID().toString().substring(0, 8));
+
+        Path temp = null;
+        try {
+            temp = Files.createTempFile("segment-", ".seg.gz");
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp), 64 * 1024)) {
+                objectMapper.writeValue(out, file);
+            }
+            long size = Files.size(temp);
+            blobStore.putFile(key, temp, "application/gzip");
+
+            ArchiveSegment segment = new ArchiveSegment();
+            segment.setTableName(table.name());
+            segment.setBlobKey(key);
+            segment.setRowCount(rows.count());
+            segment.setMinTime(minTime);
+            segment.setMaxTime(maxTime);
+            segment.setMinId(minId);
+            segment.setMaxId(maxId);
+            segment.setSizeBytes(size);
+            segment.setCreatedAt(LocalDateTime.now());
+            return segment;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write archive segment " + key, e);
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // putFile may already have moved it
+                }
+            }
+        }
+    }
+
+    private SegmentFile load(String key) {
+        synchronized (segmentCache) {
+            SegmentFile cached = segmentCache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        SegmentFile file;
+        try (InputStream in = new GZIPInputStream(blobStore.get(key), 64 * 1024)) {
+            file = objectMapper.readValue(in, SegmentFile.class);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read archive segment " + key, e);
+        }
+        if (!FORMAT.equals(file.format()) || file.version() != VERSION) {
+            throw new IllegalStateException("Unsupported archive segment " + key + ": " + file.format() + " v" + file.version());
+        }
+        synchronized (segmentCache) {
+            segmentCache.put(key, file);
+            while (segmentCache.size() > segmentCacheSize) {
+                segmentCache.remove(segmentCache.keySet().iterator().next());
+            }
+        }
+        return file;
+    }
+
+    private static Object toPortable(Object value) {
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean) {
+            return value;
+        }
+        if (value instanceof Timestamp ts) {
+            return ts.toLocalDateTime().toString();
+        }
+        if (value instanceof java.time.temporal.TemporalAccessor temporal) {
+            return temporal instanceof java.time.OffsetDateTime odt
+                    ? odt.atZoneSameInstant(java.time.ZoneId.systemDefault()).toLocalDateTime().toString()
+                    : temporal.toString();
+        }
+        return value.toString();
+    }
+
+    private static boolean contains(String value, String pattern) {
+        return value != null && value.toLowerCase().contains(pattern);
+    }
+}
@@ -0,0 +1,195 @@
+package com.clouddocs.backend.service;
+
+import com.clouddocs.backend.entity.ApprovalPolicy;
+import com.clouddocs.backend.entity.ERole;
+import com.clouddocs.backend.entity.StepType;
+import com.clouddocs.backend.entity.User;
+import com.clouddocs.backend.entity.WorkflowStep;
+import com.clouddocs.backend.entity.WorkflowStepRole;
+import com.clouddocs.backend.entity.WorkflowTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Immutable, pre-processed view of a {@link WorkflowTemplate} used by workflow progression.
+ *
+ * Steps are indexed by step order, approval policies are reduced to their effective values
+ * and role/approver sets are resolved up front, so advancing a workflow never needs to go
+ * back to the template tables.
+ */
+public record CompiledWorkflowTemplate(
+        UUID id,
+        LocalDateTime version,
+        String name,
+        boolean active,
+        Integer defaultSlaHours,
+        int totalSteps,
+        Map<Integer, List<Step>> stepsByOrder) {
+
+    public enum StepOutcome {
+        CONTINUE, APPROVED, REJECTED
+    }
+
+    /**
+     * A single compiled step.
+     */
+    public record Step(
+            Long id,
+            int order,
+            String name,
+            StepType type,
+            ApprovalPolicy policy,
+            int requiredApprovals,
+            Integer slaHours,
+            Set<ERole> roles,
+            List<Long> directApproverIds) {
+
+        /**
+         * Decide the step outcome from the tallied task actions.
+         */
+        public StepOutcome evaluate(long approvals, long rejections, long totalAssigned) {
+            if (totalAssigned == 0) {
+                return StepOutcome.CONTINUE;
+            }
+
+            switch (policy) {
+                case UNANIMOUS:
+                    if (rejections > 0)
+                        return StepOutcome.REJECTED;
+                    if (approvals == totalAssigned)
+                        return StepOutcome.APPROVED;
+                    break;
+                case MAJORITY:
+                    long needed = (totalAssigned / 2) + 1;
+                    if (approvals >= needed)
+                        return StepOutcome.APPROVED;
+                    if (rejections >= needed)
+                        return StepOutcome.REJECTED;
+                    break;
+                case ANY_ONE:
+                    if (approvals > 0)
+                        return StepOutcome.APPROVED;
+                    if (rejections > 0)
+                        return StepOutcome.REJECTED;
+                    break;
+                case QUORUM:
+                default:
+                    if (approvals >= requiredApprovals)
+                        return StepOutcome.APPROVED;
+                    if (rejections > 0)
+                        return StepOutcome.REJECTED;
+                    break;
+            }
+
+            return StepOutcome.CONTINUE;
+        }
+
+        public boolean isApproval() {
+            return type == StepType.APPROVAL;
+        }
+    }
+
+    /**
+     * All steps sharing the given order (parallel steps), in id order. Empty if none.
+     */
+    public List<Step> stepsAt(Integer order) {
+        if (order == null) {
+            return List.of();
+        }
+        return stepsByOrder.getOrDefault(order, List.of());
+    }
+
+    /**
+     * The first step at the given order, or null.
+     */
+    public Step stepAt(Integer order) {
+        List<Step> steps = stepsAt(order);
+        return steps.isEmpty() ? null : steps.get(0);
+    }
+
+    public Step findStep(Long stepId) {
+        for (List<Step> steps : stepsByOrder.values()) {
+            for (Step step : steps) {
+                if (step.id().equals(stepId)) {
+                    return step;
+                }
+            }
+        }
+        return null;
+    }
+
+    public boolean isLastStep(int order) {
+        return order >= totalSteps;
+    }
+
+    public boolean hasSteps() {
+        return !stepsByOrder.isEmpty();
+    }
+
+    /**
+     * Build the compiled form. Must be called while the template's steps, step roles and
+     * direct approvers can still be loaded (i.e. inside a transaction).
+     */
+    public static CompiledWorkflowTemplate compile(WorkflowTemplate template) {
+        TreeMap<Integer, List<Step>> byOrder = new TreeMap<>();
+
+        for (WorkflowStep step : template.getStepsSafe()) {
+            if (step.getStepOrder() == null) {
+                continue;
+            }
+            byOrder.computeIfAbsent(step.getStepOrder(), k -> new ArrayList<>()).add(compileStep(step));
+        }
+
+        byOrder.values().forEach(steps -> steps.sort(Comparator.comparing(Step::id)));
+        Map<Integer, List<Step>> frozen = new TreeMap<>();
+        byOrder.forEach((order, steps) -> frozen.put(order, List.copyOf(steps)));
+
+        return new CompiledWorkflowTemplate(
+                template.getId(),
+                template.getUpdatedAt(),
+                template.getName(),
+                Boolean.TRUE.equals(template.getIsActive()),
+                template.getDefaultSlaHours(),
+                byOrder.isEmpty() ? 0 : byOrder.lastKey(),
+                Collections.unmodifiableMap(frozen));
+    }
+
+    private static Step compileStep(WorkflowStep step) {
+        Set<ERole> roles = EnumSet.noneOf(ERole.class);
+        if (step.getRoles() != null) {
+            step.getRoles().stream()
+                    .map(WorkflowStepRole::getRoleName)
+                    .filter(Objects::nonNull)
+                    .forEach(roles::add);
+        }
+
+        List<Long> directApproverIds = step.getAssignedApprovers() == null
+                ? List.of()
+                : step.getAssignedApprovers().stream()
+                        .map(User::getId)
+                        .filter(Objects::nonNull)
+                        .sorted()
+                        .toList();
+
+        return new Step(
+                step.getId(),
+                step.getStepOrder(),
+                step.getName(),
+                step.getType() != null ? step.getType() : StepType.APPROVAL,
+                step.getApprovalPolicy() != null ? step.getApprovalPolicy() : ApprovalPolicy.QUORUM,
+                step.getEffectiveRequiredApprovals(),
+                step.getSlaHours(),
+                Collections.unmodifiableSet(roles),
+                directApproverIds);
+    }
+}
@@ -10,7 +10,6 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -20,10 +19,21 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Autowired
     UserRepository userRepository;
 
+    @Autowired
+    UserDirectoryCache userDirectory;
+
+    /**
+     * Credential lookup for login. Always reads the users table so password changes apply
+     * immediately; only misses go through the directory cache, as a negative entry.
+     */
     @Override
     @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         System.out.println("🔍 CustomUserDetailsService: Looking for user: " + username);
+
+        if (userDirectory.isKnownMissing(username)) {
+            throw new UsernameNotFoundException("User Not Found: " + username);
+        }
         
         // Try to find user by username first
         Optional<User> userOpt = userRepository.findByUsername(username);
@@ -38,12 +48,7 @@ public class CustomUserDetailsService implements UserDetailsService {
         
         User user = userOpt.orElseThrow(() -> {
             System.out.println("❌ User not found anywhere: " + username);
-            
-            // Debug: List all users in database
-            List<User> allUsers = userRepository.findAll();
-            System.out.println("All users in database:");
-            allUsers.forEach(u -> System.out.println("- Username: " + u.getUsername() + ", Email: " + u.getEmail()));
-            
+            userDirectory.rememberMissing(username);
             return new UsernameNotFoundException("User Not Found: " + username);
         });
         
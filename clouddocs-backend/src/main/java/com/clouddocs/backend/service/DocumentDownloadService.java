@@ -0,0 +1,343 @@
+package com.clouddocs.backend.service;
+
+import com.clouddocs.backend.dto.DocumentDownloadInfo;
+import com.clouddocs.backend.repository.DocumentRepository;
+import com.clouddocs.backend.storage.BlobStore;
+import com.clouddocs.backend.storage.CompressionPolicy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams stored document bytes from the blob store straight to the socket.
+ *
+ * Responses carry a strong ETag (the SHA-256 of the content), answer If-None-Match with 304
+ * and serve a single byte range with 206, so clients can cache and resume downloads. Blobs
+ * compressed at rest are passed through with {@code Content-Encoding} when the client accepts
+ * that coding, and inflated while streaming otherwise. When the
+ * servlet container supports sendfile and the blob is a local file, the copy is handed to the
+ * kernel; otherwise it falls back to {@link FileChannel#transferTo}, or to streaming the object
+ * body for remote blob stores. Nothing is buffered in the heap either way.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DocumentDownloadService {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final int ZIP_BUFFER_BYTES = 64 * 1024;
+
+    private final FileStorageService fileStorageService;
+    private final BlobStore blobStore;
+    private final DocumentRepository documentRepository;
+
+    /**
+     * Write the document to the response, honouring conditional and range headers.
+     *
+     * @return true if this request should count as a download (a full body, or a range
+     *         starting at byte 0); false for 304s, HEADs, resumed ranges and 416s
+     */
+    public boolean serve(DocumentDownloadInfo info, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        OptionalLong size = blobStore.size(info.filePath());
+        if (size.isEmpty()) {
+            throw new FileNotFoundException("File not found " + info.filePath());
+        }
+
+        String codec = info.storageCodec();
+        long storedLength = size.getAsLong();
+        // Compressed blobs: ranges and lengths refer to the original bytes
+        long length = codec != null && info.fileSize() != null ? info.fileSize() : storedLength;
+        boolean passThrough = codec != null
+                && request.getHeader(HttpHeaders.RANGE) == null
+                && acceptsEncoding(request.getHeader(HttpHeaders.ACCEPT_ENCODING), codec);
+
+        String hash = contentHash(info);
+        // Each representation needs its own strong validator
+        String etag = passThrough ? "\"" + hash + "-" + codec + "\"" : "\"" + hash + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (codec != null) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+
+        // ✅ Client already has these bytes - no disk I/O at all
+        if (etagMatches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return false;
+        }
+
+        response.setContentType(info.mimeType() != null ? info.mimeType() : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(info.originalFilename() != null ? info.originalFilename()
+                        : info.filePath().substring(info.filePath().lastIndexOf('/') + 1), StandardCharsets.UTF_8)
+                .build().toString());
+
+        if (passThrough) {
+            // 🔄 Ship the compressed bytes as-is and let the client inflate them
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, codec);
+            response.setContentLengthLong(storedLength);
+            if (!"HEAD".equalsIgnoreCase(request.getMethod()) && storedLength > 0) {
+                writeStored(info.filePath(), 0, storedLength - 1, storedLength, request, response);
+            }
+            return !"HEAD".equalsIgnoreCase(request.getMethod());
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+
+        if (rangeHeader != null && rangeApplies(request.getHeader(HttpHeaders.IF_RANGE), etag)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            // Multipart byteranges is not worth the complexity here; several ranges get the full body
+            if (ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                long rangeStart = range.getRangeStart(length);
+                long rangeEnd = range.getRangeEnd(length);
+                if (length == 0 || rangeStart >= length || rangeStart > rangeEnd) {
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.setContentLengthLong(0);
+                    return false;
+                }
+                start = rangeStart;
+                end = rangeEnd;
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || count <= 0) {
+            return false;
+        }
+
+        if (codec != null) {
+            // Client can't take the stored coding (or asked for a range): inflate on the fly
+            try (InputStream in = fileStorageService.openFile(info.filePath(), codec)) {
+                in.skipNBytes(start);
+                copy(in, count, response.getOutputStream());
+            }
+        } else {
+            writeStored(info.filePath(), start, end, storedLength, request, response);
+        }
+        return start == 0;
+    }
+
+    /**
+     * Stream several documents as one ZIP archive. Each entry is copied from storage through a
+     * fixed-size buffer, so memory stays flat however large the batch is. Formats that are
+     * already compressed are written at deflate level 0 rather than being compressed again.
+     *
+     * @return the documents actually written; unreadable ones are listed in an errors entry instead
+     */
+    public List<DocumentDownloadInfo> writeZip(List<DocumentDownloadInfo> documents, OutputStream out) throws IOException {
+        List<DocumentDownloadInfo> written = new ArrayList<>();
+        List<String> failures = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+
+        ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out, ZIP_BUFFER_BYTES));
+        for (DocumentDownloadInfo info : documents) {
+            String name = uniqueEntryName(info, names);
+            InputStream in;
+            try {
+                in = fileStorageService.openFile(info.filePath(), info.storageCodec());
+            } catch (RuntimeException e) {
+                // Nothing written for this entry yet, so the archive stays valid
+                log.warn("Skipping document {} in zip: {}", info.id(), e.getMessage());
+                failures.add(name + ": " + e.getMessage());
+                continue;
+            }
+            try (InputStream entry = new BufferedInputStream(in, ZIP_BUFFER_BYTES)) {
+                zip.setLevel(isPrecompressed(info.mimeType()) ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+                zip.putNextEntry(new ZipEntry(name));
+                entry.transferTo(zip);
+                zip.closeEntry();
+            }
+            written.add(info);
+        }
+
+        if (!failures.isEmpty()) {
+            zip.setLevel(Deflater.DEFAULT_COMPRESSION);
+            zip.putNextEntry(new ZipEntry(uniqueName("_download-errors.txt", names)));
+            zip.write(String.join("\n", failures).getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        zip.finish();
+        zip.flush();
+        return written;
+    }
+
+    private static boolean isPrecompressed(String mimeType) {
+        return CompressionPolicy.isIncompressible(mimeType)
+                || (mimeType != null && mimeType.toLowerCase().startsWith("application/pdf"));
+    }
+
+    private static String uniqueEntryName(DocumentDownloadInfo info, Set<String> taken) {
+        String name = info.originalFilename() != null ? info.originalFilename()
+                : info.filePath().substring(info.filePath().lastIndexOf('/') + 1);
+        // Flat archive: no directories, and nothing that could escape the extraction folder
+        name = name.replace('\\', '_').replace('/', '_').replaceAll("^\\.+", "_").trim();
+        return uniqueName(name.isEmpty() ? "document-" + info.id() : name, taken);
+    }
+
+    private static String uniqueName(String name, Set<String> taken) {
+        if (taken.add(name)) {
+            return name;
+        }
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        for (int i = 2; ; i++) {
+            String candidate = base + " (" + i + ")" + extension;
+            if (taken.add(candidate)) {
+                return candidate;
+            }
+        }
+    }
+
+    /**
+     * Write stored bytes {@code start..end} as they are: sendfile or a channel transfer for local
+     * blobs, a streamed object body for remote ones.
+     */
+    private void writeStored(String key, long start, long end, long storedLength,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long count = end - start + 1;
+        Optional<Path> local = blobStore.localPath(key);
+        if (local.isPresent() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // 🔄 Tomcat writes the file with sendfile once the servlet returns; end is exclusive
+            request.setAttribute(SENDFILE_FILENAME, local.get().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+        } else if (local.isPresent()) {
+            transfer(local.get(), start, count, response.getOutputStream());
+        } else {
+            // Remote backend: stream the (ranged) object body straight through
+            try (InputStream in = count == storedLength ? blobStore.get(key) : blobStore.get(key, start, end)) {
+                in.transferTo(response.getOutputStream());
+            }
+        }
+    }
+
+    /**
+     * The stored hash, computing and persisting it for documents uploaded before hashes were kept.
+     */
+    private String contentHash(DocumentDownloadInfo info) {
+        if (info.contentHash() != null) {
+            return info.contentHash();
+        }
+        String hash = fileStorageService.sha256(info.filePath());
+        try {
+            documentRepository.updateContentHash(info.id(), hash);
+        } catch (Exception e) {
+            log.warn("Could not persist content hash for document {}: {}", info.id(), e.getMessage());
+        }
+        return hash;
+    }
+
+    private void transfer(Path path, long position, long count, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+        out.flush();
+    }
+
+    private static void copy(InputStream in, long count, OutputStream out) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long remaining = count;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                break;
+            }
+            out.write(buffer, 0, read);
+            remaining -= read;
+        }
+        out.flush();
+    }
+
+    private boolean acceptsEncoding(String acceptEncoding, String codec) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            if (tokens[0].trim().equalsIgnoreCase(codec)) {
+                // "gzip;q=0" means explicitly not acceptable
+                return !(tokens.length > 1 && tokens[1].trim().replace(" ", "").matches("q=0(\\.0*)?"));
+            }
+        }
+        return false;
+    }
+
+    private boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean rangeApplies(String ifRange, String etag) {
+        // If-Range with a date or a different tag means the client's partial copy is stale
+        return ifRange == null || ifRange.trim().equals(etag);
+    }
+}
@@ -1,19 +1,23 @@
 package com.clouddocs.backend.service;
 
 import com.clouddocs.backend.dto.DocumentDTO;
+import com.clouddocs.backend.dto.DocumentDownloadInfo;
 import com.clouddocs.backend.dto.DocumentUploadRequest;
 import com.clouddocs.backend.entity.Document;
 import com.clouddocs.backend.entity.DocumentStatus;
 import com.clouddocs.backend.entity.ERole;
 import com.clouddocs.backend.entity.DocumentShareLink;
 import com.clouddocs.backend.entity.User;
+import com.clouddocs.backend.event.DocumentDeleted;
+import com.clouddocs.backend.event.DocumentStatusChanged;
+import com.clouddocs.backend.event.DocumentUploaded;
 import com.clouddocs.backend.repository.DocumentRepository;
 import com.clouddocs.backend.repository.DocumentShareLinkRepository;
 import com.clouddocs.backend.repository.UserRepository;
 
 import org.hibernate.LazyInitializationException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -21,12 +25,15 @@ import org.springframework.data.domain.Sort;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import jakarta.persistence.EntityNotFoundException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -42,6 +49,9 @@ public class DocumentService {
     
     @Autowired
     private UserRepository userRepository;
+
+    @Autowired
+    private UserDirectoryCache userDirectory;
     
     @Autowired
     private DocumentShareLinkRepository shareLinksRepository;
@@ -52,35 +62,89 @@ public class DocumentService {
     @Autowired
     private AuditService auditService;
 
+    @Autowired
+    private AccessCounterService accessCounters;
+
+    @Autowired
+    private DomainEventOutbox outbox;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.upload.stream-max-bytes:2147483648}")
+    private long maxStreamUploadBytes;
+
+    @Value("${app.download.batch-max-documents:200}")
+    private int maxBatchDownloadDocuments;
+
     // ===== EXISTING METHODS (UNCHANGED) =====
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public DocumentDTO uploadDocument(MultipartFile file, DocumentUploadRequest request) {
+        FileStorageService.StoredFile stored = null;
         try {
             User currentUser = getCurrentUser();
-            String storedFileName = fileStorageService.storeFile(file);
-            
-            Document document = new Document(
-                storedFileName,
-                file.getOriginalFilename(),
-                storedFileName,
-                file.getSize(),
-                file.getContentType(),
-                currentUser
-            );
+            stored = fileStorageService.storeContent(file);
             
-            document.setDescription(request.getDescription());
-            document.setCategory(request.getCategory());
-            document.setTags(request.getTags());
-            
-            document = documentRepository.save(document);
-            auditService.logDocumentUpload(document, currentUser);
+            FileStorageService.StoredFile storedFile = stored;
+            return transactionTemplate.execute(tx -> createUploadedDocument(
+                    storedFile, file.getOriginalFilename(), file.getContentType(), request, currentUser));
+        } catch (Exception e) {
+            discardQuietly(stored, e);
+            throw new RuntimeException("Failed to upload document: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Upload from a raw stream of any size. The body is copied to storage in one pass that also
+     * hashes it and detects its type, so memory use stays flat no matter how large the file is.
+     *
+     * Runs without a transaction: staging and the blob store upload can take minutes, and must
+     * not hold a pooled connection (or a content_blobs row lock) meanwhile. Only the document
+     * row, audit entry and event are written in a short transaction at the end.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public DocumentDTO uploadDocumentStream(InputStream in, String originalFilename, DocumentUploadRequest request) {
+        FileStorageService.StoredFile stored = null;
+        try {
+            User currentUser = getCurrentUser();
+            FileStorageService.StagedFile staged = fileStorageService.stage(in, originalFilename, maxStreamUploadBytes);
+            stored = fileStorageService.commit(staged, originalFilename);
             
-            return convertToDTO(document);
+            FileStorageService.StoredFile storedFile = stored;
+            return transactionTemplate.execute(tx -> createUploadedDocument(
+                    storedFile, originalFilename, storedFile.mimeType(), request, currentUser));
         } catch (Exception e) {
+            discardQuietly(stored, e);
             throw new RuntimeException("Failed to upload document: " + e.getMessage(), e);
         }
     }
     
+    private DocumentDTO createUploadedDocument(FileStorageService.StoredFile stored, String originalFilename,
+                                               String mimeType, DocumentUploadRequest request, User currentUser) {
+        Document document = new Document(
+            stored.path(),
+            originalFilename,
+            stored.path(),
+            stored.size(),
+            mimeType != null ? mimeType : stored.mimeType(),
+            currentUser
+        );
+        
+        document.setDescription(request.getDescription());
+        document.setCategory(request.getCategory());
+        document.setTags(request.getTags());
+        // ✅ Hash comes from the store pass, so the first download can already answer conditional requests
+        document.setContentHash(stored.contentHash());
+        document.setStorageCodec(stored.codec());
+        
+        document = documentRepository.save(document);
+        auditService.logDocumentUpload(document, currentUser);
+        outbox.append(DocumentUploaded.of(document));
+        
+        return convertToDTO(document);
+    }
+    
     @Transactional(readOnly = true)
     public Page<DocumentDTO> getAllDocuments(int page, int size, String sortBy, String sortDir, 
                                            String search, DocumentStatus status, String category) {
@@ -151,21 +215,60 @@ public class DocumentService {
         
         document = documentRepository.save(document);
         auditService.logDocumentStatusChange(document, oldStatus, status, currentUser);
+        outbox.append(new DocumentStatusChanged(document.getId(), oldStatus, status, currentUser.getUsername()));
         
         return convertToDTO(document);
     }
     
-    public Resource downloadDocument(Long id) {
-        Document document = documentRepository.findById(id)
+    /**
+     * Metadata needed to stream a document, without loading the entity graph.
+     */
+    @Transactional(readOnly = true)
+    public DocumentDownloadInfo getDownloadInfo(Long id) {
+        return documentRepository.findDownloadInfo(id)
                 .orElseThrow(() -> new RuntimeException("Document not found with id: " + id));
+    }
+
+    /**
+     * Count a completed download and audit it. Called once per download, not per range request.
+     */
+    public void recordDownload(DocumentDownloadInfo info) {
+        accessCounters.recordDownload(info.id());
+
+        String username = userDirectory.currentUser().map(User::getUsername).orElse("anonymous");
+        auditService.logWorkflowAction("Document Downloaded: " + info.originalFilename(),
+                info.id().toString(), username);
+    }
+    
+    /**
+     * Metadata for a batch download, in request order, fetched with one query. Fails if any
+     * document is missing or deleted, so a batch is never silently short.
+     */
+    @Transactional(readOnly = true)
+    public List<DocumentDownloadInfo> getDownloadInfos(List<Long> ids) {
+        List<Long> distinct = ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        if (distinct.isEmpty()) {
+            throw new IllegalArgumentException("No documents selected");
+        }
+        if (distinct.size() > maxBatchDownloadDocuments) {
+            throw new IllegalArgumentException("Too many documents selected (max " + maxBatchDownloadDocuments + ")");
+        }
         
-        document.incrementDownloadCount();
-        documentRepository.save(document);
-        
-        User currentUser = getCurrentUser();
-        auditService.logDocumentDownload(document, currentUser);
-        
-        return fileStorageService.loadFileAsResource(document.getFilePath());
+        Map<Long, DocumentDownloadInfo> byId = documentRepository.findDownloadInfos(distinct).stream()
+                .collect(Collectors.toMap(DocumentDownloadInfo::id, info -> info));
+        List<Long> missing = distinct.stream().filter(id -> !byId.containsKey(id)).collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            throw new EntityNotFoundException("Documents not found: " + missing);
+        }
+        return distinct.stream().map(byId::get).collect(Collectors.toList());
+    }
+    
+    /**
+     * Count and audit a completed batch download: counter bumps plus one audit insert batch.
+     */
+    public void recordDownloads(List<DocumentDownloadInfo> infos, String username) {
+        infos.forEach(info -> accessCounters.recordDownload(info.id()));
+        auditService.logDocumentDownloads(infos, username);
     }
     
     // ===== UPDATED: SOFT DELETE IMPLEMENTATION =====
@@ -201,6 +304,7 @@ public class DocumentService {
             
             // ✅ Log audit
             auditService.logDocumentDeletion(document, currentUser);
+            outbox.append(new DocumentDeleted(document.getId(), currentUser.getUsername()));
             
             log.info("✅ Document {} soft deleted successfully by {}", 
                      document.getOriginalFilename(), currentUser.getUsername());
@@ -282,10 +386,10 @@ public class DocumentService {
             Document document = documentRepository.findDeletedById(id)
                     .orElseThrow(() -> new EntityNotFoundException("Deleted document not found with id: " + id));
             
-            // ✅ Delete physical file
+            // ✅ Delete physical file (content-addressed blobs are only dereferenced; the collector removes them)
             try {
-                fileStorageService.deleteFile(document.getFilePath());
-                log.info("📁 Physical file deleted: {}", document.getFilePath());
+                fileStorageService.discard(document.getFilePath());
+                log.info("📁 Physical file released: {}", document.getFilePath());
             } catch (Exception e) {
                 log.warn("⚠️ Failed to delete physical file: {}", e.getMessage());
             }
@@ -492,14 +596,16 @@ public class DocumentService {
             throw new RuntimeException("Invalid password");
         }
         
-        shareLink.setAccessCount(shareLink.getAccessCount() + 1);
-        shareLink.setLastAccessedAt(LocalDateTime.now());
-        shareLinksRepository.save(shareLink);
+        accessCounters.recordShareAccess(shareLink.getId());
         
         return convertToDTO(shareLink.getDocument());
     }
     
-    public Resource downloadSharedDocument(String shareId, String password) {
+    /**
+     * Validate a share link for download and count one access against it.
+     */
+    @Transactional(readOnly = true)
+    public DocumentDownloadInfo resolveSharedDownload(String shareId, String password) {
         DocumentShareLink shareLink = shareLinksRepository.findByShareIdAndActiveTrue(shareId)
                 .orElseThrow(() -> new RuntimeException("Share link not found or expired"));
         
@@ -515,15 +621,10 @@ public class DocumentService {
             throw new RuntimeException("Invalid password");
         }
         
-        shareLink.setAccessCount(shareLink.getAccessCount() + 1);
-        shareLink.setLastAccessedAt(LocalDateTime.now());
-        shareLinksRepository.save(shareLink);
+        accessCounters.recordShareAccess(shareLink.getId());
         
-        return fileStorageService.loadFileAsResource(shareLink.getDocument().getFilePath());
-    }
-    
-    public DocumentDTO getSharedDocumentInfo(String shareId, String password) {
-        return accessSharedDocument(shareId, password);
+        return documentRepository.findDownloadInfo(shareLink.getDocument().getId())
+                .orElseThrow(() -> new RuntimeException("Shared document no longer exists"));
     }
     
     public Map<String, Object> getDocumentStatistics() {
@@ -571,43 +672,6 @@ public DocumentDTO saveDocumentWithOCR(Object request, String username) {
     );
 }
     
-   public DocumentDTO saveDocument(MultipartFile file, String description, String username) {
-    try {
-        // Use existing getCurrentUser method instead of userService
-        User user = getCurrentUser();
-        
-        // Store file using existing fileStorageService
-        String fileName = fileStorageService.storeFile(file);
-        
-        // ✅ FIXED: Use correct Document constructor
-        Document document = new Document(
-            fileName,                    // filename
-            file.getOriginalFilename(),  // originalFilename  
-            fileName,                    // filePath (using same as filename)
-            file.getSize(),              // fileSize
-            file.getContentType(),       // mimeType
-            user                         // uploadedBy
-        );
-        
-        // ✅ FIXED: Set additional properties using CORRECT setters
-        document.setDescription(description);
-        document.setStatus(DocumentStatus.PENDING); // ✅ Use PENDING instead of ACTIVE
-        
-        // Save using existing repository
-        document = documentRepository.save(document);
-        
-        // Log audit using existing service
-        auditService.logDocumentUpload(document, user);
-        
-        // ✅ FIXED: Convert using existing method
-        return convertToDTO(document);
-        
-    } catch (Exception e) {
-        log.error("❌ Failed to save document: {}", e.getMessage(), e);
-        throw new RuntimeException("Failed to save document: " + e.getMessage(), e);
-    }
-}
-
     public Map<String, Object> getOCRStatistics(String username) {
         try {
             long totalDocuments = documentRepository.countByUploadedByUsername(username);
@@ -796,10 +860,24 @@ public DocumentDTO saveDocumentWithOCR(Object request, String username) {
         }
     }
     
+    /**
+     * Undo a store whose document row was never saved, so shared blobs don't leak references.
+     */
+    private void discardQuietly(FileStorageService.StoredFile stored, Exception cause) {
+        if (stored == null) {
+            return;
+        }
+        try {
+            fileStorageService.discard(stored.path());
+        } catch (Exception e) {
+            log.warn("⚠️ Failed to discard {} after error '{}': {}", stored.path(), cause.getMessage(), e.getMessage());
+        }
+    }
+    
     private User getCurrentUser() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found: " + username));
+        return userDirectory.currentUser()
+                .orElseThrow(() -> new RuntimeException("User not found: "
+                        + SecurityContextHolder.getContext().getAuthentication().getName()));
     }
     
     private boolean canChangeDocumentStatus(User user) {
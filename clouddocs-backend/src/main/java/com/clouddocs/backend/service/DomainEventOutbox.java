@@ -0,0 +1,70 @@
+package com.clouddocs.backend.service;
+
+import com.clouddocs.backend.entity.OutboxEvent;
+import com.clouddocs.backend.event.DomainEvent;
+import com.clouddocs.backend.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records domain events in the outbox table as part of the caller's transaction.
+ *
+ * If the transaction rolls back, so do its events; once it commits the relay is nudged so
+ * delivery starts without waiting for the next poll.
+ */
+@Service
+@RequiredArgsConstructor
+public class DomainEventOutbox {
+
+    private final OutboxEventRepository outboxRepository;
+    private final OutboxRelay relay;
+    private final ObjectMapper objectMapper;
+
+    @Transactional
+    public void append(DomainEvent event) {
+        appendAll(List.of(event));
+    }
+
+    /**
+     * Record several events in order, with one relay nudge for all of them.
+     */
+    @Transactional
+    public void appendAll(List<? extends DomainEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<OutboxEvent> rows = new ArrayList<>(events.size());
+        for (DomainEvent event : events) {
+            rows.add(new OutboxEvent(event.aggregateType(), event.aggregateId(),
+                    event.getClass().getSimpleName(), serialize(event)));
+        }
+        outboxRepository.saveAll(rows);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    relay.wakeUp();
+                }
+            });
+        } else {
+            relay.wakeUp();
+        }
+    }
+
+    private String serialize(DomainEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize " + event.getClass().getSimpleName(), e);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.clouddocs.backend.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Plain-text email template, parsed once and rendered by walking the parsed parts.
+ *
+ * Supports {@code {{name}}} placeholders and {@code {{#items}}...{{/items}}} sections that
+ * repeat their body for every map in a list. Missing values render as empty text, and a line
+ * break right after a section tag is dropped.
+ */
+final class EmailTemplate {
+
+    private static final Pattern TAG = Pattern.compile("\\{\\{([#/]?)\\s*([\\w.]+)\\s*}}");
+
+    private sealed interface Part permits Text, Var, Section {}
+
+    private record Text(String text) implements Part {}
+
+    private record Var(String name) implements Part {}
+
+    private record Section(String name, List<Part> body) implements Part {}
+
+    private final List<Part> parts;
+
+    private EmailTemplate(List<Part> parts) {
+        this.parts = parts;
+    }
+
+    static EmailTemplate compile(String source) {
+        Deque<List<Part>> open = new ArrayDeque<>();
+        Deque<String> names = new ArrayDeque<>();
+        List<Part> current = new ArrayList<>();
+
+        Matcher m = TAG.matcher(source);
+        int last = 0;
+        while (m.find()) {
+            if (m.start() > last) {
+                current.add(new Text(source.substring(last, m.start())));
+            }
+            String kind = m.group(1);
+            String name = m.group(2);
+            if ("#".equals(kind)) {
+                open.push(current);
+                names.push(name);
+                current = new ArrayList<>();
+            } else if ("/".equals(kind)) {
+                if (names.isEmpty() || !names.peek().equals(name)) {
+                    throw new IllegalArgumentException("Unbalanced section {{/" + name + "}} in email template");
+                }
+                Section section = new Section(names.pop(), List.copyOf(current));
+                current = open.pop();
+                current.add(section);
+            } else {
+                current.add(new Var(name));
+            }
+            last = m.end();
+            // A section tag on its own line does not leave an empty line behind
+            if (!kind.isEmpty() && last < source.length() && source.charAt(last) == '\n') {
+                last++;
+            }
+        }
+        if (!names.isEmpty()) {
+            throw new IllegalArgumentException("Unclosed section {{#" + names.peek() + "}} in email template");
+        }
+        if (last < source.length()) {
+            current.add(new Text(source.substring(last)));
+        }
+        return new EmailTemplate(List.copyOf(current));
+    }
+
+    String render(Map<String, ?> model) {
+        StringBuilder out = new StringBuilder(512);
+        render(parts, model, out);
+        return out.toString();
+    }
+
+    private static void render(List<Part> parts, Map<String, ?> model, StringBuilder out) {
+        for (Part part : parts) {
+            switch (part) {
+                case Text text -> out.append(text.text());
+                case Var var -> {
+                    Object value = model.get(var.name());
+                    if (value != null) {
+                        out.append(value);
+                    }
+                }
+                case Section section -> {
+                    if (model.get(section.name()) instanceof List<?> items) {
+                        for (Object item : items) {
+                            if (item instanceof Map<?, ?> itemModel) {
+                                @SuppressWarnings("unchecked")
+                                Map<String, ?> typed = (Map<String, ?>) itemModel;
+                                render(section.body(), typed, out);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -1,29 +1,83 @@
 package com.clouddocs.backend.service;
 
+import com.clouddocs.backend.repository.ContentBlobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import com.clouddocs.backend.storage.BlobStore;
+import com.clouddocs.backend.storage.CompressionPolicy;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 import jakarta.annotation.PostConstruct;
+import org.apache.tika.Tika;
 
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.net.MalformedURLException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
 public class FileStorageService {
     
+    private static final Logger log = LoggerFactory.getLogger(FileStorageService.class);
+    private static final String CAS_DIR = "cas";
+    
     private final Path fileStorageLocation;
+    private final ContentBlobRepository contentBlobRepository;
+    private final BlobStore blobStore;
+    private final CompressionPolicy compressionPolicy;
+    private final TransactionTemplate requiresNew;
+    
+    // ✅ Identical uploads share one blob under cas/ instead of being written again
+    @Value("${file.storage.content-addressed:false}")
+    private boolean contentAddressed;
+    
+    private static final Tika TIKA = new Tika();
+    
+    /**
+     * Result of storing an upload: where it lives, plus what was learned while writing it.
+     */
+    public record StoredFile(String path, String contentHash, long size, String mimeType, String codec) {}
+    
+    /**
+     * An upload written to local scratch space but not yet handed to the blob store.
+     */
+    public record StagedFile(Path path, String contentHash, long size, String mimeType) {}
     
-    public FileStorageService(@Value("${file.upload.dir:./uploads}") String uploadDir) {
+    public FileStorageService(@Value("${file.upload.dir:./uploads}") String uploadDir,
+                              ContentBlobRepository contentBlobRepository,
+                              BlobStore blobStore,
+                              CompressionPolicy compressionPolicy,
+                              PlatformTransactionManager transactionManager) {
+        this.contentBlobRepository = contentBlobRepository;
+        this.blobStore = blobStore;
+        this.compressionPolicy = compressionPolicy;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
         this.fileStorageLocation = Paths.get(uploadDir)
                 .toAbsolutePath().normalize();
         
@@ -43,6 +97,7 @@ public void initDirectories() {
         // Ensure profile-pictures subdirectory exists
         Path profilePicturesDir = this.fileStorageLocation.resolve("profile-pictures");
         Files.createDirectories(profilePicturesDir);
+        Files.createDirectories(stagingDirectory());
         
         System.out.println("✅ Upload directories initialized:");
         System.out.println("    Main: " + this.fileStorageLocation.toAbsolutePath());
@@ -58,40 +113,187 @@ public void initDirectories() {
      * Store file with date-based folder structure
      */
     public String storeFile(MultipartFile file) {
-        String originalFileName = file.getOriginalFilename();
-        if (originalFileName == null || originalFileName.trim().isEmpty()) {
-            throw new RuntimeException("File must have a valid filename");
-        }
-        
-        originalFileName = StringUtils.cleanPath(originalFileName);
+        String key = datedKey(file.getOriginalFilename());
         
+        try (InputStream in = file.getInputStream()) {
+            blobStore.put(key, in, file.getSize(), file.getContentType());
+            return key;
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not store file " + file.getOriginalFilename() + ". Please try again!", ex);
+        }
+    }
+    
+    /**
+     * Store a document upload, hashing it in the same pass. In content-addressed mode the bytes
+     * land in {@code cas/ab/cd/<sha256>} and are shared with every other upload of the same content.
+     */
+    public StoredFile storeContent(MultipartFile file) {
+        try (InputStream in = file.getInputStream()) {
+            return commit(stage(in, file.getOriginalFilename(), Long.MAX_VALUE), file.getOriginalFilename());
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not store file " + file.getOriginalFilename() + ". Please try again!", ex);
+        }
+    }
+    
+    /**
+     * Copy a stream to local scratch space in a single pass, hashing it and sniffing its type
+     * with Tika on the way. Memory use is one fixed buffer whatever the size of the upload.
+     *
+     * @param maxBytes uploads longer than this are rejected before they fill the disk
+     */
+    public StagedFile stage(InputStream in, String fileName, long maxBytes) throws IOException {
+        Path temp = Files.createTempFile(stagingDirectory(), "upload-", ".part");
         try {
-            if (originalFileName.contains("..")) {
-                throw new RuntimeException("Filename contains invalid path sequence " + originalFileName);
+            MessageDigest digest = newDigest();
+            // Tika marks and resets the buffered stream, so the digest still sees every byte exactly once
+            BufferedInputStream buffered = new BufferedInputStream(
+                    new DigestInputStream(new SizeLimitedInputStream(in, maxBytes), digest), 64 * 1024);
+            String mimeType = TIKA.detect(buffered, fileName);
+            long size = Files.copy(buffered, temp, StandardCopyOption.REPLACE_EXISTING);
+            return new StagedFile(temp, HexFormat.of().formatHex(digest.digest()), size, mimeType);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(temp);
+            throw ex;
+        }
+    }
+    
+    /**
+     * Hand a staged upload to the blob store and remove the scratch copy.
+     *
+     * In content-addressed mode the blob reference is taken in its own transaction, committed
+     * before the bytes are uploaded (and only if no identical blob exists), so the garbage
+     * collector can never delete a blob that a new document is about to point at, and the
+     * {@code content_blobs} row is not kept locked for the length of the upload.
+     *
+     * When called inside a transaction, a rollback of that transaction gives the file up again
+     * (reference released, or the non-shared file deleted), since no document will point at it.
+     * Outside a transaction the caller must {@link #discard} it if it does not use it.
+     */
+    public StoredFile commit(StagedFile staged, String originalFileName) throws IOException {
+        try {
+            String codec = compressionPolicy.choose(staged.path(), staged.mimeType());
+            if (!contentAddressed) {
+                String key = datedKey(originalFileName);
+                putEncoded(key, staged, codec);
+                discardOnRollback(key);
+                return new StoredFile(key, staged.contentHash(), staged.size(), staged.mimeType(), codec);
             }
             
-            String fileExtension = "";
-            if (originalFileName.contains(".")) {
-                fileExtension = originalFileName.substring(originalFileName.lastIndexOf("."));
+            String hash = staged.contentHash();
+            String relativePath = casPath(hash);
+            // An existing blob keeps the codec it was first stored with
+            String blobCodec = requiresNew.execute(tx -> contentBlobRepository.acquire(hash, staged.size(),
+                    LocalDateTime.now(), codec != null ? codec : ""));
+            try {
+                // Same key means same bytes, so losing a race to another upload is harmless
+                if (!blobStore.exists(relativePath)) {
+                    putEncoded(relativePath, staged, blobCodec);
+                }
+            } catch (IOException | RuntimeException ex) {
+                releaseQuietly(hash);
+                throw ex;
             }
-            
-            String uniqueFileName = generateUniqueFileName(originalFileName, fileExtension);
-            
-            // Create directory structure by date (year/month)
-            LocalDateTime now = LocalDateTime.now();
-            String yearMonth = now.format(DateTimeFormatter.ofPattern("yyyy/MM"));
-            Path targetLocation = this.fileStorageLocation.resolve(yearMonth).resolve(uniqueFileName);
-            
-            Files.createDirectories(targetLocation.getParent());
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
-            
-            return yearMonth + "/" + uniqueFileName;
-            
-        } catch (IOException ex) {
-            throw new RuntimeException("Could not store file " + originalFileName + ". Please try again!", ex);
+            discardOnRollback(relativePath);
+            return new StoredFile(relativePath, hash, staged.size(), staged.mimeType(), blobCodec);
+        } finally {
+            Files.deleteIfExists(staged.path());
+        }
+    }
+    
+    private void discardOnRollback(String filePath) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                try {
+                    if (isContentAddressed(filePath)) {
+                        // The outer transaction is finished; the release needs its own
+                        releaseQuietly(filePath.substring(filePath.lastIndexOf('/') + 1));
+                    } else {
+                        deleteFile(filePath);
+                    }
+                } catch (RuntimeException ex) {
+                    log.warn("⚠️ Could not give up {} after rollback: {}", filePath, ex.getMessage());
+                }
+            }
+        });
+    }
+    
+    private void releaseQuietly(String hash) {
+        try {
+            requiresNew.executeWithoutResult(tx -> contentBlobRepository.release(hash, LocalDateTime.now()));
+        } catch (RuntimeException ex) {
+            log.warn("⚠️ Could not release blob {}: {}", hash, ex.getMessage());
+        }
+    }
+    
+    private void putEncoded(String key, StagedFile staged, String codec) throws IOException {
+        if (codec == null) {
+            blobStore.putFile(key, staged.path(), staged.mimeType());
+            return;
+        }
+        Path encoded = Files.createTempFile(stagingDirectory(), "encode-", ".part");
+        try {
+            compressionPolicy.encode(codec, staged.path(), encoded);
+            log.debug("Storing {} with {}: {} -> {} bytes", key, codec, staged.size(), Files.size(encoded));
+            blobStore.putFile(key, encoded, staged.mimeType());
+        } finally {
+            Files.deleteIfExists(encoded);
         }
     }
     
+    /**
+     * Give up a document's file: drops a reference for content-addressed blobs (the collector
+     * removes the bytes later) and deletes anything else immediately.
+     */
+    public void discard(String filePath) {
+        if (filePath == null) {
+            return;
+        }
+        if (isContentAddressed(filePath)) {
+            String hash = filePath.substring(filePath.lastIndexOf('/') + 1);
+            contentBlobRepository.release(hash, LocalDateTime.now());
+        } else {
+            deleteFile(filePath);
+        }
+    }
+    
+    public boolean isContentAddressed(String filePath) {
+        return filePath != null && filePath.startsWith(CAS_DIR + "/");
+    }
+    
+    /**
+     * Delete up to {@code limit} blobs that have been unreferenced since before {@code cutoff}.
+     * Rows stay locked until the files are gone, which holds off concurrent re-references.
+     *
+     * @return number of blobs removed
+     */
+    @Transactional
+    public int collectGarbage(LocalDateTime cutoff, int limit) {
+        List<String> hashes = contentBlobRepository.lockGarbage(cutoff, limit);
+        if (hashes.isEmpty()) {
+            return 0;
+        }
+        List<String> removed = new ArrayList<>(hashes.size());
+        for (String hash : hashes) {
+            try {
+                blobStore.delete(casPath(hash));
+                removed.add(hash);
+            } catch (IOException ex) {
+                log.warn("⚠️ Could not delete blob {}: {}", hash, ex.getMessage());
+            }
+        }
+        if (!removed.isEmpty()) {
+            contentBlobRepository.deleteUnreferenced(removed);
+        }
+        return removed.size();
+    }
+    
     /**
      * ✅ NEW: Store file in specific subfolder
      */
@@ -116,12 +318,13 @@ public void initDirectories() {
             String uniqueFileName = generateUniqueFileName(originalFileName, fileExtension);
             
             // Use subfolder instead of date-based structure
-            Path targetLocation = this.fileStorageLocation.resolve(subfolder).resolve(uniqueFileName);
+            String key = subfolder + "/" + uniqueFileName;
             
-            Files.createDirectories(targetLocation.getParent());
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            try (InputStream in = file.getInputStream()) {
+                blobStore.put(key, in, file.getSize(), file.getContentType());
+            }
             
-            return subfolder + "/" + uniqueFileName;
+            return key;
             
         } catch (IOException ex) {
             throw new RuntimeException("Could not store file " + originalFileName + ". Please try again!", ex);
@@ -130,23 +333,33 @@ public void initDirectories() {
     
     public Resource loadFileAsResource(String fileName) {
         try {
-            Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
-            Resource resource = new UrlResource(filePath.toUri());
-            
-            if (resource.exists()) {
-                return resource;
-            } else {
-                throw new RuntimeException("File not found " + fileName);
+            Optional<Path> local = blobStore.localPath(fileName);
+            if (local.isPresent()) {
+                return new FileSystemResource(local.get());
             }
-        } catch (MalformedURLException ex) {
+            return new InputStreamResource(blobStore.get(fileName));
+        } catch (IOException ex) {
+            throw new RuntimeException("File not found " + fileName, ex);
+        }
+    }
+    
+    /**
+     * Open a stored file for streaming, decoding it if it was compressed at rest; the caller closes it.
+     */
+    public InputStream openFile(String fileName, String codec) {
+        InputStream stored = null;
+        try {
+            stored = blobStore.get(fileName);
+            return compressionPolicy.decode(codec, stored);
+        } catch (IOException ex) {
+            closeQuietly(stored);
             throw new RuntimeException("File not found " + fileName, ex);
         }
     }
     
     public boolean deleteFile(String fileName) {
         try {
-            Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
-            return Files.deleteIfExists(filePath);
+            return blobStore.delete(fileName);
         } catch (IOException ex) {
             throw new RuntimeException("Could not delete file " + fileName, ex);
         }
@@ -154,16 +367,55 @@ public void initDirectories() {
     
     public long getFileSize(String fileName) {
         try {
-            Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
-            return Files.size(filePath);
+            return blobStore.size(fileName).orElse(0);
         } catch (IOException ex) {
             return 0;
         }
     }
     
     public boolean fileExists(String fileName) {
-        Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
-        return Files.exists(filePath);
+        try {
+            return blobStore.exists(fileName);
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+    
+    public List<String> listFiles(String prefix, int limit) {
+        try {
+            return blobStore.list(prefix, limit);
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not list files under " + prefix, ex);
+        }
+    }
+    
+    /**
+     * Validate an upload's name and build its {@code yyyy/MM/<name>_<timestamp>_<uuid>} key.
+     */
+    private String datedKey(String originalFileName) {
+        if (originalFileName == null || originalFileName.trim().isEmpty()) {
+            throw new RuntimeException("File must have a valid filename");
+        }
+        
+        originalFileName = StringUtils.cleanPath(originalFileName);
+        if (originalFileName.contains("..")) {
+            throw new RuntimeException("Filename contains invalid path sequence " + originalFileName);
+        }
+        
+        String fileExtension = "";
+        if (originalFileName.contains(".")) {
+            fileExtension = originalFileName.substring(originalFileName.lastIndexOf("."));
+        }
+        
+        String uniqueFileName = generateUniqueFileName(originalFileName, fileExtension);
+        
+        // Create directory structure by date (year/month)
+        String yearMonth = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy/MM"));
+        return yearMonth + "/" + uniqueFileName;
+    }
+    
+    private Path stagingDirectory() {
+        return this.fileStorageLocation.resolve(CAS_DIR).resolve("tmp");
     }
     
     private String generateUniqueFileName(String originalFileName, String extension) {
@@ -187,7 +439,80 @@ public void initDirectories() {
         return String.format("%s_%s_%s%s", baseName, timestamp, uuid, extension);
     }
     
-    public String getAbsolutePath(String fileName) {
-        return this.fileStorageLocation.resolve(fileName).normalize().toString();
+    /**
+     * Hex SHA-256 of a stored file.
+     */
+    public String sha256(String fileName) {
+        try (InputStream in = blobStore.get(fileName)) {
+            MessageDigest digest = newDigest();
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not hash file " + fileName, ex);
+        }
+    }
+    
+    private static String casPath(String hash) {
+        return CAS_DIR + "/" + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash;
+    }
+    
+    /**
+     * Fails the read once more than {@code limit} bytes have come through.
+     */
+    private static final class SizeLimitedInputStream extends FilterInputStream {
+        private final long limit;
+        private long count;
+        
+        SizeLimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                check(1);
+            }
+            return b;
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                check(n);
+            }
+            return n;
+        }
+        
+        private void check(int n) throws IOException {
+            count += n;
+            if (count > limit) {
+                throw new IOException("Upload exceeds the maximum size of " + limit + " bytes");
+            }
+        }
+    }
+    
+    private static void closeQuietly(InputStream in) {
+        if (in != null) {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+                // nothing useful to do
+            }
+        }
+    }
+    
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
     }
 }
@@ -4,10 +4,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import jakarta.annotation.PostConstruct;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 /**
@@ -49,54 +54,76 @@ public class MultiProviderAIService {
      * Generate embedding using the first available provider
      */
     public List<Double> generateEmbedding(String text) throws EmbeddingException {
+        try {
+            return ReactiveEmbeddingProvider.toList(embed(text).block());
+        } catch (RuntimeException e) {
+            if (Exceptions.unwrap(e) instanceof EmbeddingException embeddingException) {
+                throw embeddingException;
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Non-blocking failover: providers are tried one after another in priority order, and the
+     * next one is only subscribed to once the previous one has failed
+     */
+    public Mono<float[]> embed(String text) {
         if (sortedProviders == null || sortedProviders.isEmpty()) {
-            throw new EmbeddingException("MultiProvider", "No embedding providers configured");
+            return Mono.error(new EmbeddingException("MultiProvider", "No embedding providers configured"));
         }
         
-        EmbeddingException lastException = null;
+        AtomicReference<EmbeddingException> lastException = new AtomicReference<>();
         
-        for (EmbeddingProvider provider : sortedProviders) {
-            try {
+        return Flux.fromIterable(sortedProviders)
+            .filter(provider -> {
                 if (!provider.isAvailable()) {
                     log.debug("⏭️  Skipping unavailable provider: {}", provider.getProviderName());
-                    continue;
-                }
-                
-                log.debug("🚀 Attempting embedding with provider: {}", provider.getProviderName());
-                List<Double> result = provider.generateEmbedding(text);
-                
-                log.info("✅ Embedding generated successfully using: {}", provider.getProviderName());
-                return result;
-                
-            } catch (EmbeddingException ex) {
-                lastException = ex;
-                log.warn("❌ Provider {} failed: {} ({})", 
-                    provider.getProviderName(), ex.getMessage(), ex.getStatusCode());
-                
-                // Don't retry on authentication errors
-                if (ex.getStatusCode() == 401 || ex.getStatusCode() == 403) {
-                    log.debug("🚫 Skipping retry for authentication error");
-                    continue;
+                    return false;
                 }
-                
-                // For rate limits, continue to next provider
-                if (ex.getStatusCode() == 429) {
-                    log.debug("⏳ Rate limit hit, trying next provider");
-                    continue;
-                }
-                
-                // For other errors, continue to next provider
-                continue;
-            }
+                return true;
+            })
+            .concatMap(provider -> embedWith(provider, text)
+                .doOnNext(result -> log.info("✅ Embedding generated successfully using: {}", provider.getProviderName()))
+                .onErrorResume(ex -> {
+                    EmbeddingException failure = ex instanceof EmbeddingException embeddingException
+                        ? embeddingException
+                        : new EmbeddingException(provider.getProviderName(), ex.getMessage(), ex);
+                    lastException.set(failure);
+                    // Auth errors, rate limits and everything else all move on to the next provider
+                    log.warn("❌ Provider {} failed: {} ({})", 
+                        provider.getProviderName(), failure.getMessage(), failure.getStatusCode());
+                    return Mono.empty();
+                }), 1)
+            .next()
+            .switchIfEmpty(Mono.defer(() -> {
+                // All providers failed
+                EmbeddingException last = lastException.get();
+                String errorMessage = last != null 
+                    ? "All embedding providers failed. Last error: " + last.getMessage()
+                    : "All embedding providers are unavailable";
+                    
+                log.error("💥 {}", errorMessage);
+                return Mono.error(new EmbeddingException("MultiProvider", errorMessage, last));
+            }));
+    }
+    
+    private Mono<float[]> embedWith(EmbeddingProvider provider, String text) {
+        log.debug("🚀 Attempting embedding with provider: {}", provider.getProviderName());
+        if (provider instanceof ReactiveEmbeddingProvider reactive) {
+            return Mono.defer(() -> reactive.embed(text));
         }
-        
-        // All providers failed
-        String errorMessage = lastException != null 
-            ? "All embedding providers failed. Last error: " + lastException.getMessage()
-            : "All embedding providers are unavailable";
-            
-        log.error("💥 {}", errorMessage);
-        throw new EmbeddingException("MultiProvider", errorMessage, lastException);
+        // Blocking providers are kept off the event loop
+        return Mono.fromCallable(() -> toVector(provider.generateEmbedding(text)))
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+    
+    private static float[] toVector(List<Double> embedding) {
+        float[] vector = new float[embedding.size()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = embedding.get(i).floatValue();
+        }
+        return vector;
     }
     
     /**
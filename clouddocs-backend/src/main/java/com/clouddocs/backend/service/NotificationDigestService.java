@@ -0,0 +1,326 @@
+package com.clouddocs.backend.service;
+
+import com.clouddocs.backend.entity.Notification;
+import com.clouddocs.backend.entity.NotificationType;
+import com.clouddocs.backend.entity.User;
+import com.clouddocs.backend.entity.UserNotificationSettings;
+import com.clouddocs.backend.repository.UserNotificationSettingsRepository;
+import com.clouddocs.backend.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Coalesces notification emails per user and type.
+ *
+ * {@link NotificationService} saves every notification immediately (the in-app list and
+ * stream stay per event) but only marks its email as due at the end of a short window. This
+ * service picks up groups whose first email is due and sends one email per group: the usual
+ * single-notification mail for a group of one, otherwise a digest rendered from a template
+ * compiled at startup. Groups that fall in the recipient's quiet hours are pushed back to the
+ * end of them, except urgent ones. Pending emails live in the notifications table, so a
+ * deferral survives restarts.
+ *
+ * A pass claims whole groups - every pending row of a (user, type) that has a due row - under
+ * a lease, serialized across nodes with an advisory lock. Rows are only cleared once their
+ * email went out; a failed send is retried with backoff up to a limit, and a crash mid-send
+ * just lets the lease run out, so an email can be sent twice but is never lost.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationDigestService {
+
+    private static final long CLAIM_LOCK_KEY = 0x444947455354L;
+
+    private static final String CLAIM_SQL = """
+        WITH due AS (
+            SELECT user_id, notification_type FROM notifications
+             WHERE email_due_at <= ?
+               AND (email_lease_until IS NULL OR email_lease_until < ?)
+             GROUP BY user_id, notification_type
+             ORDER BY MIN(email_due_at)
+             LIMIT ?)
+        UPDATE notifications n
+           SET email_lease_until = ?, email_attempts = COALESCE(n.email_attempts, 0) + 1
+          FROM due
+         WHERE n.user_id = due.user_id
+           AND n.notification_type IS NOT DISTINCT FROM due.notification_type
+           AND n.email_due_at IS NOT NULL
+           AND (n.email_lease_until IS NULL OR n.email_lease_until < ?)
+        RETURNING n.id, n.user_id, n.notification_type, n.title, n.body, n.workflow_id, n.priority_level,
+                  n.email_attempts
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UserRepository userRepository;
+    private final UserNotificationSettingsRepository settingsRepository;
+    private final NotificationService notificationService;
+
+    // Groups per claim
+    @Value("${app.notifications.digest.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.notifications.digest.lease-seconds:300}")
+    private int leaseSeconds;
+
+    @Value("${app.notifications.digest.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.notifications.digest.max-items:20}")
+    private int maxItems;
+
+    @Value("${app.notifications.digest.template:email/notification-digest.txt}")
+    private String templatePath;
+
+    @Value("${app.base-url:https://cloud-docs-tan.vercel.app/}")
+    private String baseUrl;
+
+    private EmailTemplate digestTemplate;
+
+    private final AtomicLong notificationsEmailed = new AtomicLong();
+    private final AtomicLong emailsSent = new AtomicLong();
+    private final AtomicLong digestsSent = new AtomicLong();
+    private final AtomicLong emailsFailed = new AtomicLong();
+    private final AtomicLong deferredForQuietHours = new AtomicLong();
+
+    private record Pending(long id, long userId, NotificationType type, String title, String body,
+                           Long workflowId, String priority, int attempts) {}
+
+    @PostConstruct
+    void compileTemplate() throws IOException {
+        try (InputStream in = new ClassPathResource(templatePath).getInputStream()) {
+            digestTemplate = EmailTemplate.compile(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.notifications.digest.poll-ms:15000}", initialDelay = 30_000L)
+    public void flushDue() {
+        try {
+            int groups;
+            do {
+                Map<String, List<Pending>> claimed = claim();
+                groups = claimed.size();
+                if (groups > 0) {
+                    send(claimed);
+                }
+            } while (groups == batchSize);
+        } catch (Exception e) {
+            log.error("❌ Notification digest pass failed: {}", e.getMessage(), e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long notifications = notificationsEmailed.get();
+        long emails = emailsSent.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("notificationsEmailed", notifications);
+        stats.put("emailsSent", emails);
+        stats.put("digestsSent", digestsSent.get());
+        stats.put("emailsSaved", notifications - emails);
+        stats.put("coalescingRatio", emails == 0 ? 0.0 : (double) notifications / emails);
+        stats.put("failed", emailsFailed.get());
+        stats.put("deferredForQuietHours", deferredForQuietHours.get());
+        return stats;
+    }
+
+    /**
+     * Lease the next due groups, keyed by user and type.
+     */
+    private Map<String, List<Pending>> claim() {
+        List<Pending> claimed = transactionTemplate.execute(tx -> {
+            jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)", Object.class, CLAIM_LOCK_KEY);
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            return jdbcTemplate.query(CLAIM_SQL, (rs, i) -> {
+                String type = rs.getString("notification_type");
+                long workflowId = rs.getLong("workflow_id");
+                return new Pending(rs.getLong("id"), rs.getLong("user_id"),
+                        type != null ? NotificationType.valueOf(type) : null,
+                        rs.getString("title"), rs.getString("body"),
+                        rs.wasNull() ? null : workflowId, rs.getString("priority_level"), rs.getInt("email_attempts"));
+            }, now, now, batchSize, Timestamp.valueOf(LocalDateTime.now().plusSeconds(leaseSeconds)), now);
+        });
+
+        Map<String, List<Pending>> groups = new LinkedHashMap<>();
+        if (claimed != null) {
+            // RETURNING order is unspecified
+            claimed.stream().sorted(Comparator.comparingLong(Pending::id)).forEach(pending ->
+                    groups.computeIfAbsent(pending.userId() + ":" + pending.type(), k -> new ArrayList<>()).add(pending));
+        }
+        return groups;
+    }
+
+    private void send(Map<String, List<Pending>> groups) {
+        Map<Long, User> users = userRepository.findAllById(groups.values().stream()
+                        .map(group -> group.get(0).userId()).distinct().toList())
+                .stream().collect(Collectors.toMap(User::getId, Function.identity()));
+
+        for (List<Pending> group : groups.values()) {
+            User user = users.get(group.get(0).userId());
+            if (user == null) {
+                updateIds("UPDATE notifications SET email_due_at = NULL, email_lease_until = NULL WHERE id = ANY(?)", group);
+                continue;
+            }
+            try {
+                UserNotificationSettings settings = settingsRepository.findByUser(user).orElse(null);
+                LocalDateTime quietUntil = quietHoursEnd(settings);
+                if (quietUntil != null && group.stream().noneMatch(this::isUrgent)) {
+                    // 🌙 Deferred, not dropped: the group goes out when quiet hours end
+                    updateIds("UPDATE notifications SET email_due_at = ?, email_lease_until = NULL, email_attempts = 0 " +
+                            "WHERE id = ANY(?)", Timestamp.valueOf(quietUntil), group);
+                    deferredForQuietHours.addAndGet(group.size());
+                    continue;
+                }
+                sendGroup(user, group);
+            } catch (Exception e) {
+                emailsFailed.incrementAndGet();
+                log.error("❌ Failed to email {} notifications to user {}: {}", group.size(), user.getUsername(), e.getMessage());
+                retryLater(group);
+            }
+        }
+    }
+
+    private void sendGroup(User user, List<Pending> group) {
+        boolean sent;
+        if (group.size() == 1) {
+            Pending only = group.get(0);
+            Notification notification = new Notification(user, only.title(), only.body(), only.type());
+            notification.setWorkflowId(only.workflowId());
+            sent = notificationService.sendEmailNotification(user, notification);
+        } else {
+            NotificationType type = group.get(0).type();
+            String typeLabel = type != null ? type.getDisplayName().toLowerCase() : "";
+            List<Map<String, Object>> items = group.stream().limit(maxItems).map(this::itemModel).toList();
+            if (group.size() > maxItems) {
+                items = new ArrayList<>(items);
+                items.add(Map.of("title", "... and " + (group.size() - maxItems) + " more", "body", "", "link", ""));
+            }
+
+            Map<String, Object> model = new LinkedHashMap<>();
+            model.put("name", notificationService.safeFullName(user));
+            model.put("count", group.size());
+            model.put("typeLabel", typeLabel);
+            model.put("items", items);
+            model.put("baseUrl", baseUrl);
+
+            sent = notificationService.sendEmail(user.getEmail(),
+                    "CloudDocs - " + group.size() + " new " + typeLabel + " notifications",
+                    digestTemplate.render(model));
+            if (sent) {
+                digestsSent.incrementAndGet();
+            }
+        }
+
+        if (sent) {
+            updateIds("UPDATE notifications SET sent_via_email = true, email_due_at = NULL, email_lease_until = NULL " +
+                    "WHERE id = ANY(?)", group);
+            emailsSent.incrementAndGet();
+            notificationsEmailed.addAndGet(group.size());
+        } else {
+            emailsFailed.incrementAndGet();
+            retryLater(group);
+        }
+    }
+
+    /**
+     * Put a group back with exponential backoff (1, 2, 4 ... minutes), or give up on it once a
+     * row has used up its attempts.
+     */
+    private void retryLater(List<Pending> group) {
+        int attempts = group.stream().mapToInt(Pending::attempts).max().orElse(1);
+        if (attempts >= maxAttempts) {
+            log.warn("⚠️ Giving up on emailing notifications {} after {} attempts",
+                    group.stream().map(Pending::id).toList(), attempts);
+            updateIds("UPDATE notifications SET sent_via_email = false, email_due_at = NULL, email_lease_until = NULL " +
+                    "WHERE id = ANY(?)", group);
+            return;
+        }
+        long delayMinutes = Math.min(60L, 1L << Math.min(attempts - 1, 6));
+        updateIds("UPDATE notifications SET email_due_at = ?, email_lease_until = NULL WHERE id = ANY(?)",
+                Timestamp.valueOf(LocalDateTime.now().plusMinutes(delayMinutes)), group);
+    }
+
+    private Map<String, Object> itemModel(Pending pending) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("title", Objects.requireNonNullElse(pending.title(), ""));
+        item.put("body", Objects.requireNonNullElse(pending.body(), ""));
+        item.put("link", pending.workflowId() != null
+                ? "\n  View Details: " + baseUrl + "/workflow/" + pending.workflowId() : "");
+        return item;
+    }
+
+    private void updateIds(String sql, List<Pending> group) {
+        Object[] ids = group.stream().map(Pending::id).toArray();
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            return ps;
+        });
+    }
+
+    private void updateIds(String sql, Object value, List<Pending> group) {
+        Object[] ids = group.stream().map(Pending::id).toArray();
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setObject(1, value);
+            ps.setArray(2, con.createArrayOf("bigint", ids));
+            return ps;
+        });
+    }
+
+    private boolean isUrgent(Pending pending) {
+        return "URGENT".equals(pending.priority())
+                || pending.type() == NotificationType.SYSTEM_ALERT
+                || pending.type() == NotificationType.TASK_OVERDUE;
+    }
+
+    /**
+     * When the user's quiet hours end, or null if they are not in quiet hours now.
+     */
+    private LocalDateTime quietHoursEnd(UserNotificationSettings settings) {
+        if (settings == null) {
+            return null;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalTime time = now.toLocalTime();
+            LocalTime start = LocalTime.parse(settings.getQuietHoursStart() != null ? settings.getQuietHoursStart() : "22:00");
+            LocalTime end = LocalTime.parse(settings.getQuietHoursEnd() != null ? settings.getQuietHoursEnd() : "08:00");
+
+            boolean quiet = start.isBefore(end)
+                    ? time.isAfter(start) && time.isBefore(end)
+                    : time.isAfter(start) || time.isBefore(end);
+            if (!quiet) {
+                return null;
+            }
+            LocalDateTime until = now.toLocalDate().atTime(end);
+            return until.isAfter(now) ? until : until.plusDays(1);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.clouddocs.backend.service;
+
+import com.clouddocs.backend.dto.NotificationDTO;
+import com.clouddocs.backend.entity.Notification;
+import com.clouddocs.backend.repository.NotificationCounterRepository;
+import com.clouddocs.backend.repository.NotificationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+/**
+ * A user's notification list and its unread badge.
+ *
+ * The badge reads a per-user counter row instead of counting notifications. Every write that
+ * changes the number of unread rows adjusts the counter in the same transaction: inserting a
+ * notification adds one, marking read subtracts the number of rows the UPDATE actually
+ * flipped. A nightly recount repairs any drift, e.g. from rows changed outside this service.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationInboxService {
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationCounterRepository counterRepository;
+    private final NotificationStreamService notificationStream;
+
+    /**
+     * Insert a new, unread notification and count it.
+     */
+    @Transactional
+    public Notification save(Notification notification) {
+        boolean isNew = notification.getId() == null;
+        Notification saved = notificationRepository.save(notification);
+        if (isNew && !saved.isReadFlag()) {
+            counterRepository.increment(saved.getUser().getId(), 1);
+        }
+        return saved;
+    }
+
+    @Transactional(readOnly = true)
+    public long unreadCount(Long userId) {
+        return counterRepository.findUnreadCount(userId).orElse(0L);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<NotificationDTO> list(Long userId, boolean unreadOnly, int page, int size) {
+        Pageable pageable = PageRequest.of(Math.max(0, page), Math.min(Math.max(1, size), 100));
+        Page<Notification> notifications = unreadOnly
+                ? notificationRepository.findByUser_IdAndReadFlagFalseOrderByIdDesc(userId, pageable)
+                : notificationRepository.findByUser_IdOrderByIdDesc(userId, pageable);
+        return notifications.map(NotificationDTO::of);
+    }
+
+    /**
+     * @return the unread count afterwards
+     */
+    @Transactional
+    public long markRead(Long userId, Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return unreadCount(userId);
+        }
+        int flipped = notificationRepository.markRead(userId, ids);
+        if (flipped > 0) {
+            counterRepository.decrement(userId, flipped);
+        }
+        return pushUnread(userId);
+    }
+
+    /**
+     * One UPDATE for all of the user's unread notifications.
+     *
+     * @return the unread count afterwards
+     */
+    @Transactional
+    public long markAllRead(Long userId) {
+        int flipped = notificationRepository.markAllRead(userId);
+        if (flipped > 0) {
+            // Subtract rather than zero: a notification inserted concurrently stays counted
+            counterRepository.decrement(userId, flipped);
+        }
+        return pushUnread(userId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedCounters() {
+        if (counterRepository.count() == 0) {
+            reconcile();
+        }
+    }
+
+    /**
+     * Repair drift nightly. The recount is a snapshot, so a notification committed while it
+     * runs can be off by one until the next run.
+     */
+    @Scheduled(cron = "${app.notifications.counters.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        try {
+            int changed = counterRepository.reconcileAll();
+            if (changed > 0) {
+                log.info("🔄 Reconciled {} unread notification counters", changed);
+            }
+        } catch (Exception e) {
+            log.error("❌ Unread counter reconciliation failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private long pushUnread(Long userId) {
+        long unread = unreadCount(userId);
+        notificationStream.publishUnread(userId, unread);
+        return unread;
+    }
+}
@@ -7,14 +7,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
-import java.time.LocalTime;
+import java.time.LocalDateTime;
 
 @Service
 public class NotificationService {
@@ -27,6 +26,12 @@ public class NotificationService {
     @Autowired(required = false)
     private UserNotificationSettingsRepository settingsRepository;
     
+    @Autowired
+    private NotificationStreamService notificationStream;
+    
+    @Autowired
+    private NotificationInboxService notificationInbox;
+    
     // ✅ NEW: SendGrid configuration (replacing JavaMailSender)
     @Value("${sendgrid.api.key:}")
     private String sendGridApiKey;
@@ -36,6 +41,9 @@ public class NotificationService {
     
     @Value("${app.base-url:https://cloud-docs-tan.vercel.app/}")
     private String baseUrl;
+    
+    @Value("${app.notifications.digest.window-seconds:120}")
+    private long digestWindowSeconds;
 
     // ✅ KEEP: All your existing public methods unchanged
     public void sendTestNotification(User user, String title, String message) {
@@ -70,7 +78,7 @@ public class NotificationService {
         
         try {
             Notification notification = new Notification(user, title, message);
-            notification = notificationRepository.save(notification);
+            notification = notificationInbox.save(notification);
             
             boolean emailSent = sendEmailNotification(user, notification);
             
@@ -223,28 +231,19 @@ public class NotificationService {
         logger.info("Overdue task notification sent to user: {}", user.getUsername());
     }
 
-    // ✅ UPDATED: Multi-channel notification using SendGrid
-    @Async
+    // ✅ UPDATED: Emails are not sent here; NotificationDigestService coalesces and sends them
     private void sendMultiChannelNotification(User user, Notification notification) {
         try {
-            notification = notificationRepository.save(notification);
-            
             UserNotificationSettings settings = getUserSettings(user);
-            
-            if (settings != null && isQuietHours(settings) && !isUrgent(notification)) {
-                logger.info("Skipping real-time notifications due to quiet hours for user: {}", user.getUsername());
-                return;
-            }
-            
-            // ✅ NEW: Email via SendGrid API (not SMTP)
             if (canSendEmail(user, settings)) {
-                boolean emailSent = sendEmailNotification(user, notification);
-                if (hasEnhancedFields(notification)) {
-                    notification.setSentViaEmail(emailSent);
-                }
+                // Held for the digest window so a burst for the same user and type becomes one email
+                notification.setEmailDueAt(LocalDateTime.now().plusSeconds(digestWindowSeconds));
             }
             
-            notificationRepository.save(notification);
+            // ✅ Counts towards the unread badge in the same transaction
+            notification = notificationInbox.save(notification);
+            // 🔔 In-app push is immediate; quiet hours only defer the email
+            notificationStream.publish(notification);
             
         } catch (Exception e) {
             logger.error("Failed to send multi-channel notification to user: {}", user.getUsername(), e);
@@ -252,7 +251,7 @@ public class NotificationService {
     }
 
     // ✅ UPDATED: SendGrid API email sending (replaces JavaMailSender)
-    private boolean sendEmailNotification(User user, Notification notification) {
+    boolean sendEmailNotification(User user, Notification notification) {
         if (sendGridApiKey == null || sendGridApiKey.isBlank()) {
             logger.warn("❌ SendGrid API key not configured - skipping email");
             return false;
@@ -285,6 +284,17 @@ public class NotificationService {
         }
     }
 
+    /**
+     * Send a ready-made plain-text email; used for digests.
+     */
+    boolean sendEmail(String to, String subject, String body) {
+        if (sendGridApiKey == null || sendGridApiKey.isBlank()) {
+            logger.warn("❌ SendGrid API key not configured - skipping email");
+            return false;
+        }
+        return sendViaSendGridAPI(to, subject, body);
+    }
+
     // ✅ NEW: SendGrid HTTP API method
     private boolean sendViaSendGridAPI(String to, String subject, String body) {
         try {
@@ -368,34 +378,6 @@ public class NotificationService {
         return settings.getEmailEnabled() != null ? settings.getEmailEnabled() : true;
     }
     
-    // ✅ KEEP: All existing helper methods unchanged
-    private boolean isQuietHours(UserNotificationSettings settings) {
-        if (settings == null) return false;
-        
-        try {
-            LocalTime now = LocalTime.now();
-            LocalTime start = LocalTime.parse(settings.getQuietHoursStart() != null ? settings.getQuietHoursStart() : "22:00");
-            LocalTime end = LocalTime.parse(settings.getQuietHoursEnd() != null ? settings.getQuietHoursEnd() : "08:00");
-            
-            if (start.isBefore(end)) {
-                return now.isAfter(start) && now.isBefore(end);
-            } else {
-                return now.isAfter(start) || now.isBefore(end);
-            }
-        } catch (Exception e) {
-            return false;
-        }
-    }
-    
-    private boolean isUrgent(Notification notification) {
-        if (!hasEnhancedFields(notification)) return false;
-        
-        return "URGENT".equals(notification.getPriorityLevel()) ||
-               (notification.getType() != null && 
-                (notification.getType() == NotificationType.SYSTEM_ALERT ||
-                 notification.getType() == NotificationType.TASK_OVERDUE));
-    }
-    
     private boolean hasEnhancedFields(Notification notification) {
         try {
             notification.getType();
@@ -447,7 +429,7 @@ public class NotificationService {
         return (user == null || user.getUsername() == null) ? "unknown" : user.getUsername();
     }
     
-    private String safeFullName(User user) {
+    String safeFullName(User user) {
         if (user == null) return "Unknown";
         String fullName = user.getFullName();
         return (fullName == null || fullName.isBlank()) ? safeUsername(user) : fullName;
@@ -0,0 +1,229 @@
+package com.clouddocs.backend.service;
+
+import com.clouddocs.backend.dto.NotificationDTO;
+import com.clouddocs.backend.entity.Notification;
+import com.clouddocs.backend.repository.NotificationCounterRepository;
+import com.clouddocs.backend.repository.NotificationRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Server-Sent Events channel pushing new notifications to each signed-in user's browser tabs.
+ *
+ * Emitters are async servlet responses, so an open stream holds no Tomcat thread. Each
+ * connection has a small bounded queue drained by a virtual thread; a client that cannot keep
+ * up fills its queue and is disconnected, and its browser reconnects with {@code Last-Event-ID}
+ * to replay what it missed from the notifications table. A periodic comment line keeps proxies
+ * from closing idle streams and flushes out dead connections.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationStreamService {
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationCounterRepository counterRepository;
+
+    @Value("${app.notifications.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.notifications.stream.reconnect-ms:3000}")
+    private long reconnectMs;
+
+    @Value("${app.notifications.stream.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${app.notifications.stream.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+
+    private final Map<Long, List<Connection>> connections = new ConcurrentHashMap<>();
+
+    // Writes block until the client's socket accepts them; a parked virtual thread costs nothing
+    private final ExecutorService sender =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("notification-push-", 0).factory());
+
+    @PreDestroy
+    void stop() {
+        connections.values().forEach(list -> list.forEach(c -> c.close(null)));
+        sender.shutdownNow();
+    }
+
+    /**
+     * Open a stream for a user. The first events are the unread count and, when the client
+     * reconnects, every notification after {@code lastEventId}; replayed and live events may
+     * overlap, so clients should ignore ids they already have.
+     */
+    public SseEmitter open(Long userId, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Connection connection = new Connection(userId, emitter);
+
+        List<Connection> userConnections = connections.compute(userId, (id, list) -> {
+            List<Connection> open = list != null ? list : new CopyOnWriteArrayList<>();
+            open.add(connection);
+            return open;
+        });
+        while (userConnections.size() > maxConnectionsPerUser) {
+            userConnections.get(0).close(null);
+        }
+
+        emitter.onCompletion(() -> connection.close(null));
+        emitter.onTimeout(() -> connection.close(null));
+        emitter.onError(e -> connection.close(null));
+
+        connection.offer(SseEmitter.event().reconnectTime(reconnectMs)
+                .name("unread").data(counterRepository.findUnreadCount(userId).orElse(0L)));
+        if (lastEventId != null) {
+            List<Notification> missed = notificationRepository.findTop100ByUser_IdAndIdGreaterThanOrderByIdAsc(userId, lastEventId);
+            if (missed.size() >= bufferSize - 1) {
+                // Too far behind to replay through the buffer: have the client reload its list instead
+                connection.offer(SseEmitter.event().name("resync").data(missed.get(missed.size() - 1).getId()));
+            } else {
+                missed.forEach(n -> connection.offer(toEvent(NotificationDTO.of(n))));
+            }
+        }
+        log.debug("🔔 Notification stream opened for user {} ({} open)", userId, userConnections.size());
+        return emitter;
+    }
+
+    /**
+     * Push a freshly saved notification to its recipient's open streams once it is committed.
+     */
+    public void publish(Notification notification) {
+        if (notification.getId() == null || notification.getUser() == null) {
+            return;
+        }
+        Long userId = notification.getUser().getId();
+        NotificationDTO dto = NotificationDTO.of(notification);
+
+        afterCommit(() -> deliver(userId, dto));
+    }
+
+    /**
+     * Tell the user's open streams the new unread count, e.g. after marking notifications read.
+     */
+    public void publishUnread(Long userId, long unread) {
+        afterCommit(() -> {
+            List<Connection> userConnections = connections.get(userId);
+            if (userConnections != null) {
+                userConnections.forEach(c -> c.offer(SseEmitter.event().name("unread").data(unread)));
+            }
+        });
+    }
+
+    public int openConnections() {
+        return connections.values().stream().mapToInt(List::size).sum();
+    }
+
+    @Scheduled(fixedDelayString = "${app.notifications.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        connections.values().forEach(list -> list.forEach(c -> c.offer(SseEmitter.event().comment("ping"))));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void deliver(Long userId, NotificationDTO dto) {
+        List<Connection> userConnections = connections.get(userId);
+        if (userConnections != null) {
+            userConnections.forEach(c -> c.offer(toEvent(dto)));
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder toEvent(NotificationDTO dto) {
+        return SseEmitter.event().id(String.valueOf(dto.id())).name("notification").data(dto);
+    }
+
+    private final class Connection {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<SseEmitter.SseEventBuilder> pending = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Connection(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (closed.get()) {
+                return;
+            }
+            if (!pending.offer(event)) {
+                // ⚠️ Slow consumer: cut it loose, it will catch up via Last-Event-ID
+                log.info("⚠️ Dropping slow notification stream of user {}", userId);
+                close(null);
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                SseEmitter.SseEventBuilder event = pending.poll();
+                if (event == null) {
+                    draining.set(false);
+                    // An offer may have slipped in between the poll and the reset
+                    if (pending.isEmpty() || !draining.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                try {
+                    emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    close(e);
+                    return;
+                }
+            }
+        }
+
+        void close(Throwable cause) {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            connections.computeIfPresent(userId, (id, list) -> {
+                list.remove(this);
+                return list.isEmpty() ? null : list;
+            });
+            pending.clear();
+            try {
+                emitter.complete();
+            } catch (Exception ignored) {
+                // already completed by the container
+            }
+            if (cause != null) {
+                log.debug("Notification stream of user {} closed: {}", userId, cause.getMessage());
+            }
+        }
+    }
+}
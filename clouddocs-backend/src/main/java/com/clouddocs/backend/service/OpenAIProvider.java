@@ -6,19 +6,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
 
-import java.util.List;
 import java.util.Map;
 
 /**
  * 🤖 OpenAI Embedding Provider Implementation
- * Wraps existing OpenAI service with provider interface
+ * Wraps existing OpenAI service with provider interface (non-blocking)
  */
 @Component
 @ConditionalOnProperty(name = "ai.providers.openai.enabled", havingValue = "true", matchIfMissing = true)
-public class OpenAIProvider implements EmbeddingProvider {
+public class OpenAIProvider implements ReactiveEmbeddingProvider {
     
     private static final Logger log = LoggerFactory.getLogger(OpenAIProvider.class);
     
@@ -32,33 +32,31 @@ public class OpenAIProvider implements EmbeddingProvider {
     private String apiKey;
     
     @Override
-    public List<Double> generateEmbedding(String text) throws EmbeddingException {
-        try {
-            log.debug("🤖 OpenAI generating embedding for text length: {}", text.length());
-            
-            List<Double> embedding = openAIService.generateEmbedding(text);
-            
-            log.debug("✅ OpenAI embedding generated successfully: {} dimensions", embedding.size());
-            return embedding;
-            
-        } catch (HttpClientErrorException.TooManyRequests ex) {
+    public Mono<float[]> embed(String text) {
+        log.debug("🤖 OpenAI generating embedding for text length: {}", text.length());
+        
+        return openAIService.embed(text)
+            .doOnNext(embedding -> log.debug("✅ OpenAI embedding generated successfully: {} dimensions", embedding.length))
+            .onErrorMap(ex -> !(ex instanceof EmbeddingException), this::toEmbeddingException);
+    }
+    
+    private EmbeddingException toEmbeddingException(Throwable ex) {
+        if (ex instanceof WebClientResponseException.TooManyRequests) {
             log.warn("⏳ OpenAI rate limit exceeded: {}", ex.getMessage());
-            throw new EmbeddingException("OpenAI", "Rate limit exceeded", 429, ex);
-            
-        } catch (HttpClientErrorException ex) {
-            log.error("❌ OpenAI HTTP error: {} - {}", ex.getStatusCode(), ex.getMessage());
-            throw new EmbeddingException("OpenAI", 
-                "HTTP error: " + ex.getMessage(), 
-                ex.getStatusCode().value(), ex);
-                
-        } catch (ResourceAccessException ex) {
+            return new EmbeddingException("OpenAI", "Rate limit exceeded", 429, ex);
+        }
+        if (ex instanceof WebClientResponseException http) {
+            log.error("❌ OpenAI HTTP error: {} - {}", http.getStatusCode(), http.getMessage());
+            return new EmbeddingException("OpenAI", 
+                "HTTP error: " + http.getMessage(), 
+                http.getStatusCode().value(), ex);
+        }
+        if (ex instanceof WebClientRequestException) {
             log.error("🌐 OpenAI network error: {}", ex.getMessage());
-            throw new EmbeddingException("OpenAI", "Network error: " + ex.getMessage(), ex);
-            
-        } catch (Exception ex) {
-            log.error("💥 OpenAI unexpected error: {}", ex.getMessage(), ex);
-            throw new EmbeddingException("OpenAI", "Unexpected error: " + ex.getMessage(), ex);
+            return new EmbeddingException("OpenAI", "Network error: " + ex.getMessage(), ex);
         }
+        log.error("💥 OpenAI unexpected error: {}", ex.getMessage(), ex);
+        return new EmbeddingException("OpenAI", "Unexpected error: " + ex.getMessage(), ex);
     }
     
     @Override
@@ -1,13 +1,17 @@
 package com.clouddocs.backend.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.clouddocs.backend.config.AIHttpClientConfig;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 
@@ -22,13 +26,43 @@ public class OpenAIService {
     @Value("${openai.api.key}")
     private String apiKey;
     
-    public OpenAIService(ObjectMapper objectMapper) {
+    @Value("${ai.fallback.max-retries:2}")
+    private int maxRetries;
+    
+    @Value("${ai.fallback.retry-delay:1000}")
+    private long retryDelayMs;
+    
+    public OpenAIService(ObjectMapper objectMapper,
+                         ReactorClientHttpConnector aiHttpConnector,
+                         @Value("${openai.api.base-url:https://api.openai.com/v1}") String baseUrl) {
         this.objectMapper = objectMapper;
         this.webClient = WebClient.builder()
-            .baseUrl("https://api.openai.com/v1")
+            .clientConnector(aiHttpConnector)
+            .baseUrl(baseUrl)
             .build();
     }
     
+    /**
+     * Non-blocking embedding request; transient failures are retried with jittered backoff
+     */
+    public Mono<float[]> embed(String text) {
+        Map<String, Object> request = Map.of(
+            "input", text,
+            "model", "text-embedding-3-small"
+        );
+        
+        return webClient
+            .post()
+            .uri("/embeddings")
+            .header("Authorization", "Bearer " + apiKey)
+            .header("Content-Type", "application/json")
+            .bodyValue(request)
+            .retrieve()
+            .bodyToMono(JsonNode.class)
+            .retryWhen(AIHttpClientConfig.retrySpec(maxRetries, Duration.ofMillis(retryDelayMs)))
+            .map(response -> ReactiveEmbeddingProvider.toVector(response.get("data").get(0).get("embedding")));
+    }
+    
     /**
      * Generate embeddings using OpenAI API
      */
@@ -36,27 +70,7 @@ public class OpenAIService {
         try {
             logger.debug("🤖 Generating embedding for text: {}", text.substring(0, Math.min(50, text.length())));
             
-            Map<String, Object> request = Map.of(
-                "input", text,
-                "model", "text-embedding-3-small"
-            );
-            
-            String response = webClient
-                .post()
-                .uri("/embeddings")
-                .header("Authorization", "Bearer " + apiKey)
-                .header("Content-Type", "application/json")
-                .bodyValue(request)
-                .retrieve()
-                .bodyToMono(String.class)
-                .block();
-            
-            // Parse response to get embedding
-            JsonNode jsonResponse = objectMapper.readTree(response);
-            JsonNode embeddingArray = jsonResponse.get("data").get(0).get("embedding");
-            
-            List<Double> embedding = objectMapper.convertValue(embeddingArray, 
-                objectMapper.getTypeFactory().constructCollectionType(List.class, Double.class));
+            List<Double> embedding = ReactiveEmbeddingProvider.toList(embed(text).block());
             
             logger.debug("✅ Generated embedding with {} dimensions", embedding.size());
             return embedding;
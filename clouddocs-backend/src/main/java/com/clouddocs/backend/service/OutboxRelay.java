@@ -0,0 +1,304 @@
+package com.clouddocs.backend.service;
+
+import com.clouddocs.backend.entity.OutboxEvent;
+import com.clouddocs.backend.event.DeliveredEvent;
+import com.clouddocs.backend.event.DomainEvent;
+import com.clouddocs.backend.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Delivers outbox events to in-process {@code @EventListener} subscribers.
+ *
+ * A single relay thread claims batches of due events under a short lease and hands each
+ * aggregate's events, in id order, to one of a fixed set of single-threaded dispatch lanes, so
+ * different aggregates are delivered in parallel while one aggregate's events never overtake
+ * each other. An event is marked published only after every subscriber returned; a failure
+ * schedules a retry with backoff and holds back the aggregate's later events until it succeeds
+ * or is given up on. Claims are serialized with an advisory lock and skip aggregates another
+ * node is still working on, so the ordering holds across nodes as well.
+ *
+ * Subscribers receive each event wrapped in a {@link DeliveredEvent} carrying the outbox id,
+ * which stays the same when an event is delivered again after a failure or a lost lease.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxRelay {
+
+    private static final long CLAIM_LOCK_KEY = 0x4F5554424F58L;
+
+    private static final String CLAIM_SQL = """
+        UPDATE outbox_events SET locked_until = ?
+         WHERE id IN (
+            SELECT o.id FROM outbox_events o
+             WHERE o.status = 'PENDING' AND o.next_attempt_at <= ?
+               AND (o.locked_until IS NULL OR o.locked_until < ?)
+               AND NOT EXISTS (
+                    SELECT 1 FROM outbox_events p
+                     WHERE p.aggregate_type = o.aggregate_type AND p.aggregate_id = o.aggregate_id
+                       AND p.status = 'PENDING' AND p.id < o.id
+                       AND (p.next_attempt_at > ? OR p.locked_until >= ?))
+             ORDER BY o.id
+             LIMIT ?)
+        RETURNING id, aggregate_type, aggregate_id, event_type, payload, attempts
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxEventRepository outboxRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final ProcessedEventStore processedEvents;
+
+    @Value("${app.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.outbox.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${app.outbox.dispatch-threads:4}")
+    private int dispatchThreads;
+
+    @Value("${app.outbox.lease-seconds:120}")
+    private int leaseSeconds;
+
+    @Value("${app.outbox.max-attempts:12}")
+    private int maxAttempts;
+
+    @Value("${app.outbox.retention-hours:72}")
+    private int retentionHours;
+
+    private final Map<String, Class<? extends DomainEvent>> eventTypes = new LinkedHashMap<>();
+    private ExecutorService[] lanes;
+    private Thread relay;
+    private volatile boolean running;
+
+    private record Claimed(long id, String aggregateType, String aggregateId, String eventType,
+                           String payload, int attempts) {}
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    void start() {
+        for (Class<?> type : DomainEvent.class.getPermittedSubclasses()) {
+            eventTypes.put(type.getSimpleName(), (Class<? extends DomainEvent>) type);
+        }
+        if (!enabled) {
+            log.warn("⚠️ Outbox relay disabled; domain events will accumulate in outbox_events");
+            return;
+        }
+
+        lanes = new ExecutorService[Math.max(1, dispatchThreads)];
+        for (int i = 0; i < lanes.length; i++) {
+            String name = "outbox-dispatch-" + i;
+            lanes[i] = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, name);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        running = true;
+        relay = new Thread(this::run, "outbox-relay");
+        relay.setDaemon(true);
+        relay.start();
+        log.info("✅ Outbox relay started: batch {}, {} dispatch lanes, poll every {} ms",
+                batchSize, lanes.length, pollIntervalMs);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (relay == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(relay);
+        try {
+            relay.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    /**
+     * Start a relay pass now instead of at the next poll.
+     */
+    public void wakeUp() {
+        if (relay != null) {
+            LockSupport.unpark(relay);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", outboxRepository.countByStatus(OutboxEvent.Status.PENDING));
+        stats.put("dead", outboxRepository.countByStatus(OutboxEvent.Status.DEAD));
+        return stats;
+    }
+
+    /**
+     * Published rows are only kept for troubleshooting; subscriber markers outlive any retry of
+     * their event by far and go at the same age.
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.cleanup-interval-ms:3600000}", initialDelay = 600_000L)
+    public void purgePublished() {
+        int removed = jdbcTemplate.update("DELETE FROM outbox_events WHERE status = 'PUBLISHED' AND published_at < ?",
+                Timestamp.valueOf(LocalDateTime.now().minusHours(retentionHours)));
+        if (removed > 0) {
+            log.info("🗑️ Purged {} published outbox events", removed);
+        }
+        processedEvents.purgeOlderThan(LocalDateTime.now().minusHours(retentionHours));
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                int relayed = relayBatch();
+                if (relayed < batchSize) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(pollIntervalMs));
+                }
+            } catch (Exception e) {
+                log.error("❌ Outbox relay pass failed: {}", e.getMessage(), e);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(pollIntervalMs));
+            }
+        }
+    }
+
+    private int relayBatch() {
+        List<Claimed> batch = claim();
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, List<Claimed>> byAggregate = new LinkedHashMap<>();
+        for (Claimed event : batch) {
+            byAggregate.computeIfAbsent(event.aggregateType() + ":" + event.aggregateId(), k -> new ArrayList<>())
+                    .add(event);
+        }
+
+        ConcurrentLinkedQueue<Long> published = new ConcurrentLinkedQueue<>();
+        List<CompletableFuture<Void>> lanesDone = new ArrayList<>(byAggregate.size());
+        for (Map.Entry<String, List<Claimed>> aggregate : byAggregate.entrySet()) {
+            ExecutorService lane = lanes[Math.floorMod(aggregate.getKey().hashCode(), lanes.length)];
+            lanesDone.add(CompletableFuture.runAsync(() -> deliverInOrder(aggregate.getValue(), published), lane));
+        }
+        CompletableFuture.allOf(lanesDone.toArray(CompletableFuture[]::new)).join();
+
+        if (!published.isEmpty()) {
+            jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement(
+                        "UPDATE outbox_events SET status = 'PUBLISHED', published_at = ?, locked_until = NULL " +
+                        "WHERE id = ANY(?)");
+                ps.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+                ps.setArray(2, con.createArrayOf("bigint", published.toArray()));
+                return ps;
+            });
+        }
+        return batch.size();
+    }
+
+    /**
+     * Claim the next due events whose aggregates have nothing earlier still outstanding.
+     */
+    private List<Claimed> claim() {
+        List<Claimed> claimed = transactionTemplate.execute(tx -> {
+            jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)", Object.class, CLAIM_LOCK_KEY);
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            return jdbcTemplate.query(CLAIM_SQL, (rs, i) -> new Claimed(
+                            rs.getLong("id"), rs.getString("aggregate_type"), rs.getString("aggregate_id"),
+                            rs.getString("event_type"), rs.getString("payload"), rs.getInt("attempts")),
+                    Timestamp.valueOf(LocalDateTime.now().plusSeconds(leaseSeconds)), now, now, now, now, batchSize);
+        });
+        if (claimed == null) {
+            return List.of();
+        }
+        // RETURNING order is unspecified
+        return claimed.stream().sorted(Comparator.comparingLong(Claimed::id)).toList();
+    }
+
+    private void deliverInOrder(List<Claimed> events, ConcurrentLinkedQueue<Long> published) {
+        for (int i = 0; i < events.size(); i++) {
+            Claimed event = events.get(i);
+            try {
+                eventPublisher.publishEvent(decode(event));
+                published.add(event.id());
+            } catch (Exception e) {
+                failed(event, e);
+                // Later events of this aggregate wait for the failed one
+                List<Long> held = events.subList(i + 1, events.size()).stream().map(Claimed::id).toList();
+                if (!held.isEmpty()) {
+                    jdbcTemplate.update(con -> {
+                        PreparedStatement ps = con.prepareStatement(
+                                "UPDATE outbox_events SET locked_until = NULL WHERE id = ANY(?)");
+                        ps.setArray(1, con.createArrayOf("bigint", held.toArray()));
+                        return ps;
+                    });
+                }
+                return;
+            }
+        }
+    }
+
+    private DeliveredEvent<?> decode(Claimed event) throws Exception {
+        Class<? extends DomainEvent> type = eventTypes.get(event.eventType());
+        if (type == null) {
+            throw new IllegalStateException("Unknown outbox event type " + event.eventType());
+        }
+        return new DeliveredEvent<>(event.id(), objectMapper.readValue(event.payload(), type));
+    }
+
+    private void failed(Claimed event, Exception e) {
+        int attempts = event.attempts() + 1;
+        String error = String.valueOf(e.getMessage());
+        if (error.length() > 1000) {
+            error = error.substring(0, 1000);
+        }
+
+        if (attempts >= maxAttempts) {
+            // Give up so the aggregate's later events are not blocked forever
+            jdbcTemplate.update("UPDATE outbox_events SET status = 'DEAD', attempts = ?, last_error = ?, " +
+                    "locked_until = NULL WHERE id = ?", attempts, error, event.id());
+            log.error("❌ Outbox event {} ({} {}:{}) failed {} times, giving up: {}", event.id(), event.eventType(),
+                    event.aggregateType(), event.aggregateId(), attempts, error, e);
+            return;
+        }
+
+        // Exponential backoff: 2s, 4s, 8s ... capped at 30 minutes
+        long delaySeconds = Math.min(1800L, 1L << Math.min(attempts, 11));
+        jdbcTemplate.update("UPDATE outbox_events SET attempts = ?, last_error = ?, next_attempt_at = ?, " +
+                "locked_until = NULL WHERE id = ?", attempts, error,
+                Timestamp.valueOf(LocalDateTime.now().plusSeconds(delaySeconds)), event.id());
+        log.warn("⚠️ Outbox event {} ({}) failed, retry {} in {}s: {}", event.id(), event.eventType(),
+                attempts, delaySeconds, error);
+    }
+}
@@ -0,0 +1,150 @@
+package com.clouddocs.backend.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Size-bounded LRU cache of generated previews on local disk.
+ *
+ * Entries are immutable files named after the content they were derived from, so the cache
+ * never needs invalidating - only evicting. The recency index is rebuilt from file timestamps
+ * on startup; a node that misses simply regenerates.
+ */
+@Slf4j
+@Component
+public class PreviewCache {
+
+    @Value("${app.previews.cache-dir:./preview-cache}")
+    private String cacheDir;
+
+    @Value("${app.previews.cache-max-mb:512}")
+    private long maxMegabytes;
+
+    private Path root;
+    private long maxBytes;
+    private long totalBytes;
+
+    // Access-ordered: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Long> sizes = new LinkedHashMap<>(256, 0.75f, true);
+
+    @FunctionalInterface
+    public interface Writer {
+        void write(OutputStream out) throws IOException;
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        root = Paths.get(cacheDir).toAbsolutePath().normalize();
+        maxBytes = maxMegabytes * 1024 * 1024;
+        Files.createDirectories(root);
+
+        try (Stream<Path> files = Files.list(root)) {
+            files.filter(Files::isRegularFile)
+                    .filter(path -> !path.getFileName().toString().endsWith(".part"))
+                    .sorted(Comparator.comparing(PreviewCache::lastModified))
+                    .forEach(path -> {
+                        long size = sizeOf(path);
+                        sizes.put(path.getFileName().toString(), size);
+                        totalBytes += size;
+                    });
+        }
+        evict();
+        log.info("✅ Preview cache at {}: {} entries, {} KB", root, sizes.size(), totalBytes / 1024);
+    }
+
+    public synchronized Optional<Path> get(String name) {
+        if (sizes.get(name) == null) {
+            return Optional.empty();
+        }
+        Path path = root.resolve(name);
+        if (!Files.isRegularFile(path)) {
+            totalBytes -= sizes.remove(name);
+            return Optional.empty();
+        }
+        return Optional.of(path);
+    }
+
+    /**
+     * Write an entry via a temp file and publish it atomically. Concurrent writers of the same
+     * entry are harmless: both produce identical bytes.
+     */
+    public Path put(String name, Writer writer) throws IOException {
+        Path target = root.resolve(checkName(name));
+        Path temp = Files.createTempFile(root, "preview-", ".part");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                writer.write(out);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        synchronized (this) {
+            Long previous = sizes.put(name, sizeOf(target));
+            totalBytes += sizes.get(name) - (previous != null ? previous : 0);
+            evict();
+        }
+        return target;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", sizes.size());
+        stats.put("bytes", totalBytes);
+        stats.put("maxBytes", maxBytes);
+        return stats;
+    }
+
+    private synchronized void evict() {
+        Iterator<Map.Entry<String, Long>> it = sizes.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            try {
+                Files.deleteIfExists(root.resolve(eldest.getKey()));
+            } catch (IOException e) {
+                log.warn("⚠️ Could not evict preview {}: {}", eldest.getKey(), e.getMessage());
+            }
+            totalBytes -= eldest.getValue();
+            it.remove();
+        }
+    }
+
+    private static String checkName(String name) {
+        if (!name.matches("[A-Za-z0-9._-]+") || name.startsWith(".")) {
+            throw new IllegalArgumentException("Invalid preview name: " + name);
+        }
+        return name;
+    }
+
+    private static long sizeOf(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.clouddocs.backend.service;
+
+import com.clouddocs.backend.dto.DocumentDownloadInfo;
+import com.clouddocs.backend.event.DeliveredEvent;
+import com.clouddocs.backend.event.DocumentUploaded;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thumbnails and text snippets for documents and profile pictures.
+ *
+ * Previews are derived from content, so they are keyed by content hash and never change: they
+ * live in a {@link PreviewCache} and can be served with immutable caching headers. New uploads
+ * are rendered ahead of time on a small background pool; anything not yet cached (older
+ * documents, evicted entries) is rendered on first request.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PreviewService {
+
+    /** Thumbnail edge lengths in pixels; requests snap to the nearest one. */
+    public static final List<Integer> SIZES = List.of(64, 256, 1024);
+
+    private static final int SNIPPET_PROBE_BYTES = 4096;
+    private static final int SNIPPET_CHARS = 500;
+
+    private static final Set<String> TEXT_TYPES = Set.of(
+            "application/json", "application/xml", "application/javascript", "application/x-sh",
+            "application/sql", "application/x-yaml", "application/yaml");
+
+    private final FileStorageService fileStorageService;
+    private final PreviewCache cache;
+
+    @Value("${app.previews.enabled:true}")
+    private boolean enabled;
+
+    // Refuse to decode images whose subsampled raster would still exceed this many pixels
+    @Value("${app.previews.max-pixels:40000000}")
+    private long maxPixels;
+
+    @Value("${app.previews.workers:2}")
+    private int workers;
+
+    @Value("${app.previews.queue-capacity:200}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor renderer;
+
+    /**
+     * A cached preview ready to serve.
+     *
+     * @param etag strong validator, derived from the content hash and variant
+     */
+    public record Preview(Path file, MediaType contentType, String etag) {}
+
+    @PostConstruct
+    void start() {
+        AtomicInteger counter = new AtomicInteger();
+        // Pre-rendering is an optimisation: when the queue is full the work is dropped, and the
+        // preview gets rendered on first request instead
+        renderer = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "preview-render-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @PreDestroy
+    void stop() {
+        renderer.shutdownNow();
+    }
+
+    /**
+     * Pre-render previews for a new upload; delivered from the outbox once its row is committed.
+     */
+    @EventListener
+    public void onDocumentUploaded(DeliveredEvent<DocumentUploaded> delivered) {
+        // Renders are keyed by content hash, so a redelivery just finds them cached
+        DocumentUploaded event = delivered.event();
+        if (!enabled || event.contentHash() == null) {
+            return;
+        }
+        if (isImage(event.mimeType())) {
+            renderer.execute(() -> {
+                for (int size : SIZES) {
+                    renderQuietly(() -> thumbnail(event.contentHash(), event.filePath(), event.storageCodec(), size));
+                }
+            });
+        } else if (isText(event.mimeType())) {
+            renderer.execute(() -> renderQuietly(() ->
+                    snippet(event.contentHash(), event.filePath(), event.storageCodec())));
+        }
+    }
+
+    /**
+     * Thumbnail of a document, rendering it if needed. Empty when the type has no thumbnail.
+     */
+    public Optional<Preview> documentThumbnail(DocumentDownloadInfo info, int requestedSize) throws IOException {
+        if (!enabled || !isImage(info.mimeType())) {
+            return Optional.empty();
+        }
+        return thumbnail(hashOf(info), info.filePath(), info.storageCodec(), snap(requestedSize));
+    }
+
+    /**
+     * Leading text of a document, rendering it if needed. Empty when the type is not text.
+     */
+    public Optional<Preview> documentSnippet(DocumentDownloadInfo info) throws IOException {
+        if (!enabled || !isText(info.mimeType())) {
+            return Optional.empty();
+        }
+        return snippet(hashOf(info), info.filePath(), info.storageCodec());
+    }
+
+    /**
+     * Thumbnail of a profile picture. Pictures are replaced under new keys, so the key itself
+     * identifies the content.
+     */
+    public Optional<Preview> profileThumbnail(String key, int requestedSize) throws IOException {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return thumbnail(sha256Hex(key), key, null, snap(requestedSize));
+    }
+
+    public static int snap(int requestedSize) {
+        int best = SIZES.get(0);
+        for (int size : SIZES) {
+            if (Math.abs(size - requestedSize) < Math.abs(best - requestedSize)) {
+                best = size;
+            }
+        }
+        return best;
+    }
+
+    private Optional<Preview> thumbnail(String hash, String filePath, String codec, int size) throws IOException {
+        String name = hash + "-" + size + ".img";
+        Optional<Path> cached = cache.get(name);
+        if (cached.isEmpty()) {
+            BufferedImage scaled = scale(filePath, codec, size);
+            if (scaled == null) {
+                return Optional.empty();
+            }
+            String format = scaled.getColorModel().hasAlpha() ? "png" : "jpg";
+            cached = Optional.of(cache.put(name, out -> writeImage(scaled, format, out)));
+        }
+        return Optional.of(new Preview(cached.get(), sniffImageType(cached.get()), "\"" + hash + "-" + size + "\""));
+    }
+
+    private Optional<Preview> snippet(String hash, String filePath, String codec) throws IOException {
+        String name = hash + "-snippet.txt";
+        Optional<Path> cached = cache.get(name);
+        if (cached.isEmpty()) {
+            byte[] head;
+            try (InputStream in = fileStorageService.openFile(filePath, codec)) {
+                head = in.readNBytes(SNIPPET_PROBE_BYTES);
+            }
+            byte[] text = extractSnippet(head).getBytes(StandardCharsets.UTF_8);
+            cached = Optional.of(cache.put(name, out -> out.write(text)));
+        }
+        return Optional.of(new Preview(cached.get(), new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8),
+                "\"" + hash + "-snippet\""));
+    }
+
+    /**
+     * Decode an image at roughly the target size. Subsampling while reading keeps a large photo
+     * from ever being fully rasterised in the heap.
+     */
+    private BufferedImage scale(String filePath, String codec, int size) throws IOException {
+        try (InputStream in = fileStorageService.openFile(filePath, codec);
+             ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = iis != null ? ImageIO.getImageReaders(iis) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if (width <= 0 || height <= 0) {
+                    return null;
+                }
+
+                // Read every n-th pixel, staying at or above twice the target for a smooth downscale
+                int step = Math.max(1, Math.max(width, height) / (size * 2));
+                if ((long) (width / step) * (height / step) > maxPixels) {
+                    log.warn("⚠️ Skipping thumbnail for {}: {}x{} is too large", filePath, width, height);
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage source = reader.read(0, param);
+                return fit(source, size);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage fit(BufferedImage source, int size) {
+        double scale = Math.min(1.0, (double) size / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        boolean alpha = source.getColorModel().hasAlpha();
+
+        BufferedImage target = new BufferedImage(width, height,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private static void writeImage(BufferedImage image, String format, OutputStream out) throws IOException {
+        if (!ImageIO.write(image, format, out)) {
+            throw new IOException("No ImageIO writer for " + format);
+        }
+    }
+
+    private static MediaType sniffImageType(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            // PNG files start with 0x89 'P' 'N' 'G'; everything else we write is JPEG
+            return in.read() == 0x89 ? MediaType.IMAGE_PNG : MediaType.IMAGE_JPEG;
+        }
+    }
+
+    static String extractSnippet(byte[] head) {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        String text;
+        try {
+            CharBuffer chars = decoder.decode(ByteBuffer.wrap(head));
+            text = chars.toString();
+        } catch (IOException e) {
+            text = "";
+        }
+        // A multi-byte character cut off at the probe boundary decodes to a trailing replacement
+        text = text.replace('\uFFFD', ' ').replaceAll("[\\p{Cntrl}&&[^\n\t]]", " ").trim();
+        if (text.length() > SNIPPET_CHARS) {
+            int cut = text.lastIndexOf(' ', SNIPPET_CHARS);
+            text = text.substring(0, cut > SNIPPET_CHARS / 2 ? cut : SNIPPET_CHARS) + "...";
+        }
+        return text;
+    }
+
+    private String hashOf(DocumentDownloadInfo info) {
+        return info.contentHash() != null ? info.contentHash() : fileStorageService.sha256(info.filePath());
+    }
+
+    private static boolean isImage(String mimeType) {
+        // SVG needs a renderer ImageIO doesn't have; browsers can show it at any size anyway
+        return mimeType != null && mimeType.startsWith("image/") && !mimeType.startsWith("image/svg");
+    }
+
+    private static boolean isText(String mimeType) {
+        if (mimeType == null) {
+            return false;
+        }
+        String type = mimeType.split(";")[0].trim().toLowerCase();
+        return type.startsWith("text/") || TEXT_TYPES.contains(type);
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void renderQuietly(PreviewTask task) {
+        try {
+            task.run();
+        } catch (Exception e) {
+            log.warn("⚠️ Preview rendering failed: {}", e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    private interface PreviewTask {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,40 @@
+package com.clouddocs.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Idempotency markers for outbox subscribers, see {@link com.clouddocs.backend.entity.ProcessedEvent}.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProcessedEventStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Claim an event for a subscriber in the caller's transaction.
+     *
+     * A concurrent delivery of the same event blocks on the unique key until this transaction
+     * ends, and then sees the marker only if this one committed.
+     *
+     * @return true the first time, false if the event was already handled
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean markProcessed(long eventId, String subscriber) {
+        return jdbcTemplate.update(
+                "INSERT INTO processed_events (event_id, subscriber, processed_at) VALUES (?, ?, ?) " +
+                "ON CONFLICT (event_id, subscriber) DO NOTHING",
+                eventId, subscriber, Timestamp.valueOf(LocalDateTime.now())) == 1;
+    }
+
+    public int purgeOlderThan(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM processed_events WHERE processed_at < ?", Timestamp.valueOf(cutoff));
+    }
+}
@@ -0,0 +1,53 @@
+package com.clouddocs.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 🤖 Non-blocking embedding provider
+ * The request is sent and the response parsed on the shared HTTP client's event loop, so no
+ * thread waits for the provider round trip. The blocking {@link #generateEmbedding} remains for
+ * callers that still need a list.
+ */
+public interface ReactiveEmbeddingProvider extends EmbeddingProvider {
+
+    /**
+     * Generate vector embedding for given text
+     * @param text Input text to embed
+     * @return Embedding vector; fails with an {@link EmbeddingException}
+     */
+    Mono<float[]> embed(String text);
+
+    @Override
+    default List<Double> generateEmbedding(String text) throws EmbeddingException {
+        try {
+            return toList(embed(text).block());
+        } catch (RuntimeException e) {
+            if (Exceptions.unwrap(e) instanceof EmbeddingException embeddingException) {
+                throw embeddingException;
+            }
+            throw e;
+        }
+    }
+
+    static float[] toVector(JsonNode array) {
+        float[] vector = new float[array.size()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) array.get(i).asDouble();
+        }
+        return vector;
+    }
+
+    static List<Double> toList(float[] vector) {
+        List<Double> list = new ArrayList<>(vector.length);
+        for (float v : vector) {
+            // Via the float's shortest decimal form, so stored JSON does not grow to 17 digits
+            list.add(Double.parseDouble(Float.toString(v)));
+        }
+        return list;
+    }
+}
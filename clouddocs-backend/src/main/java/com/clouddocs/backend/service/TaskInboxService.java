@@ -0,0 +1,257 @@
+package com.clouddocs.backend.service;
+
+import com.clouddocs.backend.entity.*;
+import com.clouddocs.backend.repository.TaskInboxRepository;
+import com.clouddocs.backend.repository.WorkflowTaskRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Materialized "my tasks" inbox.
+ *
+ * Task lifecycle changes (assignment, completion, cancellation, overdue, escalation) write the
+ * matching {@link TaskInboxEntry} in the same transaction as the task itself, and so does the
+ * workflow reaching a final status, so reading an inbox is one indexed query with no joins
+ * and no entity graph to walk. Closed tasks are read from the task table but rendered in the
+ * same shape.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TaskInboxService {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final TaskInboxRepository inboxRepository;
+    private final WorkflowTaskRepository taskRepository;
+
+    // ===== WRITE SIDE =====
+
+    @Transactional
+    public void taskOpened(WorkflowTask task, WorkflowInstance instance, CompiledWorkflowTemplate template,
+                           CompiledWorkflowTemplate.Step step, User assignee) {
+        TaskInboxEntry entry = new TaskInboxEntry();
+        entry.setTaskId(task.getId());
+        entry.setAssigneeId(assignee.getId());
+        entry.setAssigneeName(displayName(assignee));
+        entry.setStatus(task.getStatus());
+        entry.setTitle(task.getTitle() != null ? task.getTitle() : "Task");
+        entry.setDescription(task.getDescription());
+        entry.setPriority(task.getPriority());
+        entry.setCreatedDate(task.getCreatedDate());
+        entry.setDueDate(task.getDueDate());
+        entry.setStepId(step.id());
+        entry.setStepName(step.name());
+        entry.setStepOrder(step.order());
+        entry.setStepType(step.type());
+        entry.setWorkflowId(instance.getId());
+        entry.setWorkflowTitle(instance.getTitle());
+        entry.setWorkflowStatus(instance.getStatus());
+        entry.setTemplateName(template.name());
+
+        Document document = instance.getDocument();
+        if (document != null) {
+            entry.setDocumentId(document.getId());
+            entry.setDocumentName(document.getOriginalFilename());
+        }
+
+        inboxRepository.save(entry);
+    }
+
+    @Transactional
+    public void taskClosed(Long taskId) {
+        tasksClosed(List.of(taskId));
+    }
+
+    @Transactional
+    public void tasksClosed(Collection<Long> taskIds) {
+        if (!taskIds.isEmpty()) {
+            inboxRepository.deleteByTaskIds(taskIds);
+        }
+    }
+
+    @Transactional
+    public void tasksOverdue(Collection<Long> taskIds) {
+        if (!taskIds.isEmpty()) {
+            inboxRepository.markOverdue(taskIds);
+        }
+    }
+
+    @Transactional
+    public void workflowStatusChanged(WorkflowInstance instance) {
+        inboxRepository.updateWorkflowStatus(instance.getId(), instance.getStatus());
+    }
+
+    @Transactional
+    public void taskReassigned(WorkflowTask task, User assignee) {
+        inboxRepository.reassign(task.getId(), assignee.getId(), displayName(assignee), task.getDueDate());
+    }
+
+    /**
+     * Bring the inbox in line with the task table at startup: add open tasks that predate the
+     * inbox and drop rows for tasks closed behind the application's back.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void reconcile() {
+        try {
+            int added = inboxRepository.backfillFromOpenTasks();
+            int pruned = inboxRepository.pruneClosed();
+            if (added > 0 || pruned > 0) {
+                log.info("📥 Task inbox reconciled: {} added, {} pruned", added, pruned);
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Task inbox reconciliation failed: {}", e.getMessage());
+        }
+    }
+
+    // ===== READ SIDE =====
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getInbox(Long userId) {
+        return inboxRepository.findByAssigneeIdAndStatusOrderByCreatedDateDesc(userId, TaskStatus.PENDING)
+                .stream()
+                .map(this::toDetails)
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> getInbox(Long userId, TaskStatus status, Pageable pageable) {
+        return inboxRepository.findByAssigneeIdAndStatus(userId, status, pageable).map(this::toDetails);
+    }
+
+    /**
+     * One page of a user's tasks in the given status, open or closed, in the inbox's shape.
+     * Sort properties are those shared by {@link TaskInboxEntry} and {@link WorkflowTask}.
+     */
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> getTasks(Long userId, TaskStatus status, Pageable pageable) {
+        if (covers(status)) {
+            return getInbox(userId, status, pageable);
+        }
+        return taskRepository.findDetailedByAssigneeAndStatus(userId, status, pageable).map(task -> {
+            Map<String, Object> dto = toDetails(snapshot(task));
+            dto.put("comments", task.getComments());
+            dto.put("action", task.getAction() != null ? task.getAction().toString() : null);
+            dto.put("completedAt", task.getCompletedDate() != null ? task.getCompletedDate().format(FORMATTER) : null);
+            return dto;
+        });
+    }
+
+    /**
+     * Whether the inbox can serve tasks in the given status; closed tasks are not materialized.
+     */
+    public boolean covers(TaskStatus status) {
+        return status == TaskStatus.PENDING || status == TaskStatus.OVERDUE;
+    }
+
+    /**
+     * Same shape as the detailed task DTO the inbox has always returned.
+     */
+    private Map<String, Object> toDetails(TaskInboxEntry entry) {
+        Map<String, Object> dto = new HashMap<>();
+        dto.put("id", entry.getTaskId());
+        dto.put("title", entry.getTitle());
+        dto.put("description", entry.getDescription());
+        dto.put("status", entry.getStatus().toString());
+        dto.put("comments", null);
+        dto.put("action", null);
+        dto.put("priority", entry.getPriority() != null ? entry.getPriority().toString() : "NORMAL");
+
+        dto.put("createdAt", entry.getCreatedDate() != null ? entry.getCreatedDate().format(FORMATTER) : null);
+        dto.put("completedAt", null);
+        dto.put("dueDate", entry.getDueDate() != null ? entry.getDueDate().format(FORMATTER) : null);
+
+        dto.put("assignedTo", entry.getAssigneeName());
+        dto.put("assignedToId", entry.getAssigneeId());
+
+        dto.put("stepName", entry.getStepName() != null ? entry.getStepName() : "Unknown Step");
+        dto.put("stepOrder", entry.getStepOrder() != null ? entry.getStepOrder() : 0);
+        dto.put("stepType", entry.getStepType() != null ? entry.getStepType().toString() : "UNKNOWN");
+
+        boolean isPending = entry.getStatus() == TaskStatus.PENDING;
+        boolean isApprovalStep = entry.getStepType() == StepType.APPROVAL;
+        dto.put("canApprove", isPending && isApprovalStep);
+        dto.put("canReject", isPending && isApprovalStep);
+        dto.put("isPending", isPending);
+        dto.put("isOverdue", isPending && entry.getDueDate() != null
+                && OffsetDateTime.now(ZoneOffset.UTC).isAfter(entry.getDueDate()));
+
+        dto.put("workflowId", entry.getWorkflowId());
+        dto.put("workflowTitle", entry.getWorkflowTitle());
+        dto.put("workflowStatus", entry.getWorkflowStatus() != null ? entry.getWorkflowStatus().toString() : null);
+
+        Map<String, Object> workflow = new LinkedHashMap<>();
+        workflow.put("id", entry.getWorkflowId());
+        workflow.put("title", entry.getWorkflowTitle());
+        workflow.put("status", entry.getWorkflowStatus());
+        workflow.put("currentStepOrder", entry.getStepOrder());
+        workflow.put("templateName", entry.getTemplateName());
+        workflow.put("documentId", entry.getDocumentId());
+        workflow.put("documentName", entry.getDocumentName());
+        dto.put("workflow", workflow);
+
+        return dto;
+    }
+
+    /**
+     * The inbox row a task would have, built from the entities instead of the compiled template.
+     */
+    private TaskInboxEntry snapshot(WorkflowTask task) {
+        TaskInboxEntry entry = new TaskInboxEntry();
+        entry.setTaskId(task.getId());
+        entry.setStatus(task.getStatus());
+        entry.setTitle(task.getTitle() != null ? task.getTitle() : "Task");
+        entry.setDescription(task.getDescription());
+        entry.setPriority(task.getPriority());
+        entry.setCreatedDate(task.getCreatedDate());
+        entry.setDueDate(task.getDueDate());
+
+        User assignee = task.getAssignedTo();
+        if (assignee != null) {
+            entry.setAssigneeId(assignee.getId());
+            entry.setAssigneeName(displayName(assignee));
+        }
+        WorkflowStep step = task.getWorkflowStep();
+        if (step != null) {
+            entry.setStepId(step.getId());
+            entry.setStepName(step.getName());
+            entry.setStepOrder(step.getStepOrder());
+            entry.setStepType(step.getStepType());
+        }
+        WorkflowInstance instance = task.getWorkflowInstance();
+        if (instance != null) {
+            entry.setWorkflowId(instance.getId());
+            entry.setWorkflowTitle(instance.getTitle());
+            entry.setWorkflowStatus(instance.getStatus());
+            entry.setTemplateName(instance.getTemplate() != null ? instance.getTemplate().getName() : null);
+            Document document = instance.getDocument();
+            if (document != null) {
+                entry.setDocumentId(document.getId());
+                entry.setDocumentName(document.getOriginalFilename());
+            }
+        }
+        return entry;
+    }
+
+    private String displayName(User user) {
+        String fullName = user.getFullName();
+        return (fullName != null && !fullName.trim().isEmpty()) ? fullName : user.getUsername();
+    }
+}
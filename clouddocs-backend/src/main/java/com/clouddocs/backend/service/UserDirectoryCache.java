@@ -0,0 +1,218 @@
+package com.clouddocs.backend.service;
+
+import com.clouddocs.backend.entity.User;
+import com.clouddocs.backend.event.UserDirectoryChangedEvent;
+import com.clouddocs.backend.repository.UserRepository;
+import com.clouddocs.backend.security.UserPrincipal;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache of users for hot-path "who is calling" lookups.
+ *
+ * Entries are detached copies keyed by id, with a username index on top, and expire after a
+ * TTL as a safety net. Usernames that do not exist are cached negatively for a short while so
+ * bad tokens or logins cannot turn into repeated table lookups. The current request's user is
+ * additionally memoized in request scope, so repeated lookups within one request are free.
+ *
+ * Entries are dropped when a {@link UserDirectoryChangedEvent} is published. Returned users are
+ * shared and must be treated as read-only - load through {@link UserRepository} to modify one.
+ * Never use this cache for credential checks.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserDirectoryCache {
+
+    private static final String REQUEST_ATTRIBUTE = UserDirectoryCache.class.getName() + ".currentUser";
+
+    private final UserRepository userRepository;
+
+    @Value("${app.users.cache-ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${app.users.negative-ttl-seconds:60}")
+    private long negativeTtlSeconds;
+
+    @Value("${app.users.cache-max-entries:5000}")
+    private int maxEntries;
+
+    private final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+    private final Map<String, Long> idsByUsername = new ConcurrentHashMap<>();
+    private final Map<String, Long> missingUntil = new ConcurrentHashMap<>();
+
+    /**
+     * Bumped on every invalidation; results loaded under an older generation are not cached.
+     */
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private record Entry(User user, long expiresAtNanos) {}
+
+    public Optional<User> findById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        Entry entry = byId.get(id);
+        if (entry != null && entry.expiresAtNanos() > System.nanoTime()) {
+            hits.incrementAndGet();
+            return Optional.of(entry.user());
+        }
+
+        misses.incrementAndGet();
+        long gen = generation.get();
+        return userRepository.findById(id).map(user -> store(user, gen));
+    }
+
+    public Optional<User> findByUsername(String username) {
+        if (username == null || username.isBlank()) {
+            return Optional.empty();
+        }
+        Long id = idsByUsername.get(username);
+        if (id != null) {
+            Entry entry = byId.get(id);
+            if (entry != null && entry.expiresAtNanos() > System.nanoTime()) {
+                hits.incrementAndGet();
+                return Optional.of(entry.user());
+            }
+        }
+        if (isKnownMissing(username)) {
+            hits.incrementAndGet();
+            return Optional.empty();
+        }
+
+        misses.incrementAndGet();
+        long gen = generation.get();
+        Optional<User> loaded = userRepository.findByUsername(username);
+        if (loaded.isEmpty()) {
+            rememberMissing(username);
+            return Optional.empty();
+        }
+        return Optional.of(store(loaded.get(), gen));
+    }
+
+    /**
+     * The authenticated caller, resolved at most once per request.
+     */
+    public Optional<User> currentUser() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            Object memoized = request.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (memoized instanceof User user) {
+                return Optional.of(user);
+            }
+        }
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null) {
+            return Optional.empty();
+        }
+        Optional<User> user = auth.getPrincipal() instanceof UserPrincipal principal && principal.getId() != null
+                ? findById(principal.getId())
+                : findByUsername(auth.getName());
+
+        if (request != null) {
+            user.ifPresent(u -> request.setAttribute(REQUEST_ATTRIBUTE, u, RequestAttributes.SCOPE_REQUEST));
+        }
+        return user;
+    }
+
+    /**
+     * Whether a lookup for this username or email recently found nothing.
+     */
+    public boolean isKnownMissing(String username) {
+        Long until = missingUntil.get(username);
+        if (until == null) {
+            return false;
+        }
+        if (until > System.nanoTime()) {
+            return true;
+        }
+        missingUntil.remove(username, until);
+        return false;
+    }
+
+    public void rememberMissing(String username) {
+        if (missingUntil.size() >= maxEntries) {
+            missingUntil.clear();
+        }
+        missingUntil.put(username, System.nanoTime() + TimeUnit.SECONDS.toNanos(negativeTtlSeconds));
+    }
+
+    public void evict(Long userId, String username) {
+        generation.incrementAndGet();
+        if (userId != null) {
+            Entry removed = byId.remove(userId);
+            if (removed != null) {
+                idsByUsername.remove(removed.user().getUsername(), userId);
+                missingUntil.remove(removed.user().getEmail());
+            }
+        }
+        if (username != null) {
+            Long id = idsByUsername.remove(username);
+            if (id != null) {
+                byId.remove(id);
+            }
+            missingUntil.remove(username);
+        }
+    }
+
+    public void evictAll(String reason) {
+        generation.incrementAndGet();
+        byId.clear();
+        idsByUsername.clear();
+        missingUntil.clear();
+        log.info("🔄 User directory cache cleared ({})", reason);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDirectoryChanged(UserDirectoryChangedEvent event) {
+        if (event.userId() == null && event.username() == null) {
+            evictAll(event.reason());
+            return;
+        }
+        evict(event.userId(), event.username());
+        log.debug("User {} evicted from directory cache ({})", event.username(), event.reason());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("users", byId.size());
+        stats.put("negativeEntries", missingUntil.size());
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("generation", generation.get());
+        return stats;
+    }
+
+    private User store(User loaded, long gen) {
+        User copy = loaded.detachedCopy();
+        if (generation.get() != gen) {
+            return copy; // invalidated while loading - serve but don't cache
+        }
+        if (byId.size() >= maxEntries) {
+            byId.clear();
+            idsByUsername.clear();
+        }
+        byId.put(copy.getId(), new Entry(copy, System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds)));
+        idsByUsername.put(copy.getUsername(), copy.getId());
+        missingUntil.remove(copy.getUsername());
+        return copy;
+    }
+}
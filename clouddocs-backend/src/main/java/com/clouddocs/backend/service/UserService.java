@@ -5,9 +5,11 @@ import com.clouddocs.backend.dto.UserProfileUpdateRequest;
 import com.clouddocs.backend.entity.User;
 import com.clouddocs.backend.entity.Role;
 import com.clouddocs.backend.entity.ERole;
+import com.clouddocs.backend.event.UserDirectoryChangedEvent;
 import com.clouddocs.backend.repository.UserRepository;
 import com.clouddocs.backend.repository.RoleRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -32,6 +34,9 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public UserProfileDTO getProfileByUsername(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found: " + username));
@@ -50,6 +55,7 @@ public class UserService {
         // ✅ Save the relative path in database
         user.setProfilePicture(fileName);
         userRepository.save(user);
+        eventPublisher.publishEvent(UserDirectoryChangedEvent.of(user, "profile picture updated"));
         
         return convertToDTO(user);
     }
@@ -66,6 +72,7 @@ public class UserService {
         user.setModified(LocalDateTime.now());
         
         user = userRepository.save(user);
+        eventPublisher.publishEvent(UserDirectoryChangedEvent.of(user, "profile updated"));
         return convertToDTO(user);
     }
 
@@ -81,6 +88,7 @@ public class UserService {
         // Update password
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        eventPublisher.publishEvent(UserDirectoryChangedEvent.of(user, "password changed"));
     }
 
     public void logLogoutActivity(String username) {
@@ -114,6 +122,7 @@ public class UserService {
             user.setRoles(userRoles);
             
             user = userRepository.save(user);
+            eventPublisher.publishEvent(UserDirectoryChangedEvent.of(user, "role changed"));
             
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Invalid role: " + roleStr);
@@ -128,6 +137,7 @@ public class UserService {
         
         user.setActive(false);
         userRepository.save(user);
+        eventPublisher.publishEvent(UserDirectoryChangedEvent.of(user, "deactivated"));
     }
 
     public Map<String, Object> getUserStatistics() {
@@ -156,6 +166,7 @@ public class UserService {
             fileStorageService.deleteFile("profile-pictures/" + user.getProfilePicture());
             user.setProfilePicture(null);
             user = userRepository.save(user);
+            eventPublisher.publishEvent(UserDirectoryChangedEvent.of(user, "profile picture removed"));
         }
         
         return convertToDTO(user);
@@ -223,6 +234,7 @@ public class UserService {
 
         user.setRoles(userRoles);
         user = userRepository.save(user);
+        eventPublisher.publishEvent(UserDirectoryChangedEvent.of(user, "user created"));
 
         return convertToDTO(user);
     }
@@ -263,6 +275,7 @@ public class UserService {
             
             user.addRole(roleEntity);
             user = userRepository.save(user);
+            eventPublisher.publishEvent(UserDirectoryChangedEvent.of(user, "role added"));
             
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Invalid role: " + roleName);
@@ -286,6 +299,7 @@ public class UserService {
             if (roleEntity != null) {
                 user.removeRole(roleEntity);
                 user = userRepository.save(user);
+                eventPublisher.publishEvent(UserDirectoryChangedEvent.of(user, "role removed"));
             }
             
         } catch (IllegalArgumentException e) {
@@ -0,0 +1,95 @@
+package com.clouddocs.backend.service;
+
+import com.clouddocs.backend.entity.TaskStatus;
+import com.clouddocs.backend.entity.WorkflowEvent;
+import com.clouddocs.backend.entity.WorkflowEventType;
+import com.clouddocs.backend.entity.WorkflowInstance;
+import com.clouddocs.backend.entity.WorkflowTask;
+import com.clouddocs.backend.repository.WorkflowEventRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Append-only event log per workflow instance.
+ *
+ * Workflow progression reads the folded {@link WorkflowState} instead of re-deriving it from
+ * the task table. Concurrency is optimistic: the (instance, sequence) unique key and the
+ * instance @Version make the second of two racing actions fail, and the caller retries it.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WorkflowEventStore {
+
+    private final WorkflowEventRepository eventRepository;
+
+    /**
+     * Start the log of a freshly created instance.
+     */
+    public WorkflowEventStream create(WorkflowInstance instance) {
+        return new WorkflowEventStream(eventRepository, new WorkflowState(instance.getId()));
+    }
+
+    /**
+     * Load and fold the log of an existing instance. Instances created before the event log
+     * existed get their log seeded from the task table on first access.
+     */
+    public WorkflowEventStream open(WorkflowInstance instance) {
+        List<WorkflowEvent> events = eventRepository.findByWorkflowInstanceIdOrderBySequenceAsc(instance.getId());
+        WorkflowEventStream stream = new WorkflowEventStream(eventRepository,
+                WorkflowState.fold(instance.getId(), events));
+
+        if (events.isEmpty()) {
+            seedFromTasks(instance, stream);
+        }
+        return stream;
+    }
+
+    public List<WorkflowEvent> history(Long instanceId) {
+        return eventRepository.findByWorkflowInstanceIdOrderBySequenceAsc(instanceId);
+    }
+
+    private void seedFromTasks(WorkflowInstance instance, WorkflowEventStream stream) {
+        log.info("Seeding event log for workflow {} from its tasks", instance.getId());
+
+        Long initiatorId = instance.getInitiatedBy() != null ? instance.getInitiatedBy().getId() : null;
+        stream.append(WorkflowEvent.workflowStarted(1, initiatorId));
+
+        List<WorkflowTask> tasks = instance.getTasks() == null ? List.of()
+                : instance.getTasks().stream()
+                        .sorted(Comparator.comparing(WorkflowTask::getId))
+                        .toList();
+
+        for (WorkflowTask task : tasks) {
+            Long stepId = task.getStep() != null ? task.getStep().getId() : null;
+            int stepOrder = task.getStep() != null && task.getStep().getStepOrder() != null
+                    ? task.getStep().getStepOrder() : 0;
+            Long assigneeId = task.getAssignedTo() != null ? task.getAssignedTo().getId() : null;
+            stream.append(WorkflowEvent.taskAssigned(task.getId(), stepId, stepOrder, assigneeId));
+
+            if (task.getStatus() == TaskStatus.COMPLETED || task.getStatus() == TaskStatus.CANCELLED) {
+                Long completedById = task.getCompletedBy() != null ? task.getCompletedBy().getId() : null;
+                stream.append(WorkflowEvent.taskCompleted(task.getId(), task.getAction(), completedById, task.getComments()));
+            }
+        }
+
+        if (instance.getCurrentStepOrder() != null && instance.getCurrentStepOrder() > 1) {
+            stream.append(WorkflowEvent.stepAdvanced(instance.getCurrentStepOrder(), null));
+        }
+
+        WorkflowEventType terminal = instance.getStatus() == null ? null : switch (instance.getStatus()) {
+            case APPROVED -> WorkflowEventType.WORKFLOW_APPROVED;
+            case REJECTED -> WorkflowEventType.WORKFLOW_REJECTED;
+            case CANCELLED -> WorkflowEventType.WORKFLOW_CANCELLED;
+            default -> null;
+        };
+        if (terminal != null) {
+            stream.append(WorkflowEvent.finished(terminal, instance.getCurrentStepOrder(), null, "Seeded from existing state"));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.clouddocs.backend.service;
+
+import com.clouddocs.backend.entity.WorkflowEvent;
+import com.clouddocs.backend.repository.WorkflowEventRepository;
+
+/**
+ * Open event log of one workflow instance within the current transaction.
+ *
+ * Appending assigns the next sequence number, persists the event and folds it into
+ * {@link #state()}. Obtained from {@link WorkflowEventStore#open}.
+ */
+public final class WorkflowEventStream {
+
+    private final WorkflowEventRepository repository;
+    private final WorkflowState state;
+
+    WorkflowEventStream(WorkflowEventRepository repository, WorkflowState state) {
+        this.repository = repository;
+        this.state = state;
+    }
+
+    public WorkflowState state() {
+        return state;
+    }
+
+    public WorkflowState append(WorkflowEvent event) {
+        event.setWorkflowInstanceId(state.getInstanceId());
+        event.setSequence(state.getLastSequence() + 1);
+        repository.save(event);
+        state.apply(event);
+        return state;
+    }
+}
@@ -0,0 +1,123 @@
+package com.clouddocs.backend.service;
+
+import com.clouddocs.backend.entity.User;
+import com.clouddocs.backend.entity.WorkflowInstance;
+import com.clouddocs.backend.entity.WorkflowStatus;
+import com.clouddocs.backend.event.DeliveredEvent;
+import com.clouddocs.backend.event.TaskAssigned;
+import com.clouddocs.backend.event.TaskCompleted;
+import com.clouddocs.backend.event.WorkflowCompleted;
+import com.clouddocs.backend.event.WorkflowStarted;
+import com.clouddocs.backend.repository.UserRepository;
+import com.clouddocs.backend.repository.WorkflowInstanceRepository;
+import com.clouddocs.backend.repository.WorkflowTaskRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Audit trail and notifications for workflow events, delivered by the outbox relay after the
+ * workflow change has committed. Entities are reloaded by id, since the event may be delivered
+ * long after, or more than once.
+ *
+ * Each handler first records the event's outbox id in {@code processed_events}, in the same
+ * transaction as its audit row and notifications, so a redelivered event changes nothing.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WorkflowEventSubscriber {
+
+    private static final String SUBSCRIBER = "workflow-subscriber";
+
+    private final WorkflowTaskRepository taskRepository;
+    private final WorkflowInstanceRepository instanceRepository;
+    private final UserRepository userRepository;
+    private final NotificationService notificationService;
+    private final AuditService auditService;
+    private final ProcessedEventStore processedEvents;
+
+    @EventListener
+    @Transactional
+    public void onTaskAssigned(DeliveredEvent<TaskAssigned> delivered) {
+        if (!firstDelivery(delivered)) {
+            return;
+        }
+        TaskAssigned event = delivered.event();
+        taskRepository.findById(event.taskId()).ifPresent(task ->
+                userRepository.findById(event.assigneeId()).ifPresent(assignee ->
+                        notificationService.notifyTaskAssigned(assignee, task)));
+    }
+
+    @EventListener
+    @Transactional
+    public void onTaskCompleted(DeliveredEvent<TaskCompleted> delivered) {
+        if (!firstDelivery(delivered)) {
+            return;
+        }
+        TaskCompleted event = delivered.event();
+        audit(event.workflowId(), event.workflowTitle(), event.summary(), event.completedBy(), event.comments());
+
+        taskRepository.findById(event.taskId()).ifPresent(task ->
+                userRepository.findById(event.completedById()).ifPresent(completedBy ->
+                        notificationService.notifyTaskCompleted(completedBy, task, event.action())));
+    }
+
+    @EventListener
+    @Transactional
+    public void onWorkflowStarted(DeliveredEvent<WorkflowStarted> delivered) {
+        if (!firstDelivery(delivered)) {
+            return;
+        }
+        WorkflowStarted event = delivered.event();
+        audit(event.workflowId(), event.title(), "Workflow Started", event.initiatedBy(), event.details());
+    }
+
+    @EventListener
+    @Transactional
+    public void onWorkflowCompleted(DeliveredEvent<WorkflowCompleted> delivered) {
+        if (!firstDelivery(delivered)) {
+            return;
+        }
+        WorkflowCompleted event = delivered.event();
+        String action = switch (event.outcome()) {
+            case APPROVED -> "Workflow Approved";
+            case REJECTED -> "Workflow Rejected";
+            case CANCELLED -> "Workflow Cancelled";
+            default -> "Workflow " + event.outcome();
+        };
+        audit(event.workflowId(), event.title(), action, event.actor(), event.details());
+
+        WorkflowInstance instance = instanceRepository.findById(event.workflowId()).orElse(null);
+        User initiator = instance != null ? instance.getInitiatedBy() : null;
+        if (initiator == null) {
+            return;
+        }
+        if (event.outcome() == WorkflowStatus.APPROVED) {
+            notificationService.notifyWorkflowApproved(initiator, instance);
+        } else if (event.outcome() == WorkflowStatus.REJECTED) {
+            notificationService.notifyWorkflowRejected(initiator, instance);
+        } else if (event.outcome() == WorkflowStatus.CANCELLED && !initiator.getId().equals(event.actorId())) {
+            // Initiators who cancel their own workflow need no notice
+            notificationService.notifyWorkflowRejected(initiator, instance);
+        }
+    }
+
+    private boolean firstDelivery(DeliveredEvent<?> delivered) {
+        if (processedEvents.markProcessed(delivered.outboxId(), SUBSCRIBER)) {
+            return true;
+        }
+        log.debug("Outbox event {} ({}) already handled, skipping", delivered.outboxId(),
+                delivered.event().getClass().getSimpleName());
+        return false;
+    }
+
+    private void audit(Long workflowId, String title, String action, String username, String details) {
+        String message = action + " - Workflow: " + title +
+                (details != null && !details.isEmpty() ? " (" + details + ")" : "");
+        // Inline rather than write-behind, so the row commits or rolls back with the marker
+        auditService.logWorkflowActionInTransaction(message, workflowId.toString(), username);
+    }
+}
@@ -2,6 +2,10 @@ package com.clouddocs.backend.service;
 
 import com.clouddocs.backend.dto.workflow.WorkflowInstanceDTO;
 import com.clouddocs.backend.entity.*;
+import com.clouddocs.backend.event.TaskAssigned;
+import com.clouddocs.backend.event.TaskCompleted;
+import com.clouddocs.backend.event.WorkflowCompleted;
+import com.clouddocs.backend.event.WorkflowStarted;
 import com.clouddocs.backend.mapper.WorkflowMapper;
 import com.clouddocs.backend.repository.*;
 import com.clouddocs.backend.security.AuthzUtil;
@@ -10,11 +14,16 @@ import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -48,25 +57,22 @@ public class WorkflowService {
     private final WorkflowTemplateRepository templateRepository;
     private final WorkflowInstanceRepository instanceRepository;
     private final WorkflowStepRepository stepRepository;
-    private final WorkflowStepRoleRepository stepRoleRepository;
     private final WorkflowTaskRepository taskRepository;
     private final WorkflowHistoryRepository historyRepository;
     private final DocumentRepository documentRepository;
     private final UserRepository userRepository;
     private final AuthzUtil authz;
-    private final NotificationService notificationService;
-    private final RoleRepository roleRepository;
-    
+    private final DomainEventOutbox outbox;
+    private final ApproverDirectory approverDirectory;
+    private final WorkflowTemplateCache templateCache;
+    private final WorkflowEventStore eventStore;
+    private final TaskInboxService taskInbox;
+    private final UserDirectoryCache userDirectory;
 
     @Autowired
     private AuditService auditService;
     @Autowired 
     private EntityManager entityManager;
-    // ===== ENUMS =====
-    private enum StepOutcome {
-        CONTINUE, APPROVED, REJECTED
-    }
-
     // ===== MAIN WORKFLOW CREATION METHODS =====
 
     /**
@@ -99,29 +105,30 @@ public WorkflowInstanceDTO startWorkflowWithUser(Long documentId, UUID templateI
 
         // Load and validate all required entities
         Document document = loadAndValidateDocument(documentId);
-        WorkflowTemplate template = loadTemplateWithStepsAndRoles(templateId);
+        CompiledWorkflowTemplate template = templateCache.get(templateId);
         User initiator = loadAndValidateUser(userId);
 
             validateTemplateActive(template);
 
             log.info("✅ Loaded template '{}' with {} steps for user '{}'",
-                    template.getName(),
-                    template.getSteps() != null ? template.getSteps().size() : 0,
-                    initiator.getUsername());
+                    template.name(), template.totalSteps(), initiator.getUsername());
 
             // Create workflow instance with proper user assignment
             WorkflowInstance instance = createWorkflowInstance(template, document, initiator, title, description,
                     priority);
 
-            // Save workflow instance first
-            instance = instanceRepository.saveAndFlush(instance);
+            // Save workflow instance first (IDENTITY id is assigned on insert)
+            instance = instanceRepository.save(instance);
             log.info("✅ Saved workflow instance with ID: {} at {}", instance.getId(), instance.getCreatedDate());
 
+            WorkflowEventStream events = eventStore.create(instance);
+            events.append(WorkflowEvent.workflowStarted(1, initiator.getId()));
+
             // Update document status
             updateDocumentStatus(document, DocumentStatus.PENDING);
 
             // ✅ CRITICAL FIX: Generate tasks (this will update the workflow timestamp)
-            boolean tasksCreated = generateInitialTasks(instance, template);
+            boolean tasksCreated = generateInitialTasks(instance, template, events);
             if (!tasksCreated) {
                 throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
                         "No approvers found for initial workflow step");
@@ -131,8 +138,8 @@ public WorkflowInstanceDTO startWorkflowWithUser(Long documentId, UUID templateI
             logWorkflowHistory(instance, "WORKFLOW_STARTED",
                     "Workflow started by " + getUserDisplayName(initiator), initiator);
 
-            auditWorkflowAction(instance, "Workflow Started", initiator,
-                    "Template: " + template.getName() + (title != null ? " - " + title : ""));
+            outbox.append(new WorkflowStarted(instance.getId(), instance.getTitle(), document.getId(),
+                    initiator.getUsername(), "Template: " + template.name() + (title != null ? " - " + title : "")));
 
             log.info("✅ Workflow instance {} created successfully with proper timestamps", instance.getId());
 
@@ -161,13 +168,19 @@ public WorkflowInstanceDTO startWorkflowWithUser(Long documentId, UUID templateI
     // ===== TASK MANAGEMENT METHODS =====
 
     /**
-     * ✅ ENHANCED: Process task action with detailed timestamp logging
+     * Process an approve/reject action on a task.
+     *
+     * The action is appended to the workflow's event log and the step outcome is decided from the
+     * folded log. Two approvers racing on the same step are serialized optimistically: the loser
+     * hits the instance version or event sequence constraint and the whole action is retried in a
+     * fresh transaction against the winner's state. Everything is flushed once at the end.
      */
+    @Retryable(retryFor = { OptimisticLockingFailureException.class, DataIntegrityViolationException.class },
+               maxAttempts = 3, backoff = @Backoff(delay = 25, maxDelay = 250, random = true))
     @Transactional
     public Map<String, Object> processTaskActionWithUser(Long taskId, String action, 
                                                         String comments, Long userId) {
-        log.info("🔄 TIMESTAMP DEBUG: Starting task action - TaskID: {}, Action: {}, UserID: {}, Time: {}", 
-                taskId, action, userId, OffsetDateTime.now(ZoneOffset.UTC)); // ✅ FIXED
+        log.info("🔄 Starting task action - TaskID: {}, Action: {}, UserID: {}", taskId, action, userId);
         
         try {
             TaskAction taskAction = validateTaskAction(action);
@@ -177,39 +190,29 @@ public WorkflowInstanceDTO startWorkflowWithUser(Long documentId, UUID templateI
             validateTaskActionAuthorization(task, currentUser);
             WorkflowInstance instance = task.getWorkflowInstance();
             validateWorkflowAndTaskState(instance, task);
+
+            WorkflowEventStream events = eventStore.open(instance);
+            validateEventState(events.state(), task);
             
             OffsetDateTime beforeTaskComplete = instance.getUpdatedDate(); // ✅ FIXED
-            log.info("🔍 TIMESTAMP DEBUG: Before task completion - Workflow {} UpdatedDate: {}", 
-                    instance.getId(), beforeTaskComplete);
             
             // Complete the task
-            completeTaskWithDetails(task, taskAction, comments, currentUser);
-            
-            // Force refresh from database
-            entityManager.flush();
-            entityManager.clear();
-            WorkflowInstance refreshedInstance = instanceRepository.findById(instance.getId())
-                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Workflow not found"));
-            
-            OffsetDateTime afterTaskComplete = refreshedInstance.getUpdatedDate(); // ✅ FIXED
-            log.info("🔍 TIMESTAMP DEBUG: After task completion - Workflow {} UpdatedDate: {}", 
-                    refreshedInstance.getId(), afterTaskComplete);
+            completeTaskWithDetails(task, taskAction, comments, currentUser, events);
+            OffsetDateTime afterTaskComplete = instance.getUpdatedDate();
             
             // Process workflow progression
-            Map<String, Object> progressionResult = processWorkflowProgression(refreshedInstance, currentUser);
+            Map<String, Object> progressionResult = processWorkflowProgression(instance, currentUser, events);
             
-            // Final timestamp check
-            entityManager.flush();
-            entityManager.clear();
-            WorkflowInstance finalInstance = instanceRepository.findById(instance.getId())
-                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Workflow not found"));
+            // Single flush: surfaces a concurrent modification while the action can still be retried
+            instanceRepository.flush();
             
-            OffsetDateTime finalTimestamp = finalInstance.getUpdatedDate(); // ✅ FIXED
-            log.info("🔍 TIMESTAMP DEBUG: Final timestamp - Workflow {} UpdatedDate: {}", 
-                    finalInstance.getId(), finalTimestamp);
+            OffsetDateTime finalTimestamp = instance.getUpdatedDate(); // ✅ FIXED
+            log.info("✅ Task {} {} - Workflow {} at event {} updated {}", taskId, taskAction,
+                    instance.getId(), events.state().getLastSequence(), finalTimestamp);
             
-            Map<String, Object> result = buildTaskActionResponse(task, taskAction, finalInstance, progressionResult);
-            result.put("workflowDetails", WorkflowMapper.toInstanceDTO(finalInstance));
+            Map<String, Object> result = buildTaskActionResponse(task, taskAction, instance, progressionResult);
+            result.put("workflowDetails", WorkflowMapper.toInstanceDTO(instance));
+            result.put("eventSequence", events.state().getLastSequence());
             
             // Add timestamp debug info to response
             result.put("timestampDebug", Map.of(
@@ -221,28 +224,15 @@ public WorkflowInstanceDTO startWorkflowWithUser(Long documentId, UUID templateI
             
             return result;
             
+        } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+            log.warn("⚠️ Concurrent update on task {} - retrying: {}", taskId, e.getMessage());
+            throw e;
         } catch (Exception e) {
-            log.error("❌ TIMESTAMP DEBUG: Error during task action: {}", e.getMessage(), e);
+            log.error("❌ Error during task action: {}", e.getMessage(), e);
             throw e;
         }
     }
 
-    /**
-     * ✅ LEGACY COMPATIBILITY: String-based task action processing
-     */
-    public void processTaskAction(Long taskId, String action, String comments) {
-        User currentUser = getCurrentUserSafe();
-        processTaskActionWithUser(taskId, action, comments, currentUser.getId());
-    }
-
-    /**
-     * ✅ LEGACY COMPATIBILITY: Complete task with TaskAction enum
-     */
-    @Transactional
-    public void completeTask(Long taskId, TaskAction action, String comments) {
-        processTaskAction(taskId, action.toString(), comments);
-    }
-
     // ===== ANALYTICS METHODS (FIXED) =====
 
     /**
@@ -426,27 +416,17 @@ public WorkflowInstanceDTO startWorkflowWithUser(Long documentId, UUID templateI
 
     /**
      * ✅ ENHANCED: Get user tasks with detailed information
+     *
+     * Served from the materialized inbox - one indexed read, no task/instance/document graph.
      */
     @Transactional(readOnly = true)
     public List<Map<String, Object>> getMyTasksWithDetails(Long userId) {
         try {
             log.info("📋 Getting tasks for user {}", userId);
 
-            User user = loadAndValidateUser(userId);
-            List<WorkflowTask> tasks = taskRepository.findByAssignedToAndStatusOrderByCreatedAtDesc(user,
-                    TaskStatus.PENDING);
-
-            List<Map<String, Object>> taskDTOs = tasks.stream()
-                    .map(task -> {
-                        WorkflowInstanceDTO workflowDTO = WorkflowMapper.toInstanceDTO(task.getWorkflowInstance());
-                        Map<String, Object> taskDetails = convertTaskToDetailedDTO(task);
-                        taskDetails.put("workflow", workflowDTO);
-                        return taskDetails;
-                    })
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
+            List<Map<String, Object>> taskDTOs = taskInbox.getInbox(userId);
 
-            log.info("✅ Retrieved {} tasks for user {}", taskDTOs.size(), user.getUsername());
+            log.info("✅ Retrieved {} tasks for user {}", taskDTOs.size(), userId);
             return taskDTOs;
 
         } catch (Exception e) {
@@ -460,6 +440,8 @@ public WorkflowInstanceDTO startWorkflowWithUser(Long documentId, UUID templateI
     /**
      * ✅ FIXED: Cancel workflow with proper timestamp updates
      */
+    @Retryable(retryFor = { OptimisticLockingFailureException.class, DataIntegrityViolationException.class },
+               maxAttempts = 3, backoff = @Backoff(delay = 25, maxDelay = 250, random = true))
     @Transactional
     public WorkflowInstanceDTO cancelWorkflow(Long instanceId, String reason) {
         log.info("🔄 Cancelling workflow - InstanceID: {}, Reason: {}", instanceId, reason);
@@ -474,16 +456,21 @@ public WorkflowInstanceDTO startWorkflowWithUser(Long documentId, UUID templateI
             validateCancellationAuthorization(instance);
             validateCancellationState(instance);
 
+            WorkflowEventStream events = eventStore.open(instance);
+
             // Cancel workflow
             WorkflowStatus oldStatus = instance.getStatus();
             instance.setStatus(WorkflowStatus.CANCELLED);
             instance.setEndDate(OffsetDateTime.now(ZoneOffset.UTC)); // ✅ FIXED
+            taskInbox.workflowStatusChanged(instance);
 
             // ✅ CRITICAL FIX: Update timestamp on cancellation
             updateWorkflowTimestamp(instance, "Workflow cancelled: " + (reason != null ? reason : "No reason"));
 
             // Cancel pending tasks
-            cancelPendingTasks(instance, reason, currentUser);
+            cancelPendingTasks(instance, reason, currentUser, events);
+            events.append(WorkflowEvent.finished(WorkflowEventType.WORKFLOW_CANCELLED,
+                    instance.getCurrentStepOrder(), currentUser.getId(), reason));
 
             // Update document status
             if (instance.getDocument() != null) {
@@ -497,15 +484,14 @@ public WorkflowInstanceDTO startWorkflowWithUser(Long documentId, UUID templateI
             logWorkflowHistory(instance, "WORKFLOW_CANCELLED",
                     reason != null && !reason.isBlank() ? reason : "Workflow cancelled", currentUser);
 
-            auditWorkflowAction(instance, "Workflow Cancelled", currentUser,
-                    reason != null && !reason.isBlank() ? reason : "No reason provided");
-
-            // Send notifications
-            sendCancellationNotifications(instance, currentUser);
+            // Audit and notifications follow from the event once this commits
+            outbox.append(new WorkflowCompleted(instance.getId(), instance.getTitle(), WorkflowStatus.CANCELLED,
+                    currentUser.getId(), currentUser.getUsername(),
+                    reason != null && !reason.isBlank() ? reason : "No reason provided"));
 
             return WorkflowMapper.toInstanceDTO(instance);
 
-        } catch (ResponseStatusException e) {
+        } catch (ResponseStatusException | OptimisticLockingFailureException | DataIntegrityViolationException e) {
             throw e;
         } catch (Exception e) {
             log.error("❌ Error cancelling workflow {}: {}", instanceId, e.getMessage(), e);
@@ -583,7 +569,8 @@ public WorkflowInstanceDTO startWorkflowWithUser(Long documentId, UUID templateI
      * ✅ FIXED: Complete task with proper timestamp handling
      */
     // ✅ FIXED: Update task completion method
-private void completeTaskWithDetails(WorkflowTask task, TaskAction action, String comments, User currentUser) {
+private void completeTaskWithDetails(WorkflowTask task, TaskAction action, String comments, User currentUser,
+        WorkflowEventStream events) {
     task.setStatus(TaskStatus.COMPLETED);
     task.setAction(action);
     task.setComments(comments);
@@ -594,46 +581,45 @@ private void completeTaskWithDetails(WorkflowTask task, TaskAction action, Strin
     task.setCompletedDate(completedTime);
     task.setCompletedAt(completedTime);
 
-    taskRepository.saveAndFlush(task);
+    events.append(WorkflowEvent.taskCompleted(task.getId(), action, currentUser.getId(), comments));
+    taskInbox.taskClosed(task.getId());
 
-        // ✅ CRITICAL FIX: Update workflow timestamp and save once
+        // Bumping the instance guarantees a version check on every action
         WorkflowInstance workflow = task.getWorkflowInstance();
         updateWorkflowTimestamp(workflow, "Task completed: " + action + " by " + currentUser.getUsername());
-        instanceRepository.saveAndFlush(workflow);
 
         // Log and audit
         logWorkflowHistory(workflow, "TASK_COMPLETED",
                 "Task completed by " + getUserDisplayName(currentUser) + " with action " + action,
                 currentUser);
 
-        auditWorkflowAction(workflow,
+        outbox.append(new TaskCompleted(workflow.getId(), workflow.getTitle(), task.getId(), action,
+                currentUser.getId(), currentUser.getUsername(),
                 String.format("Task %s: %s%s",
                         action == TaskAction.APPROVE ? "Approved" : "Rejected",
                         task.getTitle() != null ? task.getTitle() : "Workflow Task",
                         comments != null && !comments.isEmpty() ? " - " + comments : ""),
-                currentUser, comments);
-
-        sendTaskCompletionNotification(currentUser, task, action);
+                comments));
     }
 
-    private boolean handleStepApproval(WorkflowInstance instance, WorkflowStep step, User currentUser) {
-        cancelRemainingStepTasks(instance, step, "Step approved - quorum reached", currentUser);
-
-        int totalSteps = getTotalStepsInTemplate(instance.getTemplate());
+    private boolean handleStepApproval(WorkflowInstance instance, CompiledWorkflowTemplate template,
+            CompiledWorkflowTemplate.Step step, User currentUser, WorkflowEventStream events) {
+        cancelRemainingStepTasks(instance, step, "Step approved - quorum reached", currentUser, events);
 
-        if (instance.getCurrentStepOrder() >= totalSteps) {
+        if (template.isLastStep(instance.getCurrentStepOrder())) {
             // Workflow completed
             instance.setStatus(WorkflowStatus.APPROVED);
             instance.setEndDate(OffsetDateTime.now(ZoneOffset.UTC)); // ✅ FIXED
+            taskInbox.workflowStatusChanged(instance);
 
-            // ✅ CRITICAL FIX: Update timestamp and save once
             updateWorkflowTimestamp(instance, "Workflow approved - all steps completed");
-            instanceRepository.saveAndFlush(instance);
+            events.append(WorkflowEvent.finished(WorkflowEventType.WORKFLOW_APPROVED,
+                    instance.getCurrentStepOrder(), currentUser.getId(), "All steps completed"));
 
             updateDocumentOnApproval(instance);
             logWorkflowHistory(instance, "WORKFLOW_APPROVED", "Workflow approved", currentUser);
-            auditWorkflowAction(instance, "Workflow Approved", currentUser, "All steps completed");
-            sendWorkflowApprovalNotification(instance);
+            outbox.append(new WorkflowCompleted(instance.getId(), instance.getTitle(), WorkflowStatus.APPROVED,
+                    currentUser.getId(), currentUser.getUsername(), "All steps completed"));
 
             return true; // Completed
         } else {
@@ -642,9 +628,9 @@ private void completeTaskWithDetails(WorkflowTask task, TaskAction action, Strin
             instance.setCurrentStepOrder(nextStep);
 
             updateWorkflowTimestamp(instance, "Advanced to step " + nextStep);
+            events.append(WorkflowEvent.stepAdvanced(nextStep, currentUser.getId()));
 
-            WorkflowTemplate template = loadTemplateWithStepsAndRoles(instance.getTemplate().getId());
-            boolean tasksCreated = generateTasksForStep(instance, template, nextStep);
+            boolean tasksCreated = generateTasksForStep(instance, template, nextStep, events);
 
             if (!tasksCreated) {
                 throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
@@ -652,7 +638,6 @@ private void completeTaskWithDetails(WorkflowTask task, TaskAction action, Strin
             }
 
             updateWorkflowTimestamp(instance, "Tasks generated for step " + nextStep);
-            instanceRepository.saveAndFlush(instance);
 
             logWorkflowHistory(instance, "STEP_STARTED", "Step " + nextStep + " started", currentUser);
 
@@ -660,20 +645,22 @@ private void completeTaskWithDetails(WorkflowTask task, TaskAction action, Strin
         }
     }
 
-    private void handleWorkflowRejection(WorkflowInstance instance, WorkflowStep step, User currentUser) {
-        cancelRemainingStepTasks(instance, step, "Step rejected", currentUser);
+    private void handleWorkflowRejection(WorkflowInstance instance, CompiledWorkflowTemplate.Step step,
+            User currentUser, WorkflowEventStream events) {
+        cancelRemainingStepTasks(instance, step, "Step rejected", currentUser, events);
 
         instance.setStatus(WorkflowStatus.REJECTED);
         instance.setEndDate(OffsetDateTime.now(ZoneOffset.UTC)); // ✅ FIXED
+        taskInbox.workflowStatusChanged(instance);
 
-        // ✅ CRITICAL FIX: Update timestamp and save once
-        updateWorkflowTimestamp(instance, "Workflow rejected at step " + step.getStepOrder());
-        instanceRepository.saveAndFlush(instance);
+        updateWorkflowTimestamp(instance, "Workflow rejected at step " + step.order());
+        events.append(WorkflowEvent.finished(WorkflowEventType.WORKFLOW_REJECTED,
+                step.order(), currentUser.getId(), "Step " + step.order() + " rejected"));
 
         updateDocumentOnRejection(instance);
         logWorkflowHistory(instance, "WORKFLOW_REJECTED", "Workflow rejected", currentUser);
-        auditWorkflowAction(instance, "Workflow Rejected", currentUser, "Step " + step.getStepOrder() + " rejected");
-        sendWorkflowRejectionNotification(instance);
+        outbox.append(new WorkflowCompleted(instance.getId(), instance.getTitle(), WorkflowStatus.REJECTED,
+                currentUser.getId(), currentUser.getUsername(), "Step " + step.order() + " rejected"));
     }
 
     // ===== PRIVATE HELPER METHODS =====
@@ -684,40 +671,12 @@ private void completeTaskWithDetails(WorkflowTask task, TaskAction action, Strin
     }
 
     private User loadAndValidateUser(Long userId) {
-        return userRepository.findById(userId)
+        return userDirectory.findById(userId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
     }
 
-   /**
- * ✅ FIXED: Load template with proper fetch joins to avoid LazyInitializationException
- */
-private WorkflowTemplate loadTemplateWithStepsAndRoles(UUID templateId) {
-    log.info("🔍 Loading template with steps and roles: {}", templateId);
-    
-    try {
-        // ✅ FIXED: Use fetch join query instead of basic findById
-        Optional<WorkflowTemplate> templateOpt = templateRepository.findByIdWithStepsAndRoles(templateId);
-        
-        if (templateOpt.isEmpty()) {
-            log.error("❌ Template not found with ID: {}", templateId);
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Template not found");
-        }
-        
-        WorkflowTemplate template = templateOpt.get();
-        log.info("✅ Loaded template '{}' with {} steps", 
-                template.getName(), 
-                template.getSteps() != null ? template.getSteps().size() : 0);
-        
-        return template;
-        
-    } catch (Exception e) {
-        log.error("❌ Error loading template {}: {}", templateId, e.getMessage(), e);
-        throw e;
-    }
-}
-
-    private void validateTemplateActive(WorkflowTemplate template) {
-        if (!Boolean.TRUE.equals(template.getIsActive())) {
+    private void validateTemplateActive(CompiledWorkflowTemplate template) {
+        if (!template.active()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Template is not active");
         }
     }
@@ -725,10 +684,10 @@ private WorkflowTemplate loadTemplateWithStepsAndRoles(UUID templateId) {
     /**
      * ✅ FIXED: Create workflow instance with proper timestamps
      */
-    private WorkflowInstance createWorkflowInstance(WorkflowTemplate template, Document document,
+    private WorkflowInstance createWorkflowInstance(CompiledWorkflowTemplate template, Document document,
             User initiator, String title, String description, String priority) {
         WorkflowInstance instance = new WorkflowInstance();
-        instance.setTemplate(template);
+        instance.setTemplate(templateRepository.getReferenceById(template.id()));
         instance.setDocument(document);
         instance.setInitiatedBy(initiator);
 
@@ -749,8 +708,8 @@ private WorkflowTemplate loadTemplateWithStepsAndRoles(UUID templateId) {
         log.info("🔧 WORKFLOW CREATED: ID will be assigned, timestamps set to: {}", now);
 
         // Set SLA
-        if (template.getDefaultSlaHours() != null && template.getDefaultSlaHours() > 0) {
-            instance.setDueDate(now.plusHours(template.getDefaultSlaHours()));
+        if (template.defaultSlaHours() != null && template.defaultSlaHours() > 0) {
+            instance.setDueDate(now.plusHours(template.defaultSlaHours()));
         }
 
         return instance;
@@ -759,55 +718,17 @@ private WorkflowTemplate loadTemplateWithStepsAndRoles(UUID templateId) {
     /**
      * ✅ CRITICAL FIX: Generate initial tasks with workflow timestamp updates
      */
-    private boolean generateInitialTasks(WorkflowInstance instance, WorkflowTemplate template) {
+    private boolean generateInitialTasks(WorkflowInstance instance, CompiledWorkflowTemplate template,
+            WorkflowEventStream events) {
         try {
             log.info("🔄 Generating initial tasks for workflow {}", instance.getId());
 
-            if (template.getSteps() == null || template.getSteps().isEmpty()) {
-                log.warn("⚠️ Template has no steps defined");
-                return false;
-            }
-
-            boolean anyTaskCreated = false;
             OffsetDateTime taskCreationTime = OffsetDateTime.now(ZoneOffset.UTC); // ✅ FIXED
-
-            // Find steps for the first step order
-            List<WorkflowStep> firstSteps = template.getSteps().stream()
-                    .filter(step -> step.getStepOrder() != null && step.getStepOrder().equals(1))
-                    .collect(Collectors.toList());
-
-            for (WorkflowStep step : firstSteps) {
-                log.info("🔄 Processing initial step: '{}' (order: {})", step.getName(), step.getStepOrder());
-
-                List<User> approvers = findApproversForStep(step);
-
-                if (approvers.isEmpty()) {
-                    log.warn("⚠️ No approvers found for step: {}", step.getName());
-                    continue;
-                }
-
-                log.info("✅ Found {} approvers for step '{}': {}",
-                        approvers.size(), step.getName(),
-                        approvers.stream().map(User::getUsername).collect(Collectors.joining(", ")));
-
-                // Create tasks with proper assignment
-                for (User approver : approvers) {
-                    WorkflowTask task = createTaskWithAssignment(instance, step, approver);
-                    taskRepository.save(task);
-
-                    logWorkflowHistory(instance, "TASK_ASSIGNED",
-                            "Task '" + step.getName() + "' assigned to " + getUserDisplayName(approver),
-                            instance.getInitiatedBy());
-
-                    sendTaskAssignmentNotification(approver, task);
-                    anyTaskCreated = true;
-                }
-            }
+            boolean anyTaskCreated = generateTasksForStep(instance, template, 1, events);
 
             // ✅ CRITICAL FIX: Update workflow timestamp after task creation
             if (anyTaskCreated) {
                 instance.setUpdatedDate(taskCreationTime);
-                instanceRepository.saveAndFlush(instance);
 
                 log.info("🔧 WORKFLOW TIMESTAMP UPDATED: Workflow {} updated at {} after creating tasks",
                         instance.getId(), taskCreationTime);
@@ -816,85 +737,36 @@ private WorkflowTemplate loadTemplateWithStepsAndRoles(UUID templateId) {
             log.info("✅ Initial task generation completed. Tasks created: {}", anyTaskCreated);
             return anyTaskCreated;
 
+        } catch (DataAccessException e) {
+            throw e;
         } catch (Exception e) {
             log.error("❌ Error generating initial tasks: {}", e.getMessage(), e);
             return false;
         }
     }
 
-    private List<User> findApproversForStep(WorkflowStep step) {
-    List<User> approvers = new ArrayList<>();
-
-    try {
-        // First, check for directly assigned approvers
-        if (step.getAssignedApprovers() != null && !step.getAssignedApprovers().isEmpty()) {
-            for (User user : step.getAssignedApprovers()) {
-                if (isUserEligible(user)) {
-                    approvers.add(user);
-                }
-            }
-            if (!approvers.isEmpty()) {
-                return approvers;
-            }
-        }
-
-        // Find approvers by role using Many-to-Many system
-        List<WorkflowStepRole> stepRoles = stepRoleRepository.findByStepId(step.getId());
-        if (!stepRoles.isEmpty()) {
-            for (WorkflowStepRole stepRole : stepRoles) {
-              Role roleEntity = roleRepository.findByName(stepRole.getRoleName())
-    .orElse(null);
-
-                
-                if (roleEntity != null) {
-                    List<User> usersWithRole = userRepository.findByRoleAndActiveAndEnabled(roleEntity, true, true);
-                    for (User user : usersWithRole) {
-                        if (isUserEligible(user) && !approvers.contains(user)) {
-                            approvers.add(user);
-                        }
-                    }
-                }
-            }
-        }
-
-        // ✅ FIXED: Fallback - find admin users using ERole enum
-        if (approvers.isEmpty()) {
-            log.warn("⚠️ No role-based approvers found for step '{}', falling back to admin users", step.getName());
-            
-            Role adminRole = roleRepository.findByName(ERole.ROLE_ADMIN)
-                .orElse(null);
-            
-            if (adminRole != null) {
-                List<User> adminUsers = userRepository.findByRoleAndActiveAndEnabled(adminRole, true, true);
-                for (User user : adminUsers) {
-                    if (isUserEligible(user)) {
-                        approvers.add(user);
-                    }
-                }
-            }
+    /**
+     * Approvers come from the in-memory {@link ApproverDirectory}; a warm directory resolves
+     * a step without touching the database.
+     */
+    private List<User> findApproversForStep(CompiledWorkflowTemplate template, CompiledWorkflowTemplate.Step step) {
+        try {
+            return approverDirectory.findApproversForStep(template, step);
+        } catch (Exception e) {
+            log.error("Error finding approvers for step '{}': {}", step.name(), e.getMessage());
+            return new ArrayList<>();
         }
-
-        return approvers;
-
-    } catch (Exception e) {
-        log.error("Error finding approvers for step '{}': {}", step.getName(), e.getMessage());
-        return new ArrayList<>();
     }
-}
-
 
-    private boolean isUserEligible(User user) {
-        return user != null && user.isActive() && user.isEnabled();
-    }
-
-   private WorkflowTask createTaskWithAssignment(WorkflowInstance instance, WorkflowStep step, User assignee) {
+   private WorkflowTask createTaskWithAssignment(WorkflowInstance instance, CompiledWorkflowTemplate.Step step,
+            User assignee) {
     WorkflowTask task = new WorkflowTask();
     task.setWorkflowInstance(instance);
-    task.setStep(step);
+    task.setStep(stepRepository.getReferenceById(step.id()));
     task.setAssignedTo(assignee);
-    task.setTitle(step.getName());
+    task.setTitle(step.name());
     task.setDescription("Please review and " +
-            (step.getType() == StepType.APPROVAL ? "approve or reject" : "complete") +
+            (step.isApproval() ? "approve or reject" : "complete") +
             " this workflow step");
     task.setStatus(TaskStatus.PENDING);
     task.setPriority(TaskPriority.NORMAL);
@@ -914,9 +786,9 @@ private WorkflowTemplate loadTemplateWithStepsAndRoles(UUID templateId) {
     /**
      * ✅ Calculate task due date - returns OffsetDateTime
      */
-    private OffsetDateTime calculateTaskDueDate(WorkflowStep step, WorkflowInstance instance) { // ✅ FIXED return type
-        if (step.getSlaHours() != null && step.getSlaHours() > 0) {
-            return OffsetDateTime.now(ZoneOffset.UTC).plusHours(step.getSlaHours()); // ✅ FIXED
+    private OffsetDateTime calculateTaskDueDate(CompiledWorkflowTemplate.Step step, WorkflowInstance instance) { // ✅ FIXED return type
+        if (step.slaHours() != null && step.slaHours() > 0) {
+            return OffsetDateTime.now(ZoneOffset.UTC).plusHours(step.slaHours()); // ✅ FIXED
         } else if (instance.getDueDate() != null) {
             return instance.getDueDate();
         } else {
@@ -967,7 +839,23 @@ private WorkflowTemplate loadTemplateWithStepsAndRoles(UUID templateId) {
         }
     }
 
-    private Map<String, Object> processWorkflowProgression(WorkflowInstance instance, User currentUser) {
+    /**
+     * The event log is authoritative: reject actions on tasks it already considers closed,
+     * even if the task row has not caught up yet.
+     */
+    private void validateEventState(WorkflowState state, WorkflowTask task) {
+        if (state.isFinished()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Cannot complete task for a finalized workflow. Current status: " + state.getStatus());
+        }
+        if (!state.isTaskOpen(task.getId())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Task " + task.getId() + " has already been actioned");
+        }
+    }
+
+    private Map<String, Object> processWorkflowProgression(WorkflowInstance instance, User currentUser,
+            WorkflowEventStream events) {
         Map<String, Object> result = new HashMap<>();
 
         try {
@@ -978,7 +866,8 @@ private WorkflowTemplate loadTemplateWithStepsAndRoles(UUID templateId) {
                 return result;
             }
 
-            WorkflowStep currentStep = getCurrentStepSafe(instance);
+            CompiledWorkflowTemplate template = templateCache.get(instance.getTemplate().getId());
+            CompiledWorkflowTemplate.Step currentStep = template.stepAt(instance.getCurrentStepOrder());
             if (currentStep == null) {
                 log.warn("⚠️ No current step found for workflow {}", instance.getId());
                 result.put("completed", false);
@@ -987,20 +876,20 @@ private WorkflowTemplate loadTemplateWithStepsAndRoles(UUID templateId) {
                 return result;
             }
 
-            StepOutcome outcome = evaluateStepOutcome(instance, currentStep);
-            log.info("🔄 Workflow {} - Step {} outcome: {}", instance.getId(), currentStep.getStepOrder(), outcome);
+            CompiledWorkflowTemplate.StepOutcome outcome = evaluateStepOutcome(events.state(), currentStep);
+            log.info("🔄 Workflow {} - Step {} outcome: {}", instance.getId(), currentStep.order(), outcome);
 
             switch (outcome) {
                 case REJECTED:
-                    handleWorkflowRejection(instance, currentStep, currentUser);
+                    handleWorkflowRejection(instance, currentStep, currentUser, events);
                     result.put("completed", true);
                     result.put("nextStep", null);
                     result.put("status", instance.getStatus().toString());
-                    result.put("message", "Workflow rejected at step: " + currentStep.getName());
+                    result.put("message", "Workflow rejected at step: " + currentStep.name());
                     break;
 
                 case APPROVED:
-                    boolean workflowCompleted = handleStepApproval(instance, currentStep, currentUser);
+                    boolean workflowCompleted = handleStepApproval(instance, template, currentStep, currentUser, events);
                     result.put("completed", workflowCompleted);
                     result.put("nextStep", workflowCompleted ? null : instance.getCurrentStepOrder());
                     result.put("status", instance.getStatus().toString());
@@ -1011,14 +900,14 @@ private WorkflowTemplate loadTemplateWithStepsAndRoles(UUID templateId) {
 
                 case CONTINUE:
                     result.put("completed", false);
-                    result.put("nextStep", currentStep.getStepOrder());
+                    result.put("nextStep", currentStep.order());
                     result.put("status", instance.getStatus().toString());
                     result.put("message", "Step still in progress: awaiting approvals/rejections");
                     break;
 
                 default:
                     result.put("completed", false);
-                    result.put("nextStep", currentStep.getStepOrder());
+                    result.put("nextStep", currentStep.order());
                     result.put("status", instance.getStatus().toString());
                     result.put("message", "Unhandled outcome state: " + outcome);
                     break;
@@ -1026,9 +915,12 @@ private WorkflowTemplate loadTemplateWithStepsAndRoles(UUID templateId) {
 
             // Add common context
             result.put("workflowId", instance.getId());
-            result.put("currentStep", currentStep.getStepOrder());
-            result.put("currentStepName", currentStep.getName());
+            result.put("currentStep", currentStep.order());
+            result.put("currentStepName", currentStep.name());
 
+        } catch (ResponseStatusException | DataAccessException e) {
+            // Includes failed event appends: the transaction is rollback-only, so report it as such
+            throw e;
         } catch (Exception e) {
             log.error("❌ Error processing workflow progression for workflow {}: {}",
                     instance != null ? instance.getId() : "unknown", e.getMessage(), e);
@@ -1042,132 +934,48 @@ private WorkflowTemplate loadTemplateWithStepsAndRoles(UUID templateId) {
         return result;
     }
 
-    private WorkflowStep getCurrentStepSafe(WorkflowInstance instance) {
-        try {
-            if (instance.getCurrentStepOrder() == null)
-                return null;
-
-            List<WorkflowTask> tasks = taskRepository.findByWorkflowInstanceOrderByStepOrder(instance);
-            for (WorkflowTask task : tasks) {
-                if (task.getStep() != null &&
-                        task.getStep().getStepOrder() != null &&
-                        task.getStep().getStepOrder().equals(instance.getCurrentStepOrder())) {
-                    return task.getStep();
-                }
-            }
-
-            if (instance.getTemplate() != null) {
-                List<WorkflowStep> steps = stepRepository.findByTemplateOrderByStepOrderAsc(instance.getTemplate());
-                return steps.stream()
-                        .filter(s -> s.getStepOrder() != null &&
-                                s.getStepOrder().equals(instance.getCurrentStepOrder()))
-                        .findFirst()
-                        .orElse(null);
-            }
-
-            return null;
-
-        } catch (Exception e) {
-            log.error("❌ Error getting current step for workflow {}: {}", instance.getId(), e.getMessage());
-            return null;
-        }
-    }
-
-    private StepOutcome evaluateStepOutcome(WorkflowInstance instance, WorkflowStep step) {
-        List<WorkflowTask> stepTasks = getStepTasks(instance, step);
-
-        if (stepTasks.isEmpty()) {
-            return StepOutcome.CONTINUE;
-        }
-
-        long approvals = stepTasks.stream()
-                .filter(t -> t.getAction() == TaskAction.APPROVE).count();
-        long rejections = stepTasks.stream()
-                .filter(t -> t.getAction() == TaskAction.REJECT).count();
-        long totalAssigned = stepTasks.size();
-
-        ApprovalPolicy policy = step.getApprovalPolicy() != null ? step.getApprovalPolicy() : ApprovalPolicy.QUORUM;
-
-        switch (policy) {
-            case UNANIMOUS:
-                if (rejections > 0)
-                    return StepOutcome.REJECTED;
-                if (approvals == totalAssigned)
-                    return StepOutcome.APPROVED;
-                break;
-            case MAJORITY:
-                long needed = (totalAssigned / 2) + 1;
-                if (approvals >= needed)
-                    return StepOutcome.APPROVED;
-                if (rejections >= needed)
-                    return StepOutcome.REJECTED;
-                break;
-            case ANY_ONE:
-                if (approvals > 0)
-                    return StepOutcome.APPROVED;
-                if (rejections > 0)
-                    return StepOutcome.REJECTED;
-                break;
-            case QUORUM:
-            default:
-                int required = (step.getRequiredApprovals() == null || step.getRequiredApprovals() <= 0)
-                        ? 1
-                        : step.getRequiredApprovals();
-                if (approvals >= required)
-                    return StepOutcome.APPROVED;
-                if (rejections > 0)
-                    return StepOutcome.REJECTED;
-                break;
-        }
-
-        return StepOutcome.CONTINUE;
-    }
-
-    private List<WorkflowTask> getStepTasks(WorkflowInstance instance, WorkflowStep step) {
-        if (instance.getTasks() == null) {
-            return new ArrayList<>();
-        }
-
-        return instance.getTasks().stream()
-                .filter(t -> t.getStep() != null &&
-                        t.getStep().getId().equals(step.getId()))
-                .collect(Collectors.toList());
+    /**
+     * Apply the compiled approval policy to the step's tally in the folded event state.
+     */
+    private CompiledWorkflowTemplate.StepOutcome evaluateStepOutcome(WorkflowState state,
+            CompiledWorkflowTemplate.Step step) {
+        WorkflowState.StepTally tally = state.tally(step.id());
+        return step.evaluate(tally.approvals(), tally.rejections(), tally.assigned());
     }
 
-    private boolean generateTasksForStep(WorkflowInstance instance, WorkflowTemplate template, int stepOrder) {
+    private boolean generateTasksForStep(WorkflowInstance instance, CompiledWorkflowTemplate template, int stepOrder,
+            WorkflowEventStream events) {
         try {
             log.info("🔄 Generating tasks for step {} in workflow {}", stepOrder, instance.getId());
 
-            if (template.getSteps() == null || template.getSteps().isEmpty()) {
+            if (!template.hasSteps()) {
                 log.warn("⚠️ Template has no steps defined");
                 return false;
             }
 
             boolean anyTaskCreated = false;
 
-            List<WorkflowStep> steps = template.getSteps().stream()
-                    .filter(step -> step.getStepOrder() != null && step.getStepOrder().equals(stepOrder))
-                    .collect(Collectors.toList());
+            for (CompiledWorkflowTemplate.Step step : template.stepsAt(stepOrder)) {
+                log.info("🔄 Processing step: '{}' (order: {})", step.name(), step.order());
 
-            for (WorkflowStep step : steps) {
-                log.info("🔄 Processing step: '{}' (order: {})", step.getName(), step.getStepOrder());
-
-                List<User> approvers = findApproversForStep(step);
+                List<User> approvers = findApproversForStep(template, step);
 
                 if (approvers.isEmpty()) {
-                    log.warn("⚠️ No approvers found for step: {}", step.getName());
+                    log.warn("⚠️ No approvers found for step: {}", step.name());
                     continue;
                 }
 
                 for (User approver : approvers) {
-                    WorkflowTask task = createTaskWithAssignment(instance, step, approver);
-                    taskRepository.save(task);
+                    WorkflowTask task = taskRepository.save(createTaskWithAssignment(instance, step, approver));
+                    instance.getTasks().add(task);
+                    taskInbox.taskOpened(task, instance, template, step, approver);
+                    events.append(WorkflowEvent.taskAssigned(task.getId(), step.id(), step.order(), approver.getId()));
 
                     logWorkflowHistory(instance, "TASK_ASSIGNED",
-                            "Task '" + step.getName() + "' assigned to " + getUserDisplayName(approver),
+                            "Task '" + step.name() + "' assigned to " + getUserDisplayName(approver),
                             instance.getInitiatedBy());
 
-                    sendTaskAssignmentNotification(approver, task);
+                    outbox.append(new TaskAssigned(instance.getId(), task.getId(), approver.getId(), step.order()));
                     anyTaskCreated = true;
                 }
             }
@@ -1175,51 +983,39 @@ private WorkflowTemplate loadTemplateWithStepsAndRoles(UUID templateId) {
             log.info("✅ Task generation completed for step {}. Tasks created: {}", stepOrder, anyTaskCreated);
             return anyTaskCreated;
 
+        } catch (DataAccessException e) {
+            throw e;
         } catch (Exception e) {
             log.error("❌ Error generating tasks for step {}: {}", stepOrder, e.getMessage(), e);
             return false;
         }
     }
 
-    private int getTotalStepsInTemplate(WorkflowTemplate template) {
-        try {
-            List<WorkflowStep> steps = stepRepository.findByTemplateOrderByStepOrderAsc(template);
-            return steps.stream()
-                    .mapToInt(step -> step.getStepOrder() != null ? step.getStepOrder() : 0)
-                    .max()
-                    .orElse(0);
-        } catch (Exception e) {
-            log.error("Error getting total steps: {}", e.getMessage());
-            return 0;
-        }
-    }
-
-    private void cancelRemainingStepTasks(WorkflowInstance instance, WorkflowStep step, String reason,
-            User currentUser) {
+    private void cancelRemainingStepTasks(WorkflowInstance instance, CompiledWorkflowTemplate.Step step,
+            String reason, User currentUser, WorkflowEventStream events) {
         List<WorkflowTask> pendingTasks = instance.getTasks().stream()
                 .filter(t -> t.getStep() != null &&
-                        t.getStep().getId().equals(step.getId()) &&
+                        t.getStep().getId().equals(step.id()) &&
                         t.getStatus() == TaskStatus.PENDING)
                 .collect(Collectors.toList());
 
+        // No catch here: a failed event append or inbox update must roll the whole action back
         for (WorkflowTask task : pendingTasks) {
-            try {
-                task.setStatus(TaskStatus.COMPLETED);
-                task.setAction(TaskAction.REJECT);
-                task.setComments(reason);
-                task.setCompletedBy(currentUser);
-                OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
-    task.setCreatedAt(now);
-    task.setCreatedDate(now);
-
-                taskRepository.saveAndFlush(task);
-
-                logWorkflowHistory(instance, "TASK_CANCELLED",
-                        "Task auto-cancelled: " + reason + " for " + getUserDisplayName(task.getAssignedTo()),
-                        currentUser);
-            } catch (Exception e) {
-                log.warn("Failed to cancel task {}: {}", task.getId(), e.getMessage());
-            }
+            task.setStatus(TaskStatus.COMPLETED);
+            task.setAction(TaskAction.REJECT);
+            task.setComments(reason);
+            task.setCompletedBy(currentUser);
+            OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+            task.setCreatedAt(now);
+            task.setCreatedDate(now);
+
+            events.append(WorkflowEvent.taskCancelled(task.getId(), currentUser.getId(), reason));
+            taskInbox.taskClosed(task.getId());
+
+            // History is best-effort and catches its own failures
+            logWorkflowHistory(instance, "TASK_CANCELLED",
+                    "Task auto-cancelled: " + reason + " for " + getUserDisplayName(task.getAssignedTo()),
+                    currentUser);
         }
     }
 
@@ -1239,74 +1035,6 @@ private WorkflowTemplate loadTemplateWithStepsAndRoles(UUID templateId) {
         return result;
     }
 
-    // ===== DTO CONVERSION METHODS =====
-
-    private Map<String, Object> convertTaskToDetailedDTO(WorkflowTask task) {
-        Map<String, Object> dto = new HashMap<>();
-
-        try {
-            dto.put("id", task.getId());
-            dto.put("title", task.getTitle() != null ? task.getTitle() : "Task");
-            dto.put("description", task.getDescription());
-            dto.put("status", task.getStatus().toString());
-            dto.put("comments", task.getComments());
-            dto.put("action", task.getAction() != null ? task.getAction().toString() : null);
-            dto.put("priority", task.getPriority() != null ? task.getPriority().toString() : "NORMAL");
-
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            dto.put("createdAt", task.getCreatedDate() != null ? task.getCreatedDate().format(formatter) : null);
-            dto.put("completedAt", task.getCompletedDate() != null ? task.getCompletedDate().format(formatter) : null);
-            dto.put("dueDate", task.getDueDate() != null ? task.getDueDate().format(formatter) : null);
-
-            // Safe assignee handling
-            if (task.getAssignedTo() != null) {
-                dto.put("assignedTo", getUserDisplayName(task.getAssignedTo()));
-                dto.put("assignedToId", task.getAssignedTo().getId());
-            } else {
-                dto.put("assignedTo", "Unassigned");
-                dto.put("assignedToId", null);
-            }
-
-            // Safe step handling
-            if (task.getStep() != null) {
-                dto.put("stepName", task.getStep().getName());
-                dto.put("stepOrder", task.getStep().getStepOrder());
-                dto.put("stepType", task.getStep().getType().toString());
-            } else {
-                dto.put("stepName", "Unknown Step");
-                dto.put("stepOrder", 0);
-                dto.put("stepType", "UNKNOWN");
-            }
-
-            // Add action capabilities
-            boolean isPending = task.getStatus() == TaskStatus.PENDING;
-            boolean isApprovalStep = task.getStep() != null && task.getStep().getType() == StepType.APPROVAL;
-
-            dto.put("canApprove", isPending && isApprovalStep);
-            dto.put("canReject", isPending && isApprovalStep);
-            dto.put("isPending", isPending);
-            dto.put("isOverdue", isTaskOverdue(task));
-
-            // Add workflow context
-            if (task.getWorkflowInstance() != null) {
-                dto.put("workflowId", task.getWorkflowInstance().getId());
-                dto.put("workflowTitle", task.getWorkflowInstance().getTitle());
-                dto.put("workflowStatus", task.getWorkflowInstance().getStatus().toString());
-            }
-
-            // Add completion details
-            if (task.getCompletedBy() != null) {
-                dto.put("completedByName", getUserDisplayName(task.getCompletedBy()));
-                dto.put("completedById", task.getCompletedBy().getId());
-            }
-
-        } catch (Exception e) {
-            log.warn("Error creating detailed task DTO: {}", e.getMessage());
-        }
-
-        return dto;
-    }
-
     // ===== UTILITY METHODS =====
 
     private String getUserDisplayName(User user) {
@@ -1316,11 +1044,6 @@ private WorkflowTemplate loadTemplateWithStepsAndRoles(UUID templateId) {
         return (fullName != null && !fullName.trim().isEmpty()) ? fullName : user.getUsername();
     }
 
- private boolean isTaskOverdue(WorkflowTask task) {
-    return task.getDueDate() != null &&
-            OffsetDateTime.now(ZoneOffset.UTC).isAfter(task.getDueDate()) && // ✅ FIXED: Use OffsetDateTime.now()
-            task.getStatus() == TaskStatus.PENDING;
-}
 
     private boolean canUserAccessWorkflow(User user, WorkflowInstance workflow) {
     try {
@@ -1367,8 +1090,7 @@ private WorkflowTemplate loadTemplateWithStepsAndRoles(UUID templateId) {
 
     private User getCurrentUserSafe() {
         try {
-            String username = SecurityContextHolder.getContext().getAuthentication().getName();
-            return userRepository.findByUsername(username)
+            return userDirectory.currentUser()
                     .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found"));
         } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Authentication error");
@@ -1442,7 +1164,8 @@ private WorkflowTemplate loadTemplateWithStepsAndRoles(UUID templateId) {
         }
     }
 
-    private void cancelPendingTasks(WorkflowInstance instance, String reason, User currentUser) {
+    private void cancelPendingTasks(WorkflowInstance instance, String reason, User currentUser,
+            WorkflowEventStream events) {
         if (instance.getTasks() == null)
             return;
 
@@ -1451,23 +1174,20 @@ private WorkflowTemplate loadTemplateWithStepsAndRoles(UUID templateId) {
                 .collect(Collectors.toList());
 
         for (WorkflowTask task : pendingTasks) {
-            try {
-                task.setStatus(TaskStatus.COMPLETED);
-                task.setAction(TaskAction.REJECT);
-                task.setComments("Workflow cancelled: " + (reason != null ? reason : "No reason provided"));
-                task.setCompletedBy(currentUser);
-                OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
-    task.setCreatedAt(now);
-    task.setCreatedDate(now);
-
-                taskRepository.saveAndFlush(task);
-
-                logWorkflowHistory(instance, "TASK_CANCELLED",
-                        "Task cancelled due to workflow cancellation for " + getUserDisplayName(task.getAssignedTo()),
-                        currentUser);
-            } catch (Exception e) {
-                log.warn("Failed to cancel task {}: {}", task.getId(), e.getMessage());
-            }
+            task.setStatus(TaskStatus.COMPLETED);
+            task.setAction(TaskAction.REJECT);
+            task.setComments("Workflow cancelled: " + (reason != null ? reason : "No reason provided"));
+            task.setCompletedBy(currentUser);
+            OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+            task.setCreatedAt(now);
+            task.setCreatedDate(now);
+
+            events.append(WorkflowEvent.taskCancelled(task.getId(), currentUser.getId(), reason));
+            taskInbox.taskClosed(task.getId());
+
+            logWorkflowHistory(instance, "TASK_CANCELLED",
+                    "Task cancelled due to workflow cancellation for " + getUserDisplayName(task.getAssignedTo()),
+                    currentUser);
         }
     }
 
@@ -1581,17 +1301,6 @@ private WorkflowTemplate loadTemplateWithStepsAndRoles(UUID templateId) {
         }
     }
 
-    private void auditWorkflowAction(WorkflowInstance instance, String action, User performedBy, String details) {
-        try {
-            String message = action + " - Workflow: " + instance.getTitle() +
-                    (details != null && !details.isEmpty() ? " (" + details + ")" : "");
-
-            auditService.logWorkflowAction(message, instance.getId().toString(), performedBy.getUsername());
-        } catch (Exception e) {
-            log.warn("Failed to audit workflow action: {}", e.getMessage());
-        }
-    }
-
     private void handleWorkflowCreationFailure(UUID templateId, Long userId, Exception e) {
         try {
             User user = userRepository.findById(userId).orElse(null);
@@ -1607,56 +1316,6 @@ private WorkflowTemplate loadTemplateWithStepsAndRoles(UUID templateId) {
         }
     }
 
-    // ===== NOTIFICATION METHODS =====
-
-    private void sendTaskAssignmentNotification(User assignee, WorkflowTask task) {
-        try {
-            notificationService.notifyTaskAssigned(assignee, task);
-        } catch (Exception e) {
-            log.warn("Failed to send task assignment notification to {}: {}",
-                    assignee.getUsername(), e.getMessage());
-        }
-    }
-
-    private void sendTaskCompletionNotification(User completedBy, WorkflowTask task, TaskAction action) {
-        try {
-            notificationService.notifyTaskCompleted(completedBy, task, action);
-        } catch (Exception e) {
-            log.warn("Failed to send task completion notification: {}", e.getMessage());
-        }
-    }
-
-    private void sendWorkflowApprovalNotification(WorkflowInstance instance) {
-        try {
-            if (instance.getInitiatedBy() != null) {
-                notificationService.notifyWorkflowApproved(instance.getInitiatedBy(), instance);
-            }
-        } catch (Exception e) {
-            log.warn("Failed to send workflow approval notification: {}", e.getMessage());
-        }
-    }
-
-    private void sendWorkflowRejectionNotification(WorkflowInstance instance) {
-        try {
-            if (instance.getInitiatedBy() != null) {
-                notificationService.notifyWorkflowRejected(instance.getInitiatedBy(), instance);
-            }
-        } catch (Exception e) {
-            log.warn("Failed to send workflow rejection notification: {}", e.getMessage());
-        }
-    }
-
-    private void sendCancellationNotifications(WorkflowInstance instance, User currentUser) {
-        try {
-            if (instance.getInitiatedBy() != null &&
-                    !instance.getInitiatedBy().getId().equals(currentUser.getId())) {
-                notificationService.notifyWorkflowRejected(instance.getInitiatedBy(), instance);
-            }
-        } catch (Exception e) {
-            log.warn("Failed to send cancellation notification: {}", e.getMessage());
-        }
-    }
-
     /**
      * ✅ DEBUG: Force database timestamp update and verify
      */
@@ -0,0 +1,154 @@
+package com.clouddocs.backend.service;
+
+import com.clouddocs.backend.entity.TaskAction;
+import com.clouddocs.backend.entity.TaskStatus;
+import com.clouddocs.backend.entity.WorkflowEvent;
+import com.clouddocs.backend.entity.WorkflowStatus;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * State of a workflow instance derived by folding its event log.
+ *
+ * Only {@link WorkflowEventStream} mutates a state, one event at a time, in sequence order.
+ */
+public final class WorkflowState {
+
+    /**
+     * Task view as seen by the event log.
+     */
+    public static final class TaskState {
+        private final Long taskId;
+        private final Long stepId;
+        private final Integer stepOrder;
+        private final Long assigneeId;
+        private TaskStatus status = TaskStatus.PENDING;
+        private TaskAction action;
+
+        TaskState(Long taskId, Long stepId, Integer stepOrder, Long assigneeId) {
+            this.taskId = taskId;
+            this.stepId = stepId;
+            this.stepOrder = stepOrder;
+            this.assigneeId = assigneeId;
+        }
+
+        public Long getTaskId() { return taskId; }
+        public Long getStepId() { return stepId; }
+        public Integer getStepOrder() { return stepOrder; }
+        public Long getAssigneeId() { return assigneeId; }
+        public TaskStatus getStatus() { return status; }
+        public TaskAction getAction() { return action; }
+
+        public boolean isOpen() {
+            return status != TaskStatus.COMPLETED && status != TaskStatus.CANCELLED;
+        }
+    }
+
+    /**
+     * Task action counts for one step.
+     */
+    public record StepTally(long approvals, long rejections, long assigned) {}
+
+    private final Long instanceId;
+    private long lastSequence;
+    private WorkflowStatus status = WorkflowStatus.PENDING;
+    private int currentStepOrder = 1;
+    private final Map<Long, TaskState> tasks = new LinkedHashMap<>();
+
+    WorkflowState(Long instanceId) {
+        this.instanceId = instanceId;
+    }
+
+    public static WorkflowState fold(Long instanceId, List<WorkflowEvent> events) {
+        WorkflowState state = new WorkflowState(instanceId);
+        for (WorkflowEvent event : events) {
+            state.apply(event);
+        }
+        return state;
+    }
+
+    void apply(WorkflowEvent event) {
+        if (event.getSequence() != null) {
+            lastSequence = event.getSequence();
+        }
+
+        switch (event.getType()) {
+            case WORKFLOW_STARTED:
+                status = WorkflowStatus.IN_PROGRESS;
+                if (event.getStepOrder() != null) {
+                    currentStepOrder = event.getStepOrder();
+                }
+                break;
+            case TASK_ASSIGNED:
+                tasks.put(event.getTaskId(),
+                        new TaskState(event.getTaskId(), event.getStepId(), event.getStepOrder(), event.getUserId()));
+                break;
+            case TASK_COMPLETED:
+            case TASK_CANCELLED:
+                TaskState task = tasks.get(event.getTaskId());
+                if (task != null) {
+                    task.status = TaskStatus.COMPLETED;
+                    task.action = event.getTaskAction();
+                }
+                break;
+            case STEP_ADVANCED:
+                currentStepOrder = event.getStepOrder();
+                break;
+            case WORKFLOW_APPROVED:
+                status = WorkflowStatus.APPROVED;
+                break;
+            case WORKFLOW_REJECTED:
+                status = WorkflowStatus.REJECTED;
+                break;
+            case WORKFLOW_CANCELLED:
+                status = WorkflowStatus.CANCELLED;
+                break;
+            default:
+                break;
+        }
+    }
+
+    // ===== QUERIES =====
+
+    public Long getInstanceId() { return instanceId; }
+    public long getLastSequence() { return lastSequence; }
+    public WorkflowStatus getStatus() { return status; }
+    public int getCurrentStepOrder() { return currentStepOrder; }
+
+    public Collection<TaskState> getTasks() {
+        return Collections.unmodifiableCollection(tasks.values());
+    }
+
+    public boolean isFinished() {
+        return status == WorkflowStatus.APPROVED
+                || status == WorkflowStatus.REJECTED
+                || status == WorkflowStatus.CANCELLED;
+    }
+
+    public boolean isTaskOpen(Long taskId) {
+        TaskState task = tasks.get(taskId);
+        return task != null && task.isOpen();
+    }
+
+    public StepTally tally(Long stepId) {
+        long approvals = 0;
+        long rejections = 0;
+        long assigned = 0;
+        for (TaskState task : tasks.values()) {
+            if (!stepId.equals(task.stepId)) {
+                continue;
+            }
+            assigned++;
+            if (task.action == TaskAction.APPROVE) {
+                approvals++;
+            } else if (task.action == TaskAction.REJECT) {
+                rejections++;
+            }
+        }
+        return new StepTally(approvals, rejections, assigned);
+    }
+}
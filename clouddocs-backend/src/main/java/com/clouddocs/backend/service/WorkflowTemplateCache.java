@@ -0,0 +1,89 @@
+package com.clouddocs.backend.service;
+
+import com.clouddocs.backend.entity.WorkflowTemplate;
+import com.clouddocs.backend.event.WorkflowTemplateChangedEvent;
+import com.clouddocs.backend.repository.WorkflowTemplateRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of {@link CompiledWorkflowTemplate}s.
+ *
+ * A template is compiled once on first use (one fetch-join query plus its direct approvers)
+ * and then served from memory. Each compiled entry carries the template version (updatedAt);
+ * entries are evicted when a {@link WorkflowTemplateChangedEvent} is published after a
+ * template edit commits.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WorkflowTemplateCache {
+
+    private final WorkflowTemplateRepository templateRepository;
+
+    private final Map<UUID, CompiledWorkflowTemplate> compiled = new ConcurrentHashMap<>();
+
+    /**
+     * Bumped on every eviction; templates compiled under an older generation are not cached.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Get the compiled form of a template, compiling it on a miss.
+     *
+     * @throws ResponseStatusException NOT_FOUND if the template does not exist
+     */
+    @Transactional(readOnly = true)
+    public CompiledWorkflowTemplate get(UUID templateId) {
+        CompiledWorkflowTemplate cached = compiled.get(templateId);
+        if (cached != null) {
+            return cached;
+        }
+
+        long gen = generation.get();
+        WorkflowTemplate template = templateRepository.findByIdWithStepsAndRoles(templateId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Template not found"));
+
+        CompiledWorkflowTemplate result = CompiledWorkflowTemplate.compile(template);
+        if (generation.get() == gen) {
+            compiled.put(templateId, result);
+        }
+
+        log.info("✅ Compiled template '{}' (version {}) with {} step(s)",
+                result.name(), result.version(), result.totalSteps());
+        return result;
+    }
+
+    public void evict(UUID templateId) {
+        generation.incrementAndGet();
+        compiled.remove(templateId);
+    }
+
+    public void evictAll() {
+        generation.incrementAndGet();
+        compiled.clear();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTemplateChanged(WorkflowTemplateChangedEvent event) {
+        evict(event.templateId());
+        log.info("Compiled template {} evicted: {}", event.templateId(), event.reason());
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "templates", compiled.size(),
+                "generation", generation.get());
+    }
+}
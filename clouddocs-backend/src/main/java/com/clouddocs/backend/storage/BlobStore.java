@@ -0,0 +1,87 @@
+package com.clouddocs.backend.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * Where stored file bytes live.
+ *
+ * Keys are relative, slash-separated paths such as {@code 2025/01/report_x.pdf} or
+ * {@code cas/ab/cd/<sha256>}; they are what {@code Document.filePath} holds. Implementations
+ * stream in both directions and never buffer a whole file in memory. The backend is chosen
+ * with {@code storage.backend} ({@code local} or {@code s3}).
+ */
+public interface BlobStore {
+
+    /**
+     * Store {@code size} bytes read from {@code in} under {@code key}, replacing any existing
+     * blob. Readers never observe a partially written blob. The stream is not closed.
+     */
+    void put(String key, InputStream in, long size, String contentType) throws IOException;
+
+    /**
+     * Store a local file under {@code key}. The source may be moved rather than copied, so
+     * callers must not rely on it afterwards.
+     */
+    void putFile(String key, Path source, String contentType) throws IOException;
+
+    /**
+     * Open the whole blob.
+     *
+     * @throws java.io.FileNotFoundException if there is no such blob
+     */
+    InputStream get(String key) throws IOException;
+
+    /**
+     * Open bytes {@code start..endInclusive} of the blob.
+     *
+     * @throws java.io.FileNotFoundException if there is no such blob
+     */
+    InputStream get(String key, long start, long endInclusive) throws IOException;
+
+    /**
+     * Size in bytes, or empty if there is no such blob.
+     */
+    OptionalLong size(String key) throws IOException;
+
+    default boolean exists(String key) throws IOException {
+        return size(key).isPresent();
+    }
+
+    /**
+     * @return true if a blob was removed
+     */
+    boolean delete(String key) throws IOException;
+
+    /**
+     * Up to {@code limit} keys starting with {@code prefix}.
+     */
+    List<String> list(String prefix, int limit) throws IOException;
+
+    /**
+     * The blob as a local file, when the backend keeps one. Lets callers use zero-copy
+     * transfers such as sendfile; remote backends return empty.
+     */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+    /**
+     * Reject keys that could escape the store's namespace.
+     */
+    static String checkKey(String key) {
+        if (key == null || key.isBlank() || key.startsWith("/") || key.contains("\\")) {
+            throw new IllegalArgumentException("Invalid blob key: " + key);
+        }
+        for (String segment : key.split("/")) {
+            if (segment.isEmpty() || segment.equals(".") || segment.equals("..")) {
+                throw new IllegalArgumentException("Invalid blob key: " + key);
+            }
+        }
+        return key;
+    }
+}
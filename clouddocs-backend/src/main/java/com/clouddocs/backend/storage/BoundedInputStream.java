@@ -0,0 +1,69 @@
+package com.clouddocs.backend.storage;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads at most {@code limit} bytes from the wrapped stream. Used to carve byte ranges and
+ * multipart-upload parts out of a larger stream without copying them.
+ */
+class BoundedInputStream extends FilterInputStream {
+
+    private long remaining;
+    private final boolean closeUnderlying;
+
+    BoundedInputStream(InputStream in, long limit, boolean closeUnderlying) {
+        super(in);
+        this.remaining = limit;
+        this.closeUnderlying = closeUnderlying;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (remaining <= 0) {
+            return -1;
+        }
+        int b = super.read();
+        if (b >= 0) {
+            remaining--;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (remaining <= 0) {
+            return -1;
+        }
+        int n = super.read(b, off, (int) Math.min(len, remaining));
+        if (n > 0) {
+            remaining -= n;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(Math.min(n, remaining));
+        remaining -= skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(super.available(), remaining);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closeUnderlying) {
+            super.close();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.clouddocs.backend.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Decides whether a stored file is worth compressing at rest, and applies the codec.
+ *
+ * Formats that are already compressed are skipped by MIME type; everything else is probed by
+ * deflating its first block, and only compressed when that block shrinks enough. The codec is
+ * gzip because it doubles as an HTTP {@code Content-Encoding}, which lets downloads pass the
+ * stored bytes straight through to clients that accept it.
+ */
+@Component
+public class CompressionPolicy {
+
+    /** Codec name as recorded in metadata; also the HTTP content coding. */
+    public static final String GZIP = "gzip";
+
+    private static final int PROBE_BYTES = 64 * 1024;
+
+    private static final Set<String> INCOMPRESSIBLE_PREFIXES = Set.of("image/", "video/", "audio/");
+    private static final Set<String> INCOMPRESSIBLE_TYPES = Set.of(
+            "application/zip", "application/gzip", "application/x-gzip", "application/x-7z-compressed",
+            "application/x-rar-compressed", "application/x-bzip2", "application/x-xz", "application/zstd",
+            "application/java-archive", "application/epub+zip",
+            // OOXML and ODF containers are zip files; their probe would fail anyway
+            "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+            "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+            "application/vnd.openxmlformats-officedocument.presentationml.presentation",
+            "application/vnd.oasis.opendocument.text",
+            "application/vnd.oasis.opendocument.spreadsheet");
+
+    @Value("${file.storage.compression.enabled:true}")
+    private boolean enabled;
+
+    @Value("${file.storage.compression.min-bytes:4096}")
+    private long minBytes;
+
+    // Compress only if the probe block shrinks to at most this fraction of its size
+    @Value("${file.storage.compression.max-ratio:0.8}")
+    private double maxRatio;
+
+    @Value("${file.storage.compression.level:6}")
+    private int level;
+
+    /**
+     * The codec to store this file with, or null to store it raw.
+     */
+    public String choose(Path file, String mimeType) throws IOException {
+        if (!enabled || Files.size(file) < minBytes || isIncompressible(mimeType)) {
+            return null;
+        }
+        byte[] probe;
+        try (InputStream in = Files.newInputStream(file)) {
+            probe = in.readNBytes(PROBE_BYTES);
+        }
+        return deflatedSize(probe) <= probe.length * maxRatio ? GZIP : null;
+    }
+
+    /**
+     * Write {@code source} to {@code target} encoded with {@code codec}.
+     */
+    public void encode(String codec, Path source, Path target) throws IOException {
+        requireKnown(codec);
+        try (InputStream in = Files.newInputStream(source);
+             OutputStream out = new LeveledGzipOutputStream(Files.newOutputStream(target), level)) {
+            in.transferTo(out);
+        }
+    }
+
+    /**
+     * Wrap a stored stream so it yields the original bytes. A null codec means stored raw.
+     */
+    public InputStream decode(String codec, InputStream stored) throws IOException {
+        if (codec == null) {
+            return stored;
+        }
+        requireKnown(codec);
+        return new GZIPInputStream(stored, 64 * 1024);
+    }
+
+    public static boolean isIncompressible(String mimeType) {
+        if (mimeType == null) {
+            return false;
+        }
+        String type = mimeType.toLowerCase();
+        int semicolon = type.indexOf(';');
+        if (semicolon >= 0) {
+            type = type.substring(0, semicolon).trim();
+        }
+        if (INCOMPRESSIBLE_TYPES.contains(type)) {
+            return true;
+        }
+        for (String prefix : INCOMPRESSIBLE_PREFIXES) {
+            // SVG is XML text and compresses well
+            if (type.startsWith(prefix) && !type.equals("image/svg+xml")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int deflatedSize(byte[] probe) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(probe);
+            deflater.finish();
+            byte[] buffer = new byte[8192];
+            int total = 0;
+            while (!deflater.finished()) {
+                total += deflater.deflate(buffer);
+            }
+            return total;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void requireKnown(String codec) {
+        if (!GZIP.equals(codec)) {
+            throw new IllegalArgumentException("Unknown storage codec: " + codec);
+        }
+    }
+
+    private static final class LeveledGzipOutputStream extends GZIPOutputStream {
+        LeveledGzipOutputStream(OutputStream out, int level) throws IOException {
+            super(out, 64 * 1024);
+            def.setLevel(level);
+        }
+    }
+}
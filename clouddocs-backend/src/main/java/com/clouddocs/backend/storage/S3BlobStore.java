@@ -0,0 +1,387 @@
+package com.clouddocs.backend.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@link BlobStore} speaking the S3 REST API, so it works with AWS S3 and with S3-compatible
+ * servers such as MinIO (use {@code storage.s3.path-style=true} for those).
+ *
+ * Requests are signed with SigV4 using {@code UNSIGNED-PAYLOAD}, which lets bodies stream
+ * straight from the source without being read twice. Blobs larger than one part are sent as a
+ * multipart upload, one part at a time, so memory use does not depend on file size. Downloads
+ * and ranges are streamed from the response body.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "s3")
+public class S3BlobStore implements BlobStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3BlobStore.class);
+
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final Pattern UPLOAD_ID = Pattern.compile("<UploadId>([^<]+)</UploadId>");
+    private static final Pattern LIST_KEY = Pattern.compile("<Key>([^<]+)</Key>");
+    // S3 requires every part but the last to be at least 5 MiB
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    private final HttpClient http;
+    private final URI endpoint;
+    private final String bucket;
+    private final String region;
+    private final String accessKey;
+    private final String secretKey;
+    private final boolean pathStyle;
+    private final long partSize;
+
+    public S3BlobStore(@Value("${storage.s3.endpoint:https://s3.amazonaws.com}") String endpoint,
+                       @Value("${storage.s3.bucket}") String bucket,
+                       @Value("${storage.s3.region:us-east-1}") String region,
+                       @Value("${storage.s3.access-key}") String accessKey,
+                       @Value("${storage.s3.secret-key}") String secretKey,
+                       @Value("${storage.s3.path-style:false}") boolean pathStyle,
+                       @Value("${storage.s3.part-size-mb:16}") long partSizeMb) {
+        this.endpoint = URI.create(endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint);
+        this.bucket = bucket;
+        this.region = region;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.pathStyle = pathStyle;
+        this.partSize = Math.max(MIN_PART_SIZE, partSizeMb * 1024 * 1024);
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        logger.info("S3 blob store: bucket {} at {} ({} addressing)", bucket, this.endpoint, pathStyle ? "path" : "virtual-host");
+    }
+
+    @Override
+    public void put(String key, InputStream in, long size, String contentType) throws IOException {
+        BlobStore.checkKey(key);
+        // Parts are read off the shared stream in order, so each one is only opened once
+        upload(key, size, contentType, (offset, length) -> new BoundedInputStream(in, length, false));
+    }
+
+    @Override
+    public void putFile(String key, Path source, String contentType) throws IOException {
+        BlobStore.checkKey(key);
+        upload(key, Files.size(source), contentType, (offset, length) -> {
+            FileChannel channel = FileChannel.open(source, StandardOpenOption.READ);
+            channel.position(offset);
+            return new BoundedInputStream(Channels.newInputStream(channel), length, true);
+        });
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        return open(key, null);
+    }
+
+    @Override
+    public InputStream get(String key, long start, long endInclusive) throws IOException {
+        return open(key, "bytes=" + start + "-" + endInclusive);
+    }
+
+    @Override
+    public OptionalLong size(String key) throws IOException {
+        HttpResponse<Void> response = send(request("HEAD", key, Map.of(), Map.of())
+                .method("HEAD", HttpRequest.BodyPublishers.noBody()), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) {
+            return OptionalLong.empty();
+        }
+        expectSuccess(response.statusCode(), "HEAD", key, null);
+        return response.headers().firstValueAsLong("Content-Length");
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        // S3 answers 204 whether or not the key existed, so check first to keep the contract honest
+        if (!exists(key)) {
+            return false;
+        }
+        HttpResponse<String> response = send(request("DELETE", key, Map.of(), Map.of()).DELETE(),
+                HttpResponse.BodyHandlers.ofString());
+        expectSuccess(response.statusCode(), "DELETE", key, response.body());
+        return true;
+    }
+
+    @Override
+    public List<String> list(String prefix, int limit) throws IOException {
+        Map<String, String> query = new TreeMap<>();
+        query.put("list-type", "2");
+        query.put("prefix", prefix);
+        query.put("max-keys", String.valueOf(Math.min(limit, 1000)));
+        HttpResponse<String> response = send(request("GET", null, query, Map.of()).GET(),
+                HttpResponse.BodyHandlers.ofString());
+        expectSuccess(response.statusCode(), "LIST", prefix, response.body());
+
+        List<String> keys = new ArrayList<>();
+        Matcher m = LIST_KEY.matcher(response.body());
+        while (m.find() && keys.size() < limit) {
+            keys.add(unescapeXml(m.group(1)));
+        }
+        return keys;
+    }
+
+    // ===== UPLOADS =====
+
+    @FunctionalInterface
+    private interface PartSource {
+        InputStream open(long offset, long length) throws IOException;
+    }
+
+    private void upload(String key, long size, String contentType, PartSource source) throws IOException {
+        if (size < 0) {
+            throw new IllegalArgumentException("Blob size must be known for " + key);
+        }
+        if (size <= partSize) {
+            putObject(key, size, contentType, source);
+        } else {
+            multipartUpload(key, size, contentType, source);
+        }
+    }
+
+    private void putObject(String key, long size, String contentType, PartSource source) throws IOException {
+        HttpRequest.Builder builder = request("PUT", key, Map.of(), contentHeaders(contentType))
+                .PUT(streaming(source, 0, size));
+        HttpResponse<String> response = send(builder, HttpResponse.BodyHandlers.ofString());
+        expectSuccess(response.statusCode(), "PUT", key, response.body());
+    }
+
+    private void multipartUpload(String key, long size, String contentType, PartSource source) throws IOException {
+        HttpResponse<String> created = send(request("POST", key, Map.of("uploads", ""), contentHeaders(contentType))
+                .POST(HttpRequest.BodyPublishers.noBody()), HttpResponse.BodyHandlers.ofString());
+        expectSuccess(created.statusCode(), "CreateMultipartUpload", key, created.body());
+        Matcher m = UPLOAD_ID.matcher(created.body());
+        if (!m.find()) {
+            throw new IOException("S3 CreateMultipartUpload for " + key + " returned no upload id");
+        }
+        String uploadId = m.group(1);
+
+        try {
+            StringBuilder complete = new StringBuilder("<CompleteMultipartUpload>");
+            int partNumber = 1;
+            for (long offset = 0; offset < size; offset += partSize, partNumber++) {
+                long length = Math.min(partSize, size - offset);
+                Map<String, String> query = Map.of("partNumber", String.valueOf(partNumber), "uploadId", uploadId);
+                HttpResponse<String> part = send(request("PUT", key, query, Map.of())
+                        .PUT(streaming(source, offset, length)), HttpResponse.BodyHandlers.ofString());
+                expectSuccess(part.statusCode(), "UploadPart " + partNumber, key, part.body());
+                String etag = part.headers().firstValue("ETag")
+                        .orElseThrow(() -> new IOException("S3 UploadPart returned no ETag for " + key));
+                complete.append("<Part><PartNumber>").append(partNumber).append("</PartNumber><ETag>")
+                        .append(escapeXml(etag)).append("</ETag></Part>");
+            }
+            complete.append("</CompleteMultipartUpload>");
+
+            HttpResponse<String> done = send(request("POST", key, Map.of("uploadId", uploadId), Map.of())
+                            .POST(HttpRequest.BodyPublishers.ofString(complete.toString())),
+                    HttpResponse.BodyHandlers.ofString());
+            // CompleteMultipartUpload can fail with a 200 and an <Error> body
+            if (done.body() != null && done.body().contains("<Error>")) {
+                throw new IOException("S3 CompleteMultipartUpload failed for " + key + ": " + done.body());
+            }
+            expectSuccess(done.statusCode(), "CompleteMultipartUpload", key, done.body());
+        } catch (IOException | RuntimeException e) {
+            abort(key, uploadId);
+            throw e;
+        }
+    }
+
+    private void abort(String key, String uploadId) {
+        try {
+            send(request("DELETE", key, Map.of("uploadId", uploadId), Map.of()).DELETE(),
+                    HttpResponse.BodyHandlers.discarding());
+        } catch (Exception e) {
+            logger.warn("Failed to abort multipart upload {} for {}: {}", uploadId, key, e.getMessage());
+        }
+    }
+
+    private static HttpRequest.BodyPublisher streaming(PartSource source, long offset, long length) {
+        return HttpRequest.BodyPublishers.fromPublisher(HttpRequest.BodyPublishers.ofInputStream(() -> {
+            try {
+                return source.open(offset, length);
+            } catch (IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+        }), length);
+    }
+
+    private static Map<String, String> contentHeaders(String contentType) {
+        return contentType != null ? Map.of("Content-Type", contentType) : Map.of();
+    }
+
+    // ===== DOWNLOADS =====
+
+    private InputStream open(String key, String range) throws IOException {
+        Map<String, String> headers = range != null ? Map.of("Range", range) : Map.of();
+        HttpResponse<InputStream> response = send(request("GET", key, Map.of(), headers).GET(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        int status = response.statusCode();
+        if (status == 200 || status == 206) {
+            return response.body();
+        }
+        String body;
+        try (InputStream error = response.body()) {
+            body = new String(error.readNBytes(2048), StandardCharsets.UTF_8);
+        }
+        if (status == 404) {
+            throw new FileNotFoundException("Blob not found " + key);
+        }
+        throw new IOException("S3 GET " + key + " failed with " + status + ": " + body);
+    }
+
+    // ===== SIGV4 =====
+
+    /**
+     * Build a signed request. {@code key} may be null for bucket-level calls.
+     */
+    private HttpRequest.Builder request(String method, String key, Map<String, String> query, Map<String, String> headers) {
+        String path = pathStyle ? "/" + encode(bucket, true) : "";
+        path += key != null ? "/" + encode(key, false) : "/";
+        String host = pathStyle ? endpoint.getHost() : bucket + "." + endpoint.getHost();
+        if (endpoint.getPort() != -1) {
+            host += ":" + endpoint.getPort();
+        }
+
+        TreeMap<String, String> sortedQuery = new TreeMap<>();
+        query.forEach((k, v) -> sortedQuery.put(encode(k, true), encode(v, true)));
+        StringBuilder canonicalQuery = new StringBuilder();
+        sortedQuery.forEach((k, v) -> {
+            if (!canonicalQuery.isEmpty()) canonicalQuery.append('&');
+            canonicalQuery.append(k).append('=').append(v);
+        });
+
+        String amzDate = ZonedDateTime.now(ZoneOffset.UTC).format(AMZ_DATE);
+        String date = amzDate.substring(0, 8);
+
+        TreeMap<String, String> signed = new TreeMap<>();
+        signed.put("host", host);
+        signed.put("x-amz-content-sha256", UNSIGNED_PAYLOAD);
+        signed.put("x-amz-date", amzDate);
+        headers.forEach((name, value) -> signed.put(name.toLowerCase(), value.trim()));
+
+        StringBuilder canonicalHeaders = new StringBuilder();
+        signed.forEach((name, value) -> canonicalHeaders.append(name).append(':').append(value).append('\n'));
+        String signedHeaders = String.join(";", signed.keySet());
+
+        String canonicalRequest = method + "\n" + path + "\n" + canonicalQuery + "\n"
+                + canonicalHeaders + "\n" + signedHeaders + "\n" + UNSIGNED_PAYLOAD;
+        String scope = date + "/" + region + "/s3/aws4_request";
+        String stringToSign = "AWS4-HMAC-SHA256\n" + amzDate + "\n" + scope + "\n" + hex(sha256(canonicalRequest));
+
+        byte[] signingKey = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        signingKey = hmac(signingKey, region);
+        signingKey = hmac(signingKey, "s3");
+        signingKey = hmac(signingKey, "aws4_request");
+        String signature = hex(hmac(signingKey, stringToSign));
+
+        String uri = endpoint.getScheme() + "://" + host + path + (canonicalQuery.isEmpty() ? "" : "?" + canonicalQuery);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(uri))
+                .timeout(Duration.ofMinutes(10))
+                .header("x-amz-content-sha256", UNSIGNED_PAYLOAD)
+                .header("x-amz-date", amzDate)
+                .header("Authorization", "AWS4-HMAC-SHA256 Credential=" + accessKey + "/" + scope
+                        + ", SignedHeaders=" + signedHeaders + ", Signature=" + signature);
+        headers.forEach(builder::header);
+        return builder;
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest.Builder builder, HttpResponse.BodyHandler<T> handler) throws IOException {
+        try {
+            return http.send(builder.build(), handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while talking to S3", e);
+        } catch (java.io.UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void expectSuccess(int status, String operation, String key, String body) throws IOException {
+        if (status / 100 != 2) {
+            throw new IOException("S3 " + operation + " " + key + " failed with " + status
+                    + (body != null && !body.isBlank() ? ": " + body : ""));
+        }
+    }
+
+    /**
+     * RFC 3986 encoding as SigV4 wants it; slashes survive in object keys.
+     */
+    private static String encode(String value, boolean encodeSlash) {
+        StringBuilder out = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || (c == '/' && !encodeSlash)) {
+                out.append(c);
+            } else {
+                out.append('%').append(String.format("%02X", b & 0xFF));
+            }
+        }
+        return out.toString();
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String value) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    private static String escapeXml(String value) {
+        return value.replace("&", "&amp;").replace("\"", "&quot;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static String unescapeXml(String value) {
+        return value.replace("&quot;", "\"").replace("&lt;", "<").replace("&gt;", ">").replace("&apos;", "'").replace("&amp;", "&");
+    }
+}
@@ -0,0 +1,271 @@
+package com.clouddocs.backend.service;
+
+import com.clouddocs.backend.entity.AuditLog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exercises the ring and the journal without a database or the writer thread: the JDBC calls
+ * are recorded and batches are drained and replayed by hand.
+ */
+class AuditWriterTest {
+
+    @TempDir
+    Path journalDir;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final RecordingJdbcTemplate jdbcTemplate = new RecordingJdbcTemplate();
+
+    private AuditWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        writer = new AuditWriter(jdbcTemplate, objectMapper);
+        ReflectionTestUtils.setField(writer, "batchSize", 2);
+        ReflectionTestUtils.setField(writer, "replayIntervalMs", 30_000L);
+        ReflectionTestUtils.setField(writer, "journal", journalDir);
+        ReflectionTestUtils.setField(writer, "ring", new AuditWriter.RingBuffer<AuditWriter.Entry>(4));
+    }
+
+    @Test
+    void ringRoundsCapacityUpToAPowerOfTwo() {
+        assertThat(new AuditWriter.RingBuffer<String>(4).capacity()).isEqualTo(4);
+        assertThat(new AuditWriter.RingBuffer<String>(5).capacity()).isEqualTo(8);
+        assertThat(new AuditWriter.RingBuffer<String>(9).capacity()).isEqualTo(16);
+    }
+
+    @Test
+    void ringKeepsFifoOrderAcrossWraparound() {
+        AuditWriter.RingBuffer<Integer> ring = new AuditWriter.RingBuffer<>(4);
+        List<Integer> polled = new ArrayList<>();
+        int next = 0;
+        // Ten laps around a four-slot ring with the consumer trailing three slots behind
+        for (; next < 40; next++) {
+            assertThat(ring.offer(next)).isTrue();
+            if (ring.size() == 3) {
+                polled.add(ring.poll());
+            }
+        }
+        Integer value;
+        while ((value = ring.poll()) != null) {
+            polled.add(value);
+        }
+
+        assertThat(polled).hasSize(next);
+        for (int i = 0; i < next; i++) {
+            assertThat(polled.get(i)).isEqualTo(i);
+        }
+        assertThat(ring.size()).isZero();
+    }
+
+    @Test
+    void fullRingRejectsUntilASlotIsFreed() {
+        AuditWriter.RingBuffer<Integer> ring = new AuditWriter.RingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(ring.offer(i)).isTrue();
+        }
+        assertThat(ring.offer(4)).isFalse();
+        assertThat(ring.size()).isEqualTo(4);
+
+        assertThat(ring.poll()).isEqualTo(0);
+        assertThat(ring.offer(4)).isTrue();
+        assertThat(ring.offer(5)).isFalse();
+        assertThat(List.of(ring.poll(), ring.poll(), ring.poll(), ring.poll())).containsExactly(1, 2, 3, 4);
+        assertThat(ring.poll()).isNull();
+    }
+
+    @Test
+    void fullBufferSpillsOverflowToTheJournal() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            writer.enqueue(entry("a" + i));
+        }
+
+        Map<String, Object> stats = writer.getStats();
+        assertThat(stats.get("buffered")).isEqualTo(4);
+        assertThat(stats.get("spilled")).isEqualTo(2L);
+        assertThat(spilledActivities()).containsExactly("a4", "a5");
+        assertThat(jdbcTemplate.activities).isEmpty();
+
+        drainAll();
+        assertThat(jdbcTemplate.activities).containsExactly("a0", "a1", "a2", "a3");
+        assertThat(writer.getStats().get("written")).isEqualTo(4L);
+    }
+
+    @Test
+    void rejectedBatchIsJournaledInOrder() throws Exception {
+        jdbcTemplate.failing = true;
+        writer.enqueueAll(List.of(entry("a0"), entry("a1"), entry("a2")));
+
+        drainAll();
+        assertThat(spilledActivities()).containsExactly("a0", "a1", "a2");
+        assertThat(writer.getStats().get("written")).isEqualTo(0L);
+        assertThat(writer.getStats().get("spilled")).isEqualTo(3L);
+    }
+
+    @Test
+    void replayInsertsOlderFilesFirstAndKeepsLineOrder() throws Exception {
+        // Left over from an earlier run, so it sorts ahead of the spill file moved aside now
+        Files.write(journalDir.resolve("audit-1000.replay"),
+                List.of(json("r0"), "", json("r1"), json("r2")), StandardCharsets.UTF_8);
+        jdbcTemplate.failing = true;
+        writer.enqueueAll(List.of(entry("s0"), entry("s1"), entry("s2")));
+        drainAll();
+
+        jdbcTemplate.failing = false;
+        replayJournal();
+
+        assertThat(jdbcTemplate.activities).containsExactly("r0", "r1", "r2", "s0", "s1", "s2");
+        // batch-size 2: each file is replayed as one full batch and a remainder
+        assertThat(jdbcTemplate.rowsPerStatement).containsExactly(2, 1, 2, 1);
+        assertThat(writer.getStats().get("replayed")).isEqualTo(6L);
+        assertThat(journalFiles()).isEmpty();
+    }
+
+    @Test
+    void failedReplayKeepsTheFileForTheNextAttempt() throws Exception {
+        jdbcTemplate.failing = true;
+        writer.enqueueAll(List.of(entry("s0"), entry("s1")));
+        drainAll();
+
+        replayJournal();
+        assertThat(journalFiles()).singleElement()
+                .satisfies(file -> assertThat(file.getFileName().toString()).endsWith(".replay"));
+        assertThat(writer.getStats().get("replayed")).isEqualTo(0L);
+
+        jdbcTemplate.failing = false;
+        replayJournal();
+        assertThat(jdbcTemplate.activities).containsExactly("s0", "s1");
+        assertThat(journalFiles()).isEmpty();
+    }
+
+    @Test
+    void longLinkedItemIsTruncatedToTheColumnWidth() {
+        writer.enqueue(AuditWriter.Entry.of("restore", "x".repeat(400), "alice", AuditLog.Status.SUCCESS));
+
+        drainAll();
+        assertThat(jdbcTemplate.linkedItems).singleElement()
+                .satisfies(item -> assertThat(item).hasSize(255));
+    }
+
+    @Test
+    void rejectedRowIsQuarantinedWithoutHoldingBackItsBatch() throws Exception {
+        jdbcTemplate.rejected.add("a1");
+        writer.enqueueAll(List.of(entry("a0"), entry("a1")));
+
+        drainAll();
+        assertThat(jdbcTemplate.activities).containsExactly("a0");
+        assertThat(quarantinedActivities()).containsExactly("a1");
+        assertThat(writer.getStats().get("written")).isEqualTo(1L);
+        assertThat(writer.getStats().get("quarantined")).isEqualTo(1L);
+        assertThat(Files.exists(journalDir.resolve("audit-spill.jsonl"))).isFalse();
+    }
+
+    @Test
+    void poisonRowInAReplayedFileDoesNotBlockLaterFiles() throws Exception {
+        Files.write(journalDir.resolve("audit-1000.replay"),
+                List.of(json("r0"), json("bad"), json("r1"), "{not json"), StandardCharsets.UTF_8);
+        Files.write(journalDir.resolve("audit-2000.replay"), List.of(json("r2")), StandardCharsets.UTF_8);
+        jdbcTemplate.rejected.add("bad");
+
+        replayJournal();
+
+        assertThat(jdbcTemplate.activities).containsExactly("r0", "r1", "r2");
+        assertThat(Files.readAllLines(journalDir.resolve("audit-failed.jsonl"), StandardCharsets.UTF_8))
+                .hasSize(2).last().isEqualTo("{not json");
+        assertThat(quarantinedActivities().get(0)).isEqualTo("bad");
+        assertThat(writer.getStats().get("replayed")).isEqualTo(3L);
+        assertThat(journalFiles()).extracting(file -> file.getFileName().toString())
+                .containsExactly("audit-failed.jsonl");
+    }
+
+    private List<String> quarantinedActivities() throws Exception {
+        List<String> activities = new ArrayList<>();
+        for (String line : Files.readAllLines(journalDir.resolve("audit-failed.jsonl"), StandardCharsets.UTF_8)) {
+            if (line.startsWith("{\"")) {
+                activities.add(objectMapper.readValue(line, AuditWriter.Entry.class).activity());
+            }
+        }
+        return activities;
+    }
+
+    private void drainAll() {
+        ReflectionTestUtils.invokeMethod(writer, "drainAll");
+    }
+
+    private void replayJournal() {
+        ReflectionTestUtils.invokeMethod(writer, "replayJournal");
+    }
+
+    private List<String> spilledActivities() throws Exception {
+        List<String> activities = new ArrayList<>();
+        for (String line : Files.readAllLines(journalDir.resolve("audit-spill.jsonl"), StandardCharsets.UTF_8)) {
+            activities.add(objectMapper.readValue(line, AuditWriter.Entry.class).activity());
+        }
+        return activities;
+    }
+
+    private List<Path> journalFiles() throws Exception {
+        try (Stream<Path> files = Files.list(journalDir)) {
+            return files.toList();
+        }
+    }
+
+    private String json(String activity) throws Exception {
+        return objectMapper.writeValueAsString(entry(activity));
+    }
+
+    private static AuditWriter.Entry entry(String activity) {
+        return AuditWriter.Entry.of(activity, "DOC-1", "alice", AuditLog.Status.SUCCESS);
+    }
+
+    /**
+     * Records the activity and linked item of every row the writer inserts; can be switched to
+     * refuse writes like an unreachable database, and rejects statements containing a row whose
+     * activity is listed in {@code rejected}, as a constraint violation would.
+     */
+    private static final class RecordingJdbcTemplate extends JdbcTemplate {
+        final List<String> activities = new ArrayList<>();
+        final List<String> linkedItems = new ArrayList<>();
+        final List<Integer> rowsPerStatement = new ArrayList<>();
+        final Set<String> rejected = new HashSet<>();
+        volatile boolean failing;
+
+        @Override
+        public int update(String sql, Object... args) {
+            if (failing) {
+                throw new DataAccessResourceFailureException("database unavailable");
+            }
+            // Five columns per row: activity, linked item, user, timestamp, status
+            for (int i = 0; i < args.length; i += 5) {
+                if (rejected.contains((String) args[i])) {
+                    throw new DataIntegrityViolationException("value too long for type character varying(255)");
+                }
+            }
+            for (int i = 0; i < args.length; i += 5) {
+                activities.add((String) args[i]);
+                linkedItems.add((String) args[i + 1]);
+            }
+            rowsPerStatement.add(args.length / 5);
+            return args.length / 5;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.clouddocs.backend.service;
+
+import com.clouddocs.backend.event.DeliveredEvent;
+import com.clouddocs.backend.event.DocumentDeleted;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the relay's claim SQL against a real Postgres: per-aggregate ordering across retries
+ * and leases, and handing an aggregate on once its blocking event goes DEAD.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class OutboxRelayTest {
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Long> delivered = Collections.synchronizedList(new ArrayList<>());
+    private final Set<Long> failing = ConcurrentHashMap.newKeySet();
+
+    private JdbcTemplate jdbcTemplate;
+    private OutboxRelay relay;
+    private ExecutorService[] lanes;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS outbox_events");
+        jdbcTemplate.execute("""
+            CREATE TABLE outbox_events (
+                id BIGSERIAL PRIMARY KEY,
+                aggregate_type VARCHAR(50) NOT NULL,
+                aggregate_id VARCHAR(100) NOT NULL,
+                event_type VARCHAR(100) NOT NULL,
+                payload TEXT NOT NULL,
+                status VARCHAR(20) NOT NULL,
+                attempts INTEGER NOT NULL,
+                created_at TIMESTAMP NOT NULL,
+                next_attempt_at TIMESTAMP NOT NULL,
+                locked_until TIMESTAMP,
+                published_at TIMESTAMP,
+                last_error VARCHAR(1000))
+            """);
+
+        ApplicationEventPublisher publisher = event -> {
+            long id = ((DeliveredEvent<?>) event).outboxId();
+            if (failing.contains(id)) {
+                throw new IllegalStateException("subscriber unavailable");
+            }
+            delivered.add(id);
+        };
+        relay = new OutboxRelay(jdbcTemplate, new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+                null, publisher, objectMapper, null);
+        ReflectionTestUtils.setField(relay, "enabled", false);
+        ReflectionTestUtils.setField(relay, "batchSize", 200);
+        ReflectionTestUtils.setField(relay, "leaseSeconds", 120);
+        ReflectionTestUtils.setField(relay, "maxAttempts", 12);
+        // Registers the event types without starting the relay thread; batches are driven by hand
+        relay.start();
+        lanes = new ExecutorService[] {Executors.newSingleThreadExecutor(), Executors.newSingleThreadExecutor()};
+        ReflectionTestUtils.setField(relay, "lanes", lanes);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdownNow();
+        }
+    }
+
+    @Test
+    void retryHoldsBackLaterEventsOfTheSameAggregateOnly() throws Exception {
+        long a1 = append(1L);
+        long b1 = append(2L);
+        long a2 = append(1L);
+        failing.add(a1);
+
+        relayBatch();
+        assertThat(delivered).containsExactly(b1);
+        assertThat(status(a1)).isEqualTo("PENDING");
+        assertThat(status(a2)).isEqualTo("PENDING");
+
+        // a1 is backing off, so a2 must not overtake it
+        assertThat(relayBatch()).isZero();
+        assertThat(delivered).containsExactly(b1);
+
+        failing.clear();
+        jdbcTemplate.update("UPDATE outbox_events SET next_attempt_at = ? WHERE id = ?", past(), a1);
+        relayBatch();
+        assertThat(delivered).containsExactly(b1, a1, a2);
+        assertThat(status(a1)).isEqualTo("PUBLISHED");
+        assertThat(status(a2)).isEqualTo("PUBLISHED");
+    }
+
+    @Test
+    void aggregateLeasedByAnotherNodeIsSkipped() throws Exception {
+        long a1 = append(1L);
+        long a2 = append(1L);
+        long b1 = append(2L);
+        // Another relay holds a1 under a live lease
+        jdbcTemplate.update("UPDATE outbox_events SET locked_until = ? WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now().plusMinutes(2)), a1);
+
+        relayBatch();
+        assertThat(delivered).containsExactly(b1);
+        assertThat(status(a2)).isEqualTo("PENDING");
+
+        // Its lease runs out without a publish: a1 and then a2 are picked up here
+        jdbcTemplate.update("UPDATE outbox_events SET locked_until = ? WHERE id = ?", past(), a1);
+        relayBatch();
+        assertThat(delivered).containsExactly(b1, a1, a2);
+    }
+
+    @Test
+    void deadEventHandsTheAggregateOn() throws Exception {
+        ReflectionTestUtils.setField(relay, "maxAttempts", 1);
+        long a1 = append(1L);
+        long a2 = append(1L);
+        failing.add(a1);
+
+        relayBatch();
+        assertThat(status(a1)).isEqualTo("DEAD");
+        assertThat(status(a2)).isEqualTo("PENDING");
+        assertThat(delivered).isEmpty();
+
+        relayBatch();
+        assertThat(delivered).containsExactly(a2);
+        assertThat(status(a2)).isEqualTo("PUBLISHED");
+        assertThat(status(a1)).isEqualTo("DEAD");
+    }
+
+    private int relayBatch() {
+        Integer relayed = ReflectionTestUtils.invokeMethod(relay, "relayBatch");
+        return relayed != null ? relayed : 0;
+    }
+
+    private long append(Long documentId) throws Exception {
+        DocumentDeleted event = new DocumentDeleted(documentId, "alice");
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO outbox_events (aggregate_type, aggregate_id, event_type, payload, status, attempts, " +
+                "created_at, next_attempt_at) VALUES (?, ?, ?, ?, 'PENDING', 0, ?, ?) RETURNING id", Long.class,
+                event.aggregateType(), event.aggregateId(), DocumentDeleted.class.getSimpleName(),
+                objectMapper.writeValueAsString(event), past(), past());
+    }
+
+    private String status(long id) {
+        return jdbcTemplate.queryForObject("SELECT status FROM outbox_events WHERE id = ?", String.class, id);
+    }
+
+    private static Timestamp past() {
+        return Timestamp.valueOf(LocalDateTime.now().minusSeconds(5));
+    }
+}
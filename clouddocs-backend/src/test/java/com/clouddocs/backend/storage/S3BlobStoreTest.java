@@ -0,0 +1,439 @@
+package com.clouddocs.backend.storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the S3 client against an in-process fake of the REST API. The fake recomputes every
+ * request's SigV4 signature from what it received and answers 403 on a mismatch, so the signer
+ * is exercised along with the object, multipart, range and listing calls.
+ */
+class S3BlobStoreTest {
+
+    private static final String BUCKET = "clouddocs";
+    private static final String REGION = "eu-west-1";
+    private static final String ACCESS_KEY = "test-access";
+    private static final String SECRET_KEY = "test-secret";
+    private static final int PART_SIZE = 5 * 1024 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private FakeS3 fake;
+    private HttpServer server;
+    private S3BlobStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fake = new FakeS3();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", fake::handle);
+        server.start();
+        // part-size-mb 0 is raised to the 5 MiB S3 minimum
+        store = new S3BlobStore("http://127.0.0.1:" + server.getAddress().getPort() + "/", BUCKET, REGION,
+                ACCESS_KEY, SECRET_KEY, true, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void singlePutFromFileAndGet() throws IOException {
+        byte[] data = bytes(64 * 1024, 1);
+        Path source = Files.write(tempDir.resolve("report.pdf"), data);
+
+        store.putFile("2025/01/report.pdf", source, "application/pdf");
+
+        assertThat(fake.objects.get("2025/01/report.pdf")).isEqualTo(data);
+        assertThat(fake.contentTypes.get("2025/01/report.pdf")).isEqualTo("application/pdf");
+        assertThat(fake.multipartCreated).isZero();
+        try (InputStream in = store.get("2025/01/report.pdf")) {
+            assertThat(in.readAllBytes()).isEqualTo(data);
+        }
+    }
+
+    @Test
+    void largeStreamIsUploadedInParts() throws IOException {
+        byte[] data = bytes(2 * PART_SIZE + 1234, 2);
+
+        store.put("cas/ab/cd/large", new ByteArrayInputStream(data), data.length, "application/octet-stream");
+
+        assertThat(fake.multipartCreated).isEqualTo(1);
+        assertThat(fake.partSizes).containsExactly(PART_SIZE, PART_SIZE, 1234);
+        assertThat(fake.objects.get("cas/ab/cd/large")).isEqualTo(data);
+        assertThat(fake.uploads).isEmpty();
+    }
+
+    @Test
+    void largeFileIsUploadedInParts() throws IOException {
+        byte[] data = bytes(PART_SIZE + 10, 3);
+        Path source = Files.write(tempDir.resolve("large.bin"), data);
+
+        store.putFile("cas/ef/01/large", source, null);
+
+        assertThat(fake.partSizes).containsExactly(PART_SIZE, 10);
+        assertThat(fake.objects.get("cas/ef/01/large")).isEqualTo(data);
+    }
+
+    @Test
+    void failedPartAbortsTheUpload() {
+        byte[] data = bytes(PART_SIZE + 10, 4);
+        fake.failPart = 2;
+
+        assertThatThrownBy(() -> store.put("cas/aa/bb/broken", new ByteArrayInputStream(data), data.length, null))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("UploadPart 2");
+        assertThat(fake.aborted).hasSize(1);
+        assertThat(fake.uploads).isEmpty();
+        assertThat(fake.objects).doesNotContainKey("cas/aa/bb/broken");
+    }
+
+    @Test
+    void rangedGetReturnsOnlyThoseBytes() throws IOException {
+        byte[] data = bytes(10_000, 5);
+        store.put("docs/range.bin", new ByteArrayInputStream(data), data.length, null);
+
+        try (InputStream in = store.get("docs/range.bin", 100, 199)) {
+            assertThat(in.readAllBytes()).isEqualTo(Arrays.copyOfRange(data, 100, 200));
+        }
+        assertThat(fake.ranges).containsExactly("bytes=100-199");
+    }
+
+    @Test
+    void sizeAndExistsUseHead() throws IOException {
+        store.put("docs/sized.txt", new ByteArrayInputStream(new byte[4321]), 4321, "text/plain");
+
+        assertThat(store.size("docs/sized.txt")).hasValue(4321);
+        assertThat(store.exists("docs/sized.txt")).isTrue();
+        assertThat(store.size("docs/missing.txt")).isEmpty();
+        assertThat(store.exists("docs/missing.txt")).isFalse();
+    }
+
+    @Test
+    void missingBlobIsFileNotFound() {
+        assertThatThrownBy(() -> store.get("docs/missing.txt")).isInstanceOf(FileNotFoundException.class);
+    }
+
+    @Test
+    void listReturnsKeysUnderThePrefixUpToTheLimit() throws IOException {
+        for (String key : List.of("docs/a&b.txt", "docs/b.txt", "docs/c.txt", "other/d.txt")) {
+            store.put(key, new ByteArrayInputStream(new byte[1]), 1, null);
+        }
+
+        assertThat(store.list("docs/", 10)).containsExactly("docs/a&b.txt", "docs/b.txt", "docs/c.txt");
+        assertThat(store.list("docs/", 2)).containsExactly("docs/a&b.txt", "docs/b.txt");
+        assertThat(store.list("none/", 10)).isEmpty();
+    }
+
+    @Test
+    void deleteReportsWhetherABlobWasRemoved() throws IOException {
+        store.put("docs/old.txt", new ByteArrayInputStream(new byte[3]), 3, null);
+
+        assertThat(store.delete("docs/old.txt")).isTrue();
+        assertThat(fake.objects).doesNotContainKey("docs/old.txt");
+        assertThat(store.delete("docs/old.txt")).isFalse();
+    }
+
+    @Test
+    void requestsSignedWithTheWrongSecretAreRejected() {
+        S3BlobStore wrongSecret = new S3BlobStore("http://127.0.0.1:" + server.getAddress().getPort(), BUCKET,
+                REGION, ACCESS_KEY, "not-the-secret", true, 0);
+
+        assertThatThrownBy(() -> wrongSecret.put("docs/x.txt", new ByteArrayInputStream(new byte[1]), 1, null))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("403");
+        assertThat(fake.objects).isEmpty();
+    }
+
+    private static byte[] bytes(int length, long seed) {
+        byte[] data = new byte[length];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    /**
+     * Just enough of the S3 REST API, path-style, for the calls the blob store makes.
+     */
+    private static final class FakeS3 {
+        private static final Pattern PART = Pattern.compile(
+                "<Part><PartNumber>(\\d+)</PartNumber><ETag>([^<]+)</ETag></Part>");
+        private static final Pattern AUTHORIZATION = Pattern.compile(
+                "AWS4-HMAC-SHA256 Credential=([^/]+)/([^,]+), SignedHeaders=([^,]+), Signature=([0-9a-f]+)");
+
+        final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+        final Map<String, String> contentTypes = new ConcurrentHashMap<>();
+        final Map<String, TreeMap<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+        final List<Integer> partSizes = new CopyOnWriteArrayList<>();
+        final List<String> ranges = new CopyOnWriteArrayList<>();
+        final List<String> aborted = new CopyOnWriteArrayList<>();
+        volatile int multipartCreated;
+        volatile int failPart;
+
+        void handle(HttpExchange exchange) throws IOException {
+            try (exchange) {
+                byte[] body = exchange.getRequestBody().readAllBytes();
+                if (!signatureMatches(exchange)) {
+                    respond(exchange, 403, "<Error><Code>SignatureDoesNotMatch</Code></Error>");
+                    return;
+                }
+                String path = exchange.getRequestURI().getPath();
+                String prefix = "/" + BUCKET + "/";
+                if (!path.startsWith(prefix)) {
+                    respond(exchange, 404, "<Error><Code>NoSuchBucket</Code></Error>");
+                    return;
+                }
+                String key = path.substring(prefix.length());
+                Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+                switch (exchange.getRequestMethod()) {
+                    case "PUT" -> put(exchange, key, query, body);
+                    case "POST" -> post(exchange, key, query, body);
+                    case "GET" -> {
+                        if (key.isEmpty()) {
+                            list(exchange, query);
+                        } else {
+                            get(exchange, key);
+                        }
+                    }
+                    case "HEAD" -> head(exchange, key);
+                    case "DELETE" -> delete(exchange, key, query);
+                    default -> respond(exchange, 405, "");
+                }
+            }
+        }
+
+        private void put(HttpExchange exchange, String key, Map<String, String> query, byte[] body) throws IOException {
+            String uploadId = query.get("uploadId");
+            if (uploadId == null) {
+                objects.put(key, body);
+                contentTypes.compute(key, (k, v) -> exchange.getRequestHeaders().getFirst("Content-Type"));
+                exchange.getResponseHeaders().set("ETag", etag(body));
+                respond(exchange, 200, "");
+                return;
+            }
+            int partNumber = Integer.parseInt(query.get("partNumber"));
+            TreeMap<Integer, byte[]> parts = uploads.get(uploadId);
+            if (parts == null) {
+                respond(exchange, 404, "<Error><Code>NoSuchUpload</Code></Error>");
+                return;
+            }
+            if (partNumber == failPart) {
+                respond(exchange, 500, "<Error><Code>InternalError</Code></Error>");
+                return;
+            }
+            parts.put(partNumber, body);
+            partSizes.add(body.length);
+            exchange.getResponseHeaders().set("ETag", etag(body));
+            respond(exchange, 200, "");
+        }
+
+        private void post(HttpExchange exchange, String key, Map<String, String> query, byte[] body) throws IOException {
+            if (query.containsKey("uploads")) {
+                String uploadId = "upload-" + (++multipartCreated);
+                uploads.put(uploadId, new TreeMap<>());
+                respond(exchange, 200, "<InitiateMultipartUploadResult><Bucket>" + BUCKET + "</Bucket><Key>" + key
+                        + "</Key><UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>");
+                return;
+            }
+            TreeMap<Integer, byte[]> parts = uploads.remove(query.get("uploadId"));
+            if (parts == null) {
+                respond(exchange, 404, "<Error><Code>NoSuchUpload</Code></Error>");
+                return;
+            }
+            ByteArrayOutputStream assembled = new ByteArrayOutputStream();
+            Matcher m = PART.matcher(new String(body, StandardCharsets.UTF_8));
+            int expected = 1;
+            while (m.find()) {
+                byte[] part = parts.get(Integer.parseInt(m.group(1)));
+                String sentEtag = m.group(2).replace("&quot;", "\"");
+                if (Integer.parseInt(m.group(1)) != expected++ || part == null || !sentEtag.equals(etag(part))) {
+                    // Like S3, a bad completion can come back as a 200 with an error body
+                    respond(exchange, 200, "<Error><Code>InvalidPart</Code></Error>");
+                    return;
+                }
+                assembled.write(part);
+            }
+            objects.put(key, assembled.toByteArray());
+            respond(exchange, 200, "<CompleteMultipartUploadResult><Key>" + key + "</Key></CompleteMultipartUploadResult>");
+        }
+
+        private void get(HttpExchange exchange, String key) throws IOException {
+            byte[] data = objects.get(key);
+            if (data == null) {
+                respond(exchange, 404, "<Error><Code>NoSuchKey</Code></Error>");
+                return;
+            }
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            if (range == null) {
+                respond(exchange, 200, data);
+                return;
+            }
+            ranges.add(range);
+            String[] bounds = range.substring("bytes=".length()).split("-");
+            int start = Integer.parseInt(bounds[0]);
+            int end = Math.min(Integer.parseInt(bounds[1]), data.length - 1);
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + data.length);
+            respond(exchange, 206, Arrays.copyOfRange(data, start, end + 1));
+        }
+
+        private void head(HttpExchange exchange, String key) throws IOException {
+            byte[] data = objects.get(key);
+            if (data == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Length", String.valueOf(data.length));
+            exchange.sendResponseHeaders(200, -1);
+        }
+
+        private void delete(HttpExchange exchange, String key, Map<String, String> query) throws IOException {
+            String uploadId = query.get("uploadId");
+            if (uploadId != null) {
+                uploads.remove(uploadId);
+                aborted.add(uploadId);
+            } else {
+                objects.remove(key);
+            }
+            exchange.sendResponseHeaders(204, -1);
+        }
+
+        private void list(HttpExchange exchange, Map<String, String> query) throws IOException {
+            String prefix = query.getOrDefault("prefix", "");
+            int maxKeys = Integer.parseInt(query.getOrDefault("max-keys", "1000"));
+            StringBuilder xml = new StringBuilder("<ListBucketResult><Name>" + BUCKET + "</Name>");
+            new TreeMap<>(objects).keySet().stream()
+                    .filter(key -> key.startsWith(prefix))
+                    .limit(maxKeys)
+                    .forEach(key -> xml.append("<Contents><Key>").append(key.replace("&", "&amp;"))
+                            .append("</Key><Size>").append(objects.get(key).length).append("</Size></Contents>"));
+            respond(exchange, 200, xml.append("</ListBucketResult>").toString());
+        }
+
+        /**
+         * Rebuild the canonical request from what arrived on the wire and check the signature.
+         */
+        private boolean signatureMatches(HttpExchange exchange) {
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            Matcher m = authorization != null ? AUTHORIZATION.matcher(authorization) : null;
+            if (m == null || !m.matches() || !m.group(1).equals(ACCESS_KEY)) {
+                return false;
+            }
+            String scope = m.group(2);
+            String amzDate = exchange.getRequestHeaders().getFirst("x-amz-date");
+            if (amzDate == null || !scope.equals(amzDate.substring(0, 8) + "/" + REGION + "/s3/aws4_request")) {
+                return false;
+            }
+
+            TreeMap<String, String> query = new TreeMap<>();
+            String rawQuery = exchange.getRequestURI().getRawQuery();
+            if (rawQuery != null) {
+                for (String pair : rawQuery.split("&")) {
+                    int eq = pair.indexOf('=');
+                    query.put(eq < 0 ? pair : pair.substring(0, eq), eq < 0 ? "" : pair.substring(eq + 1));
+                }
+            }
+            List<String> canonicalQuery = new ArrayList<>();
+            query.forEach((k, v) -> canonicalQuery.add(k + "=" + v));
+
+            StringBuilder canonicalHeaders = new StringBuilder();
+            for (String name : m.group(3).split(";")) {
+                String value = exchange.getRequestHeaders().getFirst(name);
+                if (value == null) {
+                    return false;
+                }
+                canonicalHeaders.append(name).append(':').append(value.trim()).append('\n');
+            }
+
+            String canonicalRequest = exchange.getRequestMethod() + "\n" + exchange.getRequestURI().getRawPath() + "\n"
+                    + String.join("&", canonicalQuery) + "\n" + canonicalHeaders + "\n" + m.group(3) + "\n"
+                    + exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+            String stringToSign = "AWS4-HMAC-SHA256\n" + amzDate + "\n" + scope + "\n"
+                    + HexFormat.of().formatHex(sha256(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+
+            byte[] key = hmac(("AWS4" + SECRET_KEY).getBytes(StandardCharsets.UTF_8), amzDate.substring(0, 8));
+            key = hmac(key, REGION);
+            key = hmac(key, "s3");
+            key = hmac(key, "aws4_request");
+            return HexFormat.of().formatHex(hmac(key, stringToSign)).equals(m.group(4));
+        }
+
+        private static Map<String, String> query(String rawQuery) {
+            Map<String, String> query = new TreeMap<>();
+            if (rawQuery != null) {
+                for (String pair : rawQuery.split("&")) {
+                    int eq = pair.indexOf('=');
+                    String name = eq < 0 ? pair : pair.substring(0, eq);
+                    String value = eq < 0 ? "" : pair.substring(eq + 1);
+                    query.put(name, URLDecoder.decode(value, StandardCharsets.UTF_8));
+                }
+            }
+            return query;
+        }
+
+        private static String etag(byte[] data) {
+            return "\"" + HexFormat.of().formatHex(sha256(data)).substring(0, 32) + "\"";
+        }
+
+        private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+            respond(exchange, status, body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+            exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+            if (body.length > 0) {
+                exchange.getResponseBody().write(body);
+            }
+        }
+
+        private static byte[] sha256(byte[] value) {
+            try {
+                return MessageDigest.getInstance("SHA-256").digest(value);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static byte[] hmac(byte[] key, String value) {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(new SecretKeySpec(key, "HmacSHA256"));
+                return mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}